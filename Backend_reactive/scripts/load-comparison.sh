@@ -0,0 +1,66 @@
+#!/bin/sh
+# Side-by-side load test: Backend_spring (servlet + JPA) vs Backend_reactive
+# (WebFlux + R2DBC), each on its own in-memory H2 database.
+#
+# Usage (from Backend_reactive/):
+#   (cd ../Backend_spring && mvn package -DskipTests)
+#   mvn package -DskipTests
+#   scripts/load-comparison.sh [-Dconcurrency=32,256 -Dduration=10 ...]
+#
+# Both servers get the same seed data through their own API and the same
+# JWT secret, so one token (registered on the servlet app) works for both.
+
+SERVLET_JAR=../Backend_spring/target/project-0.0.1-SNAPSHOT.jar
+REACTIVE_JAR=target/project-reactive-0.0.1-SNAPSHOT.jar
+WORK=target/load-comparison
+SERVLET_PORT=${SERVLET_PORT:-18081}
+REACTIVE_PORT=${REACTIVE_PORT:-18082}
+HEAP=${HEAP:--Xmx512m}
+
+for JAR in "$SERVLET_JAR" "$REACTIVE_JAR"; do
+    if [ ! -f "$JAR" ]; then
+        echo "Missing $JAR - build both modules with 'mvn package -DskipTests' first"
+        exit 1
+    fi
+done
+
+rm -rf "$WORK"
+mkdir -p "$WORK"
+
+# Limiter and warm-up off so the servlet stack is measured as-is; the harness warms both
+java $HEAP -jar "$SERVLET_JAR" --server.port=$SERVLET_PORT \
+    --spring.datasource.url=jdbc:h2:mem:load --spring.datasource.driver-class-name=org.h2.Driver \
+    --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect --spring.jpa.show-sql=false \
+    --limiter.enabled=false --warmup.enabled=false \
+    --jwt.algorithm=RS256 --jwt.key-directory="$WORK/keys" --jwt.key-generate=true \
+    --logging.level.root=WARN > "$WORK/servlet.log" 2>&1 &
+SERVLET_PID=$!
+java $HEAP -jar "$REACTIVE_JAR" --server.port=$REACTIVE_PORT \
+    --spring.r2dbc.url=r2dbc:h2:mem:///load --jwt.jwks-uri=http://localhost:$SERVLET_PORT/auth/jwks \
+    --logging.level.root=WARN > "$WORK/reactive.log" 2>&1 &
+REACTIVE_PID=$!
+trap 'kill $SERVLET_PID $REACTIVE_PID 2> /dev/null' EXIT
+
+for PORT in $SERVLET_PORT $REACTIVE_PORT; do
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        sleep 0.5
+    done
+done
+
+TOKEN=$(curl -s -X POST "http://localhost:$SERVLET_PORT/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"loadtest","email":"loadtest@example.com","password":"loadtest"}' \
+    | sed -n 's/.*"accessToken":"\([^"]*\)".*/\1/p')
+if [ -z "$TOKEN" ]; then
+    echo "Could not register the load test user"
+    exit 1
+fi
+
+java "$@" src/test/java/spring/back/reactive/benchmark/LoadComparison.java "$TOKEN" \
+    servlet=http://localhost:$SERVLET_PORT reactive=http://localhost:$REACTIVE_PORT
+
+# Server-side footprint after the run
+echo
+for NAME in servlet reactive; do
+    if [ $NAME = servlet ]; then PID=$SERVLET_PID; else PID=$REACTIVE_PID; fi
+    awk -v name=$NAME '/VmRSS|Threads/ {printf "%s %s %s %s\n", name, $1, $2, $3}' /proc/$PID/status
+done
@@ -0,0 +1,120 @@
+package spring.back.reactive.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.Student;
+import spring.back.reactive.model.StudentView;
+import spring.back.reactive.service.StudentService;
+
+import java.util.Map;
+
+/**
+ * Same contract as Backend_spring's StudentController. List endpoints stream
+ * rows as the client reads them; ask for application/x-ndjson to get one
+ * student per line instead of a JSON array.
+ */
+@RestController
+@RequestMapping("/api/students")
+@CrossOrigin(origins = "*")
+public class StudentController {
+
+    @Autowired
+    private StudentService studentService;
+
+    // Get all students
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<StudentView> getAllStudents() {
+        return studentService.getAllStudents();
+    }
+
+    // Get student by ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<StudentView>> getStudentById(@PathVariable Long id) {
+        return studentService.getStudentById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Create student
+    @PostMapping
+    public Mono<ResponseEntity<StudentView>> createStudent(@RequestBody StudentRequest request) {
+        return studentService.createStudent(request.toStudent())
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    // Update student
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<StudentView>> updateStudent(@PathVariable Long id, @RequestBody StudentRequest request) {
+        return studentService.updateStudent(id, request.toStudent())
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // Delete student
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteStudent(@PathVariable Long id) {
+        return studentService.deleteStudent(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // Search students
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<StudentView> searchStudents(@RequestParam String query) {
+        return studentService.searchStudents(query);
+    }
+
+    // Get students by university
+    @GetMapping(value = "/university/{universityId}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<StudentView> getStudentsByUniversity(@PathVariable Long universityId) {
+        return studentService.getStudentsByUniversity(universityId);
+    }
+
+    // Get student statistics
+    @GetMapping("/stats")
+    public Mono<Map<String, Object>> getStudentStats() {
+        return studentService.getStudentCount().map(count -> Map.of("totalStudents", count));
+    }
+
+    // Request body, the university is referenced as {"university": {"id": ...}}
+    public static class StudentRequest {
+        private String firstName;
+        private String lastName;
+        private String email;
+        private UniversityRef university;
+
+        public String getFirstName() { return firstName; }
+        public void setFirstName(String firstName) { this.firstName = firstName; }
+
+        public String getLastName() { return lastName; }
+        public void setLastName(String lastName) { this.lastName = lastName; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+
+        public UniversityRef getUniversity() { return university; }
+        public void setUniversity(UniversityRef university) { this.university = university; }
+
+        Student toStudent() {
+            Student student = new Student();
+            student.setFirstName(firstName);
+            student.setLastName(lastName);
+            student.setEmail(email);
+            student.setUniversityId(university != null ? university.getId() : null);
+            return student;
+        }
+    }
+
+    public static class UniversityRef {
+        private Long id;
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+    }
+}
@@ -0,0 +1,162 @@
+package spring.back.reactive.controller;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.StudentView;
+import spring.back.reactive.model.University;
+import spring.back.reactive.service.StudentService;
+import spring.back.reactive.service.UniversityService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Same contract as Backend_spring's UniversityController.
+ */
+@RestController
+@RequestMapping("/api/universities")
+@CrossOrigin(origins = "*")
+public class UniversityController {
+
+    private static final String INCLUDE_STUDENTS = "students";
+
+    // Universities whose students are loaded at the same time for ?include=students
+    private static final int INCLUDE_CONCURRENCY = 8;
+
+    @Autowired
+    private UniversityService universityService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Value("${universities.max-student-limit:1000}")
+    private int maxStudentLimit;
+
+    // Get all universities (?include=students adds the first `studentLimit` students of each)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UniversityResponse> getAllUniversities(
+            @RequestParam(required = false) String include,
+            @RequestParam(defaultValue = "100") int studentLimit) {
+        if (!INCLUDE_STUDENTS.equals(include)) {
+            return universityService.getAllUniversities().map(UniversityResponse::new);
+        }
+        // Collect first so the outer query's connection is released before the per-university
+        // queries borrow theirs - streaming both would exhaust the pool under load
+        return universityService.getAllUniversities().collectList()
+                .flatMapMany(Flux::fromIterable)
+                .flatMapSequential(university -> toResponse(university, include, studentLimit), INCLUDE_CONCURRENCY);
+    }
+
+    // Get university by ID
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UniversityResponse>> getUniversityById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String include,
+            @RequestParam(defaultValue = "100") int studentLimit) {
+        return universityService.getUniversityById(id)
+                .flatMap(university -> toResponse(university, include, studentLimit))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Get the next page of a university's students (cursor from `studentsCursor`)
+    @GetMapping("/{id}/students")
+    public Mono<Map<String, Object>> getUniversityStudents(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = clampStudentLimit(limit);
+        return studentService.getStudentsByUniversity(id, after, pageSize + 1).collectList().map(students -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("students", page(students, pageSize));
+            response.put("cursor", nextCursor(students, pageSize));
+            return response;
+        });
+    }
+
+    // Create university
+    @PostMapping
+    public Mono<ResponseEntity<University>> createUniversity(@RequestBody University university) {
+        return universityService.createUniversity(university)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    // Update university
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<University>> updateUniversity(@PathVariable Long id, @RequestBody University university) {
+        return universityService.updateUniversity(id, university)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // Delete university
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUniversity(@PathVariable Long id) {
+        return universityService.deleteUniversity(id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    // Search universities
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<University> searchUniversities(@RequestParam String name) {
+        return universityService.searchByName(name);
+    }
+
+    private Mono<UniversityResponse> toResponse(University university, String include, int studentLimit) {
+        UniversityResponse response = new UniversityResponse(university);
+        if (!INCLUDE_STUDENTS.equals(include)) {
+            return Mono.just(response);
+        }
+        int limit = clampStudentLimit(studentLimit);
+        return studentService.getStudentsByUniversity(university.getId(), 0L, limit + 1).collectList().map(students -> {
+            response.students = page(students, limit);
+            response.studentsCursor = nextCursor(students, limit);
+            return response;
+        });
+    }
+
+    private int clampStudentLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxStudentLimit));
+    }
+
+    private List<StudentView> page(List<StudentView> students, int limit) {
+        return students.size() > limit ? students.subList(0, limit) : students;
+    }
+
+    // Cursor for the next page, or null if this was the last one
+    private Long nextCursor(List<StudentView> students, int limit) {
+        return students.size() > limit ? students.get(limit - 1).getId() : null;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class UniversityResponse {
+        private Long id;
+        private String name;
+        private String location;
+        @JsonIgnoreProperties("university")
+        private List<StudentView> students;
+        private Long studentsCursor;
+
+        public UniversityResponse(University university) {
+            this.id = university.getId();
+            this.name = university.getName();
+            this.location = university.getLocation();
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getLocation() { return location; }
+        public List<StudentView> getStudents() { return students; }
+        public Long getStudentsCursor() { return studentsCursor; }
+    }
+}
@@ -0,0 +1,97 @@
+package spring.back.reactive.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * A student joined with its university. Serializes like the Backend_spring
+ * Student entity: {id, firstName, lastName, email, university, fullName}.
+ */
+@JsonPropertyOrder({"id", "firstName", "lastName", "email", "university", "fullName"})
+public class StudentView {
+
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Long universityId;
+    private String universityName;
+    private String universityLocation;
+
+    // Constructors
+    public StudentView() {
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    @JsonIgnore
+    public Long getUniversityId() {
+        return universityId;
+    }
+
+    public void setUniversityId(Long universityId) {
+        this.universityId = universityId;
+    }
+
+    @JsonIgnore
+    public String getUniversityName() {
+        return universityName;
+    }
+
+    public void setUniversityName(String universityName) {
+        this.universityName = universityName;
+    }
+
+    @JsonIgnore
+    public String getUniversityLocation() {
+        return universityLocation;
+    }
+
+    public void setUniversityLocation(String universityLocation) {
+        this.universityLocation = universityLocation;
+    }
+
+    public University getUniversity() {
+        if (universityId == null) {
+            return null;
+        }
+        University university = new University(universityName, universityLocation);
+        university.setId(universityId);
+        return university;
+    }
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
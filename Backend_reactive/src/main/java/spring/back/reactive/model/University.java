@@ -0,0 +1,49 @@
+package spring.back.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Table("universities")
+public class University {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String location;
+
+    // Constructors
+    public University() {
+    }
+
+    public University(String name, String location) {
+        this.name = name;
+        this.location = location;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+}
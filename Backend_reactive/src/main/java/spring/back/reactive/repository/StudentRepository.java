@@ -0,0 +1,39 @@
+package spring.back.reactive.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.Student;
+import spring.back.reactive.model.StudentView;
+
+@Repository
+public interface StudentRepository extends ReactiveCrudRepository<Student, Long> {
+
+    String VIEW = "SELECT s.id, s.first_name, s.last_name, s.email, s.university_id, "
+            + "u.name AS university_name, u.location AS university_location "
+            + "FROM students s LEFT JOIN universities u ON u.id = s.university_id ";
+
+    // All students with their university, in id order
+    @Query(VIEW + "ORDER BY s.id")
+    Flux<StudentView> findAllViews();
+
+    @Query(VIEW + "WHERE s.id = :id")
+    Mono<StudentView> findViewById(Long id);
+
+    // Search students by first name, last name or email
+    @Query(VIEW + "WHERE LOWER(s.first_name) LIKE LOWER(CONCAT('%', :search, '%')) "
+            + "OR LOWER(s.last_name) LIKE LOWER(CONCAT('%', :search, '%')) "
+            + "OR LOWER(s.email) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY s.id")
+    Flux<StudentView> searchStudents(String search);
+
+    @Query(VIEW + "WHERE s.university_id = :universityId ORDER BY s.id")
+    Flux<StudentView> findViewsByUniversityId(Long universityId);
+
+    // Page of a university's students after a cursor
+    @Query(VIEW + "WHERE s.university_id = :universityId AND s.id > :afterId ORDER BY s.id LIMIT :limit")
+    Flux<StudentView> findPageByUniversityId(Long universityId, Long afterId, int limit);
+
+    Flux<Student> findByUniversityId(Long universityId);
+}
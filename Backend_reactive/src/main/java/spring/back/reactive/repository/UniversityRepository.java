@@ -0,0 +1,17 @@
+package spring.back.reactive.repository;
+
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import spring.back.reactive.model.University;
+
+@Repository
+public interface UniversityRepository extends ReactiveCrudRepository<University, Long> {
+
+    @Query("SELECT * FROM universities ORDER BY id")
+    Flux<University> findAllOrderById();
+
+    @Query("SELECT * FROM universities WHERE LOWER(name) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY id")
+    Flux<University> findByNameContainingIgnoreCase(String name);
+}
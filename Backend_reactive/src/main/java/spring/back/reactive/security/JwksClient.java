@@ -0,0 +1,109 @@
+package spring.back.reactive.security;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Backend_spring's public signing keys (/auth/jwks), fetched without
+ * blocking and kept for jwt.jwks-refresh-interval. A kid not seen yet (the
+ * backend rotated) refetches early, at most once per jwks-min-refetch-interval;
+ * concurrent callers share one fetch.
+ */
+@Component
+public class JwksClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksClient.class);
+
+    private final WebClient webClient;
+
+    private final Duration refreshInterval;
+
+    private final Duration minRefetchInterval;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    private volatile long fetchedAt;
+
+    // Guarded by this; the fetch in progress, if any
+    private Mono<Void> fetching;
+
+    public JwksClient(WebClient.Builder builder,
+                      @Value("${jwt.jwks-uri:}") String jwksUri,
+                      @Value("${jwt.jwks-refresh-interval:5m}") Duration refreshInterval,
+                      @Value("${jwt.jwks-min-refetch-interval:10s}") Duration minRefetchInterval) {
+        this.webClient = jwksUri.isEmpty() ? null : builder.baseUrl(jwksUri).build();
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+    }
+
+    /**
+     * Key for a kid, empty if the backend does not publish it (or cannot be reached)
+     */
+    public Mono<PublicKey> get(String kid) {
+        PublicKey key = keys.get(kid);
+        long age = System.currentTimeMillis() - fetchedAt;
+        if (key != null && age < refreshInterval.toMillis()) {
+            return Mono.just(key);
+        }
+        if (webClient == null || age < minRefetchInterval.toMillis()) {
+            return Mono.justOrEmpty(key);
+        }
+        return refresh().then(Mono.fromSupplier(() -> keys.get(kid)));
+    }
+
+    /**
+     * Key for a kid as last fetched, without fetching
+     */
+    public PublicKey getCached(String kid) {
+        return keys.get(kid);
+    }
+
+    private synchronized Mono<Void> refresh() {
+        if (fetching == null) {
+            fetchedAt = System.currentTimeMillis();
+            fetching = webClient.get()
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(Duration.ofSeconds(3))
+                    .map(JwksClient::parse)
+                    .doOnNext(loaded -> keys = loaded)
+                    .onErrorResume(e -> {
+                        logger.warn("Could not fetch the JWK Set: {}", e.toString());
+                        return Mono.empty();
+                    })
+                    .doFinally(signal -> done())
+                    .then()
+                    .cache();
+        }
+        return fetching;
+    }
+
+    private synchronized void done() {
+        fetching = null;
+    }
+
+    private static Map<String, PublicKey> parse(String json) {
+        JwkSet set = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> byId = new HashMap<>();
+        for (Jwk<?> jwk : set) {
+            Key key = jwk.toKey();
+            if (jwk.getId() != null && key instanceof PublicKey publicKey) {
+                byId.put(jwk.getId(), publicKey);
+            }
+        }
+        return Map.copyOf(byId);
+    }
+}
@@ -0,0 +1,167 @@
+package spring.back.reactive.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Validates Backend_spring access tokens on the event loop. Checking the
+ * signature and expiry is pure CPU work with a parser built once, and the
+ * signed subject is trusted, so no user lookup (and no blocking) happens.
+ *
+ * Tokens with a kid are verified with the backend's published public keys
+ * (JwksClient, fetched without blocking), older ones with the HMAC secret.
+ * Claims the gateway already verified arrive as X-Auth-Claims and only need
+ * their HMAC checked (jwt.gateway-claims-secret, ignored when empty).
+ */
+@Component
+public class JwtAuthenticationManager implements ReactiveAuthenticationManager, ServerAuthenticationConverter {
+
+    private static final String BEARER = "Bearer ";
+
+    private static final String CLAIMS_HEADER = "X-Auth-Claims";
+    private static final String CLAIMS_SIGNATURE_HEADER = "X-Auth-Claims-Signature";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JwksClient jwksClient;
+
+    private final JwtParser parser;
+
+    private final SecretKeySpec claimsKey;
+
+    public JwtAuthenticationManager(JwksClient jwksClient,
+                                    @Value("${jwt.secret:your-secret-key-change-in-production}") String secret,
+                                    @Value("${jwt.accept-hmac:true}") boolean acceptHmac,
+                                    @Value("${jwt.gateway-claims-secret:}") String claimsSecret) {
+        this.jwksClient = jwksClient;
+        SecretKey hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        // authenticate fetched the key for a kid before parsing
+                        if (header.getKeyId() != null) {
+                            return jwksClient.getCached(header.getKeyId());
+                        }
+                        return acceptHmac ? hmacKey : null;
+                    }
+                })
+                .build();
+        this.claimsKey = claimsSecret.isEmpty() ? null
+                : new SecretKeySpec(claimsSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    }
+
+    // Gateway claims if present and enabled, else the bearer token; empty if there is neither
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String claims = headers.getFirst(CLAIMS_HEADER);
+        String signature = headers.getFirst(CLAIMS_SIGNATURE_HEADER);
+        if (claimsKey != null && claims != null && signature != null) {
+            GatewayClaims gatewayClaims = new GatewayClaims(claims, signature);
+            return Mono.just(new UsernamePasswordAuthenticationToken(gatewayClaims, gatewayClaims));
+        }
+
+        String header = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER)) {
+            return Mono.empty();
+        }
+        String token = header.substring(BEARER.length());
+        return Mono.just(new UsernamePasswordAuthenticationToken(token, token));
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        if (authentication.getCredentials() instanceof GatewayClaims claims) {
+            String subject = verifiedSubject(claims);
+            return subject != null
+                    ? Mono.just(new UsernamePasswordAuthenticationToken(subject, null, List.of()))
+                    : Mono.error(new BadCredentialsException("Invalid gateway claims"));
+        }
+
+        String token = (String) authentication.getCredentials();
+        String kid = keyId(token);
+        Mono<?> keyReady = kid != null ? jwksClient.get(kid) : Mono.empty();
+        return keyReady.then(Mono.defer(() -> {
+            try {
+                // parseSignedClaims also rejects expired tokens
+                Claims claims = parser.parseSignedClaims(token).getPayload();
+                return Mono.just(new UsernamePasswordAuthenticationToken(claims.getSubject(), token, List.of()));
+            } catch (JwtException | IllegalArgumentException e) {
+                return Mono.error(new BadCredentialsException("Invalid token", e));
+            }
+        }));
+    }
+
+    // kid from the token header, null if absent or malformed (the parser then rejects it)
+    private static String keyId(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            JsonNode kid = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot))).get("kid");
+            return kid != null && kid.isTextual() ? kid.asText() : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String verifiedSubject(GatewayClaims claims) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(claimsKey);
+            byte[] expected = mac.doFinal(claims.value.getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(claims.signature))) {
+                return null;
+            }
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(claims.value));
+            if (payload.path("exp").asLong(0) * 1000 < System.currentTimeMillis()) {
+                return null;
+            }
+            String subject = payload.path("sub").asText(null);
+            return subject == null || subject.isEmpty() ? null : subject;
+        } catch (GeneralSecurityException | IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // X-Auth-Claims value and its signature, carried from convert to authenticate
+    private static class GatewayClaims {
+        private final String value;
+        private final String signature;
+
+        GatewayClaims(String value, String signature) {
+            this.value = value;
+            this.signature = signature;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package spring.back.reactive.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.StudentView;
+import spring.back.reactive.model.University;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends to the change_events outbox shared with Backend_spring, in the
+ * caller's transaction, with the same payloads as its ChangeFeedService.
+ */
+@Service
+public class ChangeEventWriter {
+
+    private static final String INSERT = "INSERT INTO change_events "
+            + "(entity_type, entity_id, operation, university_id, payload, created_at) "
+            + "VALUES (:entityType, :entityId, :operation, :universityId, :payload, :createdAt)";
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Record a student change
+    public Mono<Void> recordStudent(String operation, StudentView student) {
+        String payload = operation.equals("DELETE") ? null : toJson(student);
+        return record("STUDENT", student.getId(), operation, student.getUniversityId(), payload);
+    }
+
+    // Record a university change
+    public Mono<Void> recordUniversity(String operation, University university) {
+        String payload = null;
+        if (!operation.equals("DELETE")) {
+            // Students are not part of the snapshot, they have their own events
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("id", university.getId());
+            snapshot.put("name", university.getName());
+            snapshot.put("location", university.getLocation());
+            payload = toJson(snapshot);
+        }
+        return record("UNIVERSITY", university.getId(), operation, null, payload);
+    }
+
+    private Mono<Void> record(String entityType, Long entityId, String operation, Long universityId, String payload) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(INSERT)
+                .bind("entityType", entityType)
+                .bind("entityId", entityId)
+                .bind("operation", operation)
+                .bind("createdAt", Instant.now());
+        spec = universityId != null ? spec.bind("universityId", universityId) : spec.bindNull("universityId", Long.class);
+        spec = payload != null ? spec.bind("payload", payload) : spec.bindNull("payload", String.class);
+        return spec.then();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change payload", e);
+        }
+    }
+}
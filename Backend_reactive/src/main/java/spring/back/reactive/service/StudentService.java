@@ -0,0 +1,108 @@
+package spring.back.reactive.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.Student;
+import spring.back.reactive.model.StudentView;
+import spring.back.reactive.repository.StudentRepository;
+import spring.back.reactive.repository.UniversityRepository;
+
+import java.util.NoSuchElementException;
+
+@Service
+public class StudentService {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private ChangeEventWriter changeEventWriter;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    // Get all students, streamed in id order
+    public Flux<StudentView> getAllStudents() {
+        return studentRepository.findAllViews();
+    }
+
+    // Get student by ID
+    public Mono<StudentView> getStudentById(Long id) {
+        return studentRepository.findViewById(id);
+    }
+
+    // Create student
+    public Mono<StudentView> createStudent(Student student) {
+        Mono<StudentView> create = requireUniversity(student.getUniversityId())
+                .then(Mono.defer(() -> studentRepository.save(student)))
+                .flatMap(saved -> studentRepository.findViewById(saved.getId()))
+                .flatMap(view -> changeEventWriter.recordStudent("CREATE", view).thenReturn(view));
+        return transactionalOperator.transactional(create);
+    }
+
+    // Update student
+    public Mono<StudentView> updateStudent(Long id, Student studentDetails) {
+        Mono<StudentView> update = studentRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("Student not found with id: " + id)))
+                .flatMap(student -> {
+                    student.setFirstName(studentDetails.getFirstName());
+                    student.setLastName(studentDetails.getLastName());
+                    student.setEmail(studentDetails.getEmail());
+
+                    // Update university if provided
+                    if (studentDetails.getUniversityId() == null) {
+                        return studentRepository.save(student);
+                    }
+                    student.setUniversityId(studentDetails.getUniversityId());
+                    return requireUniversity(studentDetails.getUniversityId()).then(studentRepository.save(student));
+                })
+                .flatMap(saved -> studentRepository.findViewById(saved.getId()))
+                .flatMap(view -> changeEventWriter.recordStudent("UPDATE", view).thenReturn(view));
+        return transactionalOperator.transactional(update);
+    }
+
+    // Delete student
+    public Mono<Void> deleteStudent(Long id) {
+        Mono<Void> delete = studentRepository.findViewById(id)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("Student not found with id: " + id)))
+                .flatMap(view -> studentRepository.deleteById(id)
+                        .then(changeEventWriter.recordStudent("DELETE", view)));
+        return transactionalOperator.transactional(delete);
+    }
+
+    // Search students (name or email)
+    public Flux<StudentView> searchStudents(String search) {
+        return studentRepository.searchStudents(search);
+    }
+
+    // Get students by university
+    public Flux<StudentView> getStudentsByUniversity(Long universityId) {
+        return studentRepository.findViewsByUniversityId(universityId);
+    }
+
+    // Get a page of a university's students after a cursor
+    public Flux<StudentView> getStudentsByUniversity(Long universityId, Long afterId, int limit) {
+        return studentRepository.findPageByUniversityId(universityId, afterId, limit);
+    }
+
+    // Get student count
+    public Mono<Long> getStudentCount() {
+        return studentRepository.count();
+    }
+
+    private Mono<Void> requireUniversity(Long universityId) {
+        if (universityId == null) {
+            return Mono.error(new IllegalArgumentException("University is required"));
+        }
+        return universityRepository.existsById(universityId)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("University not found with id: " + universityId)))
+                .then();
+    }
+}
@@ -0,0 +1,78 @@
+package spring.back.reactive.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import spring.back.reactive.model.University;
+import spring.back.reactive.repository.StudentRepository;
+import spring.back.reactive.repository.UniversityRepository;
+
+import java.util.NoSuchElementException;
+
+@Service
+public class UniversityService {
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private ChangeEventWriter changeEventWriter;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    // Get all universities
+    public Flux<University> getAllUniversities() {
+        return universityRepository.findAllOrderById();
+    }
+
+    // Get university by ID
+    public Mono<University> getUniversityById(Long id) {
+        return universityRepository.findById(id);
+    }
+
+    // Create university
+    public Mono<University> createUniversity(University university) {
+        university.setId(null);
+        return transactionalOperator.transactional(universityRepository.save(university)
+                .flatMap(saved -> changeEventWriter.recordUniversity("CREATE", saved).thenReturn(saved)));
+    }
+
+    // Update university
+    public Mono<University> updateUniversity(Long id, University universityDetails) {
+        Mono<University> update = universityRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("University not found with id: " + id)))
+                .flatMap(university -> {
+                    university.setName(universityDetails.getName());
+                    university.setLocation(universityDetails.getLocation());
+                    return universityRepository.save(university);
+                })
+                .flatMap(saved -> changeEventWriter.recordUniversity("UPDATE", saved).thenReturn(saved));
+        return transactionalOperator.transactional(update);
+    }
+
+    // Delete university together with its students, like the JPA cascade in Backend_spring
+    public Mono<Void> deleteUniversity(Long id) {
+        Mono<Void> delete = universityRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NoSuchElementException("University not found with id: " + id)))
+                .flatMap(university -> studentService.getStudentsByUniversity(id)
+                        .concatMap(student -> studentRepository.deleteById(student.getId())
+                                .then(changeEventWriter.recordStudent("DELETE", student)))
+                        .then(universityRepository.delete(university))
+                        .then(changeEventWriter.recordUniversity("DELETE", university)));
+        return transactionalOperator.transactional(delete);
+    }
+
+    // Search universities by name
+    public Flux<University> searchByName(String name) {
+        return universityRepository.findByNameContainingIgnoreCase(name);
+    }
+}
@@ -0,0 +1,26 @@
+-- Embedded (H2) schema, the same tables Backend_spring's Hibernate DDL creates
+CREATE TABLE IF NOT EXISTS universities (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    location VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS students (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    university_id BIGINT NOT NULL REFERENCES universities (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_students_university ON students (university_id);
+
+CREATE TABLE IF NOT EXISTS change_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    university_id BIGINT,
+    payload CLOB,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
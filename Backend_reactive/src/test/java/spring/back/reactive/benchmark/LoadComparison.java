@@ -0,0 +1,239 @@
+package spring.back.reactive.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test of the same API on several servers (servlet vs reactive).
+ * Seeds identical data through each server's own API, warms it up, then runs
+ * every scenario at every concurrency level and prints throughput and latency.
+ * Only needs the JDK, scripts/load-comparison.sh starts both servers and runs:
+ *
+ *   java src/test/java/spring/back/reactive/benchmark/LoadComparison.java \
+ *       &lt;token&gt; servlet=http://localhost:18081 reactive=http://localhost:18082
+ *
+ * Tuning: -Dconcurrency=32,256 -Dduration=10 -Dwarmup=10 -Duniversities=50 -Dstudents=20
+ */
+public class LoadComparison {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private static final int[] CONCURRENCY = parse(System.getProperty("concurrency", "32,256"));
+    private static final int DURATION = Integer.getInteger("duration", 10);
+    private static final int WARMUP = Integer.getInteger("warmup", 10);
+    private static final int UNIVERSITIES = Integer.getInteger("universities", 50);
+    private static final int STUDENTS = Integer.getInteger("students", 20);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: LoadComparison <token> <name>=<baseUrl> [<name>=<baseUrl> ...]");
+            System.exit(1);
+        }
+        String token = args[0];
+        Map<String, String> targets = new LinkedHashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] target = args[i].split("=", 2);
+            targets.put(target[0], target[1]);
+        }
+
+        List<String> rows = new ArrayList<>();
+        rows.add(String.format("%-9s %-34s %6s %10s %9s %9s %9s %7s",
+                "server", "scenario", "conc", "req/s", "p50 ms", "p99 ms", "max ms", "errors"));
+        for (Map.Entry<String, String> target : targets.entrySet()) {
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            Target server = new Target(client, target.getValue(), token);
+
+            System.out.printf("%s: seeding %d universities x %d students%n", target.getKey(), UNIVERSITIES, STUDENTS);
+            List<Long> studentIds = server.seed();
+            Map<String, Supplier<HttpRequest>> scenarios = scenarios(server, studentIds);
+
+            System.out.printf("%s: warming up for %ds%n", target.getKey(), WARMUP);
+            for (Supplier<HttpRequest> scenario : scenarios.values()) {
+                run(client, scenario, 32, Math.max(1, WARMUP / scenarios.size()));
+            }
+
+            for (Map.Entry<String, Supplier<HttpRequest>> scenario : scenarios.entrySet()) {
+                for (int concurrency : CONCURRENCY) {
+                    Result result = run(client, scenario.getValue(), concurrency, DURATION);
+                    String row = String.format("%-9s %-34s %6d %10.0f %9.2f %9.2f %9.2f %7d",
+                            target.getKey(), scenario.getKey(), concurrency, result.throughput(),
+                            result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors);
+                    System.out.println(row);
+                    rows.add(row);
+                }
+            }
+            executor.shutdownNow();
+        }
+
+        System.out.println();
+        rows.forEach(System.out::println);
+    }
+
+    private static Map<String, Supplier<HttpRequest>> scenarios(Target server, List<Long> studentIds) {
+        Map<String, Supplier<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("GET /api/students/{id}", () -> server.get("/api/students/"
+                + studentIds.get(ThreadLocalRandom.current().nextInt(studentIds.size()))));
+        scenarios.put("GET /api/students/search?query=7", () -> server.get("/api/students/search?query=7"));
+        scenarios.put("GET /api/universities?include=..", () -> server.get("/api/universities?include=students&studentLimit=10"));
+        scenarios.put("GET /api/students (all)", () -> server.get("/api/students"));
+        return scenarios;
+    }
+
+    // Closed loop: `concurrency` request chains, each sends its next request when the previous one completes
+    private static Result run(HttpClient client, Supplier<HttpRequest> scenario, int concurrency, int seconds)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong errors = new AtomicLong();
+        List<List<Long>> latencies = new ArrayList<>();
+        List<CompletableFuture<Void>> chains = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            List<Long> samples = Collections.synchronizedList(new ArrayList<>());
+            latencies.add(samples);
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            chains.add(done);
+            next(client, scenario, running, samples, errors, done);
+        }
+
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        CompletableFuture.allOf(chains.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+        return new Result(all, errors.get(), elapsed);
+    }
+
+    private static void next(HttpClient client, Supplier<HttpRequest> scenario, AtomicBoolean running,
+                             List<Long> samples, AtomicLong errors, CompletableFuture<Void> done) {
+        if (!running.get()) {
+            done.complete(null);
+            return;
+        }
+        long begin = System.nanoTime();
+        client.sendAsync(scenario.get(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            samples.add(System.nanoTime() - begin);
+            if (error != null || response.statusCode() >= 300) {
+                errors.incrementAndGet();
+            }
+            next(client, scenario, running, samples, errors, done);
+        });
+    }
+
+    private static int[] parse(String values) {
+        String[] parts = values.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    private static final class Target {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String token;
+
+        Target(HttpClient client, String baseUrl, String token) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.token = token;
+        }
+
+        HttpRequest get(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+        }
+
+        // Same rows on every server: universities u0..uN, each with STUDENTS students
+        List<Long> seed() throws Exception {
+            List<Long> studentIds = new ArrayList<>();
+            for (int u = 0; u < UNIVERSITIES; u++) {
+                long universityId = post("/api/universities",
+                        "{\"name\":\"University " + u + "\",\"location\":\"City " + (u % 7) + "\"}");
+                List<CompletableFuture<Long>> students = new ArrayList<>();
+                for (int s = 0; s < STUDENTS; s++) {
+                    int n = u * STUDENTS + s;
+                    students.add(postAsync("/api/students", "{\"firstName\":\"First" + n + "\",\"lastName\":\"Last" + n
+                            + "\",\"email\":\"student" + n + "@example.com\",\"university\":{\"id\":" + universityId + "}}"));
+                }
+                for (CompletableFuture<Long> student : students) {
+                    studentIds.add(student.get());
+                }
+            }
+            return studentIds;
+        }
+
+        private long post(String path, String json) throws Exception {
+            return postAsync(path, json).get();
+        }
+
+        private CompletableFuture<Long> postAsync(String path, String json) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+                Matcher matcher = ID.matcher(response.body());
+                if (response.statusCode() != 201 || !matcher.find()) {
+                    throw new IllegalStateException("Seeding " + path + " failed: " + response.statusCode()
+                            + " " + response.body());
+                }
+                return Long.parseLong(matcher.group(1));
+            });
+        }
+    }
+
+    private static final class Result {
+        private final List<Long> latencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Result(List<Long> latencies, long errors, long elapsedNanos) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double throughput() {
+            return latencies.size() / (elapsedNanos / 1e9);
+        }
+
+        // Milliseconds
+        double percentile(double quantile) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.size() - 1, Math.ceil(quantile * latencies.size()) - 1);
+            return latencies.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
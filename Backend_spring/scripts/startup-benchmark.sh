@@ -0,0 +1,81 @@
+#!/bin/sh
+# Startup time and RSS benchmark for the Backend_spring run modes.
+#
+# Usage (from Backend_spring/):
+#   mvn -Paot package -DskipTests          # JVM jar with AOT classes
+#   mvn -Pnative native:compile -DskipTests # optional, needs GraalVM
+#   scripts/startup-benchmark.sh [runs]
+#
+# Each mode is started against an in-memory H2 database so the numbers
+# do not depend on MySQL being reachable.
+#
+# The AOT and native modes use bean definitions generated at build time:
+# sharding.enabled (SHARDING_ENABLED) takes effect only when set for the
+# build; limiter, idempotency and deadline switches are read at startup.
+
+RUNS=${1:-5}
+JAR=target/project-0.0.1-SNAPSHOT.jar
+NATIVE=target/project
+WORK=target/startup-benchmark
+PORT=${PORT:-18081}
+
+H2_ARGS="-Dspring.datasource.url=jdbc:h2:mem:bench -Dspring.datasource.driver-class-name=org.h2.Driver -Dspring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect -Dspring.jpa.show-sql=false -Dserver.port=$PORT"
+
+if [ ! -f "$JAR" ]; then
+    echo "Missing $JAR - run 'mvn -Paot package -DskipTests' first"
+    exit 1
+fi
+
+# Extract the jar and record the AppCDS archive once (training run)
+rm -rf "$WORK"
+mkdir -p "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" > /dev/null
+java -XX:ArchiveClassesAtExit="$WORK/app/app.jsa" -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh $H2_ARGS -jar "$WORK/app/$(basename "$JAR")" > /dev/null 2>&1
+
+# Start a command, wait for "Started", print "<seconds> <rss-kb>"
+measure() {
+    LOG="$WORK/run.log"
+    "$@" > "$LOG" 2>&1 &
+    PID=$!
+    while ! grep -q "Started ProjectApplication" "$LOG"; do
+        if ! kill -0 $PID 2> /dev/null; then
+            echo "failed"
+            return
+        fi
+        sleep 0.1
+    done
+    SECONDS_TAKEN=$(sed -n 's/.*Started ProjectApplication in \([0-9.]*\) seconds.*/\1/p' "$LOG")
+    RSS=$(awk '/VmRSS/ {print $2}' /proc/$PID/status)
+    kill $PID
+    wait $PID 2> /dev/null
+    echo "$SECONDS_TAKEN $RSS"
+}
+
+run_mode() {
+    NAME=$1
+    shift
+    TOTAL_TIME=0
+    TOTAL_RSS=0
+    for i in $(seq 1 "$RUNS"); do
+        RESULT=$(measure "$@")
+        if [ "$RESULT" = "failed" ]; then
+            echo "$NAME: failed to start, see $WORK/run.log"
+            return
+        fi
+        TOTAL_TIME=$(awk "BEGIN {print $TOTAL_TIME + ${RESULT% *}}")
+        TOTAL_RSS=$((TOTAL_RSS + ${RESULT#* }))
+    done
+    printf "%-8s startup %6.3fs   rss %6d MB\n" "$NAME" \
+        "$(awk "BEGIN {print $TOTAL_TIME / $RUNS}")" $((TOTAL_RSS / RUNS / 1024))
+}
+
+echo "Average over $RUNS runs"
+run_mode jvm java $H2_ARGS -jar "$JAR"
+run_mode aot java -Dspring.aot.enabled=true $H2_ARGS -jar "$WORK/app/$(basename "$JAR")"
+run_mode cds java -XX:SharedArchiveFile="$WORK/app/app.jsa" -Dspring.aot.enabled=true $H2_ARGS -jar "$WORK/app/$(basename "$JAR")"
+if [ -x "$NATIVE" ]; then
+    run_mode native "$NATIVE" $H2_ARGS
+else
+    echo "native   skipped ($NATIVE not built)"
+fi
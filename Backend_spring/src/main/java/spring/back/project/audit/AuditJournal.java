@@ -0,0 +1,373 @@
+package spring.back.project.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import spring.back.project.audit.AuditRecord.EntityType;
+import spring.back.project.audit.AuditRecord.Operation;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.User;
+import spring.back.project.observability.RequestIdFilter;
+import spring.back.project.service.ChangeFeedService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit journal of committed student, university and user changes,
+ * kept in files next to the application instead of extra rows in each
+ * transaction.
+ *
+ * Request threads publish into a bounded ring buffer (claiming a slot is one
+ * CAS, which also assigns the gapless sequence); a single writer thread
+ * drains it in sequence order into memory-mapped segment files. Segments are
+ * forced to disk every audit.fsync-interval, rolled over when full and
+ * deleted after audit.retention. A record reaches the journal only after
+ * its transaction committed, so a crash can lose at most the last
+ * fsync-interval of records, never show uncommitted ones.
+ */
+@Component
+public class AuditJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditJournal.class);
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.directory:audit}")
+    private Path directory;
+
+    @Value("${audit.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    // Slots in the ring buffer, rounded up to a power of two
+    @Value("${audit.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${audit.fsync-interval:1s}")
+    private Duration fsyncInterval;
+
+    @Value("${audit.retention:90d}")
+    private Duration retention;
+
+    // How long a publisher waits for room before the record is dropped (and logged)
+    @Value("${audit.publish-timeout:1s}")
+    private Duration publishTimeout;
+
+    private AtomicReferenceArray<AuditRecord> slots;
+    private int mask;
+
+    // Next sequence to hand out
+    private final AtomicLong claimed = new AtomicLong();
+
+    // Next sequence the writer takes; slots below it are free again
+    private final AtomicLong drained = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writer;
+
+    // Writer thread only
+    private AuditSegment segment;
+    private long lastForce;
+    private boolean unforced;
+    private long lastRetentionCheck;
+
+    private Counter recordsCounter;
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+
+        Files.createDirectories(directory);
+        segment = openNewest();
+        claimed.set(segment.getLastSequence() + 1);
+        drained.set(segment.getLastSequence() + 1);
+        lastForce = System.nanoTime();
+
+        recordsCounter = Counter.builder("audit.journal.records")
+                .description("Records written to the audit journal").register(meterRegistry);
+        droppedCounter = Counter.builder("audit.journal.dropped")
+                .description("Audit records dropped because the journal could not keep up").register(meterRegistry);
+        Gauge.builder("audit.journal.backlog", () -> claimed.get() - drained.get())
+                .description("Records published but not yet written").register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::drain, "audit-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        changeFeedService.addListener(this::recordChange);
+        logger.info("Audit journal in {} continues at sequence {}", directory.toAbsolutePath(), claimed.get());
+    }
+
+    /**
+     * Record a registered user; the password hash is not journaled
+     */
+    public void recordUser(User user) {
+        if (!running) {
+            return;
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("id", user.getId());
+        snapshot.put("username", user.getUsername());
+        snapshot.put("email", user.getEmail());
+        snapshot.put("firstName", user.getFirstName());
+        snapshot.put("lastName", user.getLastName());
+        try {
+            publish(new AuditRecord(System.currentTimeMillis(), EntityType.USER, Operation.CREATE, user.getId(),
+                    null, user.getUsername(), MDC.get(RequestIdFilter.MDC_KEY), objectMapper.writeValueAsString(snapshot)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize audit payload", e);
+        }
+    }
+
+    /**
+     * Journal status for /api/admin/audit
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (!enabled) {
+            return status;
+        }
+        status.put("directory", directory.toAbsolutePath().toString());
+        status.put("lastSequence", drained.get() - 1);
+        status.put("backlog", claimed.get() - drained.get());
+        status.put("dropped", (long) droppedCounter.count());
+        List<Path> segments = segments();
+        long bytes = 0;
+        for (Path path : segments) {
+            try {
+                bytes += Files.size(path);
+            } catch (IOException e) {
+                // Deleted by retention meanwhile
+            }
+        }
+        status.put("segments", segments.size());
+        status.put("allocatedBytes", bytes);
+        return status;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(Duration.ofSeconds(10).toMillis());
+    }
+
+    // Called by ChangeFeedService after each commit, on the committing thread
+    private void recordChange(ChangeEvent event) {
+        EntityType entityType = event.getEntityType() == ChangeEvent.EntityType.STUDENT
+                ? EntityType.STUDENT : EntityType.UNIVERSITY;
+        publish(new AuditRecord(System.currentTimeMillis(), entityType, Operation.valueOf(event.getOperation().name()),
+                event.getEntityId(), event.getUniversityId(), currentUser(), MDC.get(RequestIdFilter.MDC_KEY),
+                event.getPayload()));
+    }
+
+    private void publish(AuditRecord record) {
+        long deadline = 0;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - drained.get() < slots.length()) {
+                if (claimed.compareAndSet(sequence, sequence + 1)) {
+                    record.setSequence(sequence);
+                    slots.set((int) sequence & mask, record);
+                    if (writerParked) {
+                        LockSupport.unpark(writer);
+                    }
+                    return;
+                }
+                continue;
+            }
+
+            // Full: the writer is behind (slow disk) or stuck
+            long now = System.nanoTime();
+            if (deadline == 0) {
+                deadline = now + publishTimeout.toNanos();
+            } else if (now - deadline > 0 || !running) {
+                droppedCounter.increment();
+                logger.error("Audit journal full, dropped {} {} {}",
+                        record.getOperation(), record.getEntityType(), record.getEntityId());
+                return;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // Writer thread: take records in sequence order until shut down and drained
+    private void drain() {
+        long next = drained.get();
+        while (running || next < claimed.get()) {
+            int slot = (int) next & mask;
+            AuditRecord record = slots.get(slot);
+            if (record != null && record.getSequence() == next) {
+                write(record);
+                slots.set(slot, null);
+                drained.set(++next);
+                if (System.nanoTime() - lastForce >= fsyncInterval.toNanos()) {
+                    force();
+                }
+                continue;
+            }
+
+            if (unforced && System.nanoTime() - lastForce >= fsyncInterval.toNanos()) {
+                force();
+            }
+            if (System.nanoTime() - lastRetentionCheck >= Duration.ofMinutes(10).toNanos()) {
+                lastRetentionCheck = System.nanoTime();
+                deleteExpired();
+            }
+
+            // Sleep until the next publish, or the next due fsync
+            writerParked = true;
+            if (slots.get(slot) == null && running) {
+                LockSupport.parkNanos(unforced ? fsyncInterval.toNanos() : Duration.ofSeconds(1).toNanos());
+            }
+            writerParked = false;
+        }
+
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.error("Could not close audit segment {}", segment.getPath(), e);
+        }
+    }
+
+    private void write(AuditRecord record) {
+        while (!segment.append(record)) {
+            if (record.encodedSize() > segmentSize.toBytes() - AuditSegment.HEADER_BYTES - 4) {
+                // Never fits; leaves a gap that verification reports
+                droppedCounter.increment();
+                logger.error("Audit record {} is larger than a segment, dropped", record.getSequence());
+                return;
+            }
+            try {
+                roll(record.getSequence());
+            } catch (IOException e) {
+                // Disk full or similar: publishers start dropping once the buffer fills
+                logger.error("Could not start a new audit segment in {}, retrying", directory.toAbsolutePath(), e);
+                LockSupport.parkNanos(Duration.ofSeconds(1).toNanos());
+            }
+        }
+        recordsCounter.increment();
+        unforced = true;
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        AuditSegment next = AuditSegment.create(directory, firstSequence, (int) segmentSize.toBytes());
+        segment.close();
+        segment = next;
+        lastForce = System.nanoTime();
+        unforced = false;
+        deleteExpired();
+    }
+
+    private void force() {
+        segment.force();
+        lastForce = System.nanoTime();
+        unforced = false;
+    }
+
+    // Continue the newest segment, or start a fresh one after a torn tail
+    private AuditSegment openNewest() throws IOException {
+        List<Path> segments = segments();
+        if (!segments.isEmpty() && Files.size(segments.get(segments.size() - 1)) < AuditSegment.HEADER_BYTES) {
+            // Crashed while creating it, before anything was written
+            Files.delete(segments.get(segments.size() - 1));
+            segments = segments();
+        }
+        if (segments.isEmpty()) {
+            return AuditSegment.create(directory, 1, (int) segmentSize.toBytes());
+        }
+        AuditSegment newest = AuditSegment.openForAppend(segments.get(segments.size() - 1));
+        if (!newest.isDamaged()) {
+            return newest;
+        }
+        logger.warn("Audit segment {} ends in a torn record, continuing in a new segment", newest.getPath());
+        newest.close();
+        return AuditSegment.create(directory, newest.getLastSequence() + 1, (int) segmentSize.toBytes());
+    }
+
+    // Closed segments whose last write is older than the retention
+    private void deleteExpired() {
+        FileTime cutoff = FileTime.from(Instant.now().minus(retention));
+        for (Path path : segments()) {
+            if (path.equals(segment.getPath())) {
+                continue;
+            }
+            try {
+                if (Files.getLastModifiedTime(path).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(path);
+                    logger.info("Deleted expired audit segment {}", path.getFileName());
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete audit segment {}: {}", path, e.toString());
+            }
+        }
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditSegment::isSegment).sorted().toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,149 @@
+package spring.back.project.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads the audit journal in sequence order, checking each record's CRC and
+ * that sequences have no gaps. Safe to run while the application appends.
+ *
+ * Also runnable on its own against a journal directory:
+ * <pre>
+ * java -cp target/project-0.0.1-SNAPSHOT.jar -Dloader.main=spring.back.project.audit.AuditJournalReader \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher audit [dump|verify] [afterSequence]
+ * </pre>
+ * dump prints one JSON object per record, verify only the summary.
+ */
+public class AuditJournalReader {
+
+    private final Path directory;
+
+    public AuditJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Call back with every record after a sequence (0 for all)
+     */
+    public Summary read(long afterSequence, Consumer<AuditRecord> consumer) throws IOException {
+        return read(afterSequence, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Call back with at most maxRecords records after a sequence; the
+     * segments after the last of them are not read
+     */
+    public Summary read(long afterSequence, long maxRecords, Consumer<AuditRecord> consumer) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(AuditSegment::isSegment).sorted().toList();
+        }
+
+        Summary summary = new Summary();
+        for (int i = 0; i < segments.size() && summary.records < maxRecords; i++) {
+            // Every record of this segment is below the next segment's first sequence
+            if (i + 1 < segments.size() && AuditSegment.firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            Path path = segments.get(i);
+            summary.segments++;
+            boolean complete = AuditSegment.read(path, record -> {
+                if (summary.lastSequence != 0 && record.getSequence() != summary.lastSequence + 1) {
+                    summary.gaps.add(Map.of("after", summary.lastSequence, "missing", record.getSequence() - summary.lastSequence - 1));
+                }
+                summary.lastSequence = record.getSequence();
+                if (record.getSequence() > afterSequence) {
+                    summary.records++;
+                    if (summary.firstSequence == 0) {
+                        summary.firstSequence = record.getSequence();
+                    }
+                    consumer.accept(record);
+                }
+                return summary.records < maxRecords;
+            });
+            if (!complete) {
+                summary.tornSegments.add(path.getFileName().toString());
+            }
+        }
+        return summary;
+    }
+
+    public static Map<String, Object> toMap(AuditRecord record) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("sequence", record.getSequence());
+        map.put("timestamp", Instant.ofEpochMilli(record.getTimestamp()).toString());
+        map.put("entityType", record.getEntityType());
+        map.put("operation", record.getOperation());
+        map.put("entityId", record.getEntityId());
+        map.put("universityId", record.getUniversityId());
+        map.put("actor", record.getActor());
+        map.put("requestId", record.getRequestId());
+        map.put("payload", record.getPayload());
+        return map;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: AuditJournalReader <directory> [dump|verify] [afterSequence]");
+            System.exit(2);
+        }
+        String command = args.length > 1 ? args[1] : "dump";
+        long afterSequence = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        ObjectMapper objectMapper = new ObjectMapper();
+        PrintStream out = System.out;
+
+        Summary summary = new AuditJournalReader(Path.of(args[0])).read(afterSequence, record -> {
+            if (command.equals("dump")) {
+                try {
+                    out.println(objectMapper.writeValueAsString(toMap(record)));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        System.err.println(objectMapper.writeValueAsString(summary.toMap()));
+        if (!summary.gaps.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * What a read covered. A segment ends torn when the process died mid-write
+     * (the journal then continues in a new segment); a gap means records were lost.
+     */
+    public static class Summary {
+        private int segments;
+        private long records;
+        private long firstSequence;
+        private long lastSequence;
+        private final List<Map<String, Long>> gaps = new ArrayList<>();
+        private final List<String> tornSegments = new ArrayList<>();
+
+        public long getRecords() { return records; }
+        public long getLastSequence() { return lastSequence; }
+        public List<Map<String, Long>> getGaps() { return gaps; }
+        public List<String> getTornSegments() { return tornSegments; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("segments", segments);
+            map.put("records", records);
+            map.put("firstSequence", firstSequence);
+            map.put("lastSequence", lastSequence);
+            map.put("gaps", gaps);
+            map.put("tornSegments", tornSegments);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package spring.back.project.audit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * One committed create / update / delete, as stored in the audit journal.
+ *
+ * Binary layout (big-endian), prefixed by the body length and its CRC32C:
+ * <pre>
+ * int   length         of the body below; 0 marks the end of a segment's data
+ * int   crc            CRC32C of the body
+ * long  sequence       gapless, in journal order
+ * long  timestamp      epoch millis
+ * byte  entity type    EntityType ordinal
+ * byte  operation      Operation ordinal
+ * long  entity id
+ * long  university id  0 when there is none
+ * short + bytes        actor (username), UTF-8
+ * short + bytes        request id, UTF-8
+ * int   + bytes        payload: JSON snapshot of the entity, empty for deletes
+ * </pre>
+ */
+public class AuditRecord {
+
+    public enum EntityType { STUDENT, UNIVERSITY, USER }
+
+    public enum Operation { CREATE, UPDATE, DELETE }
+
+    // length + crc
+    static final int PREFIX_BYTES = 8;
+
+    private static final int FIXED_BODY_BYTES = 8 + 8 + 1 + 1 + 8 + 8 + 2 + 2 + 4;
+
+    private static final int MAX_SHORT_STRING = 0xFFFF;
+
+    private long sequence;
+    private final long timestamp;
+    private final EntityType entityType;
+    private final Operation operation;
+    private final long entityId;
+    private final Long universityId;
+    private final byte[] actor;
+    private final byte[] requestId;
+    private final byte[] payload;
+
+    public AuditRecord(long timestamp, EntityType entityType, Operation operation, long entityId,
+                       Long universityId, String actor, String requestId, String payload) {
+        this(0, timestamp, entityType, operation, entityId, universityId,
+                shortString(actor), shortString(requestId),
+                payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    private AuditRecord(long sequence, long timestamp, EntityType entityType, Operation operation, long entityId,
+                        Long universityId, byte[] actor, byte[] requestId, byte[] payload) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.entityType = entityType;
+        this.operation = operation;
+        this.entityId = entityId;
+        this.universityId = universityId;
+        this.actor = actor;
+        this.requestId = requestId;
+        this.payload = payload;
+    }
+
+    public long getSequence() { return sequence; }
+    public long getTimestamp() { return timestamp; }
+    public EntityType getEntityType() { return entityType; }
+    public Operation getOperation() { return operation; }
+    public long getEntityId() { return entityId; }
+    public Long getUniversityId() { return universityId; }
+    public String getActor() { return actor.length > 0 ? new String(actor, StandardCharsets.UTF_8) : null; }
+    public String getRequestId() { return requestId.length > 0 ? new String(requestId, StandardCharsets.UTF_8) : null; }
+    public String getPayload() { return payload.length > 0 ? new String(payload, StandardCharsets.UTF_8) : null; }
+
+    // Assigned by the journal when the record is published
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Bytes this record takes in a segment, prefix included
+     */
+    int encodedSize() {
+        return PREFIX_BYTES + FIXED_BODY_BYTES + actor.length + requestId.length + payload.length;
+    }
+
+    /**
+     * Write the record at the buffer's position; the caller checked the remaining space
+     */
+    void encode(ByteBuffer buffer) {
+        int start = buffer.position();
+        int bodyStart = start + PREFIX_BYTES;
+        buffer.position(bodyStart);
+        buffer.putLong(sequence);
+        buffer.putLong(timestamp);
+        buffer.put((byte) entityType.ordinal());
+        buffer.put((byte) operation.ordinal());
+        buffer.putLong(entityId);
+        buffer.putLong(universityId != null ? universityId : 0L);
+        buffer.putShort((short) actor.length);
+        buffer.put(actor);
+        buffer.putShort((short) requestId.length);
+        buffer.put(requestId);
+        buffer.putInt(payload.length);
+        buffer.put(payload);
+        int end = buffer.position();
+
+        // Length last, so a reader never sees a length whose body is still being written
+        buffer.putInt(start + 4, crc(buffer, bodyStart, end));
+        buffer.putInt(start, end - bodyStart);
+    }
+
+    /**
+     * Read the record at the buffer's position and move past it.
+     * Returns null, leaving the position unchanged, at the end of the data or
+     * at a torn / corrupt record.
+     */
+    static AuditRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < PREFIX_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length < FIXED_BODY_BYTES || length > buffer.remaining() - PREFIX_BYTES) {
+            return null;
+        }
+        int bodyStart = start + PREFIX_BYTES;
+        if (crc(buffer, bodyStart, bodyStart + length) != buffer.getInt(start + 4)) {
+            return null;
+        }
+
+        ByteBuffer body = buffer.duplicate().position(bodyStart).limit(bodyStart + length);
+        try {
+            long sequence = body.getLong();
+            long timestamp = body.getLong();
+            EntityType entityType = EntityType.values()[body.get()];
+            Operation operation = Operation.values()[body.get()];
+            long entityId = body.getLong();
+            long universityId = body.getLong();
+            byte[] actor = new byte[Short.toUnsignedInt(body.getShort())];
+            body.get(actor);
+            byte[] requestId = new byte[Short.toUnsignedInt(body.getShort())];
+            body.get(requestId);
+            byte[] payload = new byte[body.getInt()];
+            body.get(payload);
+
+            buffer.position(bodyStart + length);
+            return new AuditRecord(sequence, timestamp, entityType, operation, entityId,
+                    universityId != 0 ? universityId : null, actor, requestId, payload);
+        } catch (RuntimeException e) {
+            // CRC matched but the body does not parse: treat like a torn record
+            return null;
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(from).limit(to));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] shortString(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_SHORT_STRING) {
+            throw new IllegalArgumentException("Value too long for an audit record");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,367 @@
+package spring.back.project.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import spring.back.project.audit.AuditRecord.EntityType;
+import spring.back.project.audit.AuditRecord.Operation;
+import spring.back.project.model.University;
+import spring.back.project.readmodel.ReadModel;
+import spring.back.project.sharding.ShardMap;
+import spring.back.project.sharding.ShardRebalancer;
+import spring.back.project.sharding.ShardRouter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Replays the audit journal into the final state of every entity it mentions
+ * and compares that with the tables: rows missing, different, or present
+ * although the journal deleted them. With apply, students and universities
+ * are written back to match (users only verified: the journal has no
+ * password hashes). Entities the journal never mentions, e.g. older than
+ * its retention, are left alone.
+ *
+ * The journal only holds the commits of this instance. Apply is off unless
+ * audit.replay.apply-enabled is set, and is refused when the shared change
+ * feed shows a newer change to an entity it would rewrite: another instance
+ * wrote it, and the journal's snapshot would overwrite that write.
+ */
+@Service
+public class AuditReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditReplay.class);
+
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ReadModel readModel;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${audit.replay.max-reported:100}")
+    private int maxReported;
+
+    @Value("${audit.replay.apply-enabled:false}")
+    private boolean applyEnabled;
+
+    /**
+     * Compare (and with apply, repair) the tables against the journal
+     */
+    public Map<String, Object> replay(boolean apply) throws IOException {
+        if (apply && !applyEnabled) {
+            throw new IllegalStateException("Replay with apply is disabled (audit.replay.apply-enabled)");
+        }
+        Map<Long, AuditRecord> universities = new HashMap<>();
+        Map<Long, AuditRecord> students = new HashMap<>();
+        Map<Long, AuditRecord> users = new HashMap<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(journal.getDirectory()).read(0, record -> {
+            switch (record.getEntityType()) {
+                case UNIVERSITY -> universities.put(record.getEntityId(), record);
+                case STUDENT -> students.put(record.getEntityId(), record);
+                case USER -> users.put(record.getEntityId(), record);
+            }
+        });
+
+        List<Difference> differences = new ArrayList<>();
+        Map<Long, Map<String, Object>> universityRows = queryById(shardMap.getPrimary(),
+                "SELECT id, name, location FROM universities WHERE id IN (:ids)", universities);
+        for (AuditRecord record : universities.values()) {
+            compare(differences, record, universityState(record), universityRows.get(record.getEntityId()));
+        }
+
+        Map<Long, Map<String, Object>> studentRows = new HashMap<>();
+        Map<Long, String> studentShards = new HashMap<>();
+        for (String shard : shardMap.getShardNames()) {
+            queryById(shard, "SELECT id, first_name, last_name, email, university_id FROM students WHERE id IN (:ids)",
+                    students).forEach((id, row) -> {
+                studentRows.put(id, row);
+                studentShards.put(id, shard);
+            });
+        }
+        for (AuditRecord record : students.values()) {
+            compare(differences, record, studentState(record, universities), studentRows.get(record.getEntityId()));
+        }
+
+        Map<Long, Map<String, Object>> userRows = queryById(shardMap.getPrimary(),
+                "SELECT id, username, email, first_name, last_name FROM users WHERE id IN (:ids)", users);
+        for (AuditRecord record : users.values()) {
+            compare(differences, record, userState(record), userRows.get(record.getEntityId()));
+        }
+
+        int repaired = 0;
+        if (apply && !differences.isEmpty()) {
+            List<Long> writtenElsewhere = writtenElsewhere(differences);
+            if (!writtenElsewhere.isEmpty()) {
+                throw new IllegalStateException(writtenElsewhere.size() + " entities to repair have newer changes "
+                        + "this journal did not record (another instance wrote them), e.g. "
+                        + writtenElsewhere.subList(0, Math.min(10, writtenElsewhere.size())) + "; nothing applied");
+            }
+            repaired = repair(differences, studentShards);
+            readModel.refresh();
+            logger.warn("Audit replay repaired {} of {} rows that differed from the journal", repaired, differences.size());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("journal", summary.toMap());
+        result.put("universities", universities.size());
+        result.put("students", students.size());
+        result.put("users", users.size());
+        result.put("differences", differences.size());
+        result.put("reported", differences.stream().limit(maxReported).map(Difference::toMap).toList());
+        result.put("applied", apply);
+        result.put("repaired", repaired);
+        return result;
+    }
+
+    private void compare(List<Difference> differences, AuditRecord record, Map<String, Object> expected,
+                         Map<String, Object> actual) {
+        if (expected == null && actual != null) {
+            differences.add(new Difference(record, "UNEXPECTED", null, actual));
+        } else if (expected != null && actual == null) {
+            differences.add(new Difference(record, "MISSING", expected, null));
+        } else if (expected != null && !expected.equals(actual)) {
+            differences.add(new Difference(record, "DIFFERENT", expected, actual));
+        }
+    }
+
+    // Entity ids whose latest change in the shared change feed is newer than, and not, the journal's
+    private List<Long> writtenElsewhere(List<Difference> differences) {
+        NamedParameterJdbcTemplate jdbc = named(shardMap.getPrimary());
+        List<Long> ids = new ArrayList<>();
+        for (EntityType entityType : List.of(EntityType.STUDENT, EntityType.UNIVERSITY)) {
+            Map<Long, AuditRecord> records = new HashMap<>();
+            for (Difference difference : differences) {
+                if (difference.record.getEntityType() == entityType) {
+                    records.put(difference.record.getEntityId(), difference.record);
+                }
+            }
+            List<Long> entityIds = new ArrayList<>(records.keySet());
+            for (int from = 0; from < entityIds.size(); from += CHUNK) {
+                Map<String, Object> parameters = Map.of("type", entityType.name(),
+                        "ids", entityIds.subList(from, Math.min(entityIds.size(), from + CHUNK)));
+                jdbc.query("SELECT entity_id, operation, payload, created_at FROM change_events WHERE id IN "
+                        + "(SELECT MAX(id) FROM change_events WHERE entity_type = :type AND entity_id IN (:ids) "
+                        + "GROUP BY entity_id)", parameters, rs -> {
+                    AuditRecord record = records.get(rs.getLong(1));
+                    boolean same = record.getOperation().name().equals(rs.getString(2))
+                            && Objects.equals(record.getPayload(), rs.getString(3));
+                    // A change is recorded in its transaction, journaled after the commit
+                    if (!same && rs.getTimestamp(4).getTime() > record.getTimestamp()) {
+                        ids.add(record.getEntityId());
+                    }
+                });
+            }
+        }
+        return ids;
+    }
+
+    // Universities first (students reference them), university deletes last
+    private int repair(List<Difference> differences, Map<Long, String> studentShards) {
+        int repaired = 0;
+        List<Difference> ordered = new ArrayList<>(differences);
+        ordered.sort((a, b) -> Integer.compare(repairOrder(a), repairOrder(b)));
+        for (Difference difference : ordered) {
+            try {
+                if (difference.record.getEntityType() == EntityType.UNIVERSITY) {
+                    repairUniversity(difference);
+                } else if (difference.record.getEntityType() == EntityType.STUDENT) {
+                    repairStudent(difference, studentShards.get(difference.record.getEntityId()));
+                } else {
+                    continue;
+                }
+                repaired++;
+            } catch (RuntimeException e) {
+                logger.warn("Could not repair {} {}: {}", difference.record.getEntityType(),
+                        difference.record.getEntityId(), e.getMessage());
+            }
+        }
+        return repaired;
+    }
+
+    private static int repairOrder(Difference difference) {
+        boolean university = difference.record.getEntityType() == EntityType.UNIVERSITY;
+        if (university) {
+            return difference.expected != null ? 0 : 2;
+        }
+        return 1;
+    }
+
+    private void repairUniversity(Difference difference) {
+        long id = difference.record.getEntityId();
+        JdbcTemplate primary = jdbc(shardMap.getPrimary());
+        if (difference.expected == null) {
+            primary.update("DELETE FROM universities WHERE id = ?", id);
+            shardRebalancer.removeUniversity(id);
+            return;
+        }
+        Object name = difference.expected.get("name");
+        Object location = difference.expected.get("location");
+        if (primary.update("UPDATE universities SET name = ?, location = ? WHERE id = ?", name, location, id) == 0) {
+            primary.update("INSERT INTO universities (id, name, location) VALUES (?, ?, ?)", id, name, location);
+        }
+        if (shardRouter.isEnabled()) {
+            University university = new University();
+            university.setId(id);
+            university.setName((String) name);
+            university.setLocation((String) location);
+            shardRebalancer.replicateUniversity(university);
+        }
+    }
+
+    private void repairStudent(Difference difference, String currentShard) {
+        long id = difference.record.getEntityId();
+        Map<String, Object> expected = difference.expected;
+        String targetShard = expected != null ? shardMap.shardFor((Long) expected.get("university_id")) : null;
+        if (currentShard != null && !currentShard.equals(targetShard)) {
+            jdbc(currentShard).update("DELETE FROM students WHERE id = ?", id);
+        }
+        if (expected == null) {
+            return;
+        }
+        JdbcTemplate target = jdbc(targetShard);
+        Object[] values = {expected.get("first_name"), expected.get("last_name"), expected.get("email"),
+                expected.get("university_id"), id};
+        if (!targetShard.equals(currentShard)
+                || target.update("UPDATE students SET first_name = ?, last_name = ?, email = ?, university_id = ? WHERE id = ?", values) == 0) {
+            target.update("INSERT INTO students (first_name, last_name, email, university_id, id) VALUES (?, ?, ?, ?, ?)", values);
+        }
+    }
+
+    private Map<String, Object> universityState(AuditRecord record) {
+        if (record.getOperation() == Operation.DELETE) {
+            return null;
+        }
+        JsonNode payload = payload(record);
+        Map<String, Object> state = new HashMap<>();
+        state.put("name", text(payload, "name"));
+        state.put("location", text(payload, "location"));
+        return state;
+    }
+
+    // A university delete cascades to its students without a record of its own per student
+    private Map<String, Object> studentState(AuditRecord record, Map<Long, AuditRecord> universities) {
+        AuditRecord university = record.getUniversityId() != null ? universities.get(record.getUniversityId()) : null;
+        if (record.getOperation() == Operation.DELETE
+                || (university != null && university.getOperation() == Operation.DELETE
+                && university.getSequence() > record.getSequence())) {
+            return null;
+        }
+        JsonNode payload = payload(record);
+        Map<String, Object> state = new HashMap<>();
+        state.put("first_name", text(payload, "firstName"));
+        state.put("last_name", text(payload, "lastName"));
+        state.put("email", text(payload, "email"));
+        state.put("university_id", record.getUniversityId());
+        return state;
+    }
+
+    private Map<String, Object> userState(AuditRecord record) {
+        JsonNode payload = payload(record);
+        Map<String, Object> state = new HashMap<>();
+        state.put("username", text(payload, "username"));
+        state.put("email", text(payload, "email"));
+        state.put("first_name", text(payload, "firstName"));
+        state.put("last_name", text(payload, "lastName"));
+        return state;
+    }
+
+    // Rows by id for the journaled ids, without the id column
+    private Map<Long, Map<String, Object>> queryById(String shard, String sql,
+                                                     Map<Long, AuditRecord> records) {
+        NamedParameterJdbcTemplate jdbc = named(shard);
+        Map<Long, Map<String, Object>> rows = new HashMap<>();
+        List<Long> ids = new ArrayList<>(records.keySet());
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+            for (Map<String, Object> row : jdbc.queryForList(sql, Map.of("ids", chunk))) {
+                Map<String, Object> values = new HashMap<>();
+                Long id = null;
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    String name = column.getKey().toLowerCase();
+                    if (name.equals("id")) {
+                        id = ((Number) column.getValue()).longValue();
+                    } else {
+                        values.put(name, normalize(column.getValue()));
+                    }
+                }
+                rows.put(id, values);
+            }
+        }
+        return rows;
+    }
+
+    private static Object normalize(Object value) {
+        return value instanceof Number number && !(value instanceof Double) ? (Object) number.longValue() : value;
+    }
+
+    private NamedParameterJdbcTemplate named(String shard) {
+        return new NamedParameterJdbcTemplate(jdbc(shard));
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(shardMap.dataSourceFor(shard));
+    }
+
+    private JsonNode payload(AuditRecord record) {
+        try {
+            return objectMapper.readTree(Objects.requireNonNullElse(record.getPayload(), "{}"));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read audit payload " + record.getSequence(), e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static class Difference {
+        private final AuditRecord record;
+        private final String problem;
+        private final Map<String, Object> expected;
+        private final Map<String, Object> actual;
+
+        Difference(AuditRecord record, String problem, Map<String, Object> expected, Map<String, Object> actual) {
+            this.record = record;
+            this.problem = problem;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("entityType", record.getEntityType());
+            map.put("id", record.getEntityId());
+            map.put("problem", problem);
+            map.put("sequence", record.getSequence());
+            map.put("expected", expected);
+            map.put("actual", actual);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package spring.back.project.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One journal file, preallocated and memory-mapped. Records are appended by
+ * copying into the mapping; force() flushes them to disk. Files are named by
+ * their first sequence, so sorting names sorts the journal.
+ *
+ * Header: int magic, short version, short unused, long first sequence.
+ */
+class AuditSegment implements AutoCloseable {
+
+    static final int HEADER_BYTES = 16;
+
+    private static final int MAGIC = 0x41554431; // "AUD1"
+
+    private static final short VERSION = 1;
+
+    private static final Pattern NAME = Pattern.compile("audit-(\\d{20})\\.journal");
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private long lastSequence;
+    private boolean damaged;
+
+    private AuditSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * Create a segment whose first record will have the given sequence
+     */
+    static AuditSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path path = directory.resolve(fileName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(firstSequence);
+            buffer.force();
+            return new AuditSegment(path, firstSequence, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reopen the newest segment for appending, positioned after its last
+     * valid record. A torn tail is left in place and marks the segment damaged.
+     */
+    static AuditSegment openForAppend(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            AuditSegment segment = new AuditSegment(path, readHeader(buffer, path), channel, buffer);
+            buffer.position(HEADER_BYTES);
+            AuditRecord record;
+            while ((record = AuditRecord.decode(buffer)) != null) {
+                segment.lastSequence = record.getSequence();
+            }
+            segment.damaged = buffer.remaining() >= 4 && buffer.getInt(buffer.position()) != 0;
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Call back with every valid record of a segment file, read-only, until the
+     * consumer returns false. Returns false if the file ends in a torn or
+     * corrupt record.
+     */
+    static boolean read(Path path, Predicate<AuditRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader(buffer, path);
+            buffer.position(HEADER_BYTES);
+            AuditRecord record;
+            while ((record = AuditRecord.decode(buffer)) != null) {
+                if (!consumer.test(record)) {
+                    return true;
+                }
+            }
+            return buffer.remaining() < 4 || buffer.getInt(buffer.position()) == 0;
+        }
+    }
+
+    /**
+     * Append a record, false if it does not fit
+     */
+    boolean append(AuditRecord record) {
+        // Keep room for the zero length that ends the data
+        if (record.encodedSize() > buffer.remaining() - 4) {
+            return false;
+        }
+        record.encode(buffer);
+        lastSequence = record.getSequence();
+        return true;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    boolean isEmpty() {
+        return lastSequence < firstSequence;
+    }
+
+    boolean isDamaged() {
+        return damaged;
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    int getWrittenBytes() {
+        return buffer.position();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("audit-%020d.journal", firstSequence);
+    }
+
+    static boolean isSegment(Path path) {
+        return NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    // First sequence from a segment file name
+    static long firstSequence(Path path) {
+        Matcher matcher = NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not an audit segment: " + path);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static long readHeader(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+            throw new IOException("Not an audit segment: " + path);
+        }
+        return buffer.getLong(8);
+    }
+}
@@ -0,0 +1,23 @@
+package spring.back.project.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One requested id of a multi-get and what was found for it (no value when missing)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchEntry<T> {
+    private final Long id;
+    private final boolean found;
+    private final T value;
+
+    public BatchEntry(Long id, T value) {
+        this.id = id;
+        this.found = value != null;
+        this.value = value;
+    }
+
+    public Long getId() { return id; }
+    public boolean isFound() { return found; }
+    public T getValue() { return value; }
+}
@@ -0,0 +1,167 @@
+package spring.back.project.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Multi-get by id for the POST .../batch endpoints.
+ *
+ * The answer has one entry per requested id, in request order (duplicates
+ * included), marking ids that were not found. Ids are looked up in chunks
+ * of batch.chunk-size, so a query never binds more parameters than that.
+ * Up to one chunk the response goes through the message converters like any
+ * other; a longer list is streamed as JSON, CBOR or Smile (as the Accept
+ * header prefers), each chunk written and flushed as soon as it is read, so
+ * memory stays bounded by one chunk. A lookup failing once the status is
+ * sent ends the list with an {"error": ...} element instead of an entry.
+ */
+@Component
+public class BatchLookup {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchLookup.class);
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // Formats a streamed answer can take, JSON first for */*
+    private static final List<MediaType> STREAMED_TYPES = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, SMILE);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Value("${batch.max-ids:10000}")
+    private int maxIds;
+
+    @Value("${batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Answer a multi-get; returns null once the response has been streamed
+     */
+    public <T> ResponseEntity<?> respond(List<Long> ids, Function<Collection<Long>, Map<Long, T>> finder,
+                                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (ids == null || ids.stream().anyMatch(Objects::isNull)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Expected {\"ids\": [...]} without null ids"));
+        }
+        if (ids.size() > maxIds) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxIds + " ids per request"));
+        }
+        if (ids.size() <= chunkSize) {
+            List<BatchEntry<T>> entries = new ArrayList<>(ids.size());
+            Map<Long, T> found = finder.apply(new LinkedHashSet<>(ids));
+            for (Long id : ids) {
+                entries.add(new BatchEntry<>(id, found.get(id)));
+            }
+            return ResponseEntity.ok(entries);
+        }
+
+        MediaType type = negotiate(request);
+        if (type == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(type.toString());
+        JsonGenerator generator = mapperFor(type).createGenerator(response.getOutputStream());
+        // Closing must not complete an array that a failure cut short
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+        int written = 0;
+        try {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+                Map<Long, T> found = finder.apply(new LinkedHashSet<>(chunk));
+                for (Long id : chunk) {
+                    generator.writeObject(new BatchEntry<>(id, found.get(id)));
+                }
+                generator.flush();
+                written += chunk.size();
+            }
+        } catch (RuntimeException e) {
+            if (!response.isCommitted()) {
+                // Nothing sent yet: answered as an error like any other request
+                response.resetBuffer();
+                throw e;
+            }
+            logger.warn("Batch lookup failed after {} of {} ids", written, ids.size(), e);
+            generator.writeStartObject();
+            generator.writeStringField("error", "Lookup failed after " + written + " of " + ids.size() + " ids");
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.close();
+        return null;
+    }
+
+    // The client's most preferred streamed format, null if it accepts none of them
+    private MediaType negotiate(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // Stable, so equally preferred types keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType acceptable : accepted) {
+            if (acceptable.getQualityValue() == 0) {
+                break;
+            }
+            for (MediaType type : STREAMED_TYPES) {
+                if (acceptable.isCompatibleWith(type)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    private ObjectMapper mapperFor(MediaType type) {
+        if (type.equals(MediaType.APPLICATION_CBOR)) {
+            return cborConverter.getObjectMapper();
+        }
+        if (type.equals(SMILE)) {
+            return smileConverter.getObjectMapper();
+        }
+        return objectMapper;
+    }
+
+    public static class BatchRequest {
+        private List<Long> ids;
+
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+    }
+}
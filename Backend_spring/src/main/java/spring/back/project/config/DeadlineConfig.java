@@ -0,0 +1,61 @@
+package spring.back.project.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import spring.back.project.deadline.DeadlineDataSource;
+import spring.back.project.deadline.DeadlineFilter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * deadline.enabled is checked when the beans are created, not with
+ * @ConditionalOnProperty: AOT and native builds evaluate conditions at
+ * build time, so the switch would be ignored at runtime.
+ */
+@Configuration
+public class DeadlineConfig {
+
+    /**
+     * Deadline filter, right after the request id filter so an expired
+     * request is turned away before the limiter or authentication
+     */
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter(
+            MeterRegistry meterRegistry,
+            @Value("${deadline.enabled:true}") boolean enabled,
+            @Value("${deadline.max-budget:60s}") Duration maxBudget) {
+        FilterRegistrationBean<DeadlineFilter> registration =
+                new FilterRegistrationBean<>(new DeadlineFilter(meterRegistry, maxBudget));
+        registration.setEnabled(enabled);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    /**
+     * Wraps the application DataSource (the shard router when sharding is on)
+     * so statements run with the request's remaining budget as query timeout
+     */
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                    Environment environment) {
+        boolean enabled = environment.getProperty("deadline.enabled", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)) {
+                    return new DeadlineDataSource(dataSource, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package spring.back.project.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import spring.back.project.idempotency.IdempotencyFilter;
+import spring.back.project.idempotency.IdempotencyStore;
+import spring.back.project.security.RegisterReplayTokens;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class IdempotencyConfig {
+
+    /**
+     * Idempotency-Key filter, ordered after the Spring Security chain
+     * so a key is scoped to the authenticated user. Switched at runtime, as
+     * @ConditionalOnProperty would be fixed when AOT code is generated.
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(
+            @Value("${idempotency.enabled:true}") boolean enabled,
+            IdempotencyStore store,
+            MeterRegistry meterRegistry,
+            RegisterReplayTokens registerReplayTokens,
+            @Value("${idempotency.paths:/api/students,/api/universities,/auth/register}") List<String> paths,
+            @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout,
+            @Value("${idempotency.max-request-size:1048576}") int maxRequestSize,
+            @Value("${idempotency.max-response-size:1048576}") int maxResponseSize) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+                new IdempotencyFilter(store, meterRegistry, new HashSet<>(paths), waitTimeout, maxRequestSize,
+                        maxResponseSize, Map.of("/auth/register", registerReplayTokens)));
+        registration.setEnabled(enabled);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
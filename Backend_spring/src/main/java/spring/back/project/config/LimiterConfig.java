@@ -0,0 +1,33 @@
+package spring.back.project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import spring.back.project.limiter.ConcurrencyLimitFilter;
+import spring.back.project.limiter.ConcurrencyLimiter;
+import spring.back.project.limiter.LimiterProperties;
+
+@Configuration
+@EnableConfigurationProperties(LimiterProperties.class)
+public class LimiterConfig {
+
+    /**
+     * Concurrency limit filter, ordered before the Spring Security chain
+     * (and so before JwtAuthenticationFilter). Switched at runtime rather than
+     * with @ConditionalOnProperty, which AOT builds evaluate at build time.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyLimiter limiter,
+            @Value("${limiter.enabled:true}") boolean enabled) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limiter));
+        registration.setEnabled(enabled);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+}
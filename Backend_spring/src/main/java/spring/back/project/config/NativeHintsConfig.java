@@ -0,0 +1,81 @@
+package spring.back.project.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import spring.back.project.batch.BatchEntry;
+import spring.back.project.batch.BatchLookup;
+import spring.back.project.controller.AuthController;
+import spring.back.project.controller.UniversityController;
+import spring.back.project.export.ExportMetadata;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+import spring.back.project.model.User;
+import spring.back.project.suggest.UniversitySuggester;
+
+/**
+ * Reflection and resource hints for the AOT / native image build.
+ * JJWT loads its implementation classes by name and AuthController
+ * returns DTOs inside untyped maps, so neither is discovered by AOT.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.JwtRuntimeHints.class)
+@RegisterReflectionForBinding({
+        ChangeEvent.class,
+        Student.class,
+        University.class,
+        User.class,
+        AuthController.RegisterRequest.class,
+        AuthController.LoginRequest.class,
+        AuthController.RefreshTokenRequest.class,
+        AuthController.TokenResponse.class,
+        AuthController.UserResponse.class,
+        AuthController.ErrorResponse.class,
+        UniversityController.UniversityResponse.class,
+        UniversitySuggester.Suggestion.class,
+        BatchEntry.class,
+        BatchLookup.BatchRequest.class,
+        ExportMetadata.class
+})
+public class NativeHintsConfig {
+
+    static class JwtRuntimeHints implements RuntimeHintsRegistrar {
+
+        // Classes jjwt-api instantiates reflectively from jjwt-impl / jjwt-jackson
+        private static final String[] JJWT_TYPES = {
+                "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+                "io.jsonwebtoken.impl.security.KeysBridge",
+                "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+                "io.jsonwebtoken.impl.security.JwksBridge",
+                "io.jsonwebtoken.impl.security.StandardCurves",
+                "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyOperations",
+                "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : JJWT_TYPES) {
+                hints.reflection().registerTypeIfPresent(classLoader, type,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package spring.back.project.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import spring.back.project.sharding.ShardRoutingDataSource;
+import spring.back.project.sharding.ShardingProperties;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    /**
+     * Routing datasource over the primary (spring.datasource) and the configured shards.
+     * The condition replaces Spring Boot's DataSource, so AOT and native builds settle it
+     * at build time; ShardRouter refuses to start when the runtime setting disagrees.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, ShardingProperties shardingProperties) {
+        Map<Object, Object> shards = new LinkedHashMap<>();
+        shards.put(shardingProperties.getPrimary(), dataSourceProperties.initializeDataSourceBuilder().build());
+
+        shardingProperties.getShards().forEach((name, shard) -> shards.put(name, DataSourceBuilder.create()
+                .url(shard.getUrl())
+                .username(shard.getUsername())
+                .password(shard.getPassword())
+                .driverClassName(shard.getDriverClassName())
+                .build()));
+
+        return new ShardRoutingDataSource(shardingProperties.getPrimary(), shards);
+    }
+}
@@ -0,0 +1,83 @@
+package spring.back.project.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import spring.back.project.audit.AuditJournal;
+import spring.back.project.audit.AuditJournalReader;
+import spring.back.project.audit.AuditReplay;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/audit")
+@CrossOrigin(origins = "*")
+public class AuditController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private AuditReplay auditReplay;
+
+    // Get journal status
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(auditJournal.getStatus());
+    }
+
+    // Get journal records after a sequence
+    @GetMapping("/records")
+    public ResponseEntity<Map<String, Object>> getRecords(@RequestParam(defaultValue = "0") long after,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Map<String, Object>> records = new ArrayList<>();
+        try {
+            new AuditJournalReader(auditJournal.getDirectory()).read(after, max,
+                    record -> records.add(AuditJournalReader.toMap(record)));
+        } catch (IOException e) {
+            return error(e);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("records", records);
+        response.put("next", records.isEmpty() ? after : records.get(records.size() - 1).get("sequence"));
+        return ResponseEntity.ok(response);
+    }
+
+    // Compare the tables with the journal
+    @PostMapping("/verify")
+    public ResponseEntity<Map<String, Object>> verify() {
+        try {
+            return ResponseEntity.ok(auditReplay.replay(false));
+        } catch (IOException e) {
+            return error(e);
+        }
+    }
+
+    // Rewrite students and universities that differ from the journal
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Object>> replay() {
+        try {
+            return ResponseEntity.ok(auditReplay.replay(true));
+        } catch (IOException e) {
+            return error(e);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(IOException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Could not read the audit journal: " + e.getMessage());
+        return ResponseEntity.internalServerError().body(error);
+    }
+}
@@ -1,7 +1,14 @@
 package spring.back.project.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -9,18 +16,36 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import spring.back.project.audit.AuditJournal;
+import spring.back.project.membership.MembershipIndex;
 import spring.back.project.model.User;
 import spring.back.project.repository.UserRepository;
+import spring.back.project.security.JwtKeyRing;
 import spring.back.project.security.JwtTokenProvider;
+import spring.back.project.security.LoginAttemptThrottle;
+import spring.back.project.security.UserCache;
+import spring.back.project.security.UserPrincipal;
+import spring.back.project.service.CustomUserDetailsService;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/auth")
 @CrossOrigin(origins = "*")
 public class AuthController {
 
+    // Error bodies are serialized once and shared by every failed request
+    private static final byte[] USERNAME_EXISTS = errorBody("Username already exists");
+    private static final byte[] EMAIL_EXISTS = errorBody("Email already exists");
+    private static final byte[] USERNAME_OR_EMAIL_EXISTS = errorBody("Username or email already exists");
+    private static final byte[] INVALID_CREDENTIALS = errorBody("Invalid credentials");
+    private static final byte[] TOO_MANY_ATTEMPTS = errorBody("Too many failed login attempts, retry later");
+    private static final byte[] INVALID_REFRESH_TOKEN = errorBody("Invalid refresh token");
+    private static final byte[] USER_NOT_FOUND = errorBody("User not found");
+    private static final byte[] INVALID_TOKEN = errorBody("Invalid token");
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -33,20 +58,38 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private LoginAttemptThrottle loginAttemptThrottle;
+
+    @Autowired
+    private MembershipIndex membershipIndex;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
     /**
      * Register a new user
      */
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByUsername(request.getUsername())) {
-            return ResponseEntity.badRequest()
-                    .body(new ErrorResponse("Username already exists"));
+        // Check if user already exists (only queried when the membership filter can't rule it out)
+        if (membershipIndex.mightHaveUsername(request.getUsername())
+                && userRepository.existsByUsername(request.getUsername())) {
+            return error(HttpStatus.BAD_REQUEST, USERNAME_EXISTS);
         }
 
-        if (userRepository.existsByEmail(request.getEmail())) {
-            return ResponseEntity.badRequest()
-                    .body(new ErrorResponse("Email already exists"));
+        if (membershipIndex.mightHaveUserEmail(request.getEmail())
+                && userRepository.existsByEmail(request.getEmail())) {
+            return error(HttpStatus.BAD_REQUEST, EMAIL_EXISTS);
         }
 
         // Create new user
@@ -57,7 +100,15 @@ public class AuthController {
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Concurrent registration won the unique constraint
+            return error(HttpStatus.BAD_REQUEST, USERNAME_OR_EMAIL_EXISTS);
+        }
+        userCache.evict(user.getUsername());
+        membershipIndex.addUser(user.getUsername(), user.getEmail());
+        auditJournal.recordUser(user);
 
         // Generate tokens
         String accessToken = jwtTokenProvider.generateToken(user.getUsername());
@@ -75,7 +126,18 @@ public class AuthController {
      * Login user
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Locked-out usernames / addresses are rejected before any password hashing
+        // The client as seen by the first proxy we trust (server.tomcat.remoteip.*)
+        String address = httpRequest.getRemoteAddr();
+        long retryAfter = loginAttemptThrottle.retryAfter(request.getUsername(), address);
+        if (retryAfter > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfter + 999) / 1000))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(TOO_MANY_ATTEMPTS);
+        }
+
         try {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
@@ -84,7 +146,9 @@ public class AuthController {
                     )
             );
 
-            User user = userRepository.findByUsername(request.getUsername()).orElse(null);
+            // The principal already carries the user loaded during authentication
+            UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+            loginAttemptThrottle.recordSuccess(request.getUsername());
 
             String accessToken = jwtTokenProvider.generateToken(authentication.getName());
             String refreshToken = jwtTokenProvider.generateRefreshToken(authentication.getName());
@@ -96,8 +160,8 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
         } catch (AuthenticationException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new ErrorResponse("Invalid credentials"));
+            loginAttemptThrottle.recordFailure(request.getUsername(), address);
+            return error(HttpStatus.UNAUTHORIZED, INVALID_CREDENTIALS);
         }
     }
 
@@ -115,12 +179,10 @@ public class AuthController {
                 response.put("accessToken", newAccessToken);
                 return ResponseEntity.ok(response);
             } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new ErrorResponse("Invalid refresh token"));
+                return error(HttpStatus.UNAUTHORIZED, INVALID_REFRESH_TOKEN);
             }
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new ErrorResponse("Invalid refresh token"));
+            return error(HttpStatus.UNAUTHORIZED, INVALID_REFRESH_TOKEN);
         }
     }
 
@@ -131,17 +193,15 @@ public class AuthController {
     public ResponseEntity<?> getProfile(@RequestHeader("Authorization") String token) {
         try {
             String username = jwtTokenProvider.getUsernameFromToken(token.substring(7));
-            User user = userRepository.findByUsername(username).orElse(null);
+            UserPrincipal user = userDetailsService.findUser(username).orElse(null);
 
             if (user != null) {
                 return ResponseEntity.ok(new UserResponse(user));
             } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(new ErrorResponse("User not found"));
+                return error(HttpStatus.NOT_FOUND, USER_NOT_FOUND);
             }
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(new ErrorResponse("Invalid token"));
+            return error(HttpStatus.UNAUTHORIZED, INVALID_TOKEN);
         }
     }
 
@@ -155,6 +215,29 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Public keys tokens are signed with (JWK Set), for verification at the gateway
+     */
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        // Verifiers also refetch when they see a kid they do not know yet
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(jwtKeyRing.getJwks());
+    }
+
+    private static ResponseEntity<byte[]> error(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static byte[] errorBody(String message) {
+        try {
+            return new ObjectMapper().writeValueAsBytes(new ErrorResponse(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     // Inner classes for requests and responses
     public static class RegisterRequest {
         private String username;
@@ -228,6 +311,14 @@ public class AuthController {
             this.lastName = user.getLastName();
         }
 
+        public UserResponse(UserPrincipal user) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.email = user.getEmail();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+        }
+
         public Long getId() { return id; }
         public String getUsername() { return username; }
         public String getEmail() { return email; }
@@ -0,0 +1,73 @@
+package spring.back.project.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.service.ChangeStreamService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/changes")
+@CrossOrigin(origins = "*")
+public class ChangeController {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ChangeStreamService changeStreamService;
+
+    @Value("${changes.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${changes.max-wait:30000}")
+    private long maxWait;
+
+    // Get changes after a cursor, optionally waiting up to `wait` ms for new ones
+    @GetMapping
+    public DeferredResult<ResponseEntity<Map<String, Object>>> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0") long wait) {
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+        long timeout = Math.min(wait, maxWait);
+        DeferredResult<ResponseEntity<Map<String, Object>>> result =
+                new DeferredResult<>(timeout > 0 ? timeout : null, () -> toResponse(List.of(), since, pageSize));
+
+        List<ChangeEvent> changes = changeFeedService.getChanges(since, pageSize);
+        if (!changes.isEmpty() || timeout <= 0) {
+            result.setResult(toResponse(changes, since, pageSize));
+            return result;
+        }
+
+        Runnable cancel = changeFeedService.awaitChanges(since, pageSize,
+                found -> result.setResult(toResponse(found, since, pageSize)));
+        result.onCompletion(cancel);
+        return result;
+    }
+
+    // Push changes as Server-Sent Events, optionally only for one university
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) Long universityId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeStreamService.subscribe(universityId, lastEventId);
+    }
+
+    private ResponseEntity<Map<String, Object>> toResponse(List<ChangeEvent> changes, long since, int limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("changes", changes);
+        response.put("cursor", changes.isEmpty() ? since : changes.get(changes.size() - 1).getId());
+        response.put("hasMore", changes.size() >= limit);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,150 @@
+package spring.back.project.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import spring.back.project.export.ExportMetadata;
+import spring.back.project.export.ExportService;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private static final String ARROW_FILE = "application/vnd.apache.arrow.file";
+
+    // Tomcat's sendfile contract: the connector copies the file region with sendfile(2)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Single byte range only: "bytes=start-end", "bytes=start-" or "bytes=-suffix"
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    @Autowired
+    private ExportService exportService;
+
+    // Create export (?incremental=true only exports students created or changed since the last export)
+    @PostMapping
+    public ResponseEntity<?> createExport(@RequestParam(defaultValue = "false") boolean incremental) {
+        try {
+            ExportMetadata metadata = exportService.export(incremental);
+            return ResponseEntity.status(HttpStatus.CREATED).body(metadata);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Get all exports, newest first
+    @GetMapping
+    public ResponseEntity<List<ExportMetadata>> getAllExports() {
+        return ResponseEntity.ok(exportService.list());
+    }
+
+    // Download an export, honouring a single Range header so large files can be resumed
+    @GetMapping("/{name}")
+    public void downloadExport(@PathVariable String name, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        Optional<Path> found = exportService.file(name);
+        if (found.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path file = found.get();
+        long length = Files.size(file);
+        String etag = "\"" + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "-"
+                + Long.toHexString(length) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".arrow\"");
+        response.setContentType(ARROW_FILE);
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        transfer(file, start, count, request, response);
+    }
+
+    // [start, end] inclusive, or null if the range cannot be satisfied
+    private long[] parseRange(String header, long length) {
+        Matcher matcher = RANGE.matcher(header.trim());
+        if (!matcher.matches() || length == 0) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(last);
+                return suffix == 0 ? null : new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            return start >= length || end < start ? null : new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Zero-copy: Tomcat sendfile where the connector supports it, otherwise FileChannel.transferTo
+    private void transfer(Path file, long start, long count, HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package spring.back.project.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import spring.back.project.sharding.ShardMap;
+import spring.back.project.sharding.ShardRebalancer;
+import spring.back.project.sharding.ShardRouter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@CrossOrigin(origins = "*")
+public class ShardController {
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    // Get shards and university assignments
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getShards() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", shardRouter.isEnabled());
+        if (shardRouter.isEnabled()) {
+            response.put("primary", shardMap.getPrimary());
+            response.put("shards", shardMap.getShardNames());
+            response.put("assignments", shardMap.getAssignments());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Move a university and its students to another shard
+    @PostMapping("/universities/{universityId}/move")
+    public ResponseEntity<Map<String, Object>> moveUniversity(@PathVariable Long universityId,
+                                                              @RequestParam String target) {
+        try {
+            return ResponseEntity.ok(shardRebalancer.moveUniversity(universityId, target));
+        } catch (RuntimeException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package spring.back.project.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import spring.back.project.batch.BatchLookup;
 import spring.back.project.model.Student;
 import spring.back.project.service.StudentService;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +25,9 @@ public class StudentController {
     @Autowired
     private StudentService studentService;
     
+    @Autowired
+    private BatchLookup batchLookup;
+    
     // Get all students
     @GetMapping
     public ResponseEntity<List<Student>> getAllStudents() {
@@ -36,6 +43,14 @@ public class StudentController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Get students by IDs ({"ids": [...]}): one entry per id in request order, missing ids marked
+    @PostMapping("/batch")
+    public ResponseEntity<?> getStudentsBatch(@RequestBody BatchLookup.BatchRequest batch,
+                                              HttpServletRequest request,
+                                              HttpServletResponse response) throws IOException {
+        return batchLookup.respond(batch.getIds(), studentService::getStudentsByIds, request, response);
+    }
+    
     // Create student
     @PostMapping
     public ResponseEntity<Student> createStudent(@RequestBody Student student) {
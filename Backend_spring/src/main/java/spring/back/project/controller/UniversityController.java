@@ -1,13 +1,26 @@
 package spring.back.project.controller;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import spring.back.project.batch.BatchLookup;
+import spring.back.project.model.Student;
 import spring.back.project.model.University;
+import spring.back.project.service.StudentService;
 import spring.back.project.service.UniversityService;
+import spring.back.project.suggest.UniversitySuggester;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/universities")
@@ -16,24 +29,66 @@ import java.util.List;
 
 public class UniversityController {
     
+    private static final String INCLUDE_STUDENTS = "students";
+    
     @Autowired
     private UniversityService universityService;
     
-    // Get all universities
+    @Autowired
+    private StudentService studentService;
+    
+    @Autowired
+    private UniversitySuggester universitySuggester;
+    
+    @Autowired
+    private BatchLookup batchLookup;
+    
+    @Value("${universities.max-student-limit:1000}")
+    private int maxStudentLimit;
+    
+    // Get all universities (?include=students adds the first `studentLimit` students of each)
     @GetMapping
-    public ResponseEntity<List<University>> getAllUniversities() {
+    public ResponseEntity<List<UniversityResponse>> getAllUniversities(
+            @RequestParam(required = false) String include,
+            @RequestParam(defaultValue = "100") int studentLimit) {
         List<University> universities = universityService.getAllUniversities();
-        return ResponseEntity.ok(universities);
+        return ResponseEntity.ok(toResponses(universities, include, studentLimit));
     }
     
     // Get university by ID
     @GetMapping("/{id}")
-    public ResponseEntity<University> getUniversityById(@PathVariable Long id) {
+    public ResponseEntity<UniversityResponse> getUniversityById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String include,
+            @RequestParam(defaultValue = "100") int studentLimit) {
         return universityService.getUniversityById(id)
-                .map(ResponseEntity::ok)
+                .map(university -> ResponseEntity.ok(toResponses(List.of(university), include, studentLimit).get(0)))
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Get the next page of a university's students (cursor from `studentsCursor`)
+    @GetMapping("/{id}/students")
+    public ResponseEntity<Map<String, Object>> getUniversityStudents(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = clampStudentLimit(limit);
+        List<Student> students = new ArrayList<>(studentService.getStudentsByUniversity(id, after, pageSize + 1));
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("students", page(students, pageSize));
+        response.put("cursor", nextCursor(students, pageSize));
+        return ResponseEntity.ok(response);
+    }
+    
+    // Get universities by IDs ({"ids": [...]}): one entry per id in request order, missing ids marked
+    @PostMapping("/batch")
+    public ResponseEntity<?> getUniversitiesBatch(@RequestBody BatchLookup.BatchRequest batch,
+                                                  HttpServletRequest request,
+                                                  HttpServletResponse response) throws IOException {
+        return batchLookup.respond(batch.getIds(), universityService::getUniversitiesByIds, request, response);
+    }
+    
     // Create university
     @PostMapping
     public ResponseEntity<University> createUniversity(@RequestBody University university) {
@@ -69,4 +124,70 @@ public class UniversityController {
         List<University> universities = universityService.searchByName(name);
         return ResponseEntity.ok(universities);
     }
+    
+    // Suggest universities whose name or location has a word starting with `prefix`, most students first
+    @GetMapping("/suggest")
+    public ResponseEntity<List<UniversitySuggester.Suggestion>> suggestUniversities(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, universitySuggester.getMaxLimit()));
+        return ResponseEntity.ok(universitySuggester.suggest(prefix, size));
+    }
+    
+    // Students are loaded for all universities in one query, capped per university
+    private List<UniversityResponse> toResponses(List<University> universities, String include, int studentLimit) {
+        List<UniversityResponse> responses = new ArrayList<>();
+        if (!INCLUDE_STUDENTS.equals(include)) {
+            universities.forEach(university -> responses.add(new UniversityResponse(university)));
+            return responses;
+        }
+        
+        int limit = clampStudentLimit(studentLimit);
+        List<Long> ids = universities.stream().map(University::getId).toList();
+        Map<Long, List<Student>> students = studentService.getFirstStudentsByUniversity(ids, limit + 1);
+        
+        for (University university : universities) {
+            List<Student> universityStudents = students.getOrDefault(university.getId(), List.of());
+            UniversityResponse response = new UniversityResponse(university);
+            response.students = page(universityStudents, limit);
+            response.studentsCursor = nextCursor(universityStudents, limit);
+            responses.add(response);
+        }
+        return responses;
+    }
+    
+    private int clampStudentLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxStudentLimit));
+    }
+    
+    private List<Student> page(List<Student> students, int limit) {
+        return students.size() > limit ? students.subList(0, limit) : students;
+    }
+    
+    // Cursor for the next page, or null if this was the last one
+    private Long nextCursor(List<Student> students, int limit) {
+        return students.size() > limit ? students.get(limit - 1).getId() : null;
+    }
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class UniversityResponse {
+        private Long id;
+        private String name;
+        private String location;
+        @JsonIgnoreProperties("university")
+        private List<Student> students;
+        private Long studentsCursor;
+        
+        public UniversityResponse(University university) {
+            this.id = university.getId();
+            this.name = university.getName();
+            this.location = university.getLocation();
+        }
+        
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getLocation() { return location; }
+        public List<Student> getStudents() { return students; }
+        public Long getStudentsCursor() { return studentsCursor; }
+    }
 }
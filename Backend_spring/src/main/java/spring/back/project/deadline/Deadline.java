@@ -0,0 +1,43 @@
+package spring.back.project.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the request the current thread works for, as a System.nanoTime()
+ * value; null means no deadline. Set by DeadlineFilter from the time budget
+ * the gateway forwards in X-Request-Timeout-Ms.
+ */
+public final class Deadline {
+
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    public static Long get() {
+        return CURRENT.get();
+    }
+
+    public static void set(Long deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    /**
+     * Milliseconds left (negative once passed), Long.MAX_VALUE without a deadline
+     */
+    public static long remainingMillis() {
+        Long deadline = CURRENT.get();
+        return deadline != null ? TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    public static boolean isExpired() {
+        Long deadline = CURRENT.get();
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+}
@@ -0,0 +1,148 @@
+package spring.back.project.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * Applies the request's Deadline to every JDBC statement, so repository
+ * calls (Hibernate and JdbcTemplate alike) stop once the caller gave up.
+ *
+ * Connections handed out while a deadline is set create statements with the
+ * remaining budget as query timeout; the driver cancels the statement when it
+ * runs out. JDBC timeouts are whole seconds, so the budget is rounded up. A
+ * statement created after the deadline is refused with SQLTimeoutException
+ * instead of being sent. Connections taken without a deadline are returned
+ * as they are.
+ */
+public class DeadlineDataSource extends DelegatingDataSource implements DisposableBean {
+
+    // PostgreSQL and H2 report a cancelled statement with this SQLState
+    private static final String QUERY_CANCELED = "57014";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private volatile Counter expired;
+    private volatile Counter timedOut;
+
+    public DeadlineDataSource(DataSource target, ObjectProvider<MeterRegistry> meterRegistry) {
+        super(target);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return withDeadline(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return withDeadline(super.getConnection(username, password));
+    }
+
+    // Closes the pool(s) the wrapped bean would have closed
+    @Override
+    public void destroy() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (target instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection withDeadline(Connection connection) {
+        if (Deadline.get() == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            boolean creates = name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall");
+            long remaining = creates ? Deadline.remainingMillis() : Long.MAX_VALUE;
+            if (remaining <= 0) {
+                counter(true).increment();
+                throw new SQLTimeoutException("Request deadline exceeded, statement not executed", QUERY_CANCELED);
+            }
+
+            Object result = invokeTarget(connection, method, args);
+            if (!creates || remaining == Long.MAX_VALUE) {
+                return result;
+            }
+            Statement statement = (Statement) result;
+            statement.setQueryTimeout((int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000));
+            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                    new StatementHandler(statement));
+        }
+    }
+
+    // Counts statements the driver cancelled on their query timeout
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+
+        StatementHandler(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return invokeTarget(statement, method, args);
+            } catch (SQLException e) {
+                if (method.getName().startsWith("execute")
+                        && (e instanceof SQLTimeoutException || QUERY_CANCELED.equals(e.getSQLState()))) {
+                    counter(false).increment();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // expired: refused before running, timeout: cancelled by the driver while running
+    private Counter counter(boolean refused) {
+        Counter counter = refused ? expired : timedOut;
+        if (counter == null) {
+            counter = Counter.builder("deadline.queries.cancelled")
+                    .description("JDBC statements not run or cancelled because the request deadline passed")
+                    .tag("reason", refused ? "expired" : "timeout")
+                    .register(meterRegistry.getObject());
+            if (refused) {
+                expired = counter;
+            } else {
+                timedOut = counter;
+            }
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,106 @@
+package spring.back.project.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the time budget the gateway forwards (X-Request-Timeout-Ms, the
+ * milliseconds it will still wait for the answer) into Deadline for the
+ * request's thread. A request whose budget is already spent is answered
+ * with 504 before any work; a request that fails once its deadline passed
+ * (typically a query cancelled by DeadlineDataSource) gets a 504 as well.
+ * Requests without the header have no deadline.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineFilter.class);
+
+    private static final byte[] EXPIRED_BODY = ("{\"status\":504,\"error\":\"Gateway Timeout\","
+            + "\"message\":\"Request deadline exceeded\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter overrun;
+    private final long maxBudgetMillis;
+
+    public DeadlineFilter(MeterRegistry meterRegistry, Duration maxBudget) {
+        this.rejected = requests(meterRegistry, "rejected");
+        this.failed = requests(meterRegistry, "failed");
+        this.overrun = requests(meterRegistry, "overrun");
+        this.maxBudgetMillis = maxBudget.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long budget = budgetOf(request);
+        if (budget == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (budget <= 0) {
+            rejected.increment();
+            writeExpired(response);
+            return;
+        }
+
+        Long previous = Deadline.get();
+        Deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.min(budget, maxBudgetMillis)));
+        try {
+            chain.doFilter(request, response);
+            if (Deadline.isExpired()) {
+                overrun.increment();
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!Deadline.isExpired() || response.isCommitted()) {
+                throw e;
+            }
+            failed.increment();
+            logger.debug("{} {} failed after its deadline: {}", request.getMethod(), request.getRequestURI(), e.toString());
+            response.resetBuffer();
+            writeExpired(response);
+        } finally {
+            Deadline.set(previous);
+        }
+    }
+
+    // rejected: budget spent on arrival, failed: answered 504 after the deadline, overrun: completed late
+    private static Counter requests(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("deadline.requests")
+                .description("Requests whose deadline passed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Null when absent or not a number, so a malformed header never fails a request
+    private static Long budgetOf(HttpServletRequest request) {
+        String header = request.getHeader(Deadline.HEADER);
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void writeExpired(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+        response.setContentType("application/json");
+        response.setContentLength(EXPIRED_BODY.length);
+        response.getOutputStream().write(EXPIRED_BODY);
+    }
+}
@@ -0,0 +1,47 @@
+package spring.back.project.export;
+
+/**
+ * Sidecar description of one snapshot file (&lt;name&gt;.json next to &lt;name&gt;.arrow)
+ */
+public class ExportMetadata {
+
+    private String name;
+    private String format = "arrow-ipc-file";
+    private String compression = "LZ4_FRAME";
+    private String createdAt;
+    private boolean incremental;
+    private long rows;
+    private long bytes;
+
+    // Change feed sequences: an incremental export holds the students changed after changesSince;
+    // every export is current up to changesUpTo, where the next incremental one continues
+    private Long changesSince;
+    private Long changesUpTo;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getCompression() { return compression; }
+    public void setCompression(String compression) { this.compression = compression; }
+
+    public String getCreatedAt() { return createdAt; }
+    public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+
+    public boolean isIncremental() { return incremental; }
+    public void setIncremental(boolean incremental) { this.incremental = incremental; }
+
+    public long getRows() { return rows; }
+    public void setRows(long rows) { this.rows = rows; }
+
+    public long getBytes() { return bytes; }
+    public void setBytes(long bytes) { this.bytes = bytes; }
+
+    public Long getChangesSince() { return changesSince; }
+    public void setChangesSince(Long changesSince) { this.changesSince = changesSince; }
+
+    public Long getChangesUpTo() { return changesUpTo; }
+    public void setChangesUpTo(Long changesUpTo) { this.changesUpTo = changesUpTo; }
+}
@@ -0,0 +1,364 @@
+package spring.back.project.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.sharding.ShardMap;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Writes students joined with their university as Arrow IPC files for
+ * offline reporting, so reporting jobs don't page through /api/students.
+ *
+ * Rows are streamed from a forward-only JDBC cursor and written in record
+ * batches of batch-size rows, so memory stays bounded by one batch.
+ * Incremental exports hold the current rows of the students created or
+ * changed in the change feed after the previous export, so nothing committed
+ * late is skipped. A student can appear in more than one export (the newest
+ * row wins); deletes and university renames need a full export.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    // Only names we generated can be served, never a client-supplied path
+    private static final Pattern NAME = Pattern.compile("students-\\d{8}T\\d{6}\\d{3}Z-(full|incremental)");
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final String SELECT = "SELECT s.id, s.first_name, s.last_name, s.email, s.university_id, "
+            + "u.name, u.location FROM students s LEFT JOIN universities u ON u.id = s.university_id ";
+
+    // Ids per query of an incremental export
+    private static final int ID_CHUNK = 1000;
+
+    private static final Schema SCHEMA = new Schema(List.of(
+            new Field("id", FieldType.notNullable(new ArrowType.Int(64, true)), null),
+            new Field("first_name", FieldType.nullable(ArrowType.Utf8.INSTANCE), null),
+            new Field("last_name", FieldType.nullable(ArrowType.Utf8.INSTANCE), null),
+            new Field("email", FieldType.nullable(ArrowType.Utf8.INSTANCE), null),
+            new Field("university_id", FieldType.nullable(new ArrowType.Int(64, true)), null),
+            new Field("university_name", FieldType.nullable(ArrowType.Utf8.INSTANCE), null),
+            new Field("university_location", FieldType.nullable(ArrowType.Utf8.INSTANCE), null)));
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Value("${export.directory:exports}")
+    private String directory;
+
+    @Value("${export.batch-size:10000}")
+    private int batchSize;
+
+    @Value("${export.max-memory:67108864}")
+    private long maxMemory;
+
+    @Value("${export.retain:10}")
+    private int retain;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    /**
+     * Write a new snapshot; incremental continues from the latest export's change sequence
+     */
+    public ExportMetadata export(boolean incremental) {
+        if (!running.tryLock()) {
+            throw new IllegalStateException("An export is already running");
+        }
+        try {
+            Long since = null;
+            if (incremental) {
+                since = latest().map(ExportMetadata::getChangesUpTo).orElseThrow(() ->
+                        new IllegalStateException("No previous export to continue from, create a full export first"));
+            }
+
+            ExportMetadata metadata = new ExportMetadata();
+            Instant now = Instant.now();
+            metadata.setName("students-" + TIMESTAMP.format(now) + (incremental ? "-incremental" : "-full"));
+            metadata.setCreatedAt(now.toString());
+            metadata.setIncremental(incremental);
+
+            Path dir = directory();
+            Path target = dir.resolve(metadata.getName() + ".arrow");
+            Path temp = dir.resolve(metadata.getName() + ".arrow.tmp");
+            try {
+                write(temp, since, metadata);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                metadata.setBytes(Files.size(target));
+                objectMapper.writeValue(dir.resolve(metadata.getName() + ".json").toFile(), metadata);
+            } catch (IOException e) {
+                deleteQuietly(temp);
+                throw new UncheckedIOException("Export failed", e);
+            } catch (SQLException e) {
+                deleteQuietly(temp);
+                throw new IllegalStateException("Export failed", e);
+            }
+
+            logger.info("Exported {} students to {} ({} bytes)", metadata.getRows(), target, metadata.getBytes());
+            prune();
+            return metadata;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * Existing exports, newest first
+     */
+    public List<ExportMetadata> list() {
+        List<ExportMetadata> exports = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory())) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json")).forEach(file -> {
+                try {
+                    exports.add(objectMapper.readValue(file.toFile(), ExportMetadata.class));
+                } catch (IOException e) {
+                    logger.warn("Skipping unreadable export metadata {}", file);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        exports.sort(Comparator.comparing(ExportMetadata::getName).reversed());
+        return exports;
+    }
+
+    /**
+     * Snapshot file of an export, if the name is one of ours and it exists
+     */
+    public Optional<Path> file(String name) {
+        if (!NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path file = directory().resolve(name + ".arrow");
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private Optional<ExportMetadata> latest() {
+        return list().stream().findFirst();
+    }
+
+    // Full export without since
+    private void write(Path file, Long since, ExportMetadata metadata) throws IOException, SQLException {
+        try (BufferAllocator allocator = new RootAllocator(maxMemory);
+             VectorSchemaRoot root = VectorSchemaRoot.create(SCHEMA, allocator);
+             FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             ArrowFileWriter writer = new ArrowFileWriter(root, null, channel, Map.of("source", "students"),
+                     IpcOption.DEFAULT, CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.LZ4_FRAME)) {
+
+            writer.start();
+            Batch batch = new Batch(root, writer, metadata);
+            if (since == null) {
+                // Taken first: a change after it is exported (again) by the next incremental export
+                metadata.setChangesUpTo(changeFeedService.getServedSequence());
+                for (String shard : shardMap.getShardNames()) {
+                    writeRows(shardMap.dataSourceFor(shard), SELECT + "ORDER BY s.id", List.of(), batch);
+                }
+            } else {
+                List<Long> ids = changedStudents(since, metadata);
+                for (String shard : shardMap.getShardNames()) {
+                    for (int from = 0; from < ids.size(); from += ID_CHUNK) {
+                        List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + ID_CHUNK));
+                        String sql = SELECT + "WHERE s.id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?"))
+                                + ") ORDER BY s.id";
+                        writeRows(shardMap.dataSourceFor(shard), sql, chunk, batch);
+                    }
+                }
+            }
+            batch.flush();
+            writer.end();
+        }
+    }
+
+    // Ids of students created or changed (and not deleted) after a change sequence, ascending
+    private List<Long> changedStudents(long since, ExportMetadata metadata) {
+        Set<Long> ids = new TreeSet<>();
+        long upTo = since;
+        List<ChangeEvent> changes;
+        do {
+            changes = changeFeedService.getChanges(upTo, Integer.MAX_VALUE);
+            for (ChangeEvent event : changes) {
+                upTo = event.getId();
+                if (event.getEntityType() != EntityType.STUDENT) {
+                    continue;
+                }
+                if (event.getOperation() == Operation.DELETE) {
+                    ids.remove(event.getEntityId());
+                } else {
+                    ids.add(event.getEntityId());
+                }
+            }
+        } while (!changes.isEmpty());
+        metadata.setChangesSince(since);
+        metadata.setChangesUpTo(upTo);
+        return new ArrayList<>(ids);
+    }
+
+    // Stream one query's rows into the record batches
+    private void writeRows(DataSource dataSource, String sql, List<Long> ids, Batch batch)
+            throws SQLException, IOException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL Connector/J only streams rows with this sentinel fetch size
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            statement.setFetchSize(mysql ? Integer.MIN_VALUE : batchSize);
+            for (int i = 0; i < ids.size(); i++) {
+                statement.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    batch.add(rs);
+                }
+            }
+        }
+    }
+
+    private void setString(VarCharVector vector, int row, String value) {
+        if (value == null) {
+            vector.setNull(row);
+        } else {
+            vector.setSafe(row, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Rows of the record batch being filled, written every batch-size rows
+    private class Batch {
+        private final VectorSchemaRoot root;
+        private final ArrowFileWriter writer;
+        private final ExportMetadata metadata;
+        private final BigIntVector id;
+        private final VarCharVector firstName;
+        private final VarCharVector lastName;
+        private final VarCharVector email;
+        private final BigIntVector universityId;
+        private final VarCharVector universityName;
+        private final VarCharVector universityLocation;
+        private int row;
+
+        Batch(VectorSchemaRoot root, ArrowFileWriter writer, ExportMetadata metadata) {
+            this.root = root;
+            this.writer = writer;
+            this.metadata = metadata;
+            id = (BigIntVector) root.getVector("id");
+            firstName = (VarCharVector) root.getVector("first_name");
+            lastName = (VarCharVector) root.getVector("last_name");
+            email = (VarCharVector) root.getVector("email");
+            universityId = (BigIntVector) root.getVector("university_id");
+            universityName = (VarCharVector) root.getVector("university_name");
+            universityLocation = (VarCharVector) root.getVector("university_location");
+            root.allocateNew();
+        }
+
+        void add(ResultSet rs) throws SQLException, IOException {
+            id.setSafe(row, rs.getLong(1));
+            setString(firstName, row, rs.getString(2));
+            setString(lastName, row, rs.getString(3));
+            setString(email, row, rs.getString(4));
+            long university = rs.getLong(5);
+            if (rs.wasNull()) {
+                universityId.setNull(row);
+            } else {
+                universityId.setSafe(row, university);
+            }
+            setString(universityName, row, rs.getString(6));
+            setString(universityLocation, row, rs.getString(7));
+            if (++row == batchSize) {
+                flush();
+                root.allocateNew();
+            }
+        }
+
+        void flush() throws IOException {
+            if (row == 0) {
+                return;
+            }
+            root.setRowCount(row);
+            writer.writeBatch();
+            metadata.setRows(metadata.getRows() + row);
+            row = 0;
+        }
+    }
+
+    // Keep the newest `retain` exports
+    private void prune() {
+        List<ExportMetadata> exports = list();
+        for (ExportMetadata old : exports.subList(Math.min(retain, exports.size()), exports.size())) {
+            deleteQuietly(directory().resolve(old.getName() + ".arrow"));
+            deleteQuietly(directory().resolve(old.getName() + ".json"));
+        }
+    }
+
+    private Path directory() {
+        Path dir = Path.of(directory);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dir;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", file);
+        }
+    }
+}
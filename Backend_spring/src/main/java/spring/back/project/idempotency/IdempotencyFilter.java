@@ -0,0 +1,336 @@
+package spring.back.project.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import spring.back.project.deadline.Deadline;
+import spring.back.project.idempotency.IdempotencyStore.StoredResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key support for mutating endpoints. The first request with a
+ * key executes and its response (anything but a 5xx) is stored; a repeat
+ * while it runs waits for that response, a later repeat gets it replayed.
+ * Reusing a key with a different body is rejected with 422, a body larger
+ * than idempotency.max-request-size with 413 (it is buffered to fingerprint it).
+ * Credentials in a response (register's tokens) are stripped before it is
+ * stored and issued anew on replay, see ReplayTokens.
+ * Registered after the Spring Security chain by IdempotencyConfig, so keys
+ * are scoped to the authenticated user.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final byte[] INVALID_KEY_BODY = ("{\"status\":400,\"error\":\"Bad Request\","
+            + "\"message\":\"Idempotency-Key must be 1-255 characters\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IN_PROGRESS_BODY = ("{\"status\":409,\"error\":\"Conflict\","
+            + "\"message\":\"A request with this Idempotency-Key is still in progress\"}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MISMATCH_BODY = ("{\"status\":422,\"error\":\"Unprocessable Entity\","
+            + "\"message\":\"Idempotency-Key was already used for a different request\"}").getBytes(StandardCharsets.UTF_8);
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    private final IdempotencyStore store;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> paths;
+    private final Duration waitTimeout;
+    private final int maxRequestSize;
+    private final int maxResponseSize;
+    private final byte[] tooLargeBody;
+    // By path: responses carrying credentials
+    private final Map<String, ReplayTokens> replayTokens;
+
+    public IdempotencyFilter(IdempotencyStore store, MeterRegistry meterRegistry, Set<String> paths,
+                             Duration waitTimeout, int maxRequestSize, int maxResponseSize,
+                             Map<String, ReplayTokens> replayTokens) {
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.paths = paths;
+        this.waitTimeout = waitTimeout;
+        this.maxRequestSize = maxRequestSize;
+        this.maxResponseSize = maxResponseSize;
+        this.tooLargeBody = ("{\"status\":413,\"error\":\"Payload Too Large\","
+                + "\"message\":\"Request body exceeds " + maxRequestSize + " bytes\"}").getBytes(StandardCharsets.UTF_8);
+        this.replayTokens = replayTokens;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getMethod().equals("POST")
+                || request.getHeader(HEADER) == null
+                || !paths.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            write(response, HttpServletResponse.SC_BAD_REQUEST, INVALID_KEY_BODY);
+            return;
+        }
+
+        byte[] body = body(request);
+        if (body == null) {
+            count("too_large");
+            write(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, tooLargeBody);
+            return;
+        }
+        String id = sha256((caller() + "\n" + request.getMethod() + " " + request.getServletPath() + "\n" + key)
+                .getBytes(StandardCharsets.UTF_8));
+        String fingerprint = sha256(body);
+        // Waiting past the request's own deadline would only hold the thread
+        long deadline = System.nanoTime() + Math.min(waitTimeout.toNanos(),
+                TimeUnit.MILLISECONDS.toNanos(Deadline.remainingMillis()));
+
+        try {
+            while (true) {
+                StoredResponse done = store.find(id);
+                if (done != null) {
+                    replay(request, response, done, fingerprint, "replayed");
+                    return;
+                }
+
+                CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+                CompletableFuture<StoredResponse> running = store.joinInFlight(id, mine);
+                if (running != null) {
+                    StoredResponse result = running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (result != null) {
+                        replay(request, response, result, fingerprint, "waited");
+                        return;
+                    }
+                    continue;
+                }
+
+                try {
+                    if (!store.claim(id, fingerprint)) {
+                        // Another instance owns the key
+                        StoredResponse result = store.awaitRemote(id, deadline);
+                        if (result != null) {
+                            mine.complete(result);
+                            replay(request, response, result, fingerprint, "waited");
+                            return;
+                        }
+                        continue;
+                    }
+                    execute(new CachedBodyRequest(request, body), response, chain, id, fingerprint, mine);
+                    return;
+                } finally {
+                    store.leaveInFlight(id, mine);
+                }
+            }
+        } catch (TimeoutException e) {
+            count("in_progress");
+            response.setHeader("Retry-After", "1");
+            write(response, HttpServletResponse.SC_CONFLICT, IN_PROGRESS_BODY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for an idempotent request", e);
+        } catch (ExecutionException e) {
+            throw new ServletException(e.getCause());
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain chain, String id,
+                         String fingerprint, CompletableFuture<StoredResponse> mine) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, wrapper);
+
+            byte[] responseBody = wrapper.getContentAsByteArray();
+            ReplayTokens tokens = replayTokens.get(request.getServletPath());
+            if (tokens != null && isSuccess(wrapper.getStatus())) {
+                try {
+                    responseBody = tokens.strip(responseBody, wrapper.getContentType());
+                } catch (IOException | RuntimeException e) {
+                    // The request has taken effect: keep the key, a retry gets the status without a body
+                    logger.warn("Could not remove credentials from the {} response: {}", request.getServletPath(), e.toString());
+                    responseBody = new byte[0];
+                }
+            }
+            // Server errors are transient, a retry with the same key should execute again
+            if (wrapper.getStatus() < 500 && responseBody.length <= maxResponseSize) {
+                StoredResponse result = new StoredResponse(fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+                        wrapper.getHeader("Location"), responseBody, store.expiresAt());
+                store.complete(id, result);
+                mine.complete(result);
+                stored = true;
+            }
+            count("executed");
+        } finally {
+            if (!stored) {
+                store.release(id);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletRequest request, HttpServletResponse response, StoredResponse stored,
+                        String fingerprint, String outcome) throws IOException {
+        if (!stored.fingerprint.equals(fingerprint)) {
+            count("mismatch");
+            write(response, 422, MISMATCH_BODY);
+            return;
+        }
+        count(outcome);
+        byte[] body = stored.body;
+        ReplayTokens tokens = replayTokens.get(request.getServletPath());
+        if (tokens != null && isSuccess(stored.status)) {
+            body = tokens.reissue(body, stored.contentType);
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.location != null) {
+            response.setHeader("Location", stored.location);
+        }
+        if (stored.contentType != null) {
+            response.setContentType(stored.contentType);
+        }
+        response.setStatus(stored.status);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // The request body, or null if it is larger than max-request-size
+    private byte[] body(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxRequestSize) {
+            return null;
+        }
+        // Chunked bodies have no length up front: read one byte past the limit to detect them
+        byte[] body = request.getInputStream().readNBytes(maxRequestSize + 1);
+        return body.length > maxRequestSize ? null : body;
+    }
+
+    private static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Keys of different users never collide; anonymous requests (register) share one scope
+    private String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "";
+        }
+        return authentication.getName();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("idempotency.requests", "outcome", outcome).increment();
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The body was read to fingerprint it, so it is handed on from memory
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is in memory: it is available at once, then all read
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package spring.back.project.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import spring.back.project.model.IdempotencyRecord;
+import spring.back.project.repository.IdempotencyRecordRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Results of requests sent with an Idempotency-Key.
+ *
+ * Completed responses are kept in a bounded, TTL-evicted map and in the
+ * idempotency_keys table, which is the fallback after eviction or a restart
+ * and is shared by all instances. Claiming a key inserts an in-progress row,
+ * so only one instance executes it; requests in the same instance wait on the
+ * owner's future, other instances poll the row.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Value("${idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    // An in-progress row older than this is assumed abandoned (instance died mid-request)
+    @Value("${idempotency.in-progress-lease:60s}")
+    private Duration inProgressLease;
+
+    @Value("${idempotency.poll-interval:100ms}")
+    private Duration pollInterval;
+
+    // Keys executed by this instance right now
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    // Access-ordered so the least recently used entry is evicted first
+    private final LinkedHashMap<String, StoredResponse> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    /**
+     * Completed response for a key, or null if there is none (yet)
+     */
+    public StoredResponse find(String id) {
+        StoredResponse cached = cached(id);
+        if (cached != null) {
+            return cached;
+        }
+        StoredResponse stored = repository.findById(id)
+                .filter(record -> record.getStatus() != null && record.getExpiresAt().isAfter(Instant.now()))
+                .map(StoredResponse::new)
+                .orElse(null);
+        if (stored != null) {
+            cache(id, stored);
+        }
+        return stored;
+    }
+
+    /**
+     * Register this request as the local executor of a key.
+     * Returns the future of the request already running it, or null if this one now owns it.
+     */
+    public CompletableFuture<StoredResponse> joinInFlight(String id, CompletableFuture<StoredResponse> mine) {
+        return inFlight.putIfAbsent(id, mine);
+    }
+
+    public void leaveInFlight(String id, CompletableFuture<StoredResponse> mine) {
+        inFlight.remove(id, mine);
+        // Waiters retry on null: the owner failed or handed the key to another instance
+        mine.complete(null);
+    }
+
+    /**
+     * Claim a key across instances; false if another instance is executing it or has done so
+     */
+    public boolean claim(String id, String fingerprint) {
+        Instant now = Instant.now();
+        try {
+            repository.saveAndFlush(new IdempotencyRecord(id, fingerprint, now, now.plus(ttl)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return repository.takeOver(id, fingerprint, now, now.minus(inProgressLease), now.plus(ttl)) == 1;
+        }
+    }
+
+    /**
+     * Wait for another instance to finish a key. Returns null if it gave the key up.
+     */
+    public StoredResponse awaitRemote(String id, long deadlineNanos) throws TimeoutException, InterruptedException {
+        while (System.nanoTime() < deadlineNanos) {
+            Thread.sleep(pollInterval.toMillis());
+            IdempotencyRecord record = repository.findById(id).orElse(null);
+            if (record == null) {
+                return null;
+            }
+            if (record.getStatus() != null) {
+                StoredResponse stored = new StoredResponse(record);
+                cache(id, stored);
+                return stored;
+            }
+        }
+        throw new TimeoutException("Idempotency key still in progress");
+    }
+
+    /**
+     * Store the response of a claimed key
+     */
+    public void complete(String id, StoredResponse response) {
+        cache(id, response);
+        if (repository.complete(id, response.status, response.contentType, response.location,
+                response.body, Instant.ofEpochMilli(response.expiresAt)) == 0) {
+            logger.warn("Idempotency key {} was taken over before it completed", id);
+        }
+    }
+
+    /**
+     * Give a claimed key up without a stored response (server error), so a retry executes it again
+     */
+    public void release(String id) {
+        repository.release(id);
+    }
+
+    public long expiresAt() {
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:3600000}")
+    public void purge() {
+        int deleted = repository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private synchronized StoredResponse cached(String id) {
+        StoredResponse entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(id);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void cache(String id, StoredResponse response) {
+        entries.put(id, response);
+    }
+
+    /**
+     * Response replayed for a repeated key
+     */
+    public static class StoredResponse {
+        final String fingerprint;
+        final int status;
+        final String contentType;
+        final String location;
+        final byte[] body;
+        final long expiresAt;
+
+        StoredResponse(String fingerprint, int status, String contentType, String location, byte[] body, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.contentType = contentType;
+            this.location = location;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        StoredResponse(IdempotencyRecord record) {
+            this(record.getFingerprint(), record.getStatus(), record.getContentType(), record.getLocation(),
+                    record.getBody() != null ? record.getBody() : new byte[0], record.getExpiresAt().toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package spring.back.project.idempotency;
+
+import java.io.IOException;
+
+/**
+ * Credentials in an idempotent response are never stored with it: they are
+ * removed before the response is kept and issued anew whenever it is replayed.
+ * The body is in the response's negotiated content type (JSON, CBOR or Smile).
+ */
+public interface ReplayTokens {
+
+    /**
+     * The response body as it may be stored, without credentials
+     */
+    byte[] strip(byte[] body, String contentType) throws IOException;
+
+    /**
+     * A stored body with freshly issued credentials
+     */
+    byte[] reissue(byte[] body, String contentType) throws IOException;
+}
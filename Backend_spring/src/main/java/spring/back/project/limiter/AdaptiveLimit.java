@@ -0,0 +1,78 @@
+package spring.back.project.limiter;
+
+/**
+ * Gradient concurrency limit driven by observed latency.
+ *
+ * The limit follows limit x (tolerance x longRtt / shortRtt) + sqrt(limit):
+ * while latency stays near its long-term average the limit grows by the
+ * queue allowance, when latency rises (e.g. MySQL slowing down) it
+ * shrinks proportionally, down to minLimit.
+ */
+public class AdaptiveLimit {
+
+    private final LimiterProperties properties;
+    private final double shortAlpha;
+    private final double longAlpha;
+
+    private double limit;
+    private int inflight;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveLimit(LimiterProperties properties) {
+        this.properties = properties;
+        this.shortAlpha = 2.0 / (properties.getShortWindow() + 1);
+        this.longAlpha = 2.0 / (properties.getLongWindow() + 1);
+        this.limit = properties.getInitialLimit();
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inflight >= (int) limit) {
+            return false;
+        }
+        inflight++;
+        return true;
+    }
+
+    /**
+     * Release a permit; rttNanos < 0 releases without a latency sample
+     */
+    public synchronized void release(long rttNanos) {
+        int inflightAtStart = inflight;
+        inflight--;
+        if (rttNanos < 0) {
+            return;
+        }
+
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * shortAlpha;
+        longRtt += (rttNanos - longRtt) * longAlpha;
+
+        // After a sustained slowdown, let the baseline catch up so the limit can recover
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Not using the limit: latency says nothing about whether it is too high
+        if (inflightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - properties.getSmoothing()) + estimate * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), smoothed));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInflight() {
+        return inflight;
+    }
+}
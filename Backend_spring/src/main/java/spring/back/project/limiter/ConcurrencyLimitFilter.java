@@ -0,0 +1,75 @@
+package spring.back.project.limiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import spring.back.project.limiter.ConcurrencyLimiter.Partition;
+import spring.back.project.limiter.ConcurrencyLimiter.Rejection;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sheds requests over the adaptive concurrency limit with 503 before
+ * they reach authentication or take a JDBC connection.
+ * Registered ahead of the security filter chain by LimiterConfig.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    // Written as-is on every rejection, so shedding costs almost nothing
+    private static final byte[] OVERLOADED_BODY = ("{\"status\":503,\"error\":\"Service Unavailable\","
+            + "\"message\":\"Server is overloaded, retry later\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final ConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        // Long-polling / SSE and export downloads hold a request for minutes, health checks must always answer
+        return request.getMethod().equals("OPTIONS")
+                || path.startsWith("/actuator")
+                || path.startsWith("/api/changes")
+                || path.startsWith("/api/exports");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Partition partition = partitionOf(request);
+        Rejection rejection = limiter.tryAcquire(partition);
+        if (rejection != null) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("application/json");
+            response.setContentLength(OVERLOADED_BODY.length);
+            response.getOutputStream().write(OVERLOADED_BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            // Errors return quickly and would drag the latency average down
+            limiter.release(partition, failed ? -1 : System.nanoTime() - start);
+        }
+    }
+
+    private Partition partitionOf(HttpServletRequest request) {
+        if (request.getServletPath().startsWith("/auth/")) {
+            return Partition.AUTH;
+        }
+        String method = request.getMethod();
+        // Multi-gets are POSTed but only read
+        return method.equals("GET") || method.equals("HEAD") || request.getServletPath().endsWith("/batch")
+                ? Partition.READ : Partition.WRITE;
+    }
+}
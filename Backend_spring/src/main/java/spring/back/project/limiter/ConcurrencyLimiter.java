@@ -0,0 +1,105 @@
+package spring.back.project.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partitioned adaptive limiter. A request is admitted when its partition
+ * is under its adaptive limit and total concurrency is under the share
+ * of maxConcurrency its priority allows.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    public enum Partition {
+        AUTH, READ, WRITE
+    }
+
+    public enum Rejection {
+        // The partition's adaptive limit is reached
+        LIMIT,
+        // Total concurrency is over this priority's share
+        OVERLOAD
+    }
+
+    private final LimiterProperties properties;
+    private final Map<Partition, AdaptiveLimit> limits = new EnumMap<>(Partition.class);
+    private final Map<Partition, Map<Rejection, Counter>> rejections = new EnumMap<>(Partition.class);
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    @Autowired
+    public ConcurrencyLimiter(LimiterProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        for (Partition partition : Partition.values()) {
+            AdaptiveLimit limit = new AdaptiveLimit(properties);
+            limits.put(partition, limit);
+
+            String tag = partition.name().toLowerCase();
+            Gauge.builder("limiter.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("partition", tag)
+                    .register(meterRegistry);
+            Gauge.builder("limiter.inflight", limit, AdaptiveLimit::getInflight)
+                    .description("Requests in flight")
+                    .tag("partition", tag)
+                    .register(meterRegistry);
+
+            Map<Rejection, Counter> counters = new EnumMap<>(Rejection.class);
+            for (Rejection rejection : Rejection.values()) {
+                counters.put(rejection, Counter.builder("limiter.rejected")
+                        .description("Requests shed by the concurrency limiter")
+                        .tag("partition", tag)
+                        .tag("reason", rejection.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            rejections.put(partition, counters);
+        }
+    }
+
+    /**
+     * Try to admit a request; returns null if admitted, else why it was shed.
+     * An admitted request must be released exactly once.
+     */
+    public Rejection tryAcquire(Partition partition) {
+        int ceiling = (int) (properties.getMaxConcurrency() * shareOf(partition));
+        if (inflight.incrementAndGet() > ceiling) {
+            inflight.decrementAndGet();
+            rejections.get(partition).get(Rejection.OVERLOAD).increment();
+            return Rejection.OVERLOAD;
+        }
+        if (!limits.get(partition).tryAcquire()) {
+            inflight.decrementAndGet();
+            rejections.get(partition).get(Rejection.LIMIT).increment();
+            return Rejection.LIMIT;
+        }
+        return null;
+    }
+
+    /**
+     * Release an admitted request; rttNanos < 0 skips the latency sample
+     */
+    public void release(Partition partition, long rttNanos) {
+        limits.get(partition).release(rttNanos);
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit(Partition partition) {
+        return limits.get(partition).getLimit();
+    }
+
+    private double shareOf(Partition partition) {
+        return switch (partition) {
+            case AUTH -> properties.getAuthShare();
+            case WRITE -> properties.getWriteShare();
+            case READ -> properties.getReadShare();
+        };
+    }
+}
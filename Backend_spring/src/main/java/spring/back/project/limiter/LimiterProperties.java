@@ -0,0 +1,74 @@
+package spring.back.project.limiter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Adaptive concurrency limiter configuration (prefix "limiter").
+ * Each partition (auth, reads, writes) has its own latency-driven limit;
+ * the shared maxConcurrency is split by priority so that auth still gets
+ * through when reads and writes are saturated.
+ */
+@ConfigurationProperties(prefix = "limiter")
+public class LimiterProperties {
+
+    private boolean enabled = true;
+
+    // Bounds of each partition's limit
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 150;
+
+    // Requests in flight across all partitions, kept below Tomcat's thread pool
+    private int maxConcurrency = 150;
+
+    // Fraction of maxConcurrency each priority may use before it is shed
+    private double authShare = 1.0;
+    private double writeShare = 0.85;
+    private double readShare = 0.7;
+
+    // Latency may rise to tolerance x the long-term average before the limit shrinks
+    private double tolerance = 1.5;
+
+    // Weight of each new limit estimate
+    private double smoothing = 0.2;
+
+    // Sample windows of the short and long latency averages
+    private int shortWindow = 10;
+    private int longWindow = 600;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getInitialLimit() { return initialLimit; }
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+
+    public double getAuthShare() { return authShare; }
+    public void setAuthShare(double authShare) { this.authShare = authShare; }
+
+    public double getWriteShare() { return writeShare; }
+    public void setWriteShare(double writeShare) { this.writeShare = writeShare; }
+
+    public double getReadShare() { return readShare; }
+    public void setReadShare(double readShare) { this.readShare = readShare; }
+
+    public double getTolerance() { return tolerance; }
+    public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+    public double getSmoothing() { return smoothing; }
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+    public int getShortWindow() { return shortWindow; }
+    public void setShortWindow(int shortWindow) { this.shortWindow = shortWindow; }
+
+    public int getLongWindow() { return longWindow; }
+    public void setLongWindow(int longWindow) { this.longWindow = longWindow; }
+}
@@ -0,0 +1,90 @@
+package spring.back.project.membership;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter with 8-bit counters instead of bits, so values can be removed.
+ *
+ * mightContain() == false is definite: the value was never added (or was
+ * removed). true may be a false positive at roughly the configured rate.
+ * A saturated counter is never decremented, which keeps removal safe.
+ */
+public class CountingBloomFilter {
+
+    private static final int SATURATED = 0xFF;
+
+    private final byte[] counters;
+    private final int hashCount;
+
+    public CountingBloomFilter(long expectedEntries, double falsePositiveRate) {
+        long size = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.counters = new byte[(int) Math.max(64, Math.min(Integer.MAX_VALUE - 8, size))];
+        this.hashCount = (int) Math.max(1, Math.round((double) counters.length / expectedEntries * Math.log(2)));
+    }
+
+    public synchronized void add(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash, i);
+            int count = counters[index] & 0xFF;
+            if (count < SATURATED) {
+                counters[index] = (byte) (count + 1);
+            }
+        }
+    }
+
+    /**
+     * Remove a value; only call this for values that were added
+     */
+    public synchronized void remove(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(hash, i);
+            int count = counters[index] & 0xFF;
+            if (count > 0 && count < SATURATED) {
+                counters[index] = (byte) (count - 1);
+            }
+        }
+    }
+
+    public synchronized boolean mightContain(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashCount; i++) {
+            if (counters[index(hash, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getSize() {
+        return counters.length;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // Double hashing: the two 32-bit halves of one 64-bit hash give all k positions
+    private int index(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int combined = h1 + i * h2;
+        return (combined & Integer.MAX_VALUE) % counters.length;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur3 mix
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,228 @@
+package spring.back.project.membership;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.sharding.ShardMap;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory pre-check for the unique username / email columns.
+ *
+ * A definite "absent" lets registration and student creation skip their
+ * existence queries; "maybe present" falls back to the query. The database
+ * unique constraints stay the final arbiter. Values are lower-cased, which
+ * matches MySQL's case-insensitive collation and is only more conservative
+ * elsewhere. Until the startup scan has finished everything is "maybe".
+ *
+ * The filters are per instance. Student emails other instances insert are
+ * added from the change feed tail (changes.commit-lag behind, about as racy as
+ * the check-then-insert itself); a removal only decrements emails this
+ * instance added since the last rebuild, as decrementing a value the filter
+ * never counted could zero counters shared with other values and cause false
+ * negatives. Stale entries left behind only cost a query and are dropped when
+ * the filters are rebuilt from the tables every membership.rebuild-interval.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class MembershipIndex implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MembershipIndex.class);
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${membership.enabled:true}")
+    private boolean enabled;
+
+    @Value("${membership.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${membership.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${membership.fetch-size:1000}")
+    private int fetchSize;
+
+    private volatile Filters filters;
+
+    // Filters being built by a running scan
+    private volatile Filters pending;
+
+    // Student emails this instance added to the current (and pending) filters, with
+    // their count: the only values a removal may decrement. Guarded by this.
+    private final Map<String, Integer> addedHere = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        changeFeedService.subscribe(this::applyTailed);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warm();
+        }
+    }
+
+    /**
+     * Rebuild the filters by streaming the users and students tables
+     */
+    @Scheduled(initialDelayString = "${membership.rebuild-interval:3600000}", fixedDelayString = "${membership.rebuild-interval:3600000}")
+    public void warm() {
+        if (!enabled) {
+            return;
+        }
+        Filters warming = new Filters(expectedEntries, falsePositiveRate);
+        Filters previous = filters;
+        synchronized (this) {
+            // Writes during the scan go to the new filters as well, so from here
+            // on an added value is counted in both; earlier ones are never removed
+            pending = warming;
+            addedHere.clear();
+        }
+        try {
+            long start = System.currentTimeMillis();
+            RowCallbackHandler users = rs -> {
+                warming.usernames.add(normalize(rs.getString(1)));
+                warming.userEmails.add(normalize(rs.getString(2)));
+            };
+            RowCallbackHandler students = rs -> warming.studentEmails.add(normalize(rs.getString(1)));
+
+            jdbcTemplate(shardMap.getPrimary()).query("SELECT username, email FROM users", users);
+            for (String shard : shardMap.getShardNames()) {
+                jdbcTemplate(shard).query("SELECT email FROM students", students);
+            }
+            filters = warming;
+            logger.info("Membership filters warmed in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            filters = previous;
+            logger.warn("Could not warm membership filters, existence checks will use the database", e);
+        } finally {
+            pending = null;
+        }
+    }
+
+    public boolean mightHaveUsername(String username) {
+        Filters current = filters;
+        return current == null || current.usernames.mightContain(normalize(username));
+    }
+
+    public boolean mightHaveUserEmail(String email) {
+        Filters current = filters;
+        return current == null || current.userEmails.mightContain(normalize(email));
+    }
+
+    public boolean mightHaveStudentEmail(String email) {
+        Filters current = filters;
+        return current == null || current.studentEmails.mightContain(normalize(email));
+    }
+
+    public void addUser(String username, String email) {
+        apply(f -> {
+            f.usernames.add(normalize(username));
+            f.userEmails.add(normalize(email));
+        });
+    }
+
+    public synchronized void addStudentEmail(String email) {
+        String value = normalize(email);
+        addedHere.merge(value, 1, Integer::sum);
+        apply(f -> f.studentEmails.add(value));
+    }
+
+    /**
+     * Called once a delete has committed. Decrements only an email this
+     * instance added; any other is left as a stale "maybe".
+     */
+    public synchronized void removeStudentEmail(String email) {
+        String value = normalize(email);
+        Integer count = addedHere.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count == 1) {
+            addedHere.remove(value);
+        } else {
+            addedHere.put(value, count - 1);
+        }
+        apply(f -> f.studentEmails.remove(value));
+    }
+
+    // Every instance's student changes: inserted emails are added, never removed
+    private void applyTailed(ChangeEvent event) {
+        if (event.getEntityType() != ChangeEvent.EntityType.STUDENT || event.getPayload() == null) {
+            return;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(event.getPayload()).get("email");
+            if (email != null && email.isTextual()) {
+                String value = normalize(email.asText());
+                synchronized (this) {
+                    apply(f -> f.studentEmails.add(value));
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Could not read change payload {}", event.getId(), e);
+        }
+    }
+
+    // Called with this locked, or by the scan on its own filters
+    private void apply(Consumer<Filters> update) {
+        Filters current = filters;
+        Filters warming = pending;
+        if (current != null) {
+            update.accept(current);
+        }
+        if (warming != null && warming != current) {
+            update.accept(warming);
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate(String shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shardMap.dataSourceFor(shard));
+        jdbcTemplate.setFetchSize(fetchSize);
+        return jdbcTemplate;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Filters {
+        private final CountingBloomFilter usernames;
+        private final CountingBloomFilter userEmails;
+        private final CountingBloomFilter studentEmails;
+
+        Filters(long expectedEntries, double falsePositiveRate) {
+            this.usernames = new CountingBloomFilter(expectedEntries, falsePositiveRate);
+            this.userEmails = new CountingBloomFilter(expectedEntries, falsePositiveRate);
+            this.studentEmails = new CountingBloomFilter(expectedEntries, falsePositiveRate);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package spring.back.project.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "change_events", indexes = {
+        @Index(name = "idx_change_events_entity", columnList = "entity_type, entity_id"),
+        @Index(name = "idx_change_events_created_at", columnList = "created_at")
+})
+public class ChangeEvent {
+
+    public enum EntityType { STUDENT, UNIVERSITY }
+
+    public enum Operation { CREATE, UPDATE, DELETE }
+
+    // Monotonically increasing sequence, used as the feed cursor
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    // Only set for students, lets consumers filter by university
+    @Column(name = "university_id")
+    private Long universityId;
+
+    // Set on updates that moved a student, so the old university's consumers see it leave
+    @Column(name = "previous_university_id")
+    private Long previousUniversityId;
+
+    // JSON snapshot of the entity after the change, null for deletes
+    @Lob
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Constructors
+    public ChangeEvent() {
+    }
+
+    public ChangeEvent(EntityType entityType, Long entityId, Operation operation, Long universityId, String payload) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.universityId = universityId;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public Long getUniversityId() {
+        return universityId;
+    }
+
+    public void setUniversityId(Long universityId) {
+        this.universityId = universityId;
+    }
+
+    public Long getPreviousUniversityId() {
+        return previousUniversityId;
+    }
+
+    public void setPreviousUniversityId(Long previousUniversityId) {
+        this.previousUniversityId = previousUniversityId;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,7 +1,7 @@
 package spring.back.project.model;
 
 import jakarta.persistence.*;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 
 @Entity 
@@ -18,8 +18,9 @@ public class University {
     @Column(nullable = false)
     private String location;
     
+    // Not serialized: loaded explicitly with ?include=students (see UniversityController)
     @OneToMany(mappedBy = "university", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonIgnoreProperties("university")
+    @JsonIgnore
     private List<Student> students;
     
     // Constructors
@@ -0,0 +1,138 @@
+package spring.back.project.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from positive long keys to int values.
+ *
+ * Keys and values live in two parallel primitive arrays (linear probing,
+ * backward-shift deletion), so an entry costs 12 bytes per slot instead
+ * of a boxed Long, a boxed Integer and a HashMap node. Not thread-safe.
+ */
+public class LongIntHashMap {
+
+    // Database ids start at 1, so 0 marks a free slot
+    private static final long FREE = 0L;
+
+    private static final double MAX_LOAD = 0.75;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.ceil(expectedSize / MAX_LOAD)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Get the value for a key, or `missing` if absent
+     */
+    public int get(long key, int missing) {
+        for (int index = index(key); ; index = (index + 1) & mask) {
+            long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == FREE) {
+                return missing;
+            }
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        int index = index(key);
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > keys.length * MAX_LOAD) {
+            resize(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove a key, returns its value or `missing` if absent
+     */
+    public int remove(long key, int missing) {
+        int index = index(key);
+        while (keys[index] != key) {
+            if (keys[index] == FREE) {
+                return missing;
+            }
+            index = (index + 1) & mask;
+        }
+        int removed = values[index];
+
+        // Move later entries of the probe chain back so lookups never stop at the hole
+        int hole = index;
+        for (int next = (hole + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+            int home = index(keys[next]);
+            boolean reachable = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!reachable) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Heap used by the key and value arrays
+     */
+    public long estimateBytes() {
+        return 16L + 8L * keys.length + 16L + 4L * values.length;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int index = index(oldKeys[i]);
+                while (keys[index] != FREE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    // Sequential ids would cluster without mixing (MurmurHash3 finalizer)
+    private int index(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+}
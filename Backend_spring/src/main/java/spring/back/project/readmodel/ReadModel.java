@@ -0,0 +1,351 @@
+package spring.back.project.readmodel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.sharding.ShardMap;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-process read model (CQRS) for the student and university reads.
+ *
+ * Loaded from the tables at startup, then kept current from the change feed,
+ * so the model never shows uncommitted data. Changes of every instance come
+ * from tailing the feed in sequence order (a few seconds behind, see
+ * changes.commit-lag); this instance's own commits are also applied right
+ * away, so a client reads its own writes, and an older change tailed after
+ * such a commit is skipped for that entity. Readers hold the
+ * read lock while copying their result out, so every response reflects one
+ * point of the change sequence. Until the model is loaded (or after it lost
+ * track of a change) reads fall back to the database.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ReadModel implements ApplicationRunner, InfoContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadModel.class);
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${readmodel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${readmodel.fetch-size:1000}")
+    private int fetchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; null until loaded
+    private ReadModelStore store;
+
+    // Guarded by lock; changes committed while a load is running, replayed onto its result
+    private List<ChangeEvent> buffered;
+
+    // Guarded by lock; sequence of the last own change applied per entity, until the tail reaches it
+    private final Map<String, Long> appliedAhead = new HashMap<>();
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    private volatile Map<String, Object> lastLoad = Map.of();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "read-model-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        changeFeedService.addListener(this::applyCommitted);
+        changeFeedService.subscribe(this::applyTailed);
+        Gauge.builder("readmodel.students", () -> stat(ReadModelStore::getStudentCount))
+                .description("Students held by the read model").register(meterRegistry);
+        Gauge.builder("readmodel.size", () -> stat(ReadModelStore::estimateBytes))
+                .description("Estimated heap used by the read model").baseUnit("bytes").register(meterRegistry);
+    }
+
+    // Loaded before the warm-up so it replays reads against the model
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Periodic rebuild, which also repairs the model if a change was missed
+     */
+    @Scheduled(initialDelayString = "${readmodel.refresh-interval:3600000}", fixedDelayString = "${readmodel.refresh-interval:3600000}")
+    public void refresh() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Run a query against the model, or the fallback (database) if it is not loaded
+     */
+    public <T> T read(Function<ReadModelStore, T> query, Supplier<T> fallback) {
+        lock.readLock().lock();
+        try {
+            if (store != null) {
+                return query.apply(store);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return fallback.get();
+    }
+
+    /**
+     * Rebuild the model by streaming the universities and students tables
+     */
+    public void load() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            buffered = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            ReadModelStore loaded = scan();
+
+            lock.writeLock().lock();
+            try {
+                for (ChangeEvent event : buffered) {
+                    tryApply(loaded, event);
+                }
+                loaded.compact();
+                store = loaded;
+            } finally {
+                buffered = null;
+                lock.writeLock().unlock();
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            lastLoad = Map.of("loadedAt", Instant.now().toString(), "loadMillis", elapsed);
+            logger.info("Read model loaded {} students, {} universities in {} ms (~{} MB)",
+                    loaded.getStudentCount(), loaded.getUniversityCount(), elapsed, loaded.estimateBytes() >> 20);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                buffered = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.warn("Could not load the read model, reads use the database", e);
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    /**
+     * Size of the model under /actuator/info, including the footprint per million students
+     */
+    @Override
+    public void contribute(Info.Builder builder) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> details = new LinkedHashMap<>(lastLoad);
+        lock.readLock().lock();
+        try {
+            details.put("ready", store != null);
+            if (store != null) {
+                long bytes = store.estimateBytes();
+                details.put("students", store.getStudentCount());
+                details.put("universities", store.getUniversityCount());
+                details.put("estimatedBytes", bytes);
+                if (store.getStudentCount() > 0) {
+                    details.put("bytesPerMillionStudents", bytes * 1_000_000L / store.getStudentCount());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        builder.withDetail("readModel", details);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private ReadModelStore scan() {
+        JdbcTemplate primary = jdbcTemplate(shardMap.getPrimary());
+        Long students = 0L;
+        for (String shard : shardMap.getShardNames()) {
+            students += jdbcTemplate(shard).queryForObject("SELECT COUNT(*) FROM students", Long.class);
+        }
+        Long universities = primary.queryForObject("SELECT COUNT(*) FROM universities", Long.class);
+
+        // Rows added between the count and the scan only make the arrays grow once
+        ReadModelStore loaded = new ReadModelStore((int) (students + students / 8), universities.intValue() + 16);
+        primary.query("SELECT id, name, location FROM universities ORDER BY id",
+                rs -> { loaded.putUniversity(rs.getLong(1), rs.getString(2), rs.getString(3)); });
+        for (String shard : shardMap.getShardNames()) {
+            jdbcTemplate(shard).query(
+                    "SELECT id, first_name, last_name, email, university_id FROM students ORDER BY id",
+                    rs -> { loaded.putStudent(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getLong(5)); });
+        }
+        return loaded;
+    }
+
+    // Called by ChangeFeedService after each commit of this instance
+    private void applyCommitted(ChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            appliedAhead.merge(key(event), event.getId(), Math::max);
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Called by ChangeFeedService with every instance's changes, in sequence order
+    private void applyTailed(ChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            Long ahead = appliedAhead.get(key(event));
+            if (ahead != null) {
+                if (event.getId() < ahead) {
+                    // Superseded by an own change already applied
+                    return;
+                }
+                appliedAhead.remove(key(event));
+                if (event.getId() == ahead) {
+                    return;
+                }
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String key(ChangeEvent event) {
+        return event.getEntityType() + ":" + event.getEntityId();
+    }
+
+    // Write lock held
+    private void apply(ChangeEvent event) {
+        if (buffered != null) {
+            buffered.add(event);
+        }
+        if (store != null && !tryApply(store, event)) {
+            // Out of step with the tables: serve from the database until rebuilt
+            store = null;
+            logger.warn("Read model missed a change to {} {}, reloading", event.getEntityType(), event.getEntityId());
+            loader.execute(this::load);
+        }
+    }
+
+    private boolean tryApply(ReadModelStore target, ChangeEvent event) {
+        try {
+            return applyTo(target, event);
+        } catch (RuntimeException e) {
+            logger.debug("Could not apply change {}", event.getId(), e);
+            return false;
+        }
+    }
+
+    private boolean applyTo(ReadModelStore target, ChangeEvent event) {
+        long id = event.getEntityId();
+        if (event.getEntityType() == EntityType.UNIVERSITY) {
+            if (event.getOperation() == Operation.DELETE) {
+                target.removeUniversity(id);
+                return true;
+            }
+            JsonNode university = payload(event);
+            target.putUniversity(id, text(university, "name"), text(university, "location"));
+            return true;
+        }
+
+        if (event.getOperation() == Operation.DELETE) {
+            target.removeStudent(id);
+            return true;
+        }
+        JsonNode student = payload(event);
+        return event.getUniversityId() != null && target.putStudent(id, text(student, "firstName"),
+                text(student, "lastName"), text(student, "email"), event.getUniversityId());
+    }
+
+    private JsonNode payload(ChangeEvent event) {
+        try {
+            return objectMapper.readTree(event.getPayload());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read change payload " + event.getId(), e);
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private <T extends Number> Number stat(Function<ReadModelStore, T> value) {
+        lock.readLock().lock();
+        try {
+            return store != null ? value.apply(store) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate(String shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shardMap.dataSourceFor(shard));
+        jdbcTemplate.setFetchSize(fetchSize);
+        return jdbcTemplate;
+    }
+}
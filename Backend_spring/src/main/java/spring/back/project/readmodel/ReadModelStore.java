@@ -0,0 +1,517 @@
+package spring.back.project.readmodel;
+
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compact in-memory copy of the students and universities tables.
+ *
+ * Students are stored column-wise by slot: the id, the university's slot and
+ * one byte[] holding first name, last name and email as length-prefixed UTF-8.
+ * Ids map to slots through a LongIntHashMap, and each university keeps the
+ * slots of its students in an int[] sorted by student id, which serves
+ * findByUniversityId and the cursor pages directly.
+ *
+ * Deleted students leave a hole that compact() reclaims. Reads build new
+ * Student / University objects, callers never see the stored state.
+ * Not thread-safe, see ReadModel for locking.
+ */
+public class ReadModelStore {
+
+    private static final int NONE = -1;
+
+    // Holes tolerated before compact() is worth it
+    private static final int MIN_HOLES = 1024;
+
+    // Students
+    private final LongIntHashMap studentSlots;
+    private long[] studentIds;
+    private int[] studentUniversities;
+    private byte[][] records;
+    private int studentCount;
+    private int holes;
+    private boolean idOrdered = true;
+    private long recordBytes;
+
+    // Universities
+    private final LongIntHashMap universitySlots;
+    private long[] universityIds;
+    private String[] names;
+    private String[] locations;
+    private int[][] universityStudents;
+    private int[] universityStudentCounts;
+    private int universityCount;
+
+    public ReadModelStore(int expectedStudents, int expectedUniversities) {
+        int students = Math.max(16, expectedStudents);
+        int universities = Math.max(16, expectedUniversities);
+        this.studentSlots = new LongIntHashMap(students);
+        this.studentIds = new long[students];
+        this.studentUniversities = new int[students];
+        this.records = new byte[students][];
+        this.universitySlots = new LongIntHashMap(universities);
+        this.universityIds = new long[universities];
+        this.names = new String[universities];
+        this.locations = new String[universities];
+        this.universityStudents = new int[universities][];
+        this.universityStudentCounts = new int[universities];
+    }
+
+    // ---- Writes ----
+
+    public void putUniversity(long id, String name, String location) {
+        int slot = universitySlots.get(id, NONE);
+        if (slot == NONE) {
+            if (universityCount == universityIds.length) {
+                growUniversities();
+            }
+            slot = universityCount++;
+            universityIds[slot] = id;
+            universityStudents[slot] = new int[4];
+            universitySlots.put(id, slot);
+        }
+        names[slot] = name;
+        locations[slot] = location;
+    }
+
+    /**
+     * Remove a university, with any of its students still present
+     */
+    public void removeUniversity(long id) {
+        int slot = universitySlots.remove(id, NONE);
+        if (slot == NONE) {
+            return;
+        }
+        long[] students = new long[universityStudentCounts[slot]];
+        for (int i = 0; i < students.length; i++) {
+            students[i] = studentIds[universityStudents[slot][i]];
+        }
+        for (long student : students) {
+            removeStudent(student);
+        }
+        // The slot stays empty until compact()
+        universityIds[slot] = 0L;
+        names[slot] = null;
+        locations[slot] = null;
+        universityStudents[slot] = null;
+    }
+
+    /**
+     * Insert or replace a student; false if its university is not known
+     */
+    public boolean putStudent(long id, String firstName, String lastName, String email, long universityId) {
+        int university = universitySlots.get(universityId, NONE);
+        if (university == NONE) {
+            return false;
+        }
+        byte[] record = encode(firstName, lastName, email);
+
+        int slot = studentSlots.get(id, NONE);
+        if (slot == NONE) {
+            if (studentCount == studentIds.length) {
+                growStudents();
+            }
+            slot = studentCount++;
+            if (slot > 0 && studentIds[slot - 1] > id) {
+                idOrdered = false;
+            }
+            studentIds[slot] = id;
+            studentSlots.put(id, slot);
+            addToUniversity(university, slot);
+        } else {
+            recordBytes -= arrayBytes(records[slot].length);
+            if (studentUniversities[slot] != university) {
+                removeFromUniversity(studentUniversities[slot], slot);
+                addToUniversity(university, slot);
+            }
+        }
+        studentUniversities[slot] = university;
+        records[slot] = record;
+        recordBytes += arrayBytes(record.length);
+        return true;
+    }
+
+    public void removeStudent(long id) {
+        int slot = studentSlots.remove(id, NONE);
+        if (slot == NONE) {
+            return;
+        }
+        removeFromUniversity(studentUniversities[slot], slot);
+        recordBytes -= arrayBytes(records[slot].length);
+        records[slot] = null;
+        holes++;
+        if (holes >= MIN_HOLES && holes > studentSlots.size() / 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Drop the holes left by deletes and put the student slots back in id order
+     */
+    public void compact() {
+        int live = studentSlots.size();
+        int[] slots = orderedSlots();
+
+        int capacity = Math.max(16, live + live / 4);
+        long[] ids = new long[capacity];
+        int[] universities = new int[capacity];
+        byte[][] compacted = new byte[capacity][];
+        int[] newSlots = new int[studentCount];
+        for (int i = 0; i < live; i++) {
+            int slot = slots[i];
+            ids[i] = studentIds[slot];
+            universities[i] = studentUniversities[slot];
+            compacted[i] = records[slot];
+            newSlots[slot] = i;
+        }
+        studentIds = ids;
+        studentUniversities = universities;
+        records = compacted;
+        studentCount = live;
+        holes = 0;
+        idOrdered = true;
+
+        studentSlots.clear();
+        for (int slot = 0; slot < live; slot++) {
+            studentSlots.put(studentIds[slot], slot);
+        }
+        // Renumbering keeps the per-university lists sorted, ids did not change
+        for (int university = 0; university < universityCount; university++) {
+            int[] students = universityStudents[university];
+            if (students != null) {
+                for (int i = 0; i < universityStudentCounts[university]; i++) {
+                    students[i] = newSlots[students[i]];
+                }
+            }
+        }
+    }
+
+    // ---- Reads ----
+
+    public int getStudentCount() {
+        return studentSlots.size();
+    }
+
+    public int getUniversityCount() {
+        return universitySlots.size();
+    }
+
+    public Student getStudent(long id) {
+        int slot = studentSlots.get(id, NONE);
+        return slot == NONE ? null : student(slot, null);
+    }
+
+    /**
+     * All students in id order
+     */
+    public List<Student> getStudents() {
+        University[] universities = new University[universityCount];
+        List<Student> result = new ArrayList<>(studentSlots.size());
+        for (int slot : orderedSlots()) {
+            result.add(student(slot, universities));
+        }
+        return result;
+    }
+
+    /**
+     * Students whose first name, last name or (if `includeEmail`) email contains
+     * the term, ignoring case, in id order
+     */
+    public List<Student> searchStudents(String term, boolean includeEmail) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        byte[] ascii = isAscii(lower) ? lower.getBytes(StandardCharsets.US_ASCII) : null;
+        University[] universities = new University[universityCount];
+        List<Student> result = new ArrayList<>();
+        for (int slot : orderedSlots()) {
+            if (matches(records[slot], ascii, lower, includeEmail ? 3 : 2)) {
+                result.add(student(slot, universities));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A university's students with an id greater than `afterId`, in id order, at most `limit`
+     */
+    public List<Student> getStudentsByUniversity(long universityId, long afterId, int limit) {
+        int university = universitySlots.get(universityId, NONE);
+        if (university == NONE) {
+            return new ArrayList<>();
+        }
+        int[] students = universityStudents[university];
+        int count = universityStudentCounts[university];
+        int from = afterId <= 0 ? 0 : insertionPoint(students, count, afterId + 1);
+        int to = (int) Math.min(count, (long) from + limit);
+
+        University[] universities = new University[universityCount];
+        List<Student> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(student(students[i], universities));
+        }
+        return result;
+    }
+
+    /**
+     * The first `limit` students of each university, keyed by university id
+     */
+    public Map<Long, List<Student>> getFirstStudentsByUniversity(Collection<Long> universityIds, int limit) {
+        Map<Long, List<Student>> result = new LinkedHashMap<>();
+        for (Long universityId : universityIds) {
+            List<Student> students = getStudentsByUniversity(universityId, 0L, limit);
+            if (!students.isEmpty()) {
+                result.put(universityId, students);
+            }
+        }
+        return result;
+    }
+
+    public University getUniversity(long id) {
+        int slot = universitySlots.get(id, NONE);
+        return slot == NONE ? null : university(slot);
+    }
+
+    /**
+     * All universities in insertion (id) order
+     */
+    public List<University> getUniversities() {
+        List<University> result = new ArrayList<>(universitySlots.size());
+        for (int slot = 0; slot < universityCount; slot++) {
+            if (universityIds[slot] != 0L) {
+                result.add(university(slot));
+            }
+        }
+        return result;
+    }
+
+    public List<University> searchUniversities(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        List<University> result = new ArrayList<>();
+        for (int slot = 0; slot < universityCount; slot++) {
+            if (universityIds[slot] != 0L && names[slot] != null && names[slot].toLowerCase(Locale.ROOT).contains(lower)) {
+                result.add(university(slot));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Approximate heap used by the store (compressed oops, 16-byte array headers)
+     */
+    public long estimateBytes() {
+        long bytes = studentSlots.estimateBytes() + universitySlots.estimateBytes();
+        bytes += arrayBytes(8L * studentIds.length) + arrayBytes(4L * studentUniversities.length)
+                + arrayBytes(4L * records.length) + recordBytes;
+        bytes += arrayBytes(8L * universityIds.length) + arrayBytes(4L * universityStudentCounts.length)
+                + 3 * arrayBytes(4L * names.length);
+        for (int slot = 0; slot < universityCount; slot++) {
+            if (universityIds[slot] != 0L) {
+                bytes += stringBytes(names[slot]) + stringBytes(locations[slot])
+                        + arrayBytes(4L * universityStudents[slot].length);
+            }
+        }
+        return bytes;
+    }
+
+    // ---- Internals ----
+
+    // Live student slots in id order
+    private int[] orderedSlots() {
+        int live = studentSlots.size();
+        int[] slots = new int[live];
+        if (idOrdered) {
+            int count = 0;
+            for (int slot = 0; slot < studentCount; slot++) {
+                if (records[slot] != null) {
+                    slots[count++] = slot;
+                }
+            }
+            return slots;
+        }
+        // Only after out-of-order inserts (sharded loads) until the next compact()
+        long[] ids = new long[live];
+        int count = 0;
+        for (int slot = 0; slot < studentCount; slot++) {
+            if (records[slot] != null) {
+                ids[count++] = studentIds[slot];
+            }
+        }
+        Arrays.sort(ids);
+        for (int i = 0; i < live; i++) {
+            slots[i] = studentSlots.get(ids[i], NONE);
+        }
+        return slots;
+    }
+
+    private Student student(int slot, University[] universities) {
+        byte[] record = records[slot];
+        int firstLength = length(record, 0);
+        int lastOffset = 2 + firstLength;
+        int lastLength = length(record, lastOffset);
+        int emailOffset = lastOffset + 2 + lastLength;
+        int emailLength = length(record, emailOffset);
+
+        // One University instance per university and call, shared by its students
+        int universitySlot = studentUniversities[slot];
+        University university = universities != null ? universities[universitySlot] : null;
+        if (university == null) {
+            university = university(universitySlot);
+            if (universities != null) {
+                universities[universitySlot] = university;
+            }
+        }
+
+        Student student = new Student(
+                new String(record, 2, firstLength, StandardCharsets.UTF_8),
+                new String(record, lastOffset + 2, lastLength, StandardCharsets.UTF_8),
+                new String(record, emailOffset + 2, emailLength, StandardCharsets.UTF_8),
+                university);
+        student.setId(studentIds[slot]);
+        return student;
+    }
+
+    private University university(int slot) {
+        University university = new University(names[slot], locations[slot]);
+        university.setId(universityIds[slot]);
+        return university;
+    }
+
+    private void addToUniversity(int university, int slot) {
+        int[] students = universityStudents[university];
+        int count = universityStudentCounts[university];
+        int index = insertionPoint(students, count, studentIds[slot]);
+        if (count == students.length) {
+            students = Arrays.copyOf(students, Math.max(4, count + (count >> 1)));
+            universityStudents[university] = students;
+        }
+        System.arraycopy(students, index, students, index + 1, count - index);
+        students[index] = slot;
+        universityStudentCounts[university] = count + 1;
+    }
+
+    private void removeFromUniversity(int university, int slot) {
+        int[] students = universityStudents[university];
+        if (students == null) {
+            return;
+        }
+        int count = universityStudentCounts[university];
+        int index = insertionPoint(students, count, studentIds[slot]);
+        if (index < count && students[index] == slot) {
+            System.arraycopy(students, index + 1, students, index, count - index - 1);
+            universityStudentCounts[university] = count - 1;
+        }
+    }
+
+    // First index in the university's list whose student id is >= id
+    private int insertionPoint(int[] students, int count, long id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (studentIds[students[middle]] < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void growStudents() {
+        int capacity = studentIds.length + (studentIds.length >> 1);
+        studentIds = Arrays.copyOf(studentIds, capacity);
+        studentUniversities = Arrays.copyOf(studentUniversities, capacity);
+        records = Arrays.copyOf(records, capacity);
+    }
+
+    private void growUniversities() {
+        int capacity = universityIds.length + (universityIds.length >> 1);
+        universityIds = Arrays.copyOf(universityIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        universityStudents = Arrays.copyOf(universityStudents, capacity);
+        universityStudentCounts = Arrays.copyOf(universityStudentCounts, capacity);
+    }
+
+    // Fields are VARCHAR(255), so their UTF-8 length always fits the 2-byte prefix
+    private static byte[] encode(String... fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i] == null ? new byte[0] : fields[i].getBytes(StandardCharsets.UTF_8);
+            length += 2 + encoded[i].length;
+        }
+        byte[] record = new byte[length];
+        int offset = 0;
+        for (byte[] field : encoded) {
+            record[offset] = (byte) (field.length >>> 8);
+            record[offset + 1] = (byte) field.length;
+            System.arraycopy(field, 0, record, offset + 2, field.length);
+            offset += 2 + field.length;
+        }
+        return record;
+    }
+
+    private static int length(byte[] record, int offset) {
+        return ((record[offset] & 0xFF) << 8) | (record[offset + 1] & 0xFF);
+    }
+
+    // Matches the first `fields` fields of a record against a lower-cased term
+    private static boolean matches(byte[] record, byte[] ascii, String lower, int fields) {
+        int offset = 0;
+        for (int field = 0; field < fields; field++) {
+            int length = length(record, offset);
+            if (ascii != null
+                    ? containsIgnoreCase(record, offset + 2, length, ascii)
+                    : new String(record, offset + 2, length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT).contains(lower)) {
+                return true;
+            }
+            offset += 2 + length;
+        }
+        return false;
+    }
+
+    // ASCII term against UTF-8 bytes: multi-byte sequences never equal an ASCII byte
+    private static boolean containsIgnoreCase(byte[] record, int offset, int length, byte[] term) {
+        int last = offset + length - term.length;
+        for (int start = offset; start <= last; start++) {
+            int i = 0;
+            while (i < term.length && lowerAscii(record[start + i]) == term[i]) {
+                i++;
+            }
+            if (i == term.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte lowerAscii(byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + ('a' - 'A')) : value;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + arrayBytes(value.length());
+    }
+
+    private static long arrayBytes(long contentBytes) {
+        return (16 + contentBytes + 7) & ~7L;
+    }
+}
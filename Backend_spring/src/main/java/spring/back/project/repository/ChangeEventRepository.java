@@ -0,0 +1,33 @@
+package spring.back.project.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import spring.back.project.model.ChangeEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    // Next page of the feed after a cursor
+    List<ChangeEvent> findByIdGreaterThanOrderByIdAsc(Long since, Pageable pageable);
+
+    // Next page of the feed, stopping before a sequence that is not committed yet
+    List<ChangeEvent> findByIdGreaterThanAndIdLessThanOrderByIdAsc(Long since, Long before, Pageable pageable);
+
+    // First sequence after a cursor recorded at or after a time, null if none
+    @Query("SELECT MIN(e.id) FROM ChangeEvent e WHERE e.id > :since AND e.createdAt >= :recorded")
+    Long findFirstIdRecordedSince(@Param("since") Long since, @Param("recorded") Instant recorded);
+
+    @Query("SELECT MAX(e.id) FROM ChangeEvent e")
+    Long findMaxId();
+
+    // Old entries superseded by a newer change to the same entity
+    @Query("SELECT e.id FROM ChangeEvent e WHERE e.createdAt < :before AND EXISTS " +
+            "(SELECT n.id FROM ChangeEvent n WHERE n.entityType = e.entityType AND n.entityId = e.entityId AND n.id > e.id)")
+    List<Long> findSupersededIds(@Param("before") Instant before, Pageable pageable);
+}
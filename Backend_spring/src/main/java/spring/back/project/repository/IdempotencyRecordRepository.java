@@ -0,0 +1,43 @@
+package spring.back.project.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import spring.back.project.model.IdempotencyRecord;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Take over a key whose owner stopped (stale in-progress row) or whose result expired
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.status = null, r.contentType = null, " +
+            "r.location = null, r.body = null, r.createdAt = :now, r.expiresAt = :expiresAt " +
+            "WHERE r.id = :id AND ((r.status IS NULL AND r.createdAt < :staleBefore) OR r.expiresAt < :now)")
+    int takeOver(@Param("id") String id, @Param("fingerprint") String fingerprint, @Param("now") Instant now,
+                 @Param("staleBefore") Instant staleBefore, @Param("expiresAt") Instant expiresAt);
+
+    // Store the response of an in-progress key
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.contentType = :contentType, r.location = :location, " +
+            "r.body = :body, r.expiresAt = :expiresAt WHERE r.id = :id AND r.status IS NULL")
+    int complete(@Param("id") String id, @Param("status") Integer status, @Param("contentType") String contentType,
+                 @Param("location") String location, @Param("body") byte[] body, @Param("expiresAt") Instant expiresAt);
+
+    // Give up an in-progress key so a retry can execute it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status IS NULL")
+    int release(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
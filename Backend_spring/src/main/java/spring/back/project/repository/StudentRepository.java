@@ -1,11 +1,13 @@
 package spring.back.project.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import spring.back.project.model.Student;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,12 +20,23 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     // Find by email
     Student findByEmail(String email);
     
+    boolean existsByEmail(String email);
+    
     // Find by university
     List<Student> findByUniversityId(Long universityId);
     
     // Search by first name or last name or email
     @Query("SELECT s FROM Student s WHERE LOWER(s.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(s.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(s.email) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<Student> searchStudents(@Param("search") String search);
+    
+    // First students (by id) of each university, at most :limit per university, in one query
+    @Query(value = "SELECT * FROM (SELECT s.*, ROW_NUMBER() OVER (PARTITION BY s.university_id ORDER BY s.id) AS rn " +
+            "FROM students s WHERE s.university_id IN (:universityIds)) ranked " +
+            "WHERE ranked.rn <= :limit ORDER BY ranked.university_id, ranked.id", nativeQuery = true)
+    List<Student> findFirstByUniversityIds(@Param("universityIds") Collection<Long> universityIds, @Param("limit") int limit);
+    
+    // Page of a university's students after a cursor
+    List<Student> findByUniversityIdAndIdGreaterThanOrderByIdAsc(Long universityId, Long afterId, Pageable pageable);
 }
 
 
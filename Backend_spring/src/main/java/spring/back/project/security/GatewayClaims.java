@@ -0,0 +1,82 @@
+package spring.back.project.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Claims of a token the gateway has already verified, forwarded as
+ * X-Auth-Claims (base64url JSON: sub, exp, iat, kid) with an HMAC-SHA256 of
+ * that value in X-Auth-Claims-Signature. Checking the HMAC is far cheaper
+ * than verifying the token's RSA / EdDSA signature again.
+ *
+ * Only trusted when jwt.gateway-claims-secret is set, to the same value as
+ * the gateway's gateway.auth.claims-secret; otherwise the headers are ignored.
+ */
+@Component
+public class GatewayClaims {
+
+    public static final String HEADER = "X-Auth-Claims";
+    public static final String SIGNATURE_HEADER = "X-Auth-Claims-Signature";
+
+    private static final String HMAC = "HmacSHA256";
+
+    @Value("${jwt.gateway-claims-secret:}")
+    private String secret;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    public void init() {
+        if (!secret.isEmpty()) {
+            key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        }
+    }
+
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    /**
+     * Subject of correctly signed, unexpired claims, or null
+     */
+    public String verifiedSubject(String claims, String signature) {
+        if (key == null || claims == null || signature == null) {
+            return null;
+        }
+        try {
+            byte[] expected = sign(claims);
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature))) {
+                return null;
+            }
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(claims));
+            long expiresAt = payload.path("exp").asLong(0);
+            if (expiresAt * 1000 < System.currentTimeMillis()) {
+                return null;
+            }
+            String subject = payload.path("sub").asText(null);
+            return subject == null || subject.isEmpty() ? null : subject;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String value) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(key);
+        return mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
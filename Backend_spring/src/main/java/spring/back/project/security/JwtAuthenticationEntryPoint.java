@@ -9,25 +9,34 @@ import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
 public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
+    // Serialized once: every unauthenticated request gets the same body
+    private static final byte[] UNAUTHORIZED_BODY = unauthorizedBody();
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response,
                          AuthenticationException authException) throws IOException, ServletException {
         response.setContentType("application/json");
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setContentLength(UNAUTHORIZED_BODY.length);
+        response.getOutputStream().write(UNAUTHORIZED_BODY);
+    }
 
-        final Map<String, Object> body = new HashMap<>();
+    private static byte[] unauthorizedBody() {
+        final Map<String, Object> body = new LinkedHashMap<>();
         body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
         body.put("error", "Unauthorized");
-        body.put("message", authException.getMessage());
-        body.put("path", request.getServletPath());
-
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(response.getOutputStream(), body);
+        body.put("message", "Full authentication is required to access this resource");
+        try {
+            return new ObjectMapper().writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -5,30 +5,48 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final List<SimpleGrantedAuthority> ADMIN = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private GatewayClaims gatewayClaims;
+
+    // Usernames allowed on /api/admin/**; none by default
+    @Value("${security.admin-users:}")
+    private Set<String> adminUsers;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
-
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            // Claims the gateway already verified skip the token signature check
+            String username = gatewayClaims.verifiedSubject(
+                    request.getHeader(GatewayClaims.HEADER), request.getHeader(GatewayClaims.SIGNATURE_HEADER));
+            if (username == null) {
+                String jwt = getJwtFromRequest(request);
+                username = StringUtils.hasText(jwt) ? tokenProvider.getValidUsername(jwt) : null;
+            }
 
+            if (username != null) {
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, null);
+                        new UsernamePasswordAuthenticationToken(username, null,
+                                adminUsers.contains(username) ? ADMIN : List.of());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
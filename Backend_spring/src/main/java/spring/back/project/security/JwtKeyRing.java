@@ -0,0 +1,373 @@
+package spring.back.project.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Asymmetric signing keys for JwtTokenProvider (jwt.algorithm RS256 or EdDSA).
+ *
+ * Each key is a PEM file `<kid>.pem` (PKCS#8 private key, X.509 public key) in
+ * jwt.key-directory, which every instance must share (a mounted volume or
+ * keys provisioned by deployment). All keys are published at /auth/jwks, so
+ * tokens signed before a rotation keep verifying until they expire. The
+ * directory is rescanned every jwt.key-refresh-interval, so keys provisioned
+ * later are picked up.
+ *
+ * A new key is published first and only signs once it is older than
+ * jwt.key-refresh-interval: by then every instance has loaded it and serves it
+ * in its JWK Set. The signing key is the newest key of the configured algorithm
+ * past that age (or the newest one, while no key is). A token with an unknown
+ * kid triggers an early rescan, at most once per jwt.key-rescan-min-interval.
+ *
+ * Startup fails without a directory or a usable key: a key generated per
+ * instance would reject the tokens of every other instance and be lost on
+ * redeploy. Only with jwt.key-generate (for a directory that really is
+ * shared) the first key is created, a new one once the signing key is older
+ * than jwt.key-rotation-interval, and keys are deleted once no token they
+ * signed can still be valid.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final DateTimeFormatter KID_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    // <created>-<algorithm>-<random>, sorts by creation time
+    private static final Pattern KID = Pattern.compile("(\\d{8}T\\d{6}Z)-(rs256|eddsa)-[0-9a-f]{8}");
+
+    private static final Pattern PEM = Pattern.compile("-----BEGIN (PRIVATE|PUBLIC) KEY-----([A-Za-z0-9+/=\\s]+)-----END \\1 KEY-----");
+
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.key-directory:}")
+    private String keyDirectory;
+
+    @Value("${jwt.key-generate:false}")
+    private boolean generate;
+
+    @Value("${jwt.key-rotation-interval:30d}")
+    private Duration rotationInterval;
+
+    @Value("${jwt.key-refresh-interval:60000}")
+    private long refreshInterval;
+
+    @Value("${jwt.key-rescan-min-interval:5000}")
+    private long rescanMinInterval;
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpiration;
+
+    private Path directory;
+
+    private volatile Keys keys = new Keys(null, null, Map.of());
+
+    // Time of the last directory scan, guarded by this
+    private long scannedAt;
+
+    // Signing key last reported as due for rotation
+    private String staleReported;
+
+    @PostConstruct
+    public void init() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (keyDirectory.isBlank()) {
+            throw new IllegalStateException("jwt.algorithm " + algorithm
+                    + " needs jwt.key-directory, a key directory shared by every instance");
+        }
+        directory = Path.of(keyDirectory);
+        refresh();
+        if (keys.signing == null) {
+            throw new IllegalStateException("No usable " + algorithm + " signing key in " + directory.toAbsolutePath()
+                    + (generate ? "" : "; provision one there (or set jwt.key-generate if the directory is shared)"));
+        }
+    }
+
+    /**
+     * Pick up keys added by other instances, rotate and retire keys
+     */
+    @Scheduled(initialDelayString = "${jwt.key-refresh-interval:60000}", fixedDelayString = "${jwt.key-refresh-interval:60000}")
+    public synchronized void refresh() {
+        if (!isAsymmetric() || directory == null) {
+            return;
+        }
+        try {
+            scannedAt = System.currentTimeMillis();
+            Keys loaded = load();
+            // Counted from the newest key, a published key still waiting to sign is not rotated again
+            boolean due = loaded.newest == null || loaded.newest.created.plus(rotationInterval).isBefore(Instant.now());
+            if (due && generate) {
+                create();
+                loaded = load();
+            } else if (due && loaded.signing != null && !loaded.signing.id.equals(staleReported)) {
+                staleReported = loaded.signing.id;
+                logger.warn("JWT signing key {} is older than jwt.key-rotation-interval, provision a new key in {}",
+                        loaded.signing.id, directory.toAbsolutePath());
+            }
+            if (generate) {
+                retire(loaded);
+            }
+            keys = loaded;
+        } catch (IOException | RuntimeException e) {
+            // Keep signing with the keys already loaded
+            logger.error("Could not refresh JWT keys from {}", directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * True when tokens are signed with a key pair, false for the HMAC secret (HS256)
+     */
+    public boolean isAsymmetric() {
+        return !"HS256".equalsIgnoreCase(algorithm);
+    }
+
+    /**
+     * Key new tokens are signed with, null when signing with the HMAC secret
+     */
+    public SigningKey getSigningKey() {
+        return keys.signing;
+    }
+
+    /**
+     * Verification key for a token's `kid`, or null if unknown
+     */
+    public PublicKey getPublicKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        SigningKey key = keys.byId.get(kid);
+        if (key == null && KID.matcher(kid).matches()) {
+            // Possibly a key another instance created since the last refresh
+            rescan();
+            key = keys.byId.get(kid);
+        }
+        return key != null ? key.publicKey : null;
+    }
+
+    // Reload the directory without creating or retiring keys
+    private synchronized void rescan() {
+        long now = System.currentTimeMillis();
+        if (!isAsymmetric() || directory == null || now - scannedAt < rescanMinInterval) {
+            return;
+        }
+        scannedAt = now;
+        try {
+            keys = load();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not rescan JWT keys in {}: {}", directory.toAbsolutePath(), e.toString());
+        }
+    }
+
+    /**
+     * Public keys as a JWK Set ({"keys": [...]}), newest first
+     */
+    public Map<String, Object> getJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keys.byId.values()) {
+            Map<String, Object> jwk = new LinkedHashMap<>(Jwks.builder().key(key.publicKey)
+                    .id(key.id)
+                    .algorithm(key.algorithm.getId())
+                    .publicKeyUse("sig")
+                    .build());
+            jwks.add(0, jwk);
+        }
+        return Map.of("keys", jwks);
+    }
+
+    private Keys load() throws IOException {
+        Map<String, SigningKey> byId = new TreeMap<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".pem")).toList()) {
+                    String kid = file.getFileName().toString().replaceFirst("\\.pem$", "");
+                    try {
+                        byId.put(kid, read(kid, file));
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Skipping unreadable JWT key {}: {}", file, e.toString());
+                    }
+                }
+            }
+        }
+
+        // Newest key of the configured algorithm that every instance has had time to publish
+        Instant published = Instant.now().minusMillis(refreshInterval);
+        SigningKey newest = null;
+        SigningKey signing = null;
+        for (SigningKey key : byId.values()) {
+            if (key.algorithm.getId().equalsIgnoreCase(algorithm)) {
+                newest = key;
+                if (!key.created.isAfter(published)) {
+                    signing = key;
+                }
+            }
+        }
+        return new Keys(signing != null ? signing : newest, newest, Collections.unmodifiableMap(byId));
+    }
+
+    private SigningKey read(String kid, Path file) throws IOException {
+        Matcher id = KID.matcher(kid);
+        if (!id.matches()) {
+            throw new IllegalArgumentException("Key file name is not a key id");
+        }
+        SignatureAlgorithm keyAlgorithm = signatureAlgorithm(id.group(2));
+        Instant created = KID_TIME.parse(id.group(1), Instant::from);
+
+        PrivateKey privateKey = null;
+        PublicKey publicKey = null;
+        Matcher pem = PEM.matcher(Files.readString(file, StandardCharsets.US_ASCII));
+        while (pem.find()) {
+            byte[] der = Base64.getMimeDecoder().decode(pem.group(2));
+            KeyFactory factory = keyFactory(keyAlgorithm);
+            try {
+                if (pem.group(1).equals("PRIVATE")) {
+                    privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(der));
+                } else {
+                    publicKey = factory.generatePublic(new X509EncodedKeySpec(der));
+                }
+            } catch (java.security.GeneralSecurityException e) {
+                throw new IllegalArgumentException("Invalid key encoding", e);
+            }
+        }
+        if (privateKey == null || publicKey == null) {
+            throw new IllegalArgumentException("Expected a private and a public key");
+        }
+        return new SigningKey(kid, keyAlgorithm, privateKey, publicKey, created);
+    }
+
+    private void create() throws IOException {
+        SignatureAlgorithm keyAlgorithm = signatureAlgorithm(algorithm);
+        Instant now = Instant.now();
+        String kid = KID_TIME.format(now) + "-" + algorithm.toLowerCase(Locale.ROOT) + "-"
+                + HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt());
+        // EdDSA would default to Ed448; Ed25519 is faster and what most verifiers support
+        KeyPair pair = keyAlgorithm == Jwts.SIG.EdDSA ? Jwks.CRV.Ed25519.keyPair().build() : keyAlgorithm.keyPair().build();
+
+        String pem = pem("PRIVATE", pair.getPrivate().getEncoded()) + pem("PUBLIC", pair.getPublic().getEncoded());
+        Files.createDirectories(directory);
+        // Written aside and moved, so other instances never read a partial file
+        Path temporary = Files.createTempFile(directory, kid, ".tmp");
+        try {
+            restrictPermissions(temporary);
+            Files.writeString(temporary, pem, StandardCharsets.US_ASCII);
+            Files.move(temporary, directory.resolve(kid + ".pem"), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        logger.info("Created JWT signing key {}, it signs once older than jwt.key-refresh-interval", kid);
+    }
+
+    // A key signs for at most the rotation interval, its tokens live up to the refresh token lifetime
+    private void retire(Keys loaded) throws IOException {
+        Instant cutoff = Instant.now().minus(rotationInterval).minusMillis(refreshExpiration);
+        for (SigningKey key : loaded.byId.values()) {
+            if (key != loaded.signing && key != loaded.newest && key.created.isBefore(cutoff)) {
+                Files.deleteIfExists(directory.resolve(key.id + ".pem"));
+                logger.info("Retired JWT signing key {}", key.id);
+            }
+        }
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(String name) {
+        return switch (name.toUpperCase(Locale.ROOT)) {
+            case "RS256" -> Jwts.SIG.RS256;
+            case "EDDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalArgumentException("Unsupported JWT algorithm: " + name);
+        };
+    }
+
+    private static KeyFactory keyFactory(SignatureAlgorithm algorithm) {
+        try {
+            return KeyFactory.getInstance(algorithm == Jwts.SIG.RS256 ? "RSA" : "EdDSA");
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + " KEY-----\n"
+                + Base64.getMimeEncoder(64, new byte[]{'\n'}).encodeToString(der)
+                + "\n-----END " + type + " KEY-----\n";
+    }
+
+    private static void restrictPermissions(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system
+        }
+    }
+
+    public static class SigningKey {
+        private final String id;
+        private final SignatureAlgorithm algorithm;
+        private final PrivateKey privateKey;
+        private final PublicKey publicKey;
+        private final Instant created;
+
+        SigningKey(String id, SignatureAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey, Instant created) {
+            this.id = id;
+            this.algorithm = algorithm;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.created = created;
+        }
+
+        public String getId() { return id; }
+        public SignatureAlgorithm getAlgorithm() { return algorithm; }
+        public PrivateKey getPrivateKey() { return privateKey; }
+    }
+
+    // Immutable snapshot, replaced as a whole on refresh
+    private static class Keys {
+        private final SigningKey signing;
+        private final SigningKey newest;
+        private final Map<String, SigningKey> byId;
+
+        Keys(SigningKey signing, SigningKey newest, Map<String, SigningKey> byId) {
+            this.signing = signing;
+            this.newest = newest;
+            this.byId = byId;
+        }
+    }
+}
@@ -1,32 +1,88 @@
 package spring.back.project.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import javax.crypto.SecretKey;
 
+/**
+ * Issues and verifies access / refresh tokens.
+ * Tokens are signed with the newest JwtKeyRing key and carry its `kid`, so the
+ * gateway and other services can verify them from /auth/jwks. With
+ * jwt.accept-hmac, tokens signed with the shared secret (jwt.algorithm=HS256,
+ * or issued before the switch) are still accepted.
+ */
 @Component
 public class JwtTokenProvider {
 
     @Value("${jwt.secret:your-secret-key-change-in-production}")
     private String secret;
 
+    @Value("${jwt.accept-hmac:true}")
+    private boolean acceptHmac;
+
     @Value("${jwt.expiration:86400000}")
     private long expiration;
 
     @Value("${jwt.refresh-expiration:604800000}")
     private long refreshExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    private Timer validTokenTimer;
+    private Timer invalidTokenTimer;
+
+    private SecretKey hmacKey;
+
+    // Built once, the key is looked up per token by its header
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        hmacKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        // jjwt rejects a key that does not match the header's alg
+                        if (header.getKeyId() != null) {
+                            return keyRing.getPublicKey(header.getKeyId());
+                        }
+                        return acceptHmac || !keyRing.isAsymmetric() ? hmacKey : null;
+                    }
+                })
+                .build();
+
+        validTokenTimer = Timer.builder("auth.jwt.validation")
+                .description("JWT signature and expiry check time")
+                .tag("result", "valid")
+                .register(meterRegistry);
+        invalidTokenTimer = Timer.builder("auth.jwt.validation")
+                .description("JWT signature and expiry check time")
+                .tag("result", "invalid")
+                .register(meterRegistry);
     }
 
     /**
@@ -52,13 +108,20 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expirationTime);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .claims(claims)
                 .subject(subject)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .expiration(expiryDate);
+
+        JwtKeyRing.SigningKey signingKey = keyRing.getSigningKey();
+        if (signingKey != null) {
+            builder.header().keyId(signingKey.getId()).and()
+                    .signWith(signingKey.getPrivateKey(), signingKey.getAlgorithm());
+        } else {
+            builder.signWith(hmacKey);
+        }
+        return builder.compact();
     }
 
     /**
@@ -87,11 +150,7 @@ public class JwtTokenProvider {
      * Get all claims from token
      */
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -114,14 +173,22 @@ public class JwtTokenProvider {
      * Validate token (just check expiration)
      */
     public Boolean validateToken(String token) {
+        return getValidUsername(token) != null;
+    }
+
+    /**
+     * Username of a valid, unexpired token, or null; verifies the signature once
+     */
+    public String getValidUsername(String token) {
+        long start = System.nanoTime();
+        String username;
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
+            // The parser rejects expired tokens
+            username = getAllClaimsFromToken(token).getSubject();
         } catch (Exception e) {
-            return false;
+            username = null;
         }
+        (username != null ? validTokenTimer : invalidTokenTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return username;
     }
 }
@@ -0,0 +1,167 @@
+package spring.back.project.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brute-force protection for login.
+ *
+ * Failures are counted per username and per client IP in striped maps
+ * (one lock per stripe). Counts decay exponentially, and once a key passes
+ * its threshold it is locked out for an exponentially growing period,
+ * so locked-out attempts are rejected before any password hashing.
+ * Each stripe is bounded: decayed entries are purged first, then the
+ * least recently used entry is dropped.
+ */
+@Component
+public class LoginAttemptThrottle {
+
+    private static final int STRIPES = 32;
+
+    // Keys are truncated so oversized usernames cannot inflate memory
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final FailureCounters byUsername;
+    private final FailureCounters byAddress;
+
+    public LoginAttemptThrottle(
+            @Value("${login.throttle.username-threshold:5}") int usernameThreshold,
+            @Value("${login.throttle.address-threshold:20}") int addressThreshold,
+            @Value("${login.throttle.base-lockout:1000}") long baseLockout,
+            @Value("${login.throttle.max-lockout:900000}") long maxLockout,
+            @Value("${login.throttle.half-life:600000}") long halfLife,
+            @Value("${login.throttle.max-entries:10000}") int maxEntries) {
+        this.byUsername = new FailureCounters(usernameThreshold, baseLockout, maxLockout, halfLife, maxEntries);
+        this.byAddress = new FailureCounters(addressThreshold, baseLockout, maxLockout, halfLife, maxEntries);
+    }
+
+    /**
+     * Milliseconds until a login for this username / address may be tried, 0 if now
+     */
+    public long retryAfter(String username, String address) {
+        return retryAfter(username, address, System.currentTimeMillis());
+    }
+
+    long retryAfter(String username, String address, long now) {
+        return Math.max(byUsername.lockedFor(key(username), now), byAddress.lockedFor(key(address), now));
+    }
+
+    public void recordFailure(String username, String address) {
+        recordFailure(username, address, System.currentTimeMillis());
+    }
+
+    void recordFailure(String username, String address, long now) {
+        byUsername.fail(key(username), now);
+        byAddress.fail(key(address), now);
+    }
+
+    /**
+     * A successful login clears the username; the address keeps its count
+     * since it may be shared by many users
+     */
+    public void recordSuccess(String username) {
+        byUsername.reset(key(username));
+    }
+
+    private static String key(String value) {
+        if (value == null) {
+            return "";
+        }
+        String key = value.length() > MAX_KEY_LENGTH ? value.substring(0, MAX_KEY_LENGTH) : value;
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private static class FailureCounters {
+        private final int threshold;
+        private final long baseLockout;
+        private final long maxLockout;
+        private final double decayPerMilli;
+        private final int maxEntriesPerStripe;
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        FailureCounters(int threshold, long baseLockout, long maxLockout, long halfLife, int maxEntries) {
+            this.threshold = threshold;
+            this.baseLockout = baseLockout;
+            this.maxLockout = maxLockout;
+            this.decayPerMilli = Math.log(2) / halfLife;
+            this.maxEntriesPerStripe = Math.max(1, maxEntries / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        long lockedFor(String key, long now) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                Entry entry = stripe.entries.get(key);
+                return entry == null ? 0 : Math.max(0, entry.lockedUntil - now);
+            }
+        }
+
+        void fail(String key, long now) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                Entry entry = stripe.entries.get(key);
+                if (entry == null) {
+                    if (stripe.entries.size() >= maxEntriesPerStripe) {
+                        purge(stripe, now);
+                    }
+                    entry = new Entry();
+                    stripe.entries.put(key, entry);
+                }
+                entry.score = decayed(entry, now) + 1;
+                entry.updatedAt = now;
+
+                // Rounded: a few seconds of decay must not push a burst below the threshold
+                long failures = Math.round(entry.score);
+                if (failures >= threshold) {
+                    // Each failure over the threshold doubles the lockout
+                    int exponent = (int) Math.min(30, failures - threshold);
+                    entry.lockedUntil = now + Math.min(maxLockout, baseLockout << exponent);
+                }
+            }
+        }
+
+        void reset(String key) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                stripe.entries.remove(key);
+            }
+        }
+
+        // Drop entries that have decayed away, then the least recently used ones
+        private void purge(Stripe stripe, long now) {
+            stripe.entries.values().removeIf(entry -> entry.lockedUntil <= now && decayed(entry, now) < 0.5);
+            Iterator<Map.Entry<String, Entry>> eldest = stripe.entries.entrySet().iterator();
+            while (stripe.entries.size() >= maxEntriesPerStripe && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        private double decayed(Entry entry, long now) {
+            return entry.score * Math.exp(-decayPerMilli * (now - entry.updatedAt));
+        }
+
+        private Stripe stripeFor(String key) {
+            int hash = key.hashCode();
+            return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        }
+    }
+
+    private static class Stripe {
+        // Access-ordered, eldest = least recently failed
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static class Entry {
+        private double score;
+        private long updatedAt;
+        private long lockedUntil;
+    }
+}
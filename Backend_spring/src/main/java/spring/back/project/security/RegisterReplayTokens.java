@@ -0,0 +1,93 @@
+package spring.back.project.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import spring.back.project.controller.AuthController.TokenResponse;
+import spring.back.project.idempotency.ReplayTokens;
+
+import java.io.IOException;
+
+/**
+ * The `tokens` of a /auth/register response: stored without them, a replayed
+ * registration gets a new access / refresh token pair for the same user.
+ * The body is read and written with the mapper of its negotiated content type;
+ * a body of any other type carries no tokens and is kept unchanged.
+ */
+@Component
+public class RegisterReplayTokens implements ReplayTokens {
+
+    private static final String TOKENS = "tokens";
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Override
+    public byte[] strip(byte[] body, String contentType) throws IOException {
+        ObjectMapper mapper = mapperFor(contentType);
+        if (mapper == null || body.length == 0) {
+            return body;
+        }
+        JsonNode response = mapper.readTree(body);
+        if (!(response instanceof ObjectNode object) || !object.has(TOKENS)) {
+            return body;
+        }
+        object.remove(TOKENS);
+        return mapper.writeValueAsBytes(object);
+    }
+
+    @Override
+    public byte[] reissue(byte[] body, String contentType) throws IOException {
+        ObjectMapper mapper = mapperFor(contentType);
+        if (mapper == null || body.length == 0) {
+            return body;
+        }
+        JsonNode response = mapper.readTree(body);
+        JsonNode username = response != null ? response.path("user").path("username") : null;
+        if (!(response instanceof ObjectNode object) || username == null || !username.isTextual()) {
+            return body;
+        }
+        TokenResponse tokens = new TokenResponse(jwtTokenProvider.generateToken(username.asText()),
+                jwtTokenProvider.generateRefreshToken(username.asText()));
+        object.set(TOKENS, mapper.valueToTree(tokens));
+        return mapper.writeValueAsBytes(object);
+    }
+
+    // Mapper of a format the API negotiates (see JacksonConfig), null for anything else
+    private ObjectMapper mapperFor(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (MediaType.APPLICATION_JSON.isCompatibleWith(type) || "json".equals(type.getSubtypeSuffix())) {
+            return objectMapper;
+        }
+        if (cborConverter.getSupportedMediaTypes().stream().anyMatch(type::isCompatibleWith)) {
+            return cborConverter.getObjectMapper();
+        }
+        if (smileConverter.getSupportedMediaTypes().stream().anyMatch(type::isCompatibleWith)) {
+            return smileConverter.getObjectMapper();
+        }
+        return null;
+    }
+}
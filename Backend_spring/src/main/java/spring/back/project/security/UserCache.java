@@ -0,0 +1,82 @@
+package spring.back.project.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-evicted cache of user snapshots keyed by username.
+ * Shared by CustomUserDetailsService and AuthController so a login
+ * or profile request does not hit the users table more than once.
+ * Keys are lower-cased: the users table compares usernames without
+ * regard to case (MySQL's default collation), so "Alice" and "alice"
+ * are the same row and must be the same entry.
+ */
+@Component
+public class UserCache {
+
+    @Value("${user.cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${user.cache.ttl:300000}")
+    private long ttl;
+
+    // Access-ordered so the least recently used entry is evicted first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Get a cached user, or null if absent or expired
+     */
+    public synchronized UserPrincipal get(String username) {
+        String key = key(username);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.user;
+    }
+
+    /**
+     * Cache a user loaded from the database
+     */
+    public synchronized void put(UserPrincipal user) {
+        entries.put(key(user.getUsername()), new Entry(user, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Invalidate a user after it has been written
+     */
+    public synchronized void evict(String username) {
+        entries.remove(key(username));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entry {
+        private final UserPrincipal user;
+        private final long expiresAt;
+
+        Entry(UserPrincipal user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
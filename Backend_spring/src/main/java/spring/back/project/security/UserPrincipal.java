@@ -0,0 +1,71 @@
+package spring.back.project.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import spring.back.project.model.User;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Immutable snapshot of a user, taken when it is loaded from the database.
+ * UserCache keeps these rather than the JPA entity, so a cached user can be
+ * shared between threads and never changes under a request. Not a
+ * CredentialsContainer on purpose: the same instance is handed to every
+ * authentication, and erasing its password hash would break the next login.
+ */
+public final class UserPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final String password;
+    private final String firstName;
+    private final String lastName;
+
+    public UserPrincipal(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+    }
+
+    public Long getId() { return id; }
+
+    @Override
+    public String getUsername() { return username; }
+
+    public String getEmail() { return email; }
+
+    @Override
+    public String getPassword() { return password; }
+
+    public String getFirstName() { return firstName; }
+
+    public String getLastName() { return lastName; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+
+    // Never prints the password hash
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", username=" + username + "]";
+    }
+}
@@ -0,0 +1,326 @@
+package spring.back.project.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+import spring.back.project.repository.ChangeEventRepository;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ordered outbox of student/university changes.
+ * Writes are recorded in the caller's transaction; readers page through
+ * the feed by sequence and can wait for the next commit (long-polling).
+ *
+ * Sequences are assigned at insert but become visible at commit, in any
+ * order, and possibly on another instance. So the feed only serves events
+ * recorded more than changes.commit-lag ago, and never past a younger one:
+ * a transaction that recorded a change is assumed to commit (or roll back)
+ * within that time, and instance clocks to agree within it. A cursor then
+ * never moves past a sequence that commits later.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${changes.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${changes.retention:604800000}")
+    private long retention;
+
+    @Value("${changes.compaction-batch-size:1000}")
+    private int compactionBatchSize;
+
+    @Value("${changes.commit-lag:2000}")
+    private long commitLag;
+
+    // How often the feed is tailed for subscribers and waiters (other instances' commits)
+    @Value("${changes.poll-interval:1000}")
+    private long pollInterval;
+
+    // Sequences inserted by transactions that have not completed yet
+    private final ConcurrentSkipListSet<Long> uncommitted = new ConcurrentSkipListSet<>();
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // Called with each change this instance commits, right after the commit
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Called in sequence order with every change of any instance, once the feed serves it
+    private final List<Consumer<ChangeEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    // Last sequence handed to subscribers; set at startup, then on the notifier thread
+    private volatile long tailCursor = -1;
+
+    private final ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Subscribers (loaded at startup) get every change served after this
+    @PostConstruct
+    public void init() {
+        try {
+            startTail();
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the change feed yet, retrying: {}", e.toString());
+        }
+        notifier.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    // Record a student change
+    public void recordStudent(Operation operation, Student student) {
+        recordStudent(operation, student, null);
+    }
+
+    // Record a student change, with the university it belonged to before an update
+    public void recordStudent(Operation operation, Student student, Long previousUniversityId) {
+        Long universityId = student.getUniversity() != null ? student.getUniversity().getId() : null;
+        String payload = operation == Operation.DELETE ? null : toJson(student);
+        ChangeEvent event = new ChangeEvent(EntityType.STUDENT, student.getId(), operation, universityId, payload);
+        if (previousUniversityId != null && !previousUniversityId.equals(universityId)) {
+            event.setPreviousUniversityId(previousUniversityId);
+        }
+        record(event);
+    }
+
+    // Record a university change
+    public void recordUniversity(Operation operation, University university) {
+        String payload = null;
+        if (operation != Operation.DELETE) {
+            // Students are not part of the snapshot, they have their own events
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("id", university.getId());
+            snapshot.put("name", university.getName());
+            snapshot.put("location", university.getLocation());
+            payload = toJson(snapshot);
+        }
+        record(new ChangeEvent(EntityType.UNIVERSITY, university.getId(), operation, null, payload));
+    }
+
+    /**
+     * Register a listener for the changes this instance commits
+     */
+    public void addListener(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Register a subscriber for the changes of all instances, delivered in
+     * sequence order on the notifier thread, starting with those served after
+     * the first poll (up to changes.commit-lag + changes.poll-interval late)
+     */
+    public void subscribe(Consumer<ChangeEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private void record(ChangeEvent event) {
+        Long sequence = changeEventRepository.save(event).getId();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyListeners(event);
+            schedulePoll();
+            return;
+        }
+
+        // Also hide this sequence while a local transaction runs longer than the commit lag
+        uncommitted.add(sequence);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                uncommitted.remove(sequence);
+                if (status == STATUS_COMMITTED) {
+                    notifyListeners(event);
+                    schedulePoll();
+                }
+            }
+        });
+    }
+
+    /**
+     * Get committed changes after a cursor, in sequence order, up to the
+     * commit-lag horizon
+     */
+    public List<ChangeEvent> getChanges(long since, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, maxLimit)));
+        long before = servedBefore(since);
+        if (before == Long.MAX_VALUE) {
+            return changeEventRepository.findByIdGreaterThanOrderByIdAsc(since, page);
+        }
+        return changeEventRepository.findByIdGreaterThanAndIdLessThanOrderByIdAsc(since, before, page);
+    }
+
+    /**
+     * Last sequence the feed serves right now: every change up to it is visible
+     */
+    public long getServedSequence() {
+        long before = servedBefore(0);
+        Long last = before == Long.MAX_VALUE ? changeEventRepository.findMaxId() : Long.valueOf(before - 1);
+        return last != null ? last : 0;
+    }
+
+    // First sequence after the cursor that is not served yet, or Long.MAX_VALUE
+    private long servedBefore(long since) {
+        long before = Long.MAX_VALUE;
+        Iterator<Long> pending = uncommitted.iterator();
+        if (pending.hasNext()) {
+            before = pending.next();
+        }
+        Long young = changeEventRepository.findFirstIdRecordedSince(since, Instant.now().minusMillis(commitLag));
+        return young != null ? Math.min(before, young) : before;
+    }
+
+    /**
+     * Call back once changes after the cursor are available.
+     * Returns a handle that cancels the wait.
+     */
+    public Runnable awaitChanges(long since, int limit, Consumer<List<ChangeEvent>> callback) {
+        Waiter waiter = new Waiter(since, limit, callback);
+        waiters.add(waiter);
+
+        // A commit may have happened before the waiter was registered
+        List<ChangeEvent> changes = getChanges(since, limit);
+        if (!changes.isEmpty() && waiters.remove(waiter)) {
+            callback.accept(changes);
+        }
+        return () -> waiters.remove(waiter);
+    }
+
+    private void notifyListeners(ChangeEvent event) {
+        for (Consumer<ChangeEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+
+    // A local commit is served once it is older than the commit lag
+    private void schedulePoll() {
+        notifier.schedule(this::poll, commitLag + 10, TimeUnit.MILLISECONDS);
+    }
+
+    // Notifier thread: hand newly served changes to subscribers, then wake waiters
+    private void poll() {
+        try {
+            if (tailCursor < 0) {
+                startTail();
+                return;
+            }
+            boolean found = false;
+            List<ChangeEvent> changes;
+            do {
+                changes = getChanges(tailCursor, maxLimit);
+                for (ChangeEvent event : changes) {
+                    notifySubscribers(event);
+                    tailCursor = event.getId();
+                }
+                found |= !changes.isEmpty();
+            } while (changes.size() == maxLimit);
+            if (found) {
+                notifyWaiters();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not poll the change feed: {}", e.toString());
+        }
+    }
+
+    // Start at the end of the feed as served right now
+    private void startTail() {
+        tailCursor = getServedSequence();
+    }
+
+    private void notifySubscribers(ChangeEvent event) {
+        for (Consumer<ChangeEvent> subscriber : subscribers) {
+            try {
+                subscriber.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Change subscriber failed on change {}", event.getId(), e);
+            }
+        }
+    }
+
+    private void notifyWaiters() {
+        for (Waiter waiter : waiters) {
+            List<ChangeEvent> changes = getChanges(waiter.since, waiter.limit);
+            if (!changes.isEmpty() && waiters.remove(waiter)) {
+                waiter.callback.accept(changes);
+            }
+        }
+    }
+
+    /**
+     * Delete old entries that are superseded by a newer change to the same entity.
+     * The latest change per entity (including deletes) is always kept, so any
+     * cursor still converges to the current state.
+     */
+    @Scheduled(fixedDelayString = "${changes.compaction-interval:3600000}")
+    public void compact() {
+        Instant before = Instant.now().minusMillis(retention);
+        List<Long> ids;
+        do {
+            ids = changeEventRepository.findSupersededIds(before, PageRequest.of(0, compactionBatchSize));
+            if (!ids.isEmpty()) {
+                changeEventRepository.deleteAllByIdInBatch(ids);
+            }
+        } while (ids.size() == compactionBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize change payload", e);
+        }
+    }
+
+    private static class Waiter {
+        private final long since;
+        private final int limit;
+        private final Consumer<List<ChangeEvent>> callback;
+
+        Waiter(long since, int limit, Consumer<List<ChangeEvent>> callback) {
+            this.since = since;
+            this.limit = limit;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package spring.back.project.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed changes (of every instance, as the feed serves them) to
+ * Server-Sent Events subscribers.
+ * Idle subscribers only hold an async request and an empty buffer; sends
+ * happen on a small shared pool. A subscriber whose buffer fills up is
+ * disconnected and resumes from the change feed with Last-Event-ID.
+ * Sends block while the client does not read, so a send taking longer than
+ * send-timeout disconnects its subscriber and the pool gets a thread in place
+ * of the one stuck in the write, until that write returns.
+ */
+@Service
+public class ChangeStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeStreamService.class);
+
+    // Subscribers without a university filter
+    private static final Long ALL = -1L;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Value("${sse.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${sse.threads:2}")
+    private int threads;
+
+    @Value("${sse.heartbeat-interval:30000}")
+    private long heartbeatInterval;
+
+    @Value("${sse.replay-limit:1000}")
+    private int replayLimit;
+
+    @Value("${sse.send-timeout:10000}")
+    private long sendTimeout;
+
+    @Value("${sse.max-threads:16}")
+    private int maxThreads;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    // Sends, grown by one for every send stuck past the timeout
+    private ThreadPoolExecutor executor;
+
+    // Heartbeats and the stalled send check, never sends itself
+    private ScheduledExecutorService scheduler;
+
+    // Threads added in place of stuck ones, guarded by this
+    private int stuckThreads;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        long checkInterval = Math.max(10, sendTimeout / 2);
+        scheduler.scheduleWithFixedDelay(this::checkStalled, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        changeFeedService.subscribe(this::publish);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * Open a stream, optionally filtered by university and resumed after a sequence
+     */
+    public SseEmitter subscribe(Long universityId, Long lastEventId) {
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(universityId != null ? universityId : ALL, emitter, bufferSize,
+                lastEventId == null);
+
+        // Register before replaying so nothing committed in between is missed
+        subscribers.computeIfAbsent(subscriber.key, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        if (lastEventId != null) {
+            executor.execute(() -> replay(subscriber, lastEventId));
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(0L);
+    }
+
+    private void replay(Subscriber subscriber, long since) {
+        List<ChangeEvent> backlog = changeFeedService.getChanges(since, replayLimit);
+        if (backlog.size() >= replayLimit) {
+            // Too far behind to replay here, the client should resync with /api/changes
+            send(subscriber, SseEmitter.event().name("resync").data(since));
+            remove(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        for (ChangeEvent event : backlog) {
+            if (matches(subscriber.key, event) && !send(subscriber, event)) {
+                return;
+            }
+        }
+        if (!backlog.isEmpty()) {
+            subscriber.replayedUpTo = backlog.get(backlog.size() - 1).getId();
+        }
+        subscriber.replayed.set(true);
+        scheduleDrain(subscriber);
+    }
+
+    private void publish(ChangeEvent event) {
+        Long key = filterKey(event);
+        Long previousKey = event.getPreviousUniversityId();
+        offer(subscribers.get(ALL), event);
+        if (key != null) {
+            offer(subscribers.get(key), event);
+        }
+        if (previousKey != null && !previousKey.equals(key)) {
+            offer(subscribers.get(previousKey), event);
+        }
+    }
+
+    private void offer(Set<Subscriber> targets, ChangeEvent event) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            if (!subscriber.buffer.offer(event)) {
+                // Slow consumer: drop it rather than buffer without bound
+                logger.warn("Dropping slow change stream subscriber (buffer of {} full)", bufferSize);
+                remove(subscriber);
+                subscriber.emitter.complete();
+                continue;
+            }
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.replayed.get() && subscriber.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            boolean sent = false;
+            ChangeEvent event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                if (event.getId() > subscriber.replayedUpTo) {
+                    if (!send(subscriber, event)) {
+                        return;
+                    }
+                    sent = true;
+                }
+            }
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                if (!sent && !send(subscriber, SseEmitter.event().comment("heartbeat"))) {
+                    return;
+                }
+            }
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // An event may have arrived after the last poll
+        if (!subscriber.buffer.isEmpty() || subscriber.heartbeatDue) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private boolean send(Subscriber subscriber, ChangeEvent event) {
+        return send(subscriber, SseEmitter.event()
+                .id(String.valueOf(event.getId()))
+                .name("change")
+                .data(event));
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder builder) {
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            subscriber.emitter.send(builder);
+            return !subscriber.stalled;
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            return false;
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sendingSince = 0;
+                if (subscriber.replaced) {
+                    subscriber.replaced = false;
+                    resize(-1);
+                }
+            }
+        }
+    }
+
+    // Sent from the pool like events, so a client that stopped reading only stalls itself
+    private void sendHeartbeats() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                subscriber.heartbeatDue = true;
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    // Disconnects subscribers whose send is stuck and replaces the thread it holds
+    private void checkStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                long since = subscriber.sendingSince;
+                if (since == 0 || now - since < TimeUnit.MILLISECONDS.toNanos(sendTimeout)) {
+                    continue;
+                }
+                subscriber.stalled = true;
+                logger.warn("Dropping change stream subscriber, a send took longer than {} ms", sendTimeout);
+                remove(subscriber);
+                subscriber.emitter.completeWithError(new TimeoutException("Change stream send timed out"));
+                synchronized (subscriber) {
+                    // Unless the send returned in the meantime
+                    if (subscriber.sendingSince != 0) {
+                        subscriber.replaced = resize(1);
+                    }
+                }
+            }
+        }
+    }
+
+    // Grow or shrink the pool by one, never past max-threads
+    private synchronized boolean resize(int delta) {
+        if (delta > 0 && threads + stuckThreads >= maxThreads) {
+            return false;
+        }
+        stuckThreads += delta;
+        int size = threads + stuckThreads;
+        // The core size may not exceed the maximum at any point
+        if (delta > 0) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+        return true;
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> set = subscribers.get(subscriber.key);
+        if (set != null && set.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private boolean matches(Long key, ChangeEvent event) {
+        return ALL.equals(key) || key.equals(filterKey(event)) || key.equals(event.getPreviousUniversityId());
+    }
+
+    // University an event belongs to
+    private Long filterKey(ChangeEvent event) {
+        if (event.getEntityType() == EntityType.UNIVERSITY) {
+            return event.getEntityId();
+        }
+        return event.getUniversityId();
+    }
+
+    private static class Subscriber {
+        private final Long key;
+        private final SseEmitter emitter;
+        private final Queue<ChangeEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean replayed;
+        private volatile long replayedUpTo;
+        private volatile boolean heartbeatDue;
+        // Start of the send in progress (System.nanoTime()), 0 when not sending
+        private volatile long sendingSince;
+        private volatile boolean stalled;
+        // A thread was added to the pool in place of the one stuck sending, guarded by this
+        private boolean replaced;
+
+        Subscriber(Long key, SseEmitter emitter, int bufferSize, boolean replayed) {
+            this.key = key;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.replayed = new AtomicBoolean(replayed);
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package spring.back.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import spring.back.project.repository.UserRepository;
+import spring.back.project.security.UserCache;
+import spring.back.project.security.UserPrincipal;
+
+import java.util.Optional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -14,14 +17,27 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        spring.back.project.model.User user = userRepository.findByUsername(username)
+        // Immutable, so the cached snapshot itself can be handed out
+        return findUser(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+    }
+
+    /**
+     * Find a user through the cache, falling back to the database
+     */
+    public Optional<UserPrincipal> findUser(String username) {
+        UserPrincipal cached = userCache.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
-        return User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .build();
+        Optional<UserPrincipal> user = userRepository.findByUsername(username).map(UserPrincipal::new);
+        user.ifPresent(userCache::put);
+        return user;
     }
 }
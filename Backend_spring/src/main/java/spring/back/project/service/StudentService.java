@@ -1,14 +1,25 @@
 package spring.back.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import spring.back.project.membership.MembershipIndex;
+import spring.back.project.model.ChangeEvent.Operation;
 import spring.back.project.model.Student;
 import spring.back.project.model.University;
+import spring.back.project.readmodel.ReadModel;
 import spring.back.project.repository.StudentRepository;
 import spring.back.project.repository.UniversityRepository;
+import spring.back.project.sharding.ShardRebalancer;
+import spring.back.project.sharding.ShardRouter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class StudentService {
@@ -19,70 +30,202 @@ public class StudentService {
     @Autowired
     private UniversityRepository universityRepository;
     
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+    
+    @Autowired
+    private MembershipIndex membershipIndex;
+    
+    // Reads are served from it when enabled (readmodel.enabled), else from the database
+    @Autowired
+    private ReadModel readModel;
+    
     // Get all students
     public List<Student> getAllStudents() {
-        return studentRepository.findAll();
+        return readModel.read(store -> store.getStudents(),
+                () -> shardRouter.readAll(() -> studentRepository.findAll()));
     }
     
     // Get student by ID
     public Optional<Student> getStudentById(Long id) {
-        return studentRepository.findById(id);
+        return readModel.read(store -> Optional.ofNullable(store.getStudent(id)),
+                () -> shardRouter.findById(id, () -> studentRepository.findById(id)));
+    }
+    
+    // Get students by IDs (one query per shard), keyed by id; missing ids are left out
+    public Map<Long, Student> getStudentsByIds(Collection<Long> ids) {
+        return readModel.read(store -> {
+            Map<Long, Student> students = new LinkedHashMap<>();
+            for (Long id : ids) {
+                Student student = store.getStudent(id);
+                if (student != null) {
+                    students.put(id, student);
+                }
+            }
+            return students;
+        }, () -> {
+            Map<Long, Student> students = new LinkedHashMap<>();
+            shardRouter.findByIds(ids, studentRepository::findAllById, Student::getId)
+                    .forEach(student -> students.put(student.getId(), student));
+            return students;
+        });
     }
     
     // Create student
     public Student createStudent(Student student) {
-        // Validate university exists
-        if (student.getUniversity() != null && student.getUniversity().getId() != null) {
-            University university = universityRepository.findById(student.getUniversity().getId())
-                    .orElseThrow(() -> new RuntimeException("University not found with id: " + student.getUniversity().getId()));
-            student.setUniversity(university);
+        // Fail before the insert when the email is taken; a definite miss skips the query
+        if (membershipIndex.mightHaveStudentEmail(student.getEmail()) && emailExists(student.getEmail())) {
+            throw new RuntimeException("Student email already exists: " + student.getEmail());
         }
-        return studentRepository.save(student);
+        
+        Student created = shardRouter.write(universityIdOf(student), () -> {
+            // Validate university exists
+            if (student.getUniversity() != null && student.getUniversity().getId() != null) {
+                University university = universityRepository.findById(student.getUniversity().getId())
+                        .orElseThrow(() -> new RuntimeException("University not found with id: " + student.getUniversity().getId()));
+                student.setUniversity(university);
+            }
+            return studentRepository.save(student);
+        }, savedStudent -> changeFeedService.recordStudent(Operation.CREATE, savedStudent));
+        membershipIndex.addStudentEmail(created.getEmail());
+        return created;
     }
     
     // Update student
     public Student updateStudent(Long id, Student studentDetails) {
-        Student student = studentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Student not found with id: " + id));
+        // Sharded, the current university decides which shard holds the row
+        Long currentUniversityId = shardRouter.isEnabled()
+                ? getStudentById(id).map(this::universityIdOf).orElse(null)
+                : null;
         
-        student.setFirstName(studentDetails.getFirstName());
-        student.setLastName(studentDetails.getLastName());
-        student.setEmail(studentDetails.getEmail());
+        Long newUniversityId = studentDetails.getUniversity() != null ? studentDetails.getUniversity().getId() : null;
         
-        // Update university if provided
-        if (studentDetails.getUniversity() != null && studentDetails.getUniversity().getId() != null) {
-            University university = universityRepository.findById(studentDetails.getUniversity().getId())
-                    .orElseThrow(() -> new RuntimeException("University not found with id: " + studentDetails.getUniversity().getId()));
-            student.setUniversity(university);
-        }
+        // The new university may live on another shard: neither may be moved until the row is relocated
+        return shardRebalancer.relocating(currentUniversityId, newUniversityId, () -> {
+            Student savedStudent = writeUpdate(id, studentDetails, currentUniversityId);
+            shardRebalancer.relocateStudent(savedStudent, currentUniversityId);
+            return savedStudent;
+        });
+    }
+    
+    private Student writeUpdate(Long id, Student studentDetails, Long currentUniversityId) {
+        // The university before the update, read in the write's transaction
+        AtomicReference<Long> previousUniversityId = new AtomicReference<>();
+        Student savedStudent = shardRouter.write(currentUniversityId, () -> {
+            Student student = studentRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Student not found with id: " + id));
+            previousUniversityId.set(universityIdOf(student));
+            
+            student.setFirstName(studentDetails.getFirstName());
+            student.setLastName(studentDetails.getLastName());
+            student.setEmail(studentDetails.getEmail());
+            
+            // Update university if provided
+            if (studentDetails.getUniversity() != null && studentDetails.getUniversity().getId() != null) {
+                University university = universityRepository.findById(studentDetails.getUniversity().getId())
+                        .orElseThrow(() -> new RuntimeException("University not found with id: " + studentDetails.getUniversity().getId()));
+                student.setUniversity(university);
+            }
+            
+            return studentRepository.save(student);
+        }, student -> changeFeedService.recordStudent(Operation.UPDATE, student, previousUniversityId.get()));
         
-        return studentRepository.save(student);
+        // The old email is left in the filter: a stale entry only costs one extra query
+        membershipIndex.addStudentEmail(savedStudent.getEmail());
+        return savedStudent;
     }
     
     // Delete student
     public void deleteStudent(Long id) {
-        Student student = studentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Student not found with id: " + id));
-        studentRepository.delete(student);
+        Long currentUniversityId = shardRouter.isEnabled()
+                ? getStudentById(id).map(this::universityIdOf).orElse(null)
+                : null;
+        
+        Student deleted = shardRouter.write(currentUniversityId, () -> {
+            Student student = studentRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Student not found with id: " + id));
+            studentRepository.delete(student);
+            return student;
+        }, student -> changeFeedService.recordStudent(Operation.DELETE, student));
+        // Only once committed: removing a value that is still stored would cause false negatives
+        membershipIndex.removeStudentEmail(deleted.getEmail());
     }
     
     // Search students by name
     public List<Student> searchByName(String name) {
-        return studentRepository.findByNameContaining(name);
+        if (hasWildcard(name)) {
+            return shardRouter.readAll(() -> studentRepository.findByNameContaining(name));
+        }
+        return readModel.read(store -> store.searchStudents(name, false),
+                () -> shardRouter.readAll(() -> studentRepository.findByNameContaining(name)));
     }
     
     // Search students (name or email)
     public List<Student> searchStudents(String search) {
-        return studentRepository.searchStudents(search);
+        if (hasWildcard(search)) {
+            return shardRouter.readAll(() -> studentRepository.searchStudents(search));
+        }
+        return readModel.read(store -> store.searchStudents(search, true),
+                () -> shardRouter.readAll(() -> studentRepository.searchStudents(search)));
     }
     
     // Get students by university
     public List<Student> getStudentsByUniversity(Long universityId) {
-        return studentRepository.findByUniversityId(universityId);
+        return readModel.read(store -> store.getStudentsByUniversity(universityId, 0L, Integer.MAX_VALUE),
+                () -> shardRouter.readUniversity(universityId, () -> studentRepository.findByUniversityId(universityId)));
+    }
+    
+    // Get a page of a university's students after a cursor
+    public List<Student> getStudentsByUniversity(Long universityId, Long afterId, int limit) {
+        return readModel.read(store -> store.getStudentsByUniversity(universityId, afterId, limit),
+                () -> shardRouter.readUniversity(universityId, () -> studentRepository
+                        .findByUniversityIdAndIdGreaterThanOrderByIdAsc(universityId, afterId, PageRequest.of(0, limit))));
+    }
+    
+    // Get the first students of several universities, at most `limit` each
+    public Map<Long, List<Student>> getFirstStudentsByUniversity(Collection<Long> universityIds, int limit) {
+        return readModel.read(store -> store.getFirstStudentsByUniversity(universityIds, limit),
+                () -> findFirstStudentsByUniversity(universityIds, limit));
+    }
+    
+    private Map<Long, List<Student>> findFirstStudentsByUniversity(Collection<Long> universityIds, int limit) {
+        Map<Long, List<Student>> result = new LinkedHashMap<>();
+        if (universityIds.isEmpty()) {
+            return result;
+        }
+        List<Student> students = shardRouter.readUniversities(universityIds,
+                ids -> studentRepository.findFirstByUniversityIds(ids, limit));
+        for (Student student : students) {
+            result.computeIfAbsent(student.getUniversity().getId(), id -> new ArrayList<>()).add(student);
+        }
+        return result;
     }
     
     // Get student count
     public long getStudentCount() {
-        return studentRepository.count();
+        return readModel.read(store -> (long) store.getStudentCount(), this::countStudents);
+    }
+    
+    private long countStudents() {
+        return shardRouter.gather(() -> studentRepository.count()).stream().mapToLong(Long::longValue).sum();
+    }
+    
+    private boolean emailExists(String email) {
+        return shardRouter.gather(() -> studentRepository.existsByEmail(email)).contains(Boolean.TRUE);
+    }
+    
+    // LIKE wildcards in the term only have their SQL meaning in the database
+    private boolean hasWildcard(String term) {
+        return term.indexOf('%') >= 0 || term.indexOf('_') >= 0;
+    }
+    
+    private Long universityIdOf(Student student) {
+        return student.getUniversity() != null ? student.getUniversity().getId() : null;
     }
 }
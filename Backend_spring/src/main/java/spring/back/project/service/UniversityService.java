@@ -2,10 +2,20 @@ package spring.back.project.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.model.Student;
 import spring.back.project.model.University;
+import spring.back.project.readmodel.ReadModel;
+import spring.back.project.repository.StudentRepository;
 import spring.back.project.repository.UniversityRepository;
+import spring.back.project.sharding.ShardRebalancer;
+import spring.back.project.sharding.ShardRouter;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -14,22 +24,61 @@ public class UniversityService {
     @Autowired
     private UniversityRepository universityRepository;
     
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+    
+    @Autowired
+    private ReadModel readModel;
+    
     // Get all universities
     public List<University> getAllUniversities() {
-        return universityRepository.findAll();
+        return readModel.read(store -> store.getUniversities(), () -> universityRepository.findAll());
     }
     
     // Get university by ID
     public Optional<University> getUniversityById(Long id) {
-        return universityRepository.findById(id);
+        return readModel.read(store -> Optional.ofNullable(store.getUniversity(id)),
+                () -> universityRepository.findById(id));
+    }
+    
+    // Get universities by IDs (one query), keyed by id; missing ids are left out
+    public Map<Long, University> getUniversitiesByIds(Collection<Long> ids) {
+        return readModel.read(store -> {
+            Map<Long, University> universities = new LinkedHashMap<>();
+            for (Long id : ids) {
+                University university = store.getUniversity(id);
+                if (university != null) {
+                    universities.put(id, university);
+                }
+            }
+            return universities;
+        }, () -> {
+            Map<Long, University> universities = new LinkedHashMap<>();
+            universityRepository.findAllById(ids).forEach(university -> universities.put(university.getId(), university));
+            return universities;
+        });
     }
     
     // Create university
+    @Transactional
     public University createUniversity(University university) {
-        return universityRepository.save(university);
+        University savedUniversity = universityRepository.save(university);
+        shardRebalancer.addUniversity(savedUniversity);
+        changeFeedService.recordUniversity(Operation.CREATE, savedUniversity);
+        return savedUniversity;
     }
     
     // Update university
+    @Transactional
     public University updateUniversity(Long id, University universityDetails) {
         University university = universityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("University not found with id: " + id));
@@ -37,18 +86,45 @@ public class UniversityService {
         university.setName(universityDetails.getName());
         university.setLocation(universityDetails.getLocation());
         
-        return universityRepository.save(university);
+        University savedUniversity = universityRepository.save(university);
+        shardRebalancer.replicateUniversity(savedUniversity);
+        changeFeedService.recordUniversity(Operation.UPDATE, savedUniversity);
+        return savedUniversity;
     }
     
     // Delete university
+    @Transactional
     public void deleteUniversity(Long id) {
         University university = universityRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("University not found with id: " + id));
+        
+        // Sharded, students on another shard are not reached by the cascade
+        if (shardRouter.isEnabled()) {
+            List<Student> shardStudents = shardRouter.write(id, () -> {
+                List<Student> students = studentRepository.findByUniversityId(id);
+                studentRepository.deleteAll(students);
+                return students;
+            }, students -> { });
+            for (Student student : shardStudents) {
+                changeFeedService.recordStudent(Operation.DELETE, student);
+            }
+        }
+        
         universityRepository.delete(university);
+        
+        // Students are removed with the university (cascade), record them too
+        if (university.getStudents() != null) {
+            for (Student student : university.getStudents()) {
+                changeFeedService.recordStudent(Operation.DELETE, student);
+            }
+        }
+        changeFeedService.recordUniversity(Operation.DELETE, university);
+        shardRebalancer.removeUniversity(id);
     }
     
     // Search universities by name
     public List<University> searchByName(String name) {
-        return universityRepository.findByNameContainingIgnoreCase(name);
+        return readModel.read(store -> store.searchUniversities(name),
+                () -> universityRepository.findByNameContainingIgnoreCase(name));
     }
 }
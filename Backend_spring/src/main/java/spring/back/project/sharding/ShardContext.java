@@ -0,0 +1,24 @@
+package spring.back.project.sharding;
+
+/**
+ * Shard used by the current thread; null means the primary shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    public static void set(String shard) {
+        if (shard == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(shard);
+        }
+    }
+}
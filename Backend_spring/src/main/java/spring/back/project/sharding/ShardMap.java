@@ -0,0 +1,192 @@
+package spring.back.project.sharding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * University -> shard assignments.
+ * Assignments are kept in memory and persisted in the shard_assignments
+ * table on the primary shard; unassigned universities live on the primary.
+ */
+@Component
+public class ShardMap {
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final Map<Long, String> assignments = new ConcurrentHashMap<>();
+
+    // Writes hold the read lock of their university, a move holds the write lock
+    private final Map<Long, ReentrantReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    private volatile List<String> shardNames;
+
+    /**
+     * Shard names: the primary first, then the others sorted by name.
+     * The position of a shard also selects its student id range.
+     */
+    public List<String> getShardNames() {
+        if (shardNames == null) {
+            List<String> names = new ArrayList<>();
+            names.add(properties.getPrimary());
+            properties.getShards().keySet().stream()
+                    .filter(name -> !name.equals(properties.getPrimary()))
+                    .sorted()
+                    .forEach(names::add);
+            shardNames = Collections.unmodifiableList(names);
+        }
+        return shardNames;
+    }
+
+    public String getPrimary() {
+        return properties.getPrimary();
+    }
+
+    public boolean isShard(String shard) {
+        return getShardNames().contains(shard);
+    }
+
+    // Shard that owns a university's students
+    public String shardFor(Long universityId) {
+        if (universityId == null) {
+            return getPrimary();
+        }
+        return assignments.getOrDefault(universityId, getPrimary());
+    }
+
+    // Shard whose id range contains a student id (its home unless it was moved)
+    public String shardForId(Long id) {
+        int index = (int) (id / properties.getIdRange());
+        List<String> names = getShardNames();
+        return index >= 0 && index < names.size() ? names.get(index) : getPrimary();
+    }
+
+    public long idRangeStart(String shard) {
+        return getShardNames().indexOf(shard) * properties.getIdRange();
+    }
+
+    public DataSource dataSourceFor(String shard) {
+        // The routing DataSource may be wrapped (DeadlineDataSource)
+        try {
+            if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+                return dataSource.unwrap(ShardRoutingDataSource.class).getResolvedDataSources().get(shard);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not unwrap the shard DataSource", e);
+        }
+        return dataSource;
+    }
+
+    public Map<Long, String> getAssignments() {
+        return new TreeMap<>(assignments);
+    }
+
+    /**
+     * Place a new university on the shard with the fewest universities
+     */
+    public synchronized String assignNew(Long universityId) {
+        String current = assignments.get(universityId);
+        if (current != null) {
+            return current;
+        }
+
+        Map<String, Integer> load = new HashMap<>();
+        getShardNames().forEach(name -> load.put(name, 0));
+        assignments.values().forEach(name -> load.merge(name, 1, Integer::sum));
+        String shard = getShardNames().stream()
+                .min((a, b) -> Integer.compare(load.get(a), load.get(b)))
+                .orElse(getPrimary());
+
+        assign(universityId, shard);
+        return shard;
+    }
+
+    public synchronized void assign(Long universityId, String shard) {
+        JdbcTemplate jdbcTemplate = primaryJdbcTemplate();
+        int updated = jdbcTemplate.update("UPDATE shard_assignments SET shard = ? WHERE university_id = ?",
+                shard, universityId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO shard_assignments (university_id, shard) VALUES (?, ?)",
+                    universityId, shard);
+        }
+        assignments.put(universityId, shard);
+    }
+
+    public synchronized void remove(Long universityId) {
+        primaryJdbcTemplate().update("DELETE FROM shard_assignments WHERE university_id = ?", universityId);
+        assignments.remove(universityId);
+        locks.remove(universityId);
+    }
+
+    /**
+     * Create the assignment table if needed, apply configured placements and load it
+     */
+    public synchronized void load() {
+        JdbcTemplate jdbcTemplate = primaryJdbcTemplate();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS shard_assignments ("
+                + "university_id BIGINT NOT NULL PRIMARY KEY, shard VARCHAR(64) NOT NULL)");
+
+        assignments.clear();
+        jdbcTemplate.query("SELECT university_id, shard FROM shard_assignments",
+                rs -> { assignments.put(rs.getLong(1), rs.getString(2)); });
+
+        properties.getUniversities().forEach((universityId, shard) -> {
+            if (!isShard(shard)) {
+                throw new IllegalStateException("Unknown shard '" + shard + "' for university " + universityId);
+            }
+            if (!assignments.containsKey(universityId)) {
+                assign(universityId, shard);
+            }
+        });
+    }
+
+    /**
+     * Lock a university for a write, waiting briefly if it is being moved
+     */
+    public Lock lockForWrite(Long universityId) {
+        Lock lock = lockFor(universityId).readLock();
+        try {
+            if (!lock.tryLock(properties.getMoveWait(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("University " + universityId + " is being moved between shards, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for university " + universityId, e);
+        }
+        return lock;
+    }
+
+    /**
+     * Lock a university exclusively while its students are moved
+     */
+    public Lock lockForMove(Long universityId) {
+        Lock lock = lockFor(universityId).writeLock();
+        lock.lock();
+        return lock;
+    }
+
+    private ReentrantReadWriteLock lockFor(Long universityId) {
+        return locks.computeIfAbsent(universityId == null ? -1L : universityId, id -> new ReentrantReadWriteLock());
+    }
+
+    private JdbcTemplate primaryJdbcTemplate() {
+        return new JdbcTemplate(dataSourceFor(getPrimary()));
+    }
+}
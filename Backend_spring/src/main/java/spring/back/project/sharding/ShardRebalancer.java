@@ -0,0 +1,253 @@
+package spring.back.project.sharding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Moves students between shards and keeps the university replicas in sync.
+ * Rows are copied with plain JDBC so student ids are preserved. A move is
+ * recorded in shard_moves on the primary until its source rows are deleted,
+ * so one interrupted by a crash is rolled back or finished at startup.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String SELECT_STUDENTS =
+            "SELECT id, first_name, last_name, email, university_id FROM students WHERE ";
+
+    private static final String INSERT_STUDENT =
+            "INSERT INTO students (id, first_name, last_name, email, university_id) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    // Orders university locks; students without a university share ShardMap's -1 lock
+    private static final Comparator<Long> LOCK_ORDER = Comparator.comparing(id -> id == null ? -1L : id);
+
+    /**
+     * Move all students of a university to another shard.
+     * Writes for that university wait (up to sharding.move-wait) while the
+     * move runs; reads keep being served from the source shard until the
+     * assignment is switched.
+     */
+    public Map<String, Object> moveUniversity(Long universityId, String target) {
+        if (!properties.isEnabled()) {
+            throw new RuntimeException("Sharding is not enabled");
+        }
+        if (!shardMap.isShard(target)) {
+            throw new RuntimeException("Unknown shard: " + target);
+        }
+
+        Lock lock = shardMap.lockForMove(universityId);
+        try {
+            String source = shardMap.shardFor(universityId);
+            Map<String, Object> result = new HashMap<>();
+            result.put("universityId", universityId);
+            result.put("source", source);
+            result.put("target", target);
+
+            if (source.equals(target)) {
+                result.put("moved", 0);
+                return result;
+            }
+
+            long start = System.currentTimeMillis();
+            JdbcTemplate primary = new JdbcTemplate(shardMap.dataSourceFor(shardMap.getPrimary()));
+            primary.update("INSERT INTO shard_moves (university_id, source, target) VALUES (?, ?, ?)",
+                    universityId, source, target);
+            int copied;
+            try {
+                copied = copyStudents(source, target, "university_id = ?", universityId);
+                shardMap.assign(universityId, target);
+                new JdbcTemplate(shardMap.dataSourceFor(source))
+                        .update("DELETE FROM students WHERE university_id = ?", universityId);
+            } catch (RuntimeException e) {
+                finishMove(universityId, source, target);
+                throw e;
+            }
+            primary.update("DELETE FROM shard_moves WHERE university_id = ?", universityId);
+
+            logger.info("Moved {} students of university {} from {} to {} in {}ms",
+                    copied, universityId, source, target, System.currentTimeMillis() - start);
+            result.put("moved", copied);
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a student update that may change its university, together with
+     * relocateStudent, while neither university can be moved. Both move locks
+     * are taken in university id order, so concurrent relocations cannot deadlock.
+     */
+    public <T> T relocating(Long fromUniversityId, Long toUniversityId, Supplier<T> work) {
+        if (!properties.isEnabled() || toUniversityId == null || toUniversityId.equals(fromUniversityId)) {
+            return work.get();
+        }
+        List<Long> universityIds = new ArrayList<>(Arrays.asList(fromUniversityId, toUniversityId));
+        universityIds.sort(LOCK_ORDER);
+        Lock first = shardMap.lockForMove(universityIds.get(0));
+        try {
+            Lock second = shardMap.lockForMove(universityIds.get(1));
+            try {
+                return work.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    /**
+     * Move one student whose university now lives on another shard.
+     * Callers hold both universities' move locks (see relocating).
+     */
+    public void relocateStudent(Student student, Long previousUniversityId) {
+        if (!properties.isEnabled() || student.getUniversity() == null) {
+            return;
+        }
+        String source = shardMap.shardFor(previousUniversityId);
+        String target = shardMap.shardFor(student.getUniversity().getId());
+        if (source.equals(target)) {
+            return;
+        }
+
+        copyStudents(source, target, "id = ?", student.getId());
+        new JdbcTemplate(shardMap.dataSourceFor(source)).update("DELETE FROM students WHERE id = ?", student.getId());
+    }
+
+    /**
+     * Assign a new university to a shard and copy it to every non-primary shard
+     */
+    public void addUniversity(University university) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        replicateUniversity(university);
+        shardMap.assignNew(university.getId());
+    }
+
+    /**
+     * Copy a university row to every non-primary shard
+     */
+    public void replicateUniversity(University university) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String shard : shardMap.getShardNames()) {
+            if (shard.equals(shardMap.getPrimary())) {
+                continue;
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardMap.dataSourceFor(shard));
+            int updated = jdbcTemplate.update("UPDATE universities SET name = ?, location = ? WHERE id = ?",
+                    university.getName(), university.getLocation(), university.getId());
+            if (updated == 0) {
+                jdbcTemplate.update("INSERT INTO universities (id, name, location) VALUES (?, ?, ?)",
+                        university.getId(), university.getName(), university.getLocation());
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted university from the other shards and from the shard map
+     */
+    public void removeUniversity(Long universityId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (String shard : shardMap.getShardNames()) {
+            if (!shard.equals(shardMap.getPrimary())) {
+                new JdbcTemplate(shardMap.dataSourceFor(shard))
+                        .update("DELETE FROM universities WHERE id = ?", universityId);
+            }
+        }
+        shardMap.remove(universityId);
+    }
+
+    /**
+     * Roll back or finish the moves a crash interrupted
+     */
+    public void recoverMoves() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        JdbcTemplate primary = new JdbcTemplate(shardMap.dataSourceFor(shardMap.getPrimary()));
+        primary.execute("CREATE TABLE IF NOT EXISTS shard_moves ("
+                + "university_id BIGINT NOT NULL PRIMARY KEY, source VARCHAR(64) NOT NULL, target VARCHAR(64) NOT NULL)");
+        primary.query("SELECT university_id, source, target FROM shard_moves", rs -> {
+            long universityId = rs.getLong(1);
+            String source = rs.getString(2);
+            String target = rs.getString(3);
+            if (!shardMap.isShard(source) || !shardMap.isShard(target)) {
+                logger.warn("Interrupted move of university {} names an unknown shard ({} to {}), left as is",
+                        universityId, source, target);
+                return;
+            }
+            logger.warn("Recovering interrupted move of university {} from {} to {}", universityId, source, target);
+            finishMove(universityId, source, target);
+        });
+    }
+
+    // Whichever shard the university is assigned to keeps its students, the other one is cleared
+    private void finishMove(Long universityId, String source, String target) {
+        String stale = target.equals(shardMap.shardFor(universityId)) ? source : target;
+        new JdbcTemplate(shardMap.dataSourceFor(stale)).update("DELETE FROM students WHERE university_id = ?", universityId);
+        new JdbcTemplate(shardMap.dataSourceFor(shardMap.getPrimary()))
+                .update("DELETE FROM shard_moves WHERE university_id = ?", universityId);
+    }
+
+    /**
+     * Copy matching student rows in batches inside one target transaction
+     */
+    private int copyStudents(String source, String target, String condition, Object parameter) {
+        JdbcTemplate sourceJdbc = new JdbcTemplate(shardMap.dataSourceFor(source));
+        sourceJdbc.setFetchSize(properties.getCopyBatchSize());
+
+        DataSource targetDataSource = shardMap.dataSourceFor(target);
+        JdbcTemplate targetJdbc = new JdbcTemplate(targetDataSource);
+        TransactionTemplate targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(targetDataSource));
+
+        Integer copied = targetTransaction.execute(status -> {
+            List<Object[]> batch = new ArrayList<>();
+            int[] count = {0};
+            sourceJdbc.query(SELECT_STUDENTS + condition, rs -> {
+                batch.add(new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getLong(5)});
+                if (batch.size() >= properties.getCopyBatchSize()) {
+                    targetJdbc.batchUpdate(INSERT_STUDENT, batch);
+                    count[0] += batch.size();
+                    batch.clear();
+                }
+            }, parameter);
+            if (!batch.isEmpty()) {
+                targetJdbc.batchUpdate(INSERT_STUDENT, batch);
+                count[0] += batch.size();
+            }
+            return count[0];
+        });
+        return copied != null ? copied : 0;
+    }
+}
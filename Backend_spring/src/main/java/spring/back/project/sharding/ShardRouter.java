@@ -0,0 +1,267 @@
+package spring.back.project.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.back.project.deadline.Deadline;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs student reads and writes on the right shard.
+ * With sharding disabled every method simply runs the work against the
+ * single datasource, so callers do not need a separate code path.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService scatterExecutor;
+
+    @PostConstruct
+    public void init() throws SQLException {
+        // An AOT / native build fixed the DataSource with the sharding.enabled it was built with
+        boolean routing = dataSource.isWrapperFor(ShardRoutingDataSource.class);
+        if (isEnabled() && !routing) {
+            throw new IllegalStateException("sharding.enabled is set but the application was built (AOT) without "
+                    + "sharding; rebuild the image with SHARDING_ENABLED=true");
+        }
+        if (!isEnabled() && routing) {
+            logger.warn("Built (AOT) with sharding but sharding.enabled is off, all queries use the primary shard");
+        }
+        if (isEnabled()) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            scatterExecutor = Executors.newFixedThreadPool(properties.getScatterThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "shard-scatter-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Read from the shard that owns a university
+     */
+    public <T> T readUniversity(Long universityId, Supplier<T> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        return execute(shardMap.shardFor(universityId), true, work);
+    }
+
+    /**
+     * Read for several universities: one call per shard with that shard's universities
+     */
+    public <T> List<T> readUniversities(Collection<Long> universityIds, Function<Collection<Long>, List<T>> work) {
+        if (!isEnabled()) {
+            return work.apply(universityIds);
+        }
+
+        Map<String, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long universityId : universityIds) {
+            byShard.computeIfAbsent(shardMap.shardFor(universityId), shard -> new ArrayList<>()).add(universityId);
+        }
+        List<T> merged = new ArrayList<>();
+        byShard.forEach((shard, ids) -> merged.addAll(execute(shard, true, () -> work.apply(ids))));
+        return merged;
+    }
+
+    /**
+     * Run a read on every shard (in parallel) and return one result per shard
+     */
+    public <T> List<T> gather(Supplier<T> work) {
+        if (!isEnabled()) {
+            return List.of(work.get());
+        }
+
+        // The request's deadline applies to its queries on the scatter threads too
+        Long deadline = Deadline.get();
+        List<Future<T>> futures = new ArrayList<>();
+        for (String shard : shardMap.getShardNames()) {
+            futures.add(scatterExecutor.submit(() -> {
+                Deadline.set(deadline);
+                try {
+                    return execute(shard, true, work);
+                } finally {
+                    Deadline.set(null);
+                }
+            }));
+        }
+
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Run a list query on every shard and merge the results
+     */
+    public <T> List<T> readAll(Supplier<List<T>> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+        List<T> merged = new ArrayList<>();
+        gather(work).forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Look an entity up by id: the shard of its id range first, then the others
+     */
+    public <T> Optional<T> findById(Long id, Supplier<Optional<T>> work) {
+        if (!isEnabled()) {
+            return work.get();
+        }
+
+        String home = shardMap.shardForId(id);
+        Optional<T> result = execute(home, true, work);
+        if (result.isPresent()) {
+            return result;
+        }
+        for (String shard : shardMap.getShardNames()) {
+            if (!shard.equals(home)) {
+                result = execute(shard, true, work);
+                if (result.isPresent()) {
+                    return result;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Look several entities up by id: each id's home shard (its id range) first,
+     * then the ids still missing on the other shards. One query per shard and pass.
+     */
+    public <T> List<T> findByIds(Collection<Long> ids, Function<Collection<Long>, List<T>> work, Function<T, Long> idOf) {
+        if (!isEnabled()) {
+            return work.apply(ids);
+        }
+
+        Map<String, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long id : ids) {
+            byShard.computeIfAbsent(shardMap.shardForId(id), shard -> new ArrayList<>()).add(id);
+        }
+        List<T> found = new ArrayList<>();
+        Set<Long> missing = new HashSet<>(ids);
+        byShard.forEach((shard, shardIds) -> {
+            for (T entity : execute(shard, true, () -> work.apply(shardIds))) {
+                found.add(entity);
+                missing.remove(idOf.apply(entity));
+            }
+        });
+        for (String shard : shardMap.getShardNames()) {
+            List<Long> elsewhere = missing.stream().filter(id -> !shard.equals(shardMap.shardForId(id))).toList();
+            if (elsewhere.isEmpty()) {
+                continue;
+            }
+            for (T entity : execute(shard, true, () -> work.apply(elsewhere))) {
+                found.add(entity);
+                missing.remove(idOf.apply(entity));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Write on the shard that owns a university, then run a follow-up on the primary.
+     * Unsharded, both run in one transaction; sharded, the follow-up runs after the
+     * shard transaction commits.
+     */
+    public <T> T write(Long universityId, Supplier<T> work, Consumer<T> afterWrite) {
+        if (!isEnabled()) {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            return transactionTemplate.execute(status -> {
+                T result = work.get();
+                afterWrite.accept(result);
+                return result;
+            });
+        }
+
+        Lock lock = shardMap.lockForWrite(universityId);
+        try {
+            T result = execute(shardMap.shardFor(universityId), false, work);
+            execute(shardMap.getPrimary(), false, () -> {
+                afterWrite.accept(result);
+                return null;
+            });
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run work in a new transaction on a given shard
+     */
+    public <T> T execute(String shard, boolean readOnly, Supplier<T> work) {
+        String previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            // A new transaction, so the connection is taken from this shard
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate.execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+}
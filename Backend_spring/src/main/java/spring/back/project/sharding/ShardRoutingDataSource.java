@@ -0,0 +1,36 @@
+package spring.back.project.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * DataSource that hands out connections of the shard set in ShardContext.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public ShardRoutingDataSource(String primary, Map<Object, Object> shards) {
+        setTargetDataSources(shards);
+        setDefaultTargetDataSource(shards.get(primary));
+        // An unknown shard name is a bug, never fall back to the primary
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.get();
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package spring.back.project.sharding;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import spring.back.project.model.University;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Prepares the shards at startup: creates the mapped tables, moves each
+ * shard's student ids into its own range, loads the shard map, recovers
+ * interrupted moves and copies the universities to every shard.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardSchemaInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardSchemaInitializer.class);
+
+    @Autowired
+    private ShardingProperties properties;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (String shard : shardMap.getShardNames()) {
+            if (!shard.equals(shardMap.getPrimary()) && properties.isCreateSchema()) {
+                createSchema(shard);
+            }
+            reserveIdRange(shard);
+        }
+
+        shardMap.load();
+        shardRebalancer.recoverMoves();
+
+        JdbcTemplate primary = new JdbcTemplate(shardMap.dataSourceFor(shardMap.getPrimary()));
+        primary.query("SELECT id, name, location FROM universities", rs -> {
+            University university = new University(rs.getString(2), rs.getString(3));
+            university.setId(rs.getLong(1));
+            shardRebalancer.replicateUniversity(university);
+        });
+
+        logger.info("Sharding enabled: shards {}, {} university assignments",
+                shardMap.getShardNames(), shardMap.getAssignments().size());
+    }
+
+    private void createSchema(String shard) {
+        String previous = ShardContext.get();
+        ShardContext.set(shard);
+        try {
+            // Hibernate takes its connections from the routing datasource, i.e. this shard
+            entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(true);
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    private void reserveIdRange(String shard) throws SQLException {
+        long start = shardMap.idRangeStart(shard);
+        if (start == 0) {
+            return;
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shardMap.dataSourceFor(shard));
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM students", Long.class);
+        if (maxId != null && maxId >= start) {
+            return;
+        }
+
+        String product;
+        try (Connection connection = shardMap.dataSourceFor(shard).getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        }
+        if (product.toLowerCase().contains("mysql")) {
+            jdbcTemplate.execute("ALTER TABLE students AUTO_INCREMENT = " + start);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE students ALTER COLUMN id RESTART WITH " + start);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package spring.back.project.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sharding configuration (prefix "sharding").
+ * The primary shard is the regular spring.datasource; it also keeps the
+ * users, universities (master copy), change_events and shard_assignments tables.
+ */
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    // Name of the shard backed by spring.datasource
+    private String primary = "primary";
+
+    // Additional shards by name
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    // Initial university id -> shard placement, applied when not assigned yet
+    private Map<Long, String> universities = new HashMap<>();
+
+    // Student ids of the n-th shard start at n * idRange, so ids never collide
+    private long idRange = 1_000_000_000_000L;
+
+    private int scatterThreads = 4;
+
+    // Create the mapped tables on the non-primary shards at startup
+    private boolean createSchema = true;
+
+    // How long a write waits for a university that is being moved
+    private long moveWait = 5000;
+
+    private int copyBatchSize = 500;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPrimary() {
+        return primary;
+    }
+
+    public void setPrimary(String primary) {
+        this.primary = primary;
+    }
+
+    public Map<String, Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(Map<String, Shard> shards) {
+        this.shards = shards;
+    }
+
+    public Map<Long, String> getUniversities() {
+        return universities;
+    }
+
+    public void setUniversities(Map<Long, String> universities) {
+        this.universities = universities;
+    }
+
+    public long getIdRange() {
+        return idRange;
+    }
+
+    public void setIdRange(long idRange) {
+        this.idRange = idRange;
+    }
+
+    public int getScatterThreads() {
+        return scatterThreads;
+    }
+
+    public void setScatterThreads(int scatterThreads) {
+        this.scatterThreads = scatterThreads;
+    }
+
+    public boolean isCreateSchema() {
+        return createSchema;
+    }
+
+    public void setCreateSchema(boolean createSchema) {
+        this.createSchema = createSchema;
+    }
+
+    public long getMoveWait() {
+        return moveWait;
+    }
+
+    public void setMoveWait(long moveWait) {
+        this.moveWait = moveWait;
+    }
+
+    public int getCopyBatchSize() {
+        return copyBatchSize;
+    }
+
+    public void setCopyBatchSize(int copyBatchSize) {
+        this.copyBatchSize = copyBatchSize;
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public String getDriverClassName() { return driverClassName; }
+        public void setDriverClassName(String driverClassName) { this.driverClassName = driverClassName; }
+    }
+}
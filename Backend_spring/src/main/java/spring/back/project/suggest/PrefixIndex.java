@@ -0,0 +1,202 @@
+package spring.back.project.suggest;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable compressed trie (radix tree) from folded keys to entries.
+ *
+ * Every node stores its edge label and the best `topK` distinct entries of
+ * its subtree, ranked when the index is built. A lookup only walks the
+ * prefix's characters and returns that list, so its cost does not depend on
+ * how many entries match.
+ */
+public class PrefixIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new Node("", new Node[0], new int[0]));
+
+    private final Node root;
+
+    private PrefixIndex(Node root) {
+        this.root = root;
+    }
+
+    public static PrefixIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build from keys[i] -> entries[i]; rank orders entries best first
+     */
+    public static PrefixIndex build(List<String> keys, int[] entries, Comparator<Integer> rank, int topK) {
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+        String[] sortedKeys = new String[order.length];
+        int[] sortedEntries = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedEntries[i] = entries[order[i]];
+        }
+        if (sortedKeys.length == 0) {
+            return EMPTY;
+        }
+        Node node = new Builder(sortedKeys, sortedEntries, rank, topK).node(0, sortedKeys.length, 0, 0);
+        // Lookups start below the root, so a prefix shared by all keys becomes its only child
+        return new PrefixIndex(node.label.isEmpty() ? node : new Node("", new Node[]{node}, node.top));
+    }
+
+    /**
+     * Best entries whose key starts with the (already folded) prefix, at most topK
+     */
+    public int[] lookup(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.child(prefix.charAt(position));
+            if (child == null) {
+                return new int[0];
+            }
+            int common = Math.min(child.label.length(), prefix.length() - position);
+            if (!prefix.regionMatches(position, child.label, 0, common)) {
+                return new int[0];
+            }
+            position += common;
+            node = child;
+        }
+        return node.top;
+    }
+
+    /**
+     * Lower-case, strip accents, map other characters to single spaces.
+     * Leading separators are dropped, a trailing one is kept so that
+     * "new " only matches whole words.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            // Letters NFD does not split: sharp s, ae, oe, o/l/d with stroke, dotless i, thorn
+            String replacement = switch (c) {
+                case '\u00df' -> "ss";
+                case '\u00e6' -> "ae";
+                case '\u0153' -> "oe";
+                case '\u00f8' -> "o";
+                case '\u0142' -> "l";
+                case '\u0111' -> "d";
+                case '\u0131' -> "i";
+                case '\u00fe' -> "th";
+                default -> null;
+            };
+            if (replacement != null) {
+                folded.append(replacement);
+            } else if (Character.isLetterOrDigit(c)) {
+                folded.append(c);
+            } else if (folded.length() > 0 && folded.charAt(folded.length() - 1) != ' ') {
+                folded.append(' ');
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Keys for a text: its folded form from the start of every word, so a
+     * prefix matches any word and the words after it ("tech" and
+     * "institute of tech" both match "Institute of Technology")
+     */
+    public static List<String> wordSuffixes(String text) {
+        String folded = fold(text).strip();
+        List<String> suffixes = new ArrayList<>();
+        if (folded.isEmpty()) {
+            return suffixes;
+        }
+        suffixes.add(folded);
+        for (int i = folded.indexOf(' '); i >= 0; i = folded.indexOf(' ', i + 1)) {
+            suffixes.add(folded.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    private static class Node {
+        private final String label;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final int[] top;
+
+        Node(String label, Node[] children, int[] top) {
+            this.label = label;
+            this.children = children;
+            this.top = top;
+            this.firstChars = new char[children.length];
+            for (int i = 0; i < children.length; i++) {
+                firstChars[i] = children[i].label.charAt(0);
+            }
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    // Builds nodes from sorted keys: a subtree is a range sharing a prefix
+    private static class Builder {
+        private final String[] keys;
+        private final int[] entries;
+        private final Comparator<Integer> rank;
+        private final int topK;
+
+        Builder(String[] keys, int[] entries, Comparator<Integer> rank, int topK) {
+            this.keys = keys;
+            this.entries = entries;
+            this.rank = rank;
+            this.topK = topK;
+        }
+
+        // Keys [from, to) all start with the same `depth` characters; the label starts at labelStart
+        Node node(int from, int to, int depth, int labelStart) {
+            // In a sorted range the first and last key share the longest common prefix of all
+            int end = depth;
+            String first = keys[from];
+            String last = keys[to - 1];
+            while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+                end++;
+            }
+
+            List<Integer> candidates = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            int i = from;
+            while (i < to && keys[i].length() == end) {
+                candidates.add(entries[i++]);
+            }
+            while (i < to) {
+                char c = keys[i].charAt(end);
+                int j = i;
+                while (j < to && keys[j].charAt(end) == c) {
+                    j++;
+                }
+                Node child = node(i, j, end + 1, end);
+                children.add(child);
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+                i = j;
+            }
+
+            int[] top = candidates.stream().distinct().sorted(rank).limit(topK).mapToInt(Integer::intValue).toArray();
+            return new Node(first.substring(labelStart, end), children.toArray(new Node[0]), top);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package spring.back.project.suggest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.model.University;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.service.UniversityService;
+import spring.back.project.sharding.ShardMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Typeahead over university names and locations (/api/universities/suggest).
+ *
+ * Universities and their student counts are loaded once at startup and then
+ * kept current from the change feed, tailed for the changes of every
+ * instance. University changes arriving while a (re)load reads the tables
+ * are applied on top of its result. Every change rebuilds an immutable
+ * PrefixIndex on a background thread (a few ms for thousands of universities,
+ * changes arriving meanwhile are coalesced into the next build), so a lookup
+ * never takes a lock or touches the database. Student moves between
+ * universities are not in the change events' before-state, so the counts are
+ * also recounted every suggest.recount-interval.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class UniversitySuggester implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniversitySuggester.class);
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private UniversityService universityService;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${suggest.max-limit:20}")
+    private int maxLimit;
+
+    // Guarded by this; the source the index is built from
+    private final Map<Long, Entry> universities = new HashMap<>();
+
+    // Guarded by this; university changes applied while a load runs, replayed onto its result
+    private List<ChangeEvent> buffered;
+
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    // Null until loaded
+    private volatile Snapshot snapshot;
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    // Builds run one at a time, so a newer snapshot is never replaced by an older one
+    private final Object buildLock = new Object();
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            changeFeedService.subscribe(this::apply);
+        }
+    }
+
+    // Loaded before the warm-up so it exercises the index
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            load();
+        }
+    }
+
+    /**
+     * Reload names and student counts, which also corrects counts of students
+     * that moved to another university
+     */
+    @Scheduled(initialDelayString = "${suggest.recount-interval:600000}", fixedDelayString = "${suggest.recount-interval:600000}")
+    public void recount() {
+        if (enabled) {
+            load();
+        }
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Up to `limit` universities with a word starting with the prefix (accents
+     * and case ignored), most students first. Uses the database only until the
+     * index is loaded.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String folded = PrefixIndex.fold(prefix);
+        Snapshot current = snapshot;
+        if (current == null) {
+            return fallback(prefix, limit);
+        }
+        int[] found = current.index.lookup(folded);
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, found.length));
+        for (int i = 0; i < found.length && i < limit; i++) {
+            suggestions.add(current.entries[found[i]]);
+        }
+        return suggestions;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    private void load() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            buffered = new ArrayList<>();
+        }
+        try {
+            Map<Long, Long> counts = new HashMap<>();
+            for (String shard : shardMap.getShardNames()) {
+                jdbcTemplate(shard).query("SELECT university_id, COUNT(*) FROM students GROUP BY university_id",
+                        rs -> { counts.merge(rs.getLong(1), rs.getLong(2), Long::sum); });
+            }
+            Map<Long, Entry> loaded = new HashMap<>();
+            jdbcTemplate(shardMap.getPrimary()).query("SELECT id, name, location FROM universities", rs -> {
+                long id = rs.getLong(1);
+                loaded.put(id, new Entry(rs.getString(2), rs.getString(3), counts.getOrDefault(id, 0L)));
+            });
+            synchronized (this) {
+                // Student counts stay as read: one changed meanwhile may be off by one until the next recount
+                for (ChangeEvent event : buffered) {
+                    applyUniversity(loaded, event);
+                }
+                universities.clear();
+                universities.putAll(loaded);
+            }
+            rebuild();
+            logger.info("University suggest index loaded {} universities", loaded.size());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load the university suggest index", e);
+        } finally {
+            synchronized (this) {
+                buffered = null;
+            }
+            loading.set(false);
+        }
+    }
+
+    // Called by ChangeFeedService with every instance's changes, in sequence order
+    private void apply(ChangeEvent event) {
+        try {
+            synchronized (this) {
+                if (event.getEntityType() == EntityType.UNIVERSITY) {
+                    if (buffered != null) {
+                        buffered.add(event);
+                    }
+                    applyUniversity(universities, event);
+                } else if (event.getOperation() != Operation.UPDATE && event.getUniversityId() != null) {
+                    Entry entry = universities.get(event.getUniversityId());
+                    if (entry == null) {
+                        return;
+                    }
+                    long delta = event.getOperation() == Operation.CREATE ? 1 : -1;
+                    universities.put(event.getUniversityId(),
+                            new Entry(entry.name, entry.location, Math.max(0, entry.studentCount + delta)));
+                } else {
+                    return;
+                }
+            }
+            scheduleRebuild();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not apply change {} to the suggest index", event.getId(), e);
+        }
+    }
+
+    // Guarded by this
+    private void applyUniversity(Map<Long, Entry> target, ChangeEvent event) throws IOException {
+        long id = event.getEntityId();
+        if (event.getOperation() == Operation.DELETE) {
+            target.remove(id);
+            return;
+        }
+        JsonNode university = objectMapper.readTree(event.getPayload());
+        Entry previous = target.get(id);
+        target.put(id, new Entry(text(university, "name"), text(university, "location"),
+                previous != null ? previous.studentCount : 0));
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            builder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        synchronized (buildLock) {
+            rebuildPending.set(false);
+            List<Map.Entry<Long, Entry>> copy;
+            synchronized (this) {
+                copy = new ArrayList<>(universities.entrySet());
+            }
+            snapshot = build(copy);
+        }
+    }
+
+    private Snapshot build(List<Map.Entry<Long, Entry>> copy) {
+
+        Suggestion[] entries = new Suggestion[copy.size()];
+        List<String> keys = new ArrayList<>();
+        List<Integer> keyEntries = new ArrayList<>();
+        for (int i = 0; i < entries.length; i++) {
+            Entry entry = copy.get(i).getValue();
+            entries[i] = new Suggestion(copy.get(i).getKey(), entry.name, entry.location, entry.studentCount);
+            for (String key : PrefixIndex.wordSuffixes(entry.name)) {
+                keys.add(key);
+                keyEntries.add(i);
+            }
+            for (String key : PrefixIndex.wordSuffixes(entry.location)) {
+                keys.add(key);
+                keyEntries.add(i);
+            }
+        }
+
+        Comparator<Integer> rank = Comparator.<Integer>comparingLong(i -> entries[i].studentCount).reversed()
+                .thenComparing(i -> entries[i].name, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+                .thenComparingLong(i -> entries[i].id);
+        PrefixIndex index = PrefixIndex.build(keys, keyEntries.stream().mapToInt(Integer::intValue).toArray(),
+                rank, maxLimit);
+        return new Snapshot(index, entries);
+    }
+
+    private List<Suggestion> fallback(String prefix, int limit) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (University university : universityService.searchByName(prefix)) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(new Suggestion(university.getId(), university.getName(), university.getLocation(), null));
+        }
+        return suggestions;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private JdbcTemplate jdbcTemplate(String shard) {
+        return new JdbcTemplate(shardMap.dataSourceFor(shard));
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Suggestion {
+        private final Long id;
+        private final String name;
+        private final String location;
+        private final Long studentCount;
+
+        Suggestion(Long id, String name, String location, Long studentCount) {
+            this.id = id;
+            this.name = name;
+            this.location = location;
+            this.studentCount = studentCount;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getLocation() { return location; }
+        public Long getStudentCount() { return studentCount; }
+    }
+
+    private static class Entry {
+        private final String name;
+        private final String location;
+        private final long studentCount;
+
+        Entry(String name, String location, long studentCount) {
+            this.name = name;
+            this.location = location;
+            this.studentCount = studentCount;
+        }
+    }
+
+    // Immutable, replaced as a whole after every rebuild
+    private static class Snapshot {
+        private final PrefixIndex index;
+        private final Suggestion[] entries;
+
+        Snapshot(PrefixIndex index, Suggestion[] entries) {
+            this.index = index;
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package spring.back.project.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import spring.back.project.controller.AuthController;
+import spring.back.project.controller.StudentController;
+import spring.back.project.controller.UniversityController;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+import spring.back.project.model.User;
+import spring.back.project.repository.StudentRepository;
+import spring.back.project.repository.UniversityRepository;
+import spring.back.project.repository.UserRepository;
+import spring.back.project.security.JwtTokenProvider;
+import spring.back.project.sharding.ShardRouter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays synthetic requests through the controller, service and repository
+ * beans before the application reports ready, so the hot paths are JIT
+ * compiled and Hibernate's query plan cache is filled when traffic arrives.
+ *
+ * Runners finish before Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC,
+ * so /actuator/health/readiness stays DOWN while this runs. Every request runs
+ * in a transaction that is rolled back. Writes are opt-in (warmup.writes-enabled):
+ * even rolled back they insert into the shared database, burning ids and holding
+ * back the change feed of every instance until the rollback. They are only
+ * replayed unsharded, where the whole write joins that transaction.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class WarmupRunner implements ApplicationRunner, InfoContributor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+
+    // Share of the iterations used for the "cold" and "warm" latency figures
+    private static final double WINDOW = 0.1;
+
+    @Autowired
+    private StudentController studentController;
+
+    @Autowired
+    private UniversityController universityController;
+
+    @Autowired
+    private AuthController authController;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private UniversityRepository universityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${warmup.max-duration:60s}")
+    private Duration maxDuration;
+
+    @Value("${warmup.scenarios:students.get,students.search,students.by-university,students.stats,universities.get,universities.include,universities.students-page,universities.search,universities.suggest,auth.token,auth.profile}")
+    private List<String> scenarioNames;
+
+    // Write scenarios (students.create) also need to be listed in warmup.scenarios
+    @Value("${warmup.writes-enabled:false}")
+    private boolean writesEnabled;
+
+    // BCrypt is slow by design, a few rounds are enough to compile it
+    @Value("${warmup.password-iterations:5}")
+    private int passwordIterations;
+
+    private volatile Map<String, Object> report = Map.of();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+
+        Map<String, Runnable> scenarios = scenarios();
+        if (scenarios.isEmpty()) {
+            logger.info("Warm-up skipped, no scenarios enabled");
+            return;
+        }
+
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        Map<String, long[]> latencies = new LinkedHashMap<>();
+        scenarios.keySet().forEach(name -> latencies.put(name, new long[iterations]));
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        long start = System.nanoTime();
+
+        int completed = 0;
+        int failures = 0;
+        for (; completed < iterations && System.nanoTime() < deadline; completed++) {
+            for (Map.Entry<String, Runnable> scenario : scenarios.entrySet()) {
+                long begin = System.nanoTime();
+                try {
+                    rollback.executeWithoutResult(status -> {
+                        status.setRollbackOnly();
+                        scenario.getValue().run();
+                    });
+                } catch (RuntimeException e) {
+                    if (failures++ == 0) {
+                        logger.warn("Warm-up scenario {} failed: {}", scenario.getKey(), e.toString());
+                    }
+                }
+                latencies.get(scenario.getKey())[completed] = System.nanoTime() - begin;
+            }
+        }
+
+        for (int i = 0; i < passwordIterations; i++) {
+            passwordEncoder.matches("warmup", passwordEncoder.encode("warmup"));
+        }
+
+        long elapsed = System.nanoTime() - start;
+        report(completed, failures, elapsed, latencies);
+    }
+
+    /**
+     * Outcome of the warm-up (duration, cold / warm latency per scenario) under /actuator/info
+     */
+    @Override
+    public void contribute(Info.Builder builder) {
+        if (!report.isEmpty()) {
+            builder.withDetail("warmup", report);
+        }
+    }
+
+    private Map<String, Runnable> scenarios() {
+        // Parameters are taken from existing rows so the queries return real data
+        Long universityId = universityRepository.findAll(PageRequest.of(0, 1)).stream()
+                .findFirst().map(University::getId).orElse(0L);
+        Long studentId = studentRepository.findAll(PageRequest.of(0, 1)).stream()
+                .findFirst().map(Student::getId).orElse(0L);
+        String username = userRepository.findAll(PageRequest.of(0, 1)).stream()
+                .findFirst().map(User::getUsername).orElse(null);
+
+        Map<String, Runnable> all = new LinkedHashMap<>();
+        all.put("students.list", () -> serialize(studentController.getAllStudents()));
+        all.put("students.get", () -> serialize(studentController.getStudentById(studentId)));
+        all.put("students.search", () -> serialize(studentController.searchStudents("a")));
+        all.put("students.by-university", () -> serialize(studentController.getStudentsByUniversity(universityId)));
+        all.put("students.stats", () -> serialize(studentController.getStudentStats()));
+        all.put("universities.list", () -> serialize(universityController.getAllUniversities(null, 100)));
+        all.put("universities.get", () -> serialize(universityController.getUniversityById(universityId, null, 100)));
+        all.put("universities.include", () -> serialize(universityController.getUniversityById(universityId, "students", 100)));
+        all.put("universities.students-page", () -> serialize(universityController.getUniversityStudents(universityId, 0L, 100)));
+        all.put("universities.search", () -> serialize(universityController.searchUniversities("u")));
+        all.put("universities.suggest", () -> serialize(universityController.suggestUniversities("u", 10)));
+        all.put("auth.token", () -> {
+            String token = jwtTokenProvider.generateToken("warmup");
+            jwtTokenProvider.validateToken(token);
+            jwtTokenProvider.getUsernameFromToken(token);
+        });
+        if (username != null) {
+            all.put("auth.profile", () -> serialize(
+                    authController.getProfile("Bearer " + jwtTokenProvider.generateToken(username))));
+        }
+        if (writesEnabled && !shardRouter.isEnabled() && universityId != 0L) {
+            // The insert and its change event are rolled back with the surrounding transaction
+            all.put("students.create", () -> {
+                Student student = new Student();
+                student.setFirstName("Warm");
+                student.setLastName("Up");
+                student.setEmail("warmup-" + System.nanoTime() + "@warmup.invalid");
+                University university = new University();
+                university.setId(universityId);
+                student.setUniversity(university);
+                // Its email stays in the membership filter as a stale "maybe" until the next rebuild
+                serialize(studentController.createStudent(student));
+            });
+        }
+
+        Map<String, Runnable> selected = new LinkedHashMap<>();
+        for (String name : scenarioNames) {
+            Runnable scenario = all.get(name.trim());
+            if (scenario != null) {
+                selected.put(name.trim(), scenario);
+            } else {
+                logger.debug("Warm-up scenario {} not available", name);
+            }
+        }
+        return selected;
+    }
+
+    private void serialize(ResponseEntity<?> response) {
+        try {
+            objectMapper.writeValueAsBytes(response.getBody());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialize warm-up response", e);
+        }
+    }
+
+    private void report(int completed, int failures, long elapsed, Map<String, long[]> latencies) {
+        int window = Math.max(1, (int) (completed * WINDOW));
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        List<String> lines = new ArrayList<>();
+        latencies.forEach((name, samples) -> {
+            if (completed == 0) {
+                return;
+            }
+            double cold = percentile(Arrays.copyOfRange(samples, 0, window), 0.99);
+            double warm = percentile(Arrays.copyOfRange(samples, completed - window, completed), 0.99);
+            double warmMedian = percentile(Arrays.copyOfRange(samples, completed - window, completed), 0.5);
+            scenarios.put(name, Map.of("coldP99Ms", cold, "warmP99Ms", warm, "warmP50Ms", warmMedian));
+            lines.add(String.format("%s p99 %.2fms -> %.2fms (p50 %.2fms)", name, cold, warm, warmMedian));
+
+            Gauge.builder("warmup.latency", () -> warm)
+                    .tags("scenario", name, "quantile", "0.99")
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        });
+
+        Gauge.builder("warmup.duration", () -> elapsed / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        result.put("iterations", completed);
+        result.put("failures", failures);
+        result.put("scenarios", scenarios);
+        report = result;
+
+        logger.info("Warm-up finished in {} ms: {} iterations x {} scenarios, {} failures; {}",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), completed, latencies.size(), failures, String.join("; ", lines));
+    }
+
+    // Milliseconds
+    private double percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
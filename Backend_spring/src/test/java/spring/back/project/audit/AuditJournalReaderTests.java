@@ -0,0 +1,144 @@
+package spring.back.project.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static spring.back.project.audit.AuditSegmentTests.record;
+import static spring.back.project.audit.AuditSegmentTests.sequences;
+
+class AuditJournalReaderTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAcrossRolledOverSegmentsInOrder() throws IOException {
+        writeSegments(256, 1, 30);
+        assertTrue(segmentCount() > 2, "expected several segments");
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(0, records::add);
+
+        assertEquals(30, summary.getRecords());
+        assertEquals(30, summary.getLastSequence());
+        assertEquals(sequenceRange(1, 30), sequences(records));
+        assertTrue(summary.getGaps().isEmpty());
+        assertTrue(summary.getTornSegments().isEmpty());
+    }
+
+    @Test
+    void skipsEverythingUpToTheRequestedSequence() throws IOException {
+        writeSegments(256, 1, 30);
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(17, records::add);
+
+        assertEquals(sequenceRange(18, 30), sequences(records));
+        assertEquals(18L, summary.toMap().get("firstSequence"));
+        // Whole segments before the one holding 18 are not opened
+        assertTrue((int) summary.toMap().get("segments") < segmentCount());
+    }
+
+    @Test
+    void stopsAfterMaxRecords() throws IOException {
+        writeSegments(256, 1, 30);
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(5, 4, records::add);
+
+        assertEquals(sequenceRange(6, 9), sequences(records));
+        assertEquals(4, summary.getRecords());
+        assertEquals(9, summary.getLastSequence());
+        assertTrue((int) summary.toMap().get("segments") < segmentCount());
+    }
+
+    @Test
+    void reportsMissingSequences() throws IOException {
+        writeSegments(64 * 1024, 1, 3);
+        writeSegments(64 * 1024, 7, 8);
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(0, records::add);
+
+        assertEquals(List.of(1L, 2L, 3L, 7L, 8L), sequences(records));
+        assertEquals(List.of(Map.of("after", 3L, "missing", 3L)), summary.getGaps());
+    }
+
+    @Test
+    void reportsTornSegmentsAndContinuesWithTheNextOne() throws IOException {
+        writeSegments(64 * 1024, 1, 3);
+        Path first = directory.resolve(AuditSegment.fileName(1));
+        long tail = AuditSegment.HEADER_BYTES;
+        for (long sequence = 1; sequence <= 3; sequence++) {
+            tail += payloadRecord(sequence).encodedSize();
+        }
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 100), tail);
+        }
+        // After a crash the journal continues in a new segment
+        writeSegments(64 * 1024, 4, 5);
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(0, records::add);
+
+        assertEquals(sequenceRange(1, 5), sequences(records));
+        assertEquals(List.of(AuditSegment.fileName(1)), summary.getTornSegments());
+        assertTrue(summary.getGaps().isEmpty());
+    }
+
+    @Test
+    void ignoresOtherFiles() throws IOException {
+        writeSegments(64 * 1024, 1, 2);
+        Files.writeString(directory.resolve("notes.txt"), "not a segment");
+
+        AuditJournalReader.Summary summary = new AuditJournalReader(directory).read(0, record -> { });
+        assertEquals(2, summary.getRecords());
+    }
+
+    // Appends records first..last, rolling over to a new segment when one is full
+    private void writeSegments(int size, long first, long last) throws IOException {
+        AuditSegment segment = AuditSegment.create(directory, first, size);
+        try {
+            for (long sequence = first; sequence <= last; sequence++) {
+                AuditRecord record = payloadRecord(sequence);
+                if (!segment.append(record)) {
+                    segment.close();
+                    segment = AuditSegment.create(directory, sequence, size);
+                    assertTrue(segment.append(record));
+                }
+            }
+        } finally {
+            segment.close();
+        }
+    }
+
+    private static AuditRecord payloadRecord(long sequence) {
+        return record(sequence, "{\"n\":" + sequence + "}");
+    }
+
+    private long segmentCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(AuditSegment::isSegment).count();
+        }
+    }
+
+    private static List<Long> sequenceRange(long from, long to) {
+        List<Long> sequences = new ArrayList<>();
+        for (long sequence = from; sequence <= to; sequence++) {
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+}
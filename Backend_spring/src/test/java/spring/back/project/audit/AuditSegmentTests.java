@@ -0,0 +1,188 @@
+package spring.back.project.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditSegmentTests {
+
+    private static final int SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsRoundTrip() throws IOException {
+        try (AuditSegment segment = AuditSegment.create(directory, 1, SIZE)) {
+            assertTrue(segment.isEmpty());
+            assertTrue(segment.append(record(1, "{\"id\":10,\"name\":\"Zoë\"}")));
+            assertTrue(segment.append(delete(2)));
+            assertEquals(2, segment.getLastSequence());
+        }
+
+        List<AuditRecord> records = readAll(directory.resolve(AuditSegment.fileName(1)));
+        assertEquals(2, records.size());
+        AuditRecord first = records.get(0);
+        assertEquals(1, first.getSequence());
+        assertEquals(AuditRecord.EntityType.STUDENT, first.getEntityType());
+        assertEquals(AuditRecord.Operation.UPDATE, first.getOperation());
+        assertEquals(10L, first.getEntityId());
+        assertEquals(3L, first.getUniversityId());
+        assertEquals("alice", first.getActor());
+        assertEquals("req-1", first.getRequestId());
+        assertEquals("{\"id\":10,\"name\":\"Zoë\"}", first.getPayload());
+
+        AuditRecord second = records.get(1);
+        assertEquals(AuditRecord.Operation.DELETE, second.getOperation());
+        assertNull(second.getUniversityId());
+        assertNull(second.getActor());
+        assertNull(second.getPayload());
+    }
+
+    @Test
+    void appendRefusesRecordsThatDoNotFit() throws IOException {
+        try (AuditSegment segment = AuditSegment.create(directory, 1, 256)) {
+            long sequence = 1;
+            while (segment.append(record(sequence, "x".repeat(20)))) {
+                sequence++;
+            }
+            assertTrue(sequence > 1);
+            assertEquals(sequence - 1, segment.getLastSequence());
+            // Room is always left for the zero length ending the data
+            assertTrue(segment.getWrittenBytes() <= 256 - 4);
+        }
+        assertTrue(AuditSegment.read(directory.resolve(AuditSegment.fileName(1)), record -> true));
+    }
+
+    @Test
+    void crcMismatchEndsTheReadAtTheCorruptRecord() throws IOException {
+        int firstSize;
+        try (AuditSegment segment = AuditSegment.create(directory, 1, SIZE)) {
+            segment.append(record(1, "{}"));
+            firstSize = segment.getWrittenBytes() - AuditSegment.HEADER_BYTES;
+            segment.append(record(2, "{\"name\":\"original\"}"));
+            segment.append(record(3, "{}"));
+        }
+        Path path = directory.resolve(AuditSegment.fileName(1));
+        // Flip one payload byte of the second record, its CRC no longer matches
+        int secondPayloadEnd = AuditSegment.HEADER_BYTES + firstSize + record(2, "{\"name\":\"original\"}").encodedSize();
+        flip(path, secondPayloadEnd - 3);
+
+        List<AuditRecord> records = new ArrayList<>();
+        assertFalse(AuditSegment.read(path, records::add));
+        assertEquals(List.of(1L), sequences(records));
+
+        try (AuditSegment reopened = AuditSegment.openForAppend(path)) {
+            assertTrue(reopened.isDamaged());
+            assertEquals(1, reopened.getLastSequence());
+        }
+    }
+
+    @Test
+    void tornTailIsDetectedOnReadAndReopen() throws IOException {
+        try (AuditSegment segment = AuditSegment.create(directory, 5, SIZE)) {
+            segment.append(record(5, "{}"));
+            segment.append(record(6, "{}"));
+        }
+        Path path = directory.resolve(AuditSegment.fileName(5));
+        long tail = AuditSegment.HEADER_BYTES + 2L * record(5, "{}").encodedSize();
+        // A length written without its body: the process died mid-append
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 100), tail);
+        }
+
+        List<AuditRecord> records = new ArrayList<>();
+        assertFalse(AuditSegment.read(path, records::add));
+        assertEquals(List.of(5L, 6L), sequences(records));
+
+        try (AuditSegment reopened = AuditSegment.openForAppend(path)) {
+            assertTrue(reopened.isDamaged());
+            assertEquals(6, reopened.getLastSequence());
+        }
+    }
+
+    @Test
+    void cleanSegmentReopensWhereItEnded() throws IOException {
+        try (AuditSegment segment = AuditSegment.create(directory, 1, SIZE)) {
+            segment.append(record(1, "{}"));
+        }
+        Path path = directory.resolve(AuditSegment.fileName(1));
+        try (AuditSegment reopened = AuditSegment.openForAppend(path)) {
+            assertFalse(reopened.isDamaged());
+            assertTrue(reopened.append(record(2, "{}")));
+        }
+        List<AuditRecord> records = new ArrayList<>();
+        assertTrue(AuditSegment.read(path, records::add));
+        assertEquals(List.of(1L, 2L), sequences(records));
+    }
+
+    @Test
+    void readStopsWhenTheConsumerDeclines() throws IOException {
+        try (AuditSegment segment = AuditSegment.create(directory, 1, SIZE)) {
+            for (long sequence = 1; sequence <= 5; sequence++) {
+                segment.append(record(sequence, "{}"));
+            }
+        }
+        List<AuditRecord> records = new ArrayList<>();
+        assertTrue(AuditSegment.read(directory.resolve(AuditSegment.fileName(1)),
+                record -> records.add(record) && records.size() < 2));
+        assertEquals(List.of(1L, 2L), sequences(records));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSegments() throws IOException {
+        Path path = directory.resolve(AuditSegment.fileName(1));
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> AuditSegment.read(path, record -> true));
+        assertTrue(AuditSegment.isSegment(path));
+        assertEquals(1, AuditSegment.firstSequence(path));
+        assertFalse(AuditSegment.isSegment(directory.resolve("audit-1.journal")));
+    }
+
+    static AuditRecord record(long sequence, String payload) {
+        AuditRecord record = new AuditRecord(1_700_000_000_000L + sequence, AuditRecord.EntityType.STUDENT,
+                AuditRecord.Operation.UPDATE, 10, 3L, "alice", "req-" + sequence, payload);
+        record.setSequence(sequence);
+        return record;
+    }
+
+    private static AuditRecord delete(long sequence) {
+        AuditRecord record = new AuditRecord(1_700_000_000_000L, AuditRecord.EntityType.STUDENT,
+                AuditRecord.Operation.DELETE, 10, null, null, null, null);
+        record.setSequence(sequence);
+        return record;
+    }
+
+    private static List<AuditRecord> readAll(Path path) throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        assertTrue(AuditSegment.read(path, records::add));
+        return records;
+    }
+
+    static List<Long> sequences(List<AuditRecord> records) {
+        return records.stream().map(AuditRecord::getSequence).toList();
+    }
+
+    private static void flip(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0x01));
+            channel.write(one.rewind(), position);
+        }
+    }
+}
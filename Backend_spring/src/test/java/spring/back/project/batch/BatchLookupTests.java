@@ -0,0 +1,161 @@
+package spring.back.project.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLookupTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MappingJackson2CborHttpMessageConverter cborConverter = new MappingJackson2CborHttpMessageConverter();
+
+    private final BatchLookup batchLookup = new BatchLookup();
+
+    // Every id set the finder was called with
+    private final List<Collection<Long>> lookups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchLookup, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(batchLookup, "cborConverter", cborConverter);
+        ReflectionTestUtils.setField(batchLookup, "smileConverter", new MappingJackson2SmileHttpMessageConverter());
+        ReflectionTestUtils.setField(batchLookup, "maxIds", 10);
+        ReflectionTestUtils.setField(batchLookup, "chunkSize", 3);
+    }
+
+    @Test
+    void entriesFollowRequestOrderWithDuplicatesAndMissingIds() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ResponseEntity<?> answer = batchLookup.respond(List.of(4L, 99L, 4L), finder(), request(null), response);
+
+        @SuppressWarnings("unchecked")
+        List<BatchEntry<String>> entries = (List<BatchEntry<String>>) answer.getBody();
+        assertEquals(List.of(4L, 99L, 4L), entries.stream().map(BatchEntry::getId).toList());
+        assertEquals("student 4", entries.get(0).getValue());
+        assertFalse(entries.get(1).isFound());
+        assertNull(entries.get(1).getValue());
+        assertEquals("student 4", entries.get(2).getValue());
+        // Looked up once
+        assertEquals(List.of(List.of(4L, 99L)), lookups.stream().map(List::copyOf).toList());
+    }
+
+    @Test
+    void tooManyOrNullIdsAreRejected() throws Exception {
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 1; id <= 11; id++) {
+            tooMany.add(id);
+        }
+        assertEquals(400, batchLookup.respond(tooMany, finder(), request(null), new MockHttpServletResponse())
+                .getStatusCode().value());
+        List<Long> withNull = new ArrayList<>(List.of(1L));
+        withNull.add(null);
+        assertEquals(400, batchLookup.respond(withNull, finder(), request(null), new MockHttpServletResponse())
+                .getStatusCode().value());
+        assertEquals(400, batchLookup.respond(null, finder(), request(null), new MockHttpServletResponse())
+                .getStatusCode().value());
+        assertTrue(lookups.isEmpty());
+    }
+
+    @Test
+    void longListsAreStreamedChunkByChunk() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(batchLookup.respond(List.of(1L, 2L, 99L, 2L, 5L), finder(), request(null), response));
+
+        assertEquals("application/json", response.getContentType());
+        JsonNode entries = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals(5, entries.size());
+        assertEquals("student 1", entries.get(0).get("value").asText());
+        assertFalse(entries.get(2).get("found").asBoolean());
+        assertEquals(2, entries.get(3).get("id").asLong());
+        assertEquals("student 5", entries.get(4).get("value").asText());
+        assertEquals(List.of(List.of(1L, 2L, 99L), List.of(2L, 5L)), lookups.stream().map(List::copyOf).toList());
+    }
+
+    @Test
+    void streamedListsHonourTheAcceptHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        batchLookup.respond(List.of(1L, 2L, 3L, 4L), finder(),
+                request("application/json;q=0.5, application/cbor"), response);
+
+        assertEquals("application/cbor", response.getContentType());
+        JsonNode entries = cborConverter.getObjectMapper().readTree(response.getContentAsByteArray());
+        assertEquals("student 4", entries.get(3).get("value").asText());
+
+        response = new MockHttpServletResponse();
+        ResponseEntity<?> answer = batchLookup.respond(List.of(1L, 2L, 3L, 4L), finder(), request("text/csv"), response);
+        assertEquals(406, answer.getStatusCode().value());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertTrue(lookups.stream().allMatch(ids -> ids.size() <= 3));
+    }
+
+    @Test
+    void aFailureAfterTheFirstChunkEndsTheListWithAnError() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        batchLookup.respond(List.of(1L, 2L, 3L, 4L, 5L), failingFrom(4L), request(null), response);
+
+        assertEquals(200, response.getStatus());
+        JsonNode entries = objectMapper.readTree(response.getContentAsByteArray());
+        assertEquals(4, entries.size());
+        assertEquals(3, entries.get(2).get("id").asLong());
+        assertEquals("Lookup failed after 3 of 5 ids", entries.get(3).get("error").asText());
+    }
+
+    @Test
+    void aFailureBeforeAnythingIsSentIsThrown() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThrows(IllegalStateException.class,
+                () -> batchLookup.respond(List.of(1L, 2L, 3L, 4L), failingFrom(1L), request(null), response));
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private static MockHttpServletRequest request(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/students/batch");
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        return request;
+    }
+
+    // Finds every id below 50
+    private Function<Collection<Long>, Map<Long, String>> finder() {
+        return ids -> {
+            lookups.add(ids);
+            Map<Long, String> found = new HashMap<>();
+            ids.stream().filter(id -> id < 50).forEach(id -> found.put(id, "student " + id));
+            return found;
+        };
+    }
+
+    private Function<Collection<Long>, Map<Long, String>> failingFrom(long failingId) {
+        Function<Collection<Long>, Map<Long, String>> finder = finder();
+        return ids -> {
+            if (ids.contains(failingId)) {
+                throw new IllegalStateException("Shard unavailable");
+            }
+            return finder.apply(ids);
+        };
+    }
+}
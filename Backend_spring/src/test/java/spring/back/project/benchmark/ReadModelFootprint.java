@@ -0,0 +1,95 @@
+package spring.back.project.benchmark;
+
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+import spring.back.project.readmodel.ReadModelStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Heap footprint and lookup cost of the read model per million students,
+ * next to the same rows held as Student / University objects.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=spring.back.project.benchmark.ReadModelFootprint
+ */
+public class ReadModelFootprint {
+
+    private static final int STUDENTS = 1_000_000;
+    private static final int UNIVERSITIES = 1_000;
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) {
+        long baseline = usedHeap();
+        ReadModelStore store = new ReadModelStore(STUDENTS, UNIVERSITIES);
+        for (int u = 1; u <= UNIVERSITIES; u++) {
+            store.putUniversity(u, "University " + u, "City " + (u % 97));
+        }
+        Random random = new Random(42);
+        for (int s = 1; s <= STUDENTS; s++) {
+            store.putStudent(s, "First" + s, "Last" + s, "student" + s + "@example.com", 1 + random.nextInt(UNIVERSITIES));
+        }
+        long storeBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        List<Student> entities = entities();
+        long entityBytes = usedHeap() - baseline;
+
+        System.out.printf("%,d students, %,d universities%n", STUDENTS, UNIVERSITIES);
+        System.out.printf("%-28s %,14d bytes (%.0f per student)%n", "read model (measured)", storeBytes, (double) storeBytes / STUDENTS);
+        System.out.printf("%-28s %,14d bytes (%.0f per student)%n", "read model (estimateBytes)", store.estimateBytes(), (double) store.estimateBytes() / STUDENTS);
+        System.out.printf("%-28s %,14d bytes (%.0f per student)%n", "List<Student> (measured)", entityBytes, (double) entityBytes / STUDENTS);
+        entities.clear();
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < LOOKUPS; i++) {
+                found += store.getStudent(1 + random.nextInt(STUDENTS)).getId();
+            }
+            double byId = (System.nanoTime() - start) / (double) LOOKUPS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) {
+                found += store.getStudentsByUniversity(1 + random.nextInt(UNIVERSITIES), 0L, 100).size();
+            }
+            double page = (System.nanoTime() - start) / 10_000.0 / 1000;
+
+            start = System.nanoTime();
+            found += store.searchStudents("last12345", true).size();
+            double search = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("round %d: getStudent %.0f ns, university page of 100 %.1f us, search (full scan) %.1f ms [%d]%n",
+                    round, byId, page, search, found);
+        }
+    }
+
+    private static List<Student> entities() {
+        List<University> universities = new ArrayList<>();
+        for (int u = 1; u <= UNIVERSITIES; u++) {
+            University university = new University("University " + u, "City " + (u % 97));
+            university.setId((long) u);
+            universities.add(university);
+        }
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>(STUDENTS);
+        for (int s = 1; s <= STUDENTS; s++) {
+            Student student = new Student("First" + s, "Last" + s, "student" + s + "@example.com",
+                    universities.get(random.nextInt(UNIVERSITIES)));
+            student.setId((long) s);
+            students.add(student);
+        }
+        return students;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
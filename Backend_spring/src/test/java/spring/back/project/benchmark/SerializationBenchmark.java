@@ -0,0 +1,81 @@
+package spring.back.project.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payload size and serialization CPU per format for a getAllStudents-sized response.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=spring.back.project.benchmark.SerializationBenchmark
+ */
+public class SerializationBenchmark {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int UNIVERSITIES = 50;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper[] mappers = {
+                new ObjectMapper(),
+                new ObjectMapper().registerModule(new BlackbirdModule()),
+                new ObjectMapper(new CBORFactory()).registerModule(new BlackbirdModule()),
+                new ObjectMapper(new SmileFactory()).registerModule(new BlackbirdModule())
+        };
+        String[] names = {"json (reflection)", "json (blackbird)", "cbor (blackbird)", "smile (blackbird)"};
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        for (int size : SIZES) {
+            List<Student> students = createStudents(size);
+            System.out.printf("%n%,d students%n", size);
+            System.out.printf("%-20s %12s %14s %14s%n", "format", "bytes", "cpu ms/op", "ns/student");
+
+            for (int i = 0; i < mappers.length; i++) {
+                ObjectMapper mapper = mappers[i];
+                int bytes = 0;
+                for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                    bytes = mapper.writeValueAsBytes(students).length;
+                }
+
+                long start = threads.getCurrentThreadCpuTime();
+                for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                    mapper.writeValueAsBytes(students);
+                }
+                long cpuPerOp = (threads.getCurrentThreadCpuTime() - start) / MEASURED_ROUNDS;
+
+                System.out.printf("%-20s %,12d %14.2f %14.1f%n",
+                        names[i], bytes, cpuPerOp / 1_000_000.0, (double) cpuPerOp / size);
+            }
+        }
+    }
+
+    private static List<Student> createStudents(int count) {
+        List<University> universities = new ArrayList<>();
+        for (int i = 0; i < UNIVERSITIES; i++) {
+            University university = new University("University " + i, "City " + i);
+            university.setId((long) i + 1);
+            universities.add(university);
+        }
+
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student("First" + i, "Last" + i, "student" + i + "@example.com",
+                    universities.get(i % UNIVERSITIES));
+            student.setId((long) i + 1);
+            students.add(student);
+        }
+        return students;
+    }
+}
@@ -0,0 +1,175 @@
+package spring.back.project.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import spring.back.project.export.ExportService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ExportControllerTests {
+
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path directory;
+
+    private final ExportController controller = new ExportController();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.writeString(directory.resolve("export.arrow"), CONTENT);
+        ExportService exportService = mock(ExportService.class);
+        when(exportService.file("export")).thenReturn(Optional.of(file));
+        when(exportService.file("missing")).thenReturn(Optional.empty());
+        ReflectionTestUtils.setField(controller, "exportService", exportService);
+    }
+
+    @Test
+    void withoutARangeTheWholeFileIsSent() throws IOException {
+        MockHttpServletResponse response = download(null, null);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, body(response));
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void closedRange() throws IOException {
+        MockHttpServletResponse response = download("bytes=2-5", null);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", body(response));
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+    }
+
+    @Test
+    void openEndedRangeRunsToTheEnd() throws IOException {
+        MockHttpServletResponse response = download("bytes=7-", null);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("789", body(response));
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void endPastTheFileIsClamped() throws IOException {
+        MockHttpServletResponse response = download("bytes=4-100", null);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("456789", body(response));
+        assertEquals("bytes 4-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void suffixRangeSendsTheLastBytes() throws IOException {
+        MockHttpServletResponse response = download("bytes=-3", null);
+        assertEquals(206, response.getStatus());
+        assertEquals("789", body(response));
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+
+        // A suffix longer than the file selects all of it
+        response = download("bytes=-100", null);
+        assertEquals(206, response.getStatus());
+        assertEquals(CONTENT, body(response));
+        assertEquals("bytes 0-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void unsatisfiableRangesAnswer416() throws IOException {
+        for (String range : new String[]{"bytes=10-", "bytes=20-30", "bytes=5-2", "bytes=-0", "bytes=-",
+                "items=0-1", "bytes=99999999999999999999-"}) {
+            MockHttpServletResponse response = download(range, null);
+            assertEquals(416, response.getStatus(), range);
+            assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+            assertEquals("", body(response), range);
+        }
+    }
+
+    @Test
+    void ifRangeMatchingTheEtagHonoursTheRange() throws IOException {
+        String etag = download(null, null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = download("bytes=2-5", etag);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", body(response));
+    }
+
+    @Test
+    void staleIfRangeSendsTheWholeFile() throws IOException {
+        MockHttpServletResponse response = download("bytes=2-5", "\"stale\"");
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, body(response));
+        assertEquals(10, response.getContentLengthLong());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/api/exports/export");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadExport("export", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("", body(response));
+    }
+
+    @Test
+    void sendfileIsHandedTheRequestedRegion() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/exports/export");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=3-6");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadExport("export", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(3L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        // sendfile's end is exclusive
+        assertEquals(7L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals("", body(response));
+    }
+
+    @Test
+    void unknownExportIsNotFound() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadExport("missing", new MockHttpServletRequest("GET", "/api/exports/missing"), response);
+        assertEquals(404, response.getStatus());
+    }
+
+    private MockHttpServletResponse download(String range, String ifRange) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/exports/export");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        if (ifRange != null) {
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.downloadExport("export", request, response);
+        return response;
+    }
+
+    private static String body(MockHttpServletResponse response) {
+        return new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+}
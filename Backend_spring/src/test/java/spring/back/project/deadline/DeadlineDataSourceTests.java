@@ -0,0 +1,99 @@
+package spring.back.project.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadlineDataSourceTests {
+
+    private final EmbeddedDatabase database =
+            new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DeadlineDataSource dataSource = new DeadlineDataSource(database, meterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        Deadline.set(null);
+        database.shutdown();
+    }
+
+    @Test
+    void withoutADeadlineConnectionsAreUntouched() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            assertEquals(0, statement.getQueryTimeout());
+            assertTrue(statement.unwrap(PreparedStatement.class) == statement);
+        }
+    }
+
+    @Test
+    void theRemainingBudgetIsTheQueryTimeout() throws SQLException {
+        Deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5_500));
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+             Statement statement = connection.createStatement()) {
+            // Whole seconds, rounded up
+            assertEquals(6, prepared.getQueryTimeout());
+            assertEquals(6, statement.getQueryTimeout());
+            assertTrue(prepared.executeQuery().next());
+        }
+    }
+
+    @Test
+    void statementsAfterTheDeadlineAreNotRun() throws SQLException {
+        Deadline.set(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+        try (Connection connection = dataSource.getConnection()) {
+            Deadline.set(System.nanoTime() - 1);
+
+            SQLTimeoutException error = assertThrows(SQLTimeoutException.class,
+                    () -> connection.prepareStatement("SELECT 1"));
+            assertEquals("57014", error.getSQLState());
+            // Other calls still reach the connection
+            assertTrue(connection.isValid(1));
+        }
+        assertEquals(1.0, cancelled("expired"));
+    }
+
+    @Test
+    void statementsRunningPastTheDeadlineAreCancelled() throws SQLException {
+        Deadline.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500));
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertEquals(1, statement.getQueryTimeout());
+            assertThrows(SQLException.class, () -> statement.executeQuery(
+                    "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b WHERE a.X + b.X < 0"));
+        }
+        assertEquals(1.0, cancelled("timeout"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ObjectProvider<MeterRegistry> meterRegistry() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(meterRegistry);
+        return provider;
+    }
+
+    private double cancelled(String reason) {
+        return meterRegistry.get("deadline.queries.cancelled").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,121 @@
+package spring.back.project.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineFilterTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DeadlineFilter filter = new DeadlineFilter(meterRegistry, Duration.ofSeconds(60));
+
+    // Deadline.remainingMillis() as seen by each request reaching the chain
+    private final List<Long> remaining = new ArrayList<>();
+
+    private final FilterChain chain = (request, response) -> remaining.add(Deadline.remainingMillis());
+
+    @Test
+    void aSpentBudgetIsAnsweredWithoutRunningTheRequest() throws Exception {
+        for (String budget : List.of("0", "-250")) {
+            MockHttpServletResponse response = filter(budget, chain);
+
+            assertEquals(504, response.getStatus());
+            assertTrue(response.getContentAsString().contains("Request deadline exceeded"));
+        }
+        assertTrue(remaining.isEmpty());
+        assertEquals(2.0, count("rejected"));
+    }
+
+    @Test
+    void theBudgetBecomesTheThreadsDeadline() throws Exception {
+        MockHttpServletResponse response = filter("5000", chain);
+
+        assertEquals(200, response.getStatus());
+        assertTrue(remaining.get(0) > 4_000 && remaining.get(0) <= 5_000, "remaining " + remaining.get(0));
+        // Cleared once the request is done
+        assertNull(Deadline.get());
+
+        // Capped at the maximum budget
+        filter("86400000", chain);
+        assertTrue(remaining.get(1) <= 60_000, "remaining " + remaining.get(1));
+    }
+
+    @Test
+    void malformedOrMissingHeadersMeanNoDeadline() throws Exception {
+        for (String budget : new String[]{null, "", "  ", "soon", "1.5", "99999999999999999999"}) {
+            MockHttpServletResponse response = filter(budget, chain);
+            assertEquals(200, response.getStatus(), "header " + budget);
+        }
+        assertTrue(remaining.stream().allMatch(millis -> millis == Long.MAX_VALUE), remaining.toString());
+        assertEquals(0.0, count("rejected"));
+
+        filter(" 5000 ", chain);
+        assertTrue(remaining.get(remaining.size() - 1) <= 5_000);
+    }
+
+    @Test
+    void aFailureAfterTheDeadlineIsAnsweredWith504() throws Exception {
+        MockHttpServletResponse response = filter("20", (request, res) -> {
+            sleep(50);
+            throw new IllegalStateException("Query cancelled");
+        });
+
+        assertEquals(504, response.getStatus());
+        assertEquals(1.0, count("failed"));
+        assertNull(Deadline.get());
+    }
+
+    @Test
+    void aFailureWithinTheDeadlineIsRethrown() {
+        assertThrows(IllegalStateException.class, () -> filter("5000", (request, response) -> {
+            throw new IllegalStateException("Constraint violated");
+        }));
+        assertEquals(0.0, count("failed"));
+        assertNull(Deadline.get());
+    }
+
+    @Test
+    void requestsCompletingLateAreCounted() throws Exception {
+        MockHttpServletResponse response = filter("20", (request, res) -> sleep(50));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1.0, count("overrun"));
+    }
+
+    private MockHttpServletResponse filter(String budget, FilterChain chain) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/students");
+        if (budget != null) {
+            request.addHeader(Deadline.HEADER, budget);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("deadline.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
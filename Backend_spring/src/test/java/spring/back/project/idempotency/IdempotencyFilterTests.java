@@ -0,0 +1,315 @@
+package spring.back.project.idempotency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring.back.project.repository.IdempotencyRecordRepository;
+import spring.back.project.security.JwtTokenProvider;
+import spring.back.project.security.RegisterReplayTokens;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTests {
+
+    private static final String CREATED = "{\"id\":7,\"firstName\":\"Zoë\"}";
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyStore store;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "repository", repository);
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        ReflectionTestUtils.setField(store, "inProgressLease", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(store, "pollInterval", Duration.ofMillis(10));
+    }
+
+    @Test
+    void aRepeatedKeyIsReplayed() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        String key = key();
+
+        MockHttpServletResponse first = post(filter, "/api/students", key, "{\"firstName\":\"Zoë\"}", created());
+        MockHttpServletResponse second = post(filter, "/api/students", key, "{\"firstName\":\"Zoë\"}", created());
+
+        assertEquals(1, executions.get());
+        assertEquals(201, first.getStatus());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(201, second.getStatus());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("/api/students/7", second.getHeader("Location"));
+        assertEquals("application/json", second.getContentType());
+        assertEquals(CREATED, second.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void concurrentRequestsWithTheSameKeyExecuteOnce() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        String key = key();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            running.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created().doFilter(request, response);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> post(filter, "/api/students", key, "{}", slow));
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> second = executor.submit(() -> post(filter, "/api/students", key, "{}", slow));
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+            finish.countDown();
+
+            assertEquals(201, first.get(10, TimeUnit.SECONDS).getStatus());
+            MockHttpServletResponse waited = second.get(10, TimeUnit.SECONDS);
+            assertEquals(201, waited.getStatus());
+            assertEquals("true", waited.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+            assertEquals(CREATED, waited.getContentAsString(StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void aKeyReusedWithAnotherBodyIsRejected() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        String key = key();
+        post(filter, "/api/students", key, "{\"firstName\":\"Zoë\"}", created());
+
+        MockHttpServletResponse reused = post(filter, "/api/students", key, "{\"firstName\":\"Ana\"}", created());
+
+        assertEquals(422, reused.getStatus());
+        assertTrue(reused.getContentAsString().contains("different request"));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        String key = key();
+        FilterChain failing = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(503);
+        };
+
+        assertEquals(503, post(filter, "/api/students", key, "{}", failing).getStatus());
+        assertEquals(201, post(filter, "/api/students", key, "{}", created()).getStatus());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void bodiesOverTheLimitAreRejectedBeforeBuffering() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        String large = "x".repeat(1025);
+
+        assertEquals(413, post(filter, "/api/students", key(), large, created()).getStatus());
+
+        // Chunked: no length up front
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/students") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setServletPath("/api/students");
+        chunked.addHeader(IdempotencyFilter.HEADER, key());
+        chunked.setContent(large.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(chunked, response, created());
+        assertEquals(413, response.getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void theBufferedBodyCanBeReadWithAReadListener() throws Exception {
+        IdempotencyFilter filter = filter(Map.of());
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicInteger allRead = new AtomicInteger();
+        FilterChain async = (request, response) -> {
+            ServletInputStream in = request.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    byte[] buffer = new byte[4];
+                    while (in.isReady() && !in.isFinished()) {
+                        int n = in.read(buffer);
+                        if (n > 0) {
+                            read.write(buffer, 0, n);
+                        }
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+            created().doFilter(request, response);
+        };
+
+        post(filter, "/api/students", key(), "{\"firstName\":\"Zoë\"}", async);
+
+        assertEquals("{\"firstName\":\"Zoë\"}", read.toString(StandardCharsets.UTF_8));
+        assertEquals(1, allRead.get());
+    }
+
+    @Test
+    void registerTokensAreNeverStoredInCbor() throws Exception {
+        IdempotencyFilter filter = filter(Map.of("/auth/register", registerReplayTokens()));
+        CBORMapper cbor = new CBORMapper();
+        byte[] registered = cbor.writeValueAsBytes(Map.of(
+                "user", Map.of("username", "zoe"),
+                "tokens", Map.of("accessToken", "original", "refreshToken", "original-refresh")));
+        FilterChain register = (request, response) -> {
+            executions.incrementAndGet();
+            response.setContentType("application/cbor");
+            ((HttpServletResponse) response).setStatus(201);
+            response.getOutputStream().write(registered);
+        };
+        String key = key();
+
+        MockHttpServletResponse first = post(filter, "/auth/register", key, "{\"username\":\"zoe\"}", register);
+        assertEquals("original", cbor.readTree(first.getContentAsByteArray()).path("tokens").path("accessToken").asText());
+
+        JsonNode stored = cbor.readTree(repository.findAll().stream()
+                .filter(record -> record.getContentType() != null && record.getContentType().contains("cbor"))
+                .findFirst().orElseThrow().getBody());
+        assertFalse(stored.has("tokens"));
+        assertEquals("zoe", stored.path("user").path("username").asText());
+
+        MockHttpServletResponse replayed = post(filter, "/auth/register", key, "{\"username\":\"zoe\"}", register);
+        assertEquals(201, replayed.getStatus());
+        JsonNode tokens = cbor.readTree(replayed.getContentAsByteArray()).path("tokens");
+        assertEquals("access-zoe", tokens.path("accessToken").asText());
+        assertEquals("refresh-zoe", tokens.path("refreshToken").asText());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void aBodyThatCannotBeStrippedKeepsTheKey() throws Exception {
+        ReplayTokens broken = new ReplayTokens() {
+            @Override
+            public byte[] strip(byte[] body, String contentType) throws IOException {
+                throw new IOException("unreadable");
+            }
+
+            @Override
+            public byte[] reissue(byte[] body, String contentType) {
+                return body;
+            }
+        };
+        IdempotencyFilter filter = filter(Map.of("/auth/register", broken));
+        String key = key();
+
+        assertEquals(201, post(filter, "/auth/register", key, "{}", created()).getStatus());
+        MockHttpServletResponse retried = post(filter, "/auth/register", key, "{}", created());
+
+        // Not executed twice ("Username exists"), replayed without the body
+        assertEquals(201, retried.getStatus());
+        assertEquals("true", retried.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(0, retried.getContentAsByteArray().length);
+        assertEquals(1, executions.get());
+    }
+
+    private IdempotencyFilter filter(Map<String, ReplayTokens> replayTokens) {
+        return new IdempotencyFilter(store, new SimpleMeterRegistry(), Set.of("/api/students", "/auth/register"),
+                Duration.ofSeconds(10), 1024, 1024 * 1024, replayTokens);
+    }
+
+    private FilterChain created() {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(201);
+            http.setHeader("Location", "/api/students/7");
+            http.setContentType("application/json");
+            http.getOutputStream().write(CREATED.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static MockHttpServletResponse post(IdempotencyFilter filter, String path, String key, String body,
+                                                FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static RegisterReplayTokens registerReplayTokens() {
+        JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+        when(jwtTokenProvider.generateToken(anyString())).thenAnswer(call -> "access-" + call.getArgument(0));
+        when(jwtTokenProvider.generateRefreshToken(anyString())).thenAnswer(call -> "refresh-" + call.getArgument(0));
+        RegisterReplayTokens tokens = new RegisterReplayTokens();
+        ReflectionTestUtils.setField(tokens, "jwtTokenProvider", jwtTokenProvider);
+        ReflectionTestUtils.setField(tokens, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(tokens, "cborConverter", new MappingJackson2CborHttpMessageConverter());
+        ReflectionTestUtils.setField(tokens, "smileConverter", new MappingJackson2SmileHttpMessageConverter());
+        return tokens;
+    }
+
+    private static String key() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,192 @@
+package spring.back.project.idempotency;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import spring.back.project.idempotency.IdempotencyStore.StoredResponse;
+import spring.back.project.repository.IdempotencyRecordRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Each store stands for one instance; they share the idempotency_keys table
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyStoreTests {
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Test
+    void concurrentClaimsHaveOneWinner() throws Exception {
+        String id = id();
+        int instances = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> claims = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                IdempotencyStore store = store();
+                claims.add(executor.submit(() -> {
+                    start.await();
+                    return store.claim(id, "fingerprint");
+                }));
+            }
+            start.countDown();
+            int won = 0;
+            for (Future<Boolean> claim : claims) {
+                won += claim.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, won);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void aCompletedKeyIsReplayedByEveryInstance() {
+        String id = id();
+        IdempotencyStore owner = store();
+        assertTrue(owner.claim(id, "fingerprint"));
+        assertNull(owner.find(id));
+
+        owner.complete(id, response("fingerprint", owner.expiresAt()));
+
+        // The owner from memory, another instance from the table
+        for (IdempotencyStore store : List.of(owner, store())) {
+            StoredResponse stored = store.find(id);
+            assertEquals(201, stored.status);
+            assertEquals("fingerprint", stored.fingerprint);
+            assertEquals("/api/students/7", stored.location);
+            assertArrayEquals(body(), stored.body);
+        }
+        assertFalse(store().claim(id, "fingerprint"));
+    }
+
+    @Test
+    void aSecondLocalRequestJoinsTheRunningOne() {
+        IdempotencyStore store = store();
+        String id = id();
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        assertNull(store.joinInFlight(id, mine));
+        CompletableFuture<StoredResponse> other = new CompletableFuture<>();
+        assertEquals(mine, store.joinInFlight(id, other));
+
+        store.leaveInFlight(id, mine);
+        // Waiters are woken with null and retry
+        assertNull(mine.join());
+        assertNull(store.joinInFlight(id, other));
+    }
+
+    @Test
+    void aReleasedKeyCanBeClaimedAgain() {
+        String id = id();
+        IdempotencyStore first = store();
+        assertTrue(first.claim(id, "fingerprint"));
+        assertFalse(store().claim(id, "fingerprint"));
+
+        first.release(id);
+
+        assertTrue(store().claim(id, "fingerprint"));
+    }
+
+    @Test
+    void anAbandonedClaimIsTakenOverAfterTheLease() throws InterruptedException {
+        String id = id();
+        assertTrue(store().claim(id, "fingerprint"));
+
+        IdempotencyStore other = store();
+        ReflectionTestUtils.setField(other, "inProgressLease", Duration.ofMillis(50));
+        assertFalse(other.claim(id, "fingerprint"));
+        Thread.sleep(100);
+        assertTrue(other.claim(id, "other"));
+        assertEquals("other", repository.findById(id).orElseThrow().getFingerprint());
+    }
+
+    @Test
+    void anExpiredResponseIsNotReplayedAndFreesTheKey() {
+        String id = id();
+        IdempotencyStore store = store();
+        assertTrue(store.claim(id, "fingerprint"));
+        store.complete(id, response("fingerprint", System.currentTimeMillis() - 1000));
+
+        assertNull(store.find(id));
+        assertNull(store().find(id));
+        assertTrue(store().claim(id, "fingerprint"));
+    }
+
+    @Test
+    void awaitRemoteSeesTheOwnersResult() throws Exception {
+        String id = id();
+        IdempotencyStore owner = store();
+        IdempotencyStore waiter = store();
+        assertTrue(owner.claim(id, "fingerprint"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Callable<StoredResponse> await = () -> waiter.awaitRemote(id, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+            Future<StoredResponse> waiting = executor.submit(await);
+            Thread.sleep(50);
+            owner.complete(id, response("fingerprint", owner.expiresAt()));
+            assertEquals(201, waiting.get(10, TimeUnit.SECONDS).status);
+
+            // A released key hands the request back to the waiter with null
+            String released = id();
+            assertTrue(owner.claim(released, "fingerprint"));
+            waiting = executor.submit(() -> waiter.awaitRemote(released, System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+            Thread.sleep(50);
+            owner.release(released);
+            assertNull(waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String running = id();
+        assertTrue(owner.claim(running, "fingerprint"));
+        assertThrows(TimeoutException.class,
+                () -> waiter.awaitRemote(running, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(150)));
+    }
+
+    private IdempotencyStore store() {
+        IdempotencyStore store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "repository", repository);
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofHours(24));
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        ReflectionTestUtils.setField(store, "inProgressLease", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(store, "pollInterval", Duration.ofMillis(10));
+        return store;
+    }
+
+    private static StoredResponse response(String fingerprint, long expiresAt) {
+        return new StoredResponse(fingerprint, 201, "application/json", "/api/students/7", body(), expiresAt);
+    }
+
+    private static byte[] body() {
+        return "{\"id\":7}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String id() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,111 @@
+package spring.back.project.limiter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimitTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private final LimiterProperties properties = new LimiterProperties();
+
+    private AdaptiveLimit limit;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInitialLimit(20);
+        properties.setMinLimit(4);
+        properties.setMaxLimit(100);
+        limit = new AdaptiveLimit(properties);
+    }
+
+    @Test
+    void admitsUpToTheLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(20, limit.getInflight());
+
+        limit.release(-1);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyStaysLow() {
+        int previous = limit.getLimit();
+        for (int i = 0; i < 20; i++) {
+            saturatedSample(10 * MILLIS);
+            assertTrue(limit.getLimit() >= previous);
+            previous = limit.getLimit();
+        }
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+
+        for (int i = 0; i < 1_000; i++) {
+            saturatedSample(10 * MILLIS);
+        }
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void backsOffAsLatencyRises() {
+        for (int i = 0; i < 200; i++) {
+            saturatedSample(10 * MILLIS);
+        }
+        int grown = limit.getLimit();
+
+        int previous = grown;
+        for (long rtt = 10; rtt <= 50; rtt += 2) {
+            saturatedSample(rtt * MILLIS);
+            assertTrue(limit.getLimit() <= previous, "limit grew at " + rtt + "ms");
+            previous = limit.getLimit();
+        }
+        assertTrue(limit.getLimit() < grown / 2, grown + " -> " + limit.getLimit());
+
+        // Never below minLimit; once the baseline catches up with the new latency the limit recovers
+        int lowest = limit.getLimit();
+        for (int i = 0; i < 2_000; i++) {
+            saturatedSample(50 * MILLIS);
+            lowest = Math.min(lowest, limit.getLimit());
+        }
+        assertTrue(lowest >= 4, "lowest " + lowest);
+        assertTrue(limit.getLimit() > lowest, lowest + " -> " + limit.getLimit());
+    }
+
+    @Test
+    void samplesBelowHalfTheLimitAreIgnored() {
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(500 * MILLIS);
+            assertTrue(limit.tryAcquire());
+            limit.release(10 * MILLIS);
+        }
+        assertEquals(20, limit.getLimit());
+        assertEquals(0, limit.getInflight());
+    }
+
+    @Test
+    void releasingWithoutASampleLeavesTheLimit() {
+        saturatedSample(10 * MILLIS);
+        int before = limit.getLimit();
+        while (limit.tryAcquire()) {
+        }
+        int inflight = limit.getInflight();
+
+        limit.release(-1);
+
+        assertEquals(inflight - 1, limit.getInflight());
+        assertEquals(before, limit.getLimit());
+    }
+
+    // Fill every permit, then complete one request in rttNanos
+    private void saturatedSample(long rttNanos) {
+        while (limit.tryAcquire()) {
+        }
+        limit.release(rttNanos);
+    }
+}
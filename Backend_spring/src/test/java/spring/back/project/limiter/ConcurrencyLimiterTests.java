@@ -0,0 +1,121 @@
+package spring.back.project.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import spring.back.project.limiter.ConcurrencyLimiter.Partition;
+import spring.back.project.limiter.ConcurrencyLimiter.Rejection;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimiterTests {
+
+    private final LimiterProperties properties = new LimiterProperties();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInitialLimit(5);
+        properties.setMinLimit(2);
+        properties.setMaxConcurrency(10);
+        properties.setReadShare(0.7);
+        properties.setWriteShare(0.85);
+        limiter = new ConcurrencyLimiter(properties, meterRegistry);
+    }
+
+    @Test
+    void eachPartitionHasItsOwnLimit() {
+        for (int i = 0; i < 5; i++) {
+            assertNull(limiter.tryAcquire(Partition.READ));
+        }
+        assertEquals(Rejection.LIMIT, limiter.tryAcquire(Partition.READ));
+        assertNull(limiter.tryAcquire(Partition.WRITE));
+
+        assertEquals(1.0, rejected(Partition.READ, Rejection.LIMIT));
+        assertEquals(5.0, inflight(Partition.READ));
+    }
+
+    @Test
+    void lowerPrioritiesAreShedFirstUnderOverload() {
+        for (int i = 0; i < 5; i++) {
+            assertNull(limiter.tryAcquire(Partition.WRITE));
+        }
+        // 7 of 10 for reads
+        assertNull(limiter.tryAcquire(Partition.READ));
+        assertNull(limiter.tryAcquire(Partition.READ));
+        assertEquals(Rejection.OVERLOAD, limiter.tryAcquire(Partition.READ));
+        // 8 of 10 for writes, but its own limit comes first
+        assertEquals(Rejection.LIMIT, limiter.tryAcquire(Partition.WRITE));
+        // Auth may use everything
+        assertNull(limiter.tryAcquire(Partition.AUTH));
+        assertNull(limiter.tryAcquire(Partition.AUTH));
+        assertNull(limiter.tryAcquire(Partition.AUTH));
+        assertEquals(Rejection.OVERLOAD, limiter.tryAcquire(Partition.AUTH));
+
+        assertEquals(1.0, rejected(Partition.READ, Rejection.OVERLOAD));
+        assertEquals(1.0, rejected(Partition.AUTH, Rejection.OVERLOAD));
+
+        limiter.release(Partition.WRITE, -1);
+        assertNull(limiter.tryAcquire(Partition.AUTH));
+    }
+
+    @Test
+    void theFilterReleasesWhenTheChainThrows() {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter);
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/students");
+            request.setServletPath("/api/students");
+            assertThrows(IllegalStateException.class, () -> filter.doFilter(request, new MockHttpServletResponse(),
+                    (req, res) -> {
+                        throw new IllegalStateException("Database down");
+                    }));
+        }
+
+        assertEquals(0.0, inflight(Partition.READ));
+        // Failures are not latency samples
+        assertEquals(5, limiter.getLimit(Partition.READ));
+        assertEquals(0.0, rejected(Partition.READ, Rejection.LIMIT));
+    }
+
+    @Test
+    void theFilterShedsOverTheLimit() throws ServletException, IOException {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire(Partition.WRITE);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/students");
+        request.setServletPath("/api/students");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertNull(chain.getRequest());
+        assertEquals(5.0, inflight(Partition.WRITE));
+    }
+
+    private double inflight(Partition partition) {
+        return meterRegistry.get("limiter.inflight").tag("partition", partition.name().toLowerCase()).gauge().value();
+    }
+
+    private double rejected(Partition partition, Rejection rejection) {
+        return meterRegistry.get("limiter.rejected")
+                .tag("partition", partition.name().toLowerCase())
+                .tag("reason", rejection.name().toLowerCase())
+                .counter().count();
+    }
+}
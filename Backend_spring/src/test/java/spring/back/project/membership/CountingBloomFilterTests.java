@@ -0,0 +1,79 @@
+package spring.back.project.membership;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountingBloomFilterTests {
+
+    @Test
+    void addedValuesAreFoundUntilRemovedAsOftenAsAdded() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        assertFalse(filter.mightContain("alice"));
+
+        filter.add("alice");
+        filter.add("alice");
+        filter.add("bob");
+        assertTrue(filter.mightContain("alice"));
+        assertTrue(filter.mightContain("bob"));
+
+        filter.remove("alice");
+        assertTrue(filter.mightContain("alice"));
+        filter.remove("alice");
+        assertFalse(filter.mightContain("alice"));
+        assertTrue(filter.mightContain("bob"));
+    }
+
+    @Test
+    void removingOneValueKeepsEveryOtherValue() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("user" + i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            filter.remove("user" + i);
+        }
+        // No false negatives, whatever the removed values shared counters with
+        for (int i = 1; i < 1_000; i += 2) {
+            assertTrue(filter.mightContain("user" + i), "user" + i);
+        }
+    }
+
+    @Test
+    void saturatedCountersAreNeverDecremented() {
+        // 64 counters, so one value touches most of them
+        CountingBloomFilter filter = new CountingBloomFilter(1, 0.5);
+        for (int i = 0; i < 300; i++) {
+            filter.add("hot");
+        }
+        filter.add("cold");
+
+        // Removing more often than the counters could count must not clear them
+        for (int i = 0; i < 300; i++) {
+            filter.remove("hot");
+        }
+        assertTrue(filter.mightContain("hot"));
+        assertTrue(filter.mightContain("cold"));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        int entries = 10_000;
+        double rate = 0.01;
+        CountingBloomFilter filter = new CountingBloomFilter(entries, rate);
+        for (int i = 0; i < entries; i++) {
+            filter.add("member-" + i + "@example.com");
+        }
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("stranger-" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        double measured = (double) falsePositives / probes;
+        assertTrue(measured < rate * 2, "false positive rate " + measured);
+    }
+}
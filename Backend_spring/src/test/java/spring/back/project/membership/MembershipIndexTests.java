@@ -0,0 +1,143 @@
+package spring.back.project.membership;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+import spring.back.project.service.ChangeFeedService;
+import spring.back.project.sharding.ShardMap;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MembershipIndexTests {
+
+    private EmbeddedDatabase database;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MembershipIndex index;
+
+    // The change feed tail, as delivered to the index
+    private Consumer<ChangeEvent> tail;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE users (username VARCHAR(50), email VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE students (email VARCHAR(100))");
+        jdbcTemplate.update("INSERT INTO students (email) VALUES ('scanned@example.com')");
+
+        ShardMap shardMap = mock(ShardMap.class);
+        when(shardMap.getPrimary()).thenReturn("primary");
+        when(shardMap.getShardNames()).thenReturn(List.of("primary"));
+        when(shardMap.dataSourceFor("primary")).thenReturn(database);
+        ChangeFeedService changeFeedService = mock(ChangeFeedService.class);
+
+        index = new MembershipIndex();
+        ReflectionTestUtils.setField(index, "shardMap", shardMap);
+        ReflectionTestUtils.setField(index, "changeFeedService", changeFeedService);
+        ReflectionTestUtils.setField(index, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "expectedEntries", 1_000L);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.0001);
+        ReflectionTestUtils.setField(index, "fetchSize", 100);
+        index.init();
+
+        ArgumentCaptor<Consumer<ChangeEvent>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(changeFeedService).subscribe(subscriber.capture());
+        tail = subscriber.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void everythingIsMaybeUntilWarmed() {
+        assertTrue(index.mightHaveStudentEmail("anyone@example.com"));
+        index.warm();
+        assertTrue(index.mightHaveStudentEmail("Scanned@Example.com"));
+        assertFalse(index.mightHaveStudentEmail("anyone@example.com"));
+    }
+
+    @Test
+    void emailsAddedHereAreRemovedAsOftenAsAdded() {
+        index.warm();
+        index.addStudentEmail("mine@example.com");
+        index.addStudentEmail("mine@example.com");
+
+        index.removeStudentEmail("mine@example.com");
+        assertTrue(index.mightHaveStudentEmail("mine@example.com"));
+        index.removeStudentEmail("MINE@example.com");
+        assertFalse(index.mightHaveStudentEmail("mine@example.com"));
+        // A third removal has nothing left to decrement
+        index.removeStudentEmail("mine@example.com");
+        assertTrue(index.mightHaveStudentEmail("scanned@example.com"));
+    }
+
+    @Test
+    void otherInstancesInsertsArriveFromTheTail() {
+        index.warm();
+        assertFalse(index.mightHaveStudentEmail("theirs@example.com"));
+
+        tail.accept(studentEvent(Operation.CREATE, "{\"id\":9,\"email\":\"theirs@example.com\"}"));
+        tail.accept(studentEvent(Operation.DELETE, null));
+        tail.accept(new ChangeEvent(EntityType.UNIVERSITY, 3L, Operation.CREATE, null, "{\"email\":\"not-a-student@example.com\"}"));
+
+        assertTrue(index.mightHaveStudentEmail("theirs@example.com"));
+        assertFalse(index.mightHaveStudentEmail("not-a-student@example.com"));
+    }
+
+    @Test
+    void valuesNotAddedHereAreNeverDecremented() {
+        index.warm();
+        tail.accept(studentEvent(Operation.CREATE, "{\"email\":\"theirs@example.com\"}"));
+
+        // Deleted here, but counted by the scan or the tail: removing them could
+        // zero counters another email shares
+        index.removeStudentEmail("scanned@example.com");
+        index.removeStudentEmail("theirs@example.com");
+        index.removeStudentEmail("never-added@example.com");
+
+        assertTrue(index.mightHaveStudentEmail("scanned@example.com"));
+        assertTrue(index.mightHaveStudentEmail("theirs@example.com"));
+    }
+
+    @Test
+    void aRebuildDropsStaleEntriesAndForgetsEarlierAdds() {
+        index.warm();
+        index.addStudentEmail("mine@example.com");
+        jdbcTemplate.update("INSERT INTO students (email) VALUES ('mine@example.com')");
+        jdbcTemplate.update("DELETE FROM students WHERE email = 'scanned@example.com'");
+
+        index.warm();
+
+        assertFalse(index.mightHaveStudentEmail("scanned@example.com"));
+        // Counted once by the scan; the add before the rebuild may no longer decrement it
+        index.removeStudentEmail("mine@example.com");
+        assertTrue(index.mightHaveStudentEmail("mine@example.com"));
+    }
+
+    private static ChangeEvent studentEvent(Operation operation, String payload) {
+        return new ChangeEvent(EntityType.STUDENT, 9L, operation, 1L, payload);
+    }
+}
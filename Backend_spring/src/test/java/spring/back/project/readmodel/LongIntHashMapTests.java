@@ -0,0 +1,108 @@
+package spring.back.project.readmodel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongIntHashMapTests {
+
+    private static final int MISSING = -1;
+
+    @Test
+    void putReplacesAndRemoveReturnsTheValue() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        map.put(7, 70);
+        map.put(7, 71);
+        assertEquals(1, map.size());
+        assertEquals(71, map.get(7, MISSING));
+
+        assertEquals(71, map.remove(7, MISSING));
+        assertEquals(MISSING, map.remove(7, MISSING));
+        assertEquals(MISSING, map.get(7, MISSING));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void rejectsKeysThatAreNotPositive() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-5, 1));
+    }
+
+    @Test
+    void growsPastTheExpectedSize() {
+        LongIntHashMap map = new LongIntHashMap(1);
+        for (int key = 1; key <= 100_000; key++) {
+            map.put(key, key * 2);
+        }
+        assertEquals(100_000, map.size());
+        for (int key = 1; key <= 100_000; key++) {
+            assertEquals(key * 2, map.get(key, MISSING));
+        }
+        assertEquals(MISSING, map.get(100_001, MISSING));
+    }
+
+    @Test
+    void deletesKeepEveryProbeChainReachable() {
+        // A small table at high load: long probe chains that wrap around the end
+        LongIntHashMap map = new LongIntHashMap(16);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(40);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.remove(key, MISSING));
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 1; key <= 40; key++) {
+            assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.get(key, MISSING));
+        }
+    }
+
+    @Test
+    void randomOperationsMatchAHashMap() {
+        LongIntHashMap map = new LongIntHashMap(64);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500_000; i++) {
+            long key = 1 + random.nextInt(20_000);
+            switch (random.nextInt(3)) {
+                case 0, 1 -> {
+                    map.put(key, i);
+                    expected.put(key, i);
+                }
+                default -> {
+                    assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.remove(key, MISSING));
+                    expected.remove(key);
+                }
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 20_000; key++) {
+            assertEquals(expected.getOrDefault(key, MISSING).intValue(), map.get(key, MISSING));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        LongIntHashMap map = new LongIntHashMap(16);
+        for (int key = 1; key <= 100; key++) {
+            map.put(key, key);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(MISSING, map.get(50, MISSING));
+        map.put(50, 5);
+        assertEquals(5, map.get(50, MISSING));
+    }
+}
@@ -0,0 +1,161 @@
+package spring.back.project.readmodel;
+
+import org.junit.jupiter.api.Test;
+import spring.back.project.model.Student;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadModelStoreTests {
+
+    @Test
+    void storesAndRebuildsStudents() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        store.putUniversity(1, "Université Laval", "Québec");
+        assertTrue(store.putStudent(10, "Zoë", "Ørsted", "zoe@example.com", 1));
+
+        Student student = store.getStudent(10);
+        assertEquals(10L, student.getId());
+        assertEquals("Zoë", student.getFirstName());
+        assertEquals("Ørsted", student.getLastName());
+        assertEquals("zoe@example.com", student.getEmail());
+        assertEquals(1L, student.getUniversity().getId());
+        assertEquals("Université Laval", student.getUniversity().getName());
+        assertNull(store.getStudent(11));
+    }
+
+    @Test
+    void refusesStudentsOfUnknownUniversities() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        assertFalse(store.putStudent(1, "A", "B", "a@example.com", 99));
+        assertEquals(0, store.getStudentCount());
+    }
+
+    @Test
+    void keepsEachUniversitysStudentsInIdOrder() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        store.putUniversity(1, "One", "A");
+        store.putUniversity(2, "Two", "B");
+        for (long id : new long[]{50, 20, 40, 10, 30}) {
+            store.putStudent(id, "S" + id, "L", id + "@example.com", id % 20 == 0 ? 2 : 1);
+        }
+
+        assertEquals(List.of(10L, 30L, 50L), ids(store.getStudentsByUniversity(1, 0, 10)));
+        assertEquals(List.of(20L, 40L), ids(store.getStudentsByUniversity(2, 0, 10)));
+        // Cursor pages
+        assertEquals(List.of(30L), ids(store.getStudentsByUniversity(1, 10, 1)));
+        assertEquals(List.of(50L), ids(store.getStudentsByUniversity(1, 30, 10)));
+        assertEquals(List.of(), ids(store.getStudentsByUniversity(1, 50, 10)));
+        // Out-of-order inserts are still listed in id order
+        assertEquals(List.of(10L, 20L, 30L, 40L, 50L), ids(store.getStudents()));
+    }
+
+    @Test
+    void movingAStudentUpdatesBothUniversities() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        store.putUniversity(1, "One", "A");
+        store.putUniversity(2, "Two", "B");
+        store.putStudent(1, "A", "A", "a@example.com", 1);
+        store.putStudent(2, "B", "B", "b@example.com", 1);
+        store.putStudent(3, "C", "C", "c@example.com", 2);
+
+        store.putStudent(2, "B", "Moved", "b@example.com", 2);
+
+        assertEquals(List.of(1L), ids(store.getStudentsByUniversity(1, 0, 10)));
+        assertEquals(List.of(2L, 3L), ids(store.getStudentsByUniversity(2, 0, 10)));
+        assertEquals("Moved", store.getStudent(2).getLastName());
+        assertEquals(3, store.getStudentCount());
+    }
+
+    @Test
+    void compactDropsHolesAndKeepsEverythingElse() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        store.putUniversity(1, "One", "A");
+        store.putUniversity(2, "Two", "B");
+        for (long id = 100; id >= 1; id--) {
+            store.putStudent(id, "S" + id, "L", id + "@example.com", id % 2 == 0 ? 1 : 2);
+        }
+        for (long id = 1; id <= 100; id += 3) {
+            store.removeStudent(id);
+        }
+        long before = store.estimateBytes();
+        List<Long> all = ids(store.getStudents());
+        List<Long> even = ids(store.getStudentsByUniversity(1, 0, 1000));
+        List<Long> odd = ids(store.getStudentsByUniversity(2, 0, 1000));
+
+        store.compact();
+
+        assertEquals(all, ids(store.getStudents()));
+        assertEquals(even, ids(store.getStudentsByUniversity(1, 0, 1000)));
+        assertEquals(odd, ids(store.getStudentsByUniversity(2, 0, 1000)));
+        assertEquals(66, store.getStudentCount());
+        assertNull(store.getStudent(4));
+        assertEquals("S5", store.getStudent(5).getFirstName());
+        assertTrue(store.estimateBytes() <= before);
+
+        // Slots are reused correctly after compacting
+        store.putStudent(4, "Back", "L", "4@example.com", 1);
+        assertEquals("Back", store.getStudent(4).getFirstName());
+        assertEquals(4L, ids(store.getStudentsByUniversity(1, 2, 1)).get(0));
+    }
+
+    @Test
+    void removingAUniversityRemovesItsStudents() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        store.putUniversity(1, "One", "A");
+        store.putUniversity(2, "Two", "B");
+        store.putStudent(1, "A", "A", "a@example.com", 1);
+        store.putStudent(2, "B", "B", "b@example.com", 2);
+
+        store.removeUniversity(1);
+
+        assertNull(store.getUniversity(1));
+        assertNull(store.getStudent(1));
+        assertEquals(List.of(2L), ids(store.getStudents()));
+        assertEquals(1, store.getUniversityCount());
+        assertEquals(List.of(), store.getStudentsByUniversity(1, 0, 10));
+    }
+
+    @Test
+    void randomWritesMatchASortedModel() {
+        ReadModelStore store = new ReadModelStore(16, 16);
+        int universities = 5;
+        for (int u = 1; u <= universities; u++) {
+            store.putUniversity(u, "U" + u, "L" + u);
+        }
+        // Enough deletes to trigger the automatic compaction several times
+        Map<Long, Long> expected = new TreeMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) > 0) {
+                long university = 1 + random.nextInt(universities);
+                store.putStudent(id, "F" + i, "L", id + "@example.com", university);
+                expected.put(id, university);
+            } else {
+                store.removeStudent(id);
+                expected.remove(id);
+            }
+        }
+
+        assertEquals(expected.size(), store.getStudentCount());
+        assertEquals(List.copyOf(expected.keySet()), ids(store.getStudents()));
+        for (long u = 1; u <= universities; u++) {
+            long university = u;
+            List<Long> owned = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue() == university).map(Map.Entry::getKey).toList();
+            assertEquals(owned, ids(store.getStudentsByUniversity(u, 0, Integer.MAX_VALUE)));
+        }
+    }
+
+    private static List<Long> ids(List<Student> students) {
+        return students.stream().map(Student::getId).toList();
+    }
+}
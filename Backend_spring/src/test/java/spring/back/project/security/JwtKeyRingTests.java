@@ -0,0 +1,163 @@
+package spring.back.project.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtKeyRingTests {
+
+    private static final DateTimeFormatter KID_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theFirstKeySignsRightAway() {
+        JwtKeyRing ring = ring(true, 5000);
+        ring.init();
+
+        assertNotNull(ring.getSigningKey());
+        assertEquals(List.of(ring.getSigningKey().getId()), keyIds());
+    }
+
+    @Test
+    void aRotatedKeyIsPublishedBeforeItSigns() throws IOException {
+        JwtKeyRing ring = ring(true, 5000);
+        ring.init();
+        // Past the rotation interval and the lifetime of its tokens: the next refresh creates a new key
+        String old = age(ring.getSigningKey().getId(), Duration.ofDays(40));
+        ring.refresh();
+
+        List<String> ids = keyIds();
+        assertEquals(2, ids.size());
+        String created = ids.get(1);
+        assertEquals(old, ring.getSigningKey().getId());
+        assertNotNull(ring.getPublicKey(created));
+        assertTrue(published(ring).contains(created));
+
+        // Rotation counts from the newest key, a waiting key is not replaced
+        ring.refresh();
+        assertEquals(2, keyIds().size());
+        assertEquals(old, ring.getSigningKey().getId());
+
+        // Once older than the refresh interval every instance has loaded it
+        String active = age(created, Duration.ofMinutes(2));
+        ring.refresh();
+        assertEquals(active, ring.getSigningKey().getId());
+        // No longer signing, the old key is retired
+        assertEquals(List.of(active), keyIds());
+    }
+
+    @Test
+    void anUnknownKidRescansTheDirectory() throws IOException {
+        JwtKeyRing ring = ring(false, 0);
+        Path first = provision(Duration.ofDays(1));
+        ring.init();
+        assertEquals(first.getFileName().toString().replace(".pem", ""), ring.getSigningKey().getId());
+
+        // Another instance adds a key after this one's last refresh
+        Path added = provision(Duration.ZERO);
+        String kid = added.getFileName().toString().replace(".pem", "");
+        assertNotNull(ring.getPublicKey(kid));
+        // Not signing yet, other instances may not publish it
+        assertNotEquals(kid, ring.getSigningKey().getId());
+    }
+
+    @Test
+    void rescansAreRateLimited() throws IOException {
+        JwtKeyRing ring = ring(false, 60_000);
+        provision(Duration.ofDays(1));
+        ring.init();
+
+        Path added = provision(Duration.ZERO);
+        assertNull(ring.getPublicKey(added.getFileName().toString().replace(".pem", "")));
+        // Ids that are not key ids never trigger a rescan
+        assertNull(ring.getPublicKey("../etc/passwd"));
+        assertNull(ring.getPublicKey(null));
+    }
+
+    @Test
+    void startupFailsWithoutAProvisionedKey() {
+        JwtKeyRing ring = ring(false, 5000);
+        IllegalStateException error = assertThrows(IllegalStateException.class, ring::init);
+        assertTrue(error.getMessage().contains("No usable EdDSA signing key"));
+        assertEquals(List.of(), keyIds());
+    }
+
+    private JwtKeyRing ring(boolean generate, long rescanMinInterval) {
+        JwtKeyRing ring = new JwtKeyRing();
+        ReflectionTestUtils.setField(ring, "algorithm", "EdDSA");
+        ReflectionTestUtils.setField(ring, "keyDirectory", directory.toString());
+        ReflectionTestUtils.setField(ring, "generate", generate);
+        ReflectionTestUtils.setField(ring, "rotationInterval", Duration.ofDays(30));
+        ReflectionTestUtils.setField(ring, "refreshInterval", 60_000L);
+        ReflectionTestUtils.setField(ring, "rescanMinInterval", rescanMinInterval);
+        ReflectionTestUtils.setField(ring, "refreshExpiration", Duration.ofDays(7).toMillis());
+        return ring;
+    }
+
+    // A key created `age` ago, written by a generating key ring in a scratch directory
+    private Path provision(Duration age) throws IOException {
+        Path scratch = Files.createTempDirectory(directory, "scratch");
+        JwtKeyRing generator = new JwtKeyRing();
+        ReflectionTestUtils.setField(generator, "algorithm", "EdDSA");
+        ReflectionTestUtils.setField(generator, "keyDirectory", scratch.toString());
+        ReflectionTestUtils.setField(generator, "generate", true);
+        ReflectionTestUtils.setField(generator, "rotationInterval", Duration.ofDays(30));
+        ReflectionTestUtils.setField(generator, "refreshExpiration", Duration.ofDays(7).toMillis());
+        generator.init();
+        String kid = rename(generator.getSigningKey().getId(), age);
+        Path key = Files.move(scratch.resolve(generator.getSigningKey().getId() + ".pem"), directory.resolve(kid + ".pem"));
+        Files.delete(scratch);
+        return key;
+    }
+
+    // Renames a key so its id says it was created `age` ago
+    private String age(String kid, Duration age) throws IOException {
+        String renamed = rename(kid, age);
+        Files.move(directory.resolve(kid + ".pem"), directory.resolve(renamed + ".pem"));
+        return renamed;
+    }
+
+    private static String rename(String kid, Duration age) {
+        return KID_TIME.format(Instant.now().minus(age)) + kid.substring(kid.indexOf('-'));
+    }
+
+    private List<String> keyIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(f -> f.getFileName().toString())
+                    .filter(name -> name.endsWith(".pem"))
+                    .map(name -> name.replace(".pem", ""))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> published(JwtKeyRing ring) {
+        return ((List<Map<String, Object>>) ring.getJwks().get("keys")).stream()
+                .map(jwk -> (String) jwk.get("kid"))
+                .toList();
+    }
+}
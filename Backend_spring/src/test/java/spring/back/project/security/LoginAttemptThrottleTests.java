@@ -0,0 +1,102 @@
+package spring.back.project.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginAttemptThrottleTests {
+
+    private static final long HALF_LIFE = 600_000;
+
+    private final LoginAttemptThrottle throttle = new LoginAttemptThrottle(5, 20, 1_000, 60_000, HALF_LIFE, 10_000);
+
+    @Test
+    void locksOutAfterTheThresholdWithGrowingLockouts() {
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("alice", "10.0.0.1", 0);
+        }
+        assertEquals(0, throttle.retryAfter("alice", "10.0.0.1", 0));
+
+        throttle.recordFailure("alice", "10.0.0.1", 0);
+        assertEquals(1_000, throttle.retryAfter("alice", "10.0.0.1", 0));
+        // Locked from any address, and whatever the case
+        assertEquals(600, throttle.retryAfter("ALICE", "10.0.0.2", 400));
+        assertEquals(0, throttle.retryAfter("alice", "10.0.0.1", 1_000));
+
+        throttle.recordFailure("alice", "10.0.0.1", 1_000);
+        assertEquals(2_000, throttle.retryAfter("alice", "10.0.0.1", 1_000));
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure("alice", "10.0.0.1", 1_000);
+        }
+        assertEquals(60_000, throttle.retryAfter("alice", "10.0.0.1", 1_000));
+        assertEquals(0, throttle.retryAfter("bob", "10.0.0.2", 1_000));
+    }
+
+    @Test
+    void anAddressTryingManyUsernamesIsLockedOut() {
+        for (int i = 0; i < 19; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1", 0);
+        }
+        assertEquals(0, throttle.retryAfter("someone", "10.0.0.1", 0));
+
+        throttle.recordFailure("user19", "10.0.0.1", 0);
+        assertEquals(1_000, throttle.retryAfter("someone", "10.0.0.1", 0));
+        assertEquals(0, throttle.retryAfter("someone", "10.0.0.2", 0));
+    }
+
+    @Test
+    void failuresDecayOverTime() {
+        for (int i = 0; i < 4; i++) {
+            throttle.recordFailure("alice", "10.0.0.1", 0);
+        }
+        // Two half-lives later the four failures count as one
+        throttle.recordFailure("alice", "10.0.0.1", 2 * HALF_LIFE);
+        assertEquals(0, throttle.retryAfter("alice", "10.0.0.1", 2 * HALF_LIFE));
+
+        // A quick burst is not let off by a few seconds of decay
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("bob", "10.0.0.2", i * 1_000L);
+        }
+        assertEquals(1_000, throttle.retryAfter("bob", "10.0.0.2", 4_000));
+    }
+
+    @Test
+    void successResetsTheUsernameButNotTheAddress() {
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("alice", "10.0.0.1", 0);
+        }
+        throttle.recordSuccess("Alice");
+        assertEquals(0, throttle.retryAfter("alice", "10.0.0.2", 0));
+        throttle.recordFailure("alice", "10.0.0.2", 0);
+        assertEquals(0, throttle.retryAfter("alice", "10.0.0.2", 0));
+
+        for (int i = 0; i < 15; i++) {
+            throttle.recordFailure("user" + i, "10.0.0.1", 0);
+        }
+        throttle.recordSuccess("user0");
+        assertTrue(throttle.retryAfter("user0", "10.0.0.1", 0) > 0);
+    }
+
+    @Test
+    void entriesAreEvictedOnceAStripeIsFull() {
+        // One entry per stripe
+        LoginAttemptThrottle small = new LoginAttemptThrottle(5, 1_000, 1_000, 60_000, HALF_LIFE, 32);
+        for (int i = 0; i < 5; i++) {
+            small.recordFailure("alice", null, 0);
+        }
+        assertEquals(1_000, small.retryAfter("alice", null, 0));
+
+        for (int i = 0; i < 200; i++) {
+            small.recordFailure("user" + i, null, 0);
+        }
+        assertEquals(0, small.retryAfter("alice", null, 0));
+
+        // Keys are truncated, so a long username shares an entry with its prefix
+        String longName = "x".repeat(100);
+        for (int i = 0; i < 5; i++) {
+            small.recordFailure(longName + i, null, 0);
+        }
+        assertEquals(1_000, small.retryAfter(longName + "anything", null, 0));
+    }
+}
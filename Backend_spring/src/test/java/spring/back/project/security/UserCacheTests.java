@@ -0,0 +1,69 @@
+package spring.back.project.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import spring.back.project.model.User;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UserCacheTests {
+
+    private final UserCache cache = new UserCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttl", 60_000L);
+    }
+
+    @Test
+    void usernamesDifferingOnlyInCaseShareAnEntry() {
+        UserPrincipal alice = principal("Alice");
+        cache.put(alice);
+
+        assertSame(alice, cache.get("alice"));
+        assertSame(alice, cache.get("ALICE"));
+
+        cache.evict("aLiCe");
+        assertNull(cache.get("Alice"));
+    }
+
+    @Test
+    void theCachedSnapshotDoesNotFollowTheEntity() {
+        User entity = new User("alice", "alice@example.com", "$2a$10$hash", "Alice", "Smith");
+        entity.setId(7L);
+        cache.put(new UserPrincipal(entity));
+
+        entity.setPassword("$2a$10$changed");
+        entity.setEmail("changed@example.com");
+
+        UserPrincipal cached = cache.get("alice");
+        assertEquals(7L, cached.getId());
+        assertEquals("$2a$10$hash", cached.getPassword());
+        assertEquals("alice@example.com", cached.getEmail());
+        assertFalse(cached.toString().contains("hash"));
+    }
+
+    @Test
+    void entriesExpireAndTheLeastRecentlyUsedIsEvicted() {
+        cache.put(principal("alice"));
+        cache.put(principal("bob"));
+        cache.get("alice");
+        cache.put(principal("carol"));
+
+        assertNull(cache.get("bob"));
+        assertEquals("alice", cache.get("alice").getUsername());
+
+        ReflectionTestUtils.setField(cache, "ttl", -1L);
+        cache.put(principal("dave"));
+        assertNull(cache.get("dave"));
+    }
+
+    private static UserPrincipal principal(String username) {
+        return new UserPrincipal(new User(username, username + "@example.com", "$2a$10$hash"));
+    }
+}
@@ -0,0 +1,192 @@
+package spring.back.project.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import spring.back.project.model.ChangeEvent;
+import spring.back.project.model.ChangeEvent.EntityType;
+import spring.back.project.model.ChangeEvent.Operation;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ChangeStreamServiceTests {
+
+    private final ChangeFeedService changeFeedService = mock(ChangeFeedService.class);
+
+    // The next emitter handed out by subscribe
+    private RecordingEmitter nextEmitter;
+
+    private ChangeStreamService service;
+
+    // The change feed tail, as delivered to the service
+    private Consumer<ChangeEvent> feed;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        service = new ChangeStreamService() {
+            @Override
+            SseEmitter createEmitter() {
+                return nextEmitter;
+            }
+        };
+        ReflectionTestUtils.setField(service, "changeFeedService", changeFeedService);
+        ReflectionTestUtils.setField(service, "bufferSize", 16);
+        ReflectionTestUtils.setField(service, "threads", 1);
+        ReflectionTestUtils.setField(service, "heartbeatInterval", 60_000L);
+        ReflectionTestUtils.setField(service, "replayLimit", 100);
+        ReflectionTestUtils.setField(service, "sendTimeout", 200L);
+        ReflectionTestUtils.setField(service, "maxThreads", 4);
+        service.init();
+
+        ArgumentCaptor<Consumer<ChangeEvent>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(changeFeedService).subscribe(subscriber.capture());
+        feed = subscriber.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void aMovedStudentReachesTheOldAndTheNewUniversity() throws InterruptedException {
+        RecordingEmitter all = subscribe(null);
+        RecordingEmitter left = subscribe(1L);
+        RecordingEmitter joined = subscribe(2L);
+        RecordingEmitter other = subscribe(3L);
+
+        ChangeEvent moved = event(1, 2L);
+        moved.setPreviousUniversityId(1L);
+        feed.accept(moved);
+        feed.accept(event(2, 3L));
+
+        assertEquals(moved, all.next());
+        assertEquals(moved, left.next());
+        assertEquals(moved, joined.next());
+        assertEquals(2L, other.next().getId());
+        assertEquals(2L, all.next().getId());
+        assertNull(left.sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void aStalledSubscriberDoesNotHoldUpTheOthers() throws InterruptedException {
+        // Subscribed to everything, its drain is queued first on the single thread
+        RecordingEmitter stalled = subscribe(null);
+        CountDownLatch unblock = new CountDownLatch(1);
+        stalled.blockOn = unblock;
+        RecordingEmitter reading = subscribe(1L);
+
+        try {
+            feed.accept(event(1, 1L));
+
+            // Delivered once the stuck send is past the timeout
+            assertEquals(1L, reading.next().getId());
+            assertTrue(stalled.failed);
+            assertEquals(1, service.getSubscriberCount());
+            feed.accept(event(2, 1L));
+            assertEquals(2L, reading.next().getId());
+        } finally {
+            unblock.countDown();
+        }
+
+        // The added thread goes once the stuck send returns
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getCorePoolSize() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, executor.getCorePoolSize());
+        // Nothing more is sent to the dropped subscriber
+        assertEquals(List.of(), List.copyOf(stalled.sent));
+    }
+
+    @Test
+    void heartbeatsGoThroughThePool() throws InterruptedException {
+        RecordingEmitter stalled = subscribe(null);
+        CountDownLatch unblock = new CountDownLatch(1);
+        stalled.blockOn = unblock;
+        RecordingEmitter reading = subscribe(1L);
+
+        try {
+            ReflectionTestUtils.invokeMethod(service, "sendHeartbeats");
+            assertTrue(reading.heartbeats.await(5, TimeUnit.SECONDS));
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    private RecordingEmitter subscribe(Long universityId) {
+        nextEmitter = new RecordingEmitter();
+        service.subscribe(universityId, null);
+        return nextEmitter;
+    }
+
+    private static ChangeEvent event(long id, Long universityId) {
+        ChangeEvent event = new ChangeEvent(EntityType.STUDENT, 7L, Operation.UPDATE, universityId, "{}");
+        event.setId(id);
+        return event;
+    }
+
+    // Records the change events sent; with blockOn set every send waits for it, like a client that stopped reading
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<ChangeEvent> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch heartbeats = new CountDownLatch(1);
+        private volatile CountDownLatch blockOn;
+        private volatile boolean failed;
+
+        RecordingEmitter() {
+            super(0L);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            CountDownLatch latch = blockOn;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            boolean change = false;
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ChangeEvent event) {
+                    sent.add(event);
+                    change = true;
+                }
+            }
+            if (!change) {
+                heartbeats.countDown();
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed = true;
+        }
+
+        ChangeEvent next() throws InterruptedException {
+            ChangeEvent event = sent.poll(5, TimeUnit.SECONDS);
+            assertTrue(event != null, "no change event sent");
+            return event;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package spring.back.project.sharding;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import spring.back.project.model.Student;
+import spring.back.project.model.University;
+import spring.back.project.service.StudentService;
+import spring.back.project.service.UniversityService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Three embedded H2 shards, as in application-sharded-local.properties
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sharding-tests-0;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "sharding.enabled=true",
+        "sharding.primary=shard0",
+        "sharding.shards.shard1.url=jdbc:h2:mem:sharding-tests-1;DB_CLOSE_DELAY=-1",
+        "sharding.shards.shard1.username=sa",
+        "sharding.shards.shard1.password=",
+        "sharding.shards.shard1.driver-class-name=org.h2.Driver",
+        "sharding.shards.shard2.url=jdbc:h2:mem:sharding-tests-2;DB_CLOSE_DELAY=-1",
+        "sharding.shards.shard2.username=sa",
+        "sharding.shards.shard2.password=",
+        "sharding.shards.shard2.driver-class-name=org.h2.Driver",
+        "warmup.enabled=false"
+})
+class ShardingTests {
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private UniversityService universityService;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Test
+    void studentsAreStoredOnTheirUniversitysShard() {
+        University university = university("shard1");
+        Student student = student(university);
+
+        assertEquals(1, count("shard1", student.getId()));
+        assertEquals(0, count("shard0", student.getId()) + count("shard2", student.getId()));
+        // Inserted on shard1, its id is in shard1's range
+        assertEquals("shard1", shardMap.shardForId(student.getId()));
+        assertEquals(List.of(student.getId()),
+                studentService.getStudentsByUniversity(university.getId()).stream().map(Student::getId).toList());
+    }
+
+    @Test
+    void findByIdsGathersFromEveryShard() {
+        Student first = student(university("shard0"));
+        Student second = student(university("shard1"));
+        Student third = student(university("shard2"));
+        // Moved away from the shard of its id range
+        Student moved = student(university("shard1"));
+        moveUniversity(moved.getUniversity(), "shard2");
+        long missing = shardMap.idRangeStart("shard2") + 999_999_999L;
+
+        Map<Long, Student> found = studentService.getStudentsByIds(
+                List.of(third.getId(), missing, first.getId(), moved.getId(), second.getId()));
+
+        // Missing ids are left out
+        assertEquals(Set.of(first.getId(), second.getId(), third.getId(), moved.getId()), found.keySet());
+        assertEquals(moved.getEmail(), found.get(moved.getId()).getEmail());
+    }
+
+    @Test
+    void changingUniversityRelocatesTheStudent() {
+        Student student = student(university("shard1"));
+        University target = university("shard2");
+
+        Student details = new Student("Moved", "Student", student.getEmail(), target);
+        studentService.updateStudent(student.getId(), details);
+
+        assertEquals(0, count("shard1", student.getId()));
+        assertEquals(1, count("shard2", student.getId()));
+        assertEquals("Moved", studentService.getStudentById(student.getId()).orElseThrow().getFirstName());
+        assertEquals(List.of(student.getId()),
+                studentService.getStudentsByUniversity(target.getId()).stream().map(Student::getId).toList());
+    }
+
+    @Test
+    void neitherUniversityMovesWhileAStudentIsRelocated() throws Exception {
+        University source = university("shard1");
+        University target = university("shard2");
+
+        CompletableFuture<Map<String, Object>> move = shardRebalancer.relocating(source.getId(), target.getId(), () -> {
+            CompletableFuture<Map<String, Object>> started =
+                    CompletableFuture.supplyAsync(() -> shardRebalancer.moveUniversity(target.getId(), "shard0"));
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            assertFalse(started.isDone());
+            return started;
+        });
+
+        assertEquals("shard2", move.get(10, TimeUnit.SECONDS).get("source"));
+        assertEquals("shard0", shardMap.shardFor(target.getId()));
+    }
+
+    @Test
+    void emailsAreUniqueAcrossShards() {
+        Student student = student(university("shard1"));
+        University other = university("shard2");
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> studentService.createStudent(new Student("Other", "Student", student.getEmail(), other)));
+        assertTrue(error.getMessage().contains("already exists"));
+        assertEquals(0, studentService.getStudentsByUniversity(other.getId()).size());
+    }
+
+    @Test
+    void interruptedMovesAreRecovered() {
+        // Crashed after the copy, before the assignment: the copy is dropped
+        Student copied = student(university("shard1"));
+        Long copiedUniversityId = copied.getUniversity().getId();
+        copy(copied, "shard2");
+        marker(copiedUniversityId, "shard1", "shard2");
+
+        // Crashed after the assignment, before the source rows were deleted: the delete is finished
+        Student assigned = student(university("shard1"));
+        Long assignedUniversityId = assigned.getUniversity().getId();
+        copy(assigned, "shard2");
+        shardMap.assign(assignedUniversityId, "shard2");
+        marker(assignedUniversityId, "shard1", "shard2");
+
+        shardRebalancer.recoverMoves();
+
+        assertEquals(1, count("shard1", copied.getId()));
+        assertEquals(0, count("shard2", copied.getId()));
+        assertEquals(0, count("shard1", assigned.getId()));
+        assertEquals(1, count("shard2", assigned.getId()));
+        assertEquals(0, jdbc("shard0").queryForObject("SELECT COUNT(*) FROM shard_moves WHERE university_id IN (?, ?)",
+                Integer.class, copiedUniversityId, assignedUniversityId));
+    }
+
+    private University university(String shard) {
+        University university = universityService.createUniversity(new University("University " + UUID.randomUUID(), "Town"));
+        moveUniversity(university, shard);
+        return university;
+    }
+
+    private void moveUniversity(University university, String shard) {
+        shardRebalancer.moveUniversity(university.getId(), shard);
+        assertEquals(shard, shardMap.shardFor(university.getId()));
+    }
+
+    private Student student(University university) {
+        return studentService.createStudent(new Student("First", "Last", UUID.randomUUID() + "@example.com", university));
+    }
+
+    private void copy(Student student, String shard) {
+        jdbc(shard).update("INSERT INTO students (id, first_name, last_name, email, university_id) VALUES (?, ?, ?, ?, ?)",
+                student.getId(), student.getFirstName(), student.getLastName(), student.getEmail(),
+                student.getUniversity().getId());
+    }
+
+    private void marker(Long universityId, String source, String target) {
+        jdbc("shard0").update("INSERT INTO shard_moves (university_id, source, target) VALUES (?, ?, ?)",
+                universityId, source, target);
+    }
+
+    private int count(String shard, Long studentId) {
+        return jdbc(shard).queryForObject("SELECT COUNT(*) FROM students WHERE id = ?", Integer.class, studentId);
+    }
+
+    private JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(shardMap.dataSourceFor(shard));
+    }
+}
@@ -0,0 +1,136 @@
+package spring.back.project.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixIndexTests {
+
+    // Entry i ranks by score, highest first, then by entry
+    private static Comparator<Integer> byScore(int[] scores) {
+        return Comparator.<Integer>comparingInt(entry -> -scores[entry]).thenComparingInt(entry -> entry);
+    }
+
+    @Test
+    void foldsCaseAccentsAndSeparators() {
+        assertEquals("zurich", PrefixIndex.fold("Zürich"));
+        assertEquals("strasse", PrefixIndex.fold("Straße"));
+        assertEquals("lodz", PrefixIndex.fold("Łódź"));
+        assertEquals("aeroskobing", PrefixIndex.fold("Ærøskøbing"));
+        assertEquals("new york", PrefixIndex.fold("  New-York"));
+        // A trailing separator is kept so the prefix only matches whole words
+        assertEquals("new ", PrefixIndex.fold("new  "));
+        assertEquals("", PrefixIndex.fold(null));
+        assertEquals("", PrefixIndex.fold("--"));
+    }
+
+    @Test
+    void keysStartAtEveryWord() {
+        assertEquals(List.of("institute of technology", "of technology", "technology"),
+                PrefixIndex.wordSuffixes("Institute of Technology"));
+        assertEquals(List.of(), PrefixIndex.wordSuffixes("  "));
+    }
+
+    @Test
+    void prefixesEndingInsideAnEdgeMatch() {
+        int[] scores = {3, 2, 1, 4};
+        PrefixIndex index = PrefixIndex.build(List.of("tech", "technology", "team", "zoo"),
+                new int[]{0, 1, 2, 3}, byScore(scores), 10);
+
+        assertArrayEquals(new int[]{0, 1, 2}, index.lookup("te"));
+        // "tec" ends inside the "ch" edge below "te"
+        assertArrayEquals(new int[]{0, 1}, index.lookup("tec"));
+        assertArrayEquals(new int[]{0, 1}, index.lookup("tech"));
+        assertArrayEquals(new int[]{1}, index.lookup("technol"));
+        assertArrayEquals(new int[]{3, 0, 1, 2}, index.lookup(""));
+        assertArrayEquals(new int[0], index.lookup("techx"));
+        assertArrayEquals(new int[0], index.lookup("technologyy"));
+        assertArrayEquals(new int[0], index.lookup("a"));
+    }
+
+    @Test
+    void aPrefixSharedByAllKeysIsSplitBelowTheRoot() {
+        PrefixIndex index = PrefixIndex.build(List.of("university a", "university b"),
+                new int[]{0, 1}, byScore(new int[]{1, 2}), 10);
+
+        assertArrayEquals(new int[]{1, 0}, index.lookup("u"));
+        assertArrayEquals(new int[]{1, 0}, index.lookup("university "));
+        assertArrayEquals(new int[]{0}, index.lookup("university a"));
+        assertArrayEquals(new int[0], index.lookup("x"));
+    }
+
+    @Test
+    void topKHoldsDistinctEntriesBestFirst() {
+        int[] scores = {5, 50, 20, 40, 30};
+        List<String> keys = new ArrayList<>();
+        List<Integer> entries = new ArrayList<>();
+        for (int entry = 0; entry < scores.length; entry++) {
+            // Every entry under several keys, as with word suffixes
+            for (String key : PrefixIndex.wordSuffixes("Saint Entry " + entry)) {
+                keys.add(key);
+                entries.add(entry);
+            }
+        }
+        PrefixIndex index = PrefixIndex.build(keys, entries.stream().mapToInt(Integer::intValue).toArray(),
+                byScore(scores), 3);
+
+        assertArrayEquals(new int[]{1, 3, 4}, index.lookup("s"));
+        assertArrayEquals(new int[]{1, 3, 4}, index.lookup("entry"));
+        assertArrayEquals(new int[]{2}, index.lookup("2"));
+        assertArrayEquals(new int[]{0}, index.lookup("saint entry 0"));
+    }
+
+    @Test
+    void emptyIndexMatchesNothing() {
+        assertArrayEquals(new int[0], PrefixIndex.empty().lookup(""));
+        assertArrayEquals(new int[0], PrefixIndex.build(List.of(), new int[0], byScore(new int[0]), 5).lookup("a"));
+    }
+
+    @Test
+    void lookupsMatchABruteForceScan() {
+        Random random = new Random(11);
+        int count = 2_000;
+        int[] scores = new int[count];
+        List<String> keys = new ArrayList<>();
+        int[] entries = new int[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = random.nextInt(100);
+            entries[i] = i;
+            // A small alphabet gives deep shared prefixes and many edge splits
+            StringBuilder key = new StringBuilder();
+            for (int length = 1 + random.nextInt(8); length > 0; length--) {
+                key.append("abc ".charAt(random.nextInt(4)));
+            }
+            keys.add(key.toString());
+        }
+        Comparator<Integer> rank = byScore(scores);
+        PrefixIndex index = PrefixIndex.build(keys, entries, rank, 7);
+
+        for (int probe = 0; probe < 2_000; probe++) {
+            StringBuilder prefix = new StringBuilder();
+            for (int length = random.nextInt(6); length > 0; length--) {
+                prefix.append("abc ".charAt(random.nextInt(4)));
+            }
+            int[] expected = bruteForce(keys, prefix.toString(), rank, 7);
+            assertArrayEquals(expected, index.lookup(prefix.toString()), "prefix '" + prefix + "'");
+        }
+    }
+
+    private static int[] bruteForce(List<String> keys, String prefix, Comparator<Integer> rank, int topK) {
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).startsWith(prefix)) {
+                matches.add(i);
+            }
+        }
+        matches.sort(rank);
+        return Arrays.stream(matches.toArray(new Integer[0])).limit(topK).mapToInt(Integer::intValue).toArray();
+    }
+}
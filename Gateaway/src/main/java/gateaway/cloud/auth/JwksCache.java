@@ -0,0 +1,113 @@
+package gateaway.cloud.auth;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Public keys from the backend's JWK Set, by kid.
+ *
+ * Fetched lazily and kept for gateway.auth.jwks-refresh-interval. A kid not
+ * in the set (the backend just rotated) triggers an early refetch, at most
+ * once per jwks-min-refetch-interval. A failed fetch keeps the keys already
+ * known.
+ */
+@Component
+public class JwksCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksCache.class);
+
+    private final JwtAuthProperties properties;
+
+    private final HttpClient httpClient;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    private volatile boolean loaded;
+
+    // Written under the lock in refresh
+    private volatile long fetchedAt;
+
+    @Autowired
+    public JwksCache(JwtAuthProperties properties) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getJwksTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Key for a token's kid, or null if the backend does not publish it
+     */
+    public PublicKey get(String kid) {
+        long now = System.currentTimeMillis();
+        PublicKey key = keys.get(kid);
+        if (key != null && now - fetchedAt < properties.getJwksRefreshInterval().toMillis()) {
+            return key;
+        }
+        refresh(key == null ? properties.getJwksMinRefetchInterval().toMillis()
+                : properties.getJwksRefreshInterval().toMillis());
+        return keys.get(kid);
+    }
+
+    /**
+     * False until the JWK Set has been fetched once, e.g. while the backend is unreachable
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // One fetch at a time; callers arriving meanwhile use its result
+    private synchronized void refresh(long minAgeMillis) {
+        long now = System.currentTimeMillis();
+        if (now - fetchedAt < minAgeMillis) {
+            return;
+        }
+        fetchedAt = now;
+        try {
+            keys = fetch();
+            loaded = true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not fetch the JWK Set from {}: {}", properties.getJwksUri(), e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, PublicKey> fetch() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(properties.getJwksUri())
+                .timeout(properties.getJwksTimeout())
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        JwkSet set = Jwks.setParser().build().parse(response.body());
+        Map<String, PublicKey> byId = new HashMap<>();
+        for (Jwk<?> jwk : set) {
+            Key key = jwk.toKey();
+            if (jwk.getId() != null && key instanceof PublicKey publicKey) {
+                byId.put(jwk.getId(), publicKey);
+            }
+        }
+        logger.debug("Loaded {} signing keys from {}", byId.size(), properties.getJwksUri());
+        return Map.copyOf(byId);
+    }
+}
@@ -0,0 +1,66 @@
+package gateaway.cloud.auth;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verification of access tokens at the edge against the backend's JWK Set.
+ */
+@ConfigurationProperties(prefix = "gateway.auth")
+public class JwtAuthProperties {
+
+    private boolean enabled = true;
+
+    // Backend_spring /auth/jwks
+    private URI jwksUri;
+
+    // Keys are refetched after this, or earlier for a kid not seen yet
+    private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+
+    // Lower bound between refetches, so unknown kids cannot hammer the backend
+    private Duration jwksMinRefetchInterval = Duration.ofSeconds(10);
+
+    private Duration jwksTimeout = Duration.ofSeconds(3);
+
+    private Duration allowedClockSkew = Duration.ofSeconds(30);
+
+    // Requests without a token are rejected here; elsewhere only bad tokens are
+    private List<String> requiredPaths = new ArrayList<>(List.of("/api/**"));
+
+    // Never checked (login, register, the JWK Set itself)
+    private List<String> skipPaths = new ArrayList<>(List.of("/auth/**"));
+
+    // Signs the X-Auth-Claims header for the backend (its jwt.gateway-claims-secret); empty = not sent
+    private String claimsSecret = "";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public URI getJwksUri() { return jwksUri; }
+    public void setJwksUri(URI jwksUri) { this.jwksUri = jwksUri; }
+
+    public Duration getJwksRefreshInterval() { return jwksRefreshInterval; }
+    public void setJwksRefreshInterval(Duration jwksRefreshInterval) { this.jwksRefreshInterval = jwksRefreshInterval; }
+
+    public Duration getJwksMinRefetchInterval() { return jwksMinRefetchInterval; }
+    public void setJwksMinRefetchInterval(Duration jwksMinRefetchInterval) { this.jwksMinRefetchInterval = jwksMinRefetchInterval; }
+
+    public Duration getJwksTimeout() { return jwksTimeout; }
+    public void setJwksTimeout(Duration jwksTimeout) { this.jwksTimeout = jwksTimeout; }
+
+    public Duration getAllowedClockSkew() { return allowedClockSkew; }
+    public void setAllowedClockSkew(Duration allowedClockSkew) { this.allowedClockSkew = allowedClockSkew; }
+
+    public List<String> getRequiredPaths() { return requiredPaths; }
+    public void setRequiredPaths(List<String> requiredPaths) { this.requiredPaths = requiredPaths; }
+
+    public List<String> getSkipPaths() { return skipPaths; }
+    public void setSkipPaths(List<String> skipPaths) { this.skipPaths = skipPaths; }
+
+    public String getClaimsSecret() { return claimsSecret; }
+    public void setClaimsSecret(String claimsSecret) { this.claimsSecret = claimsSecret; }
+}
@@ -28,7 +28,7 @@ public class CorsConfig {
         config.setAllowCredentials(true);
         
         // Expose headers
-        config.setExposedHeaders(Arrays.asList("Authorization", "X-Powered-By", "X-Gateway-Request"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "X-Powered-By", "X-Gateway-Request", "X-Request-Id", "Idempotent-Replayed"));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -1,11 +1,19 @@
 package gateaway.cloud.config;
 
+import gateaway.cloud.route.DirectRouteHandler;
+import gateaway.cloud.route.DirectRouteProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.RequestPredicates;
 import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
 import org.springframework.web.servlet.function.ServerResponse;
 
 import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.springframework.cloud.gateway.server.mvc.handler.GatewayRouterFunctions.route;
 import static org.springframework.cloud.gateway.server.mvc.handler.HandlerFunctions.http;
@@ -14,22 +22,41 @@ import static org.springframework.cloud.gateway.server.mvc.handler.HandlerFuncti
 public class GatewayConfig {
 
     // Node.js GraphQL Gateway URL (Apollo Server - Unified GraphQL API)
-    // This is the ONLY backend URL we need - GraphQL handles all the rest
-    private static final String GRAPHQL_GATEWAY_URL = "https://graphql-service-qzpq.onrender.com";
+    // Only scheme/host/port are used, the incoming /graphql path is kept
+    @Value("${graphql.gateway.url}")
+    private URI graphqlGatewayUrl;
 
     @Bean
     @SuppressWarnings("deprecation")
     public RouterFunction<ServerResponse> gatewayRoutes() {
         return route("graphql-gateway")
                 // Route all /graphql/** paths to GraphQL Gateway
-                .POST("/graphql/**", http(URI.create(GRAPHQL_GATEWAY_URL)))
-                .GET("/graphql/**", http(URI.create(GRAPHQL_GATEWAY_URL)))
+                .POST("/graphql/**", http(graphqlGatewayUrl))
+                .GET("/graphql/**", http(graphqlGatewayUrl))
                 .build()
                 
             // Route root /graphql path (for Apollo Studio)
             .and(route("graphql-root")
-                .POST("/graphql", http(URI.create(GRAPHQL_GATEWAY_URL)))
-                .GET("/graphql", http(URI.create(GRAPHQL_GATEWAY_URL)))
+                .POST("/graphql", http(graphqlGatewayUrl))
+                .GET("/graphql", http(graphqlGatewayUrl))
                 .build());
     }
+
+    // REST routes sent straight to Backend_spring instances (gateway.direct.routes.*)
+    @Bean
+    @ConditionalOnProperty(name = "gateway.direct.enabled", havingValue = "true", matchIfMissing = true)
+    public RouterFunction<ServerResponse> directRoutes(DirectRouteProperties properties) {
+        if (properties.getRoutes().isEmpty()) {
+            // RouterFunctions refuses to build without routes
+            return request -> Optional.empty();
+        }
+        RouterFunctions.Builder builder = RouterFunctions.route();
+        for (Map.Entry<String, DirectRouteProperties.Route> entry : properties.getRoutes().entrySet()) {
+            DirectRouteHandler handler = new DirectRouteHandler(entry.getKey(), entry.getValue());
+            for (String path : entry.getValue().getPaths()) {
+                builder.route(RequestPredicates.path(path), handler);
+            }
+        }
+        return builder.build();
+    }
 }
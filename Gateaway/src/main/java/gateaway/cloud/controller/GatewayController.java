@@ -21,7 +21,8 @@ public class GatewayController {
         health.put("timestamp", LocalDateTime.now().toString());
         health.put("routes", Map.of(
             "graphql", "/graphql/** → GraphQL Gateway (https://graphql-service-qzpq.onrender.com)",
-            "note", "All queries go through GraphQL which routes to: Spring Boot API (https://miniprojectidl-13.onrender.com/api), Django API (https://mini-project-backend11.onrender.com/api)"
+            "rest", "/api/students/**, /api/universities/**, /auth/** → Spring Boot API directly (gateway.direct.routes)",
+            "note", "GraphQL queries route to: Spring Boot API (https://miniprojectidl-13.onrender.com/api), Django API (https://mini-project-backend11.onrender.com/api)"
         ));
         return ResponseEntity.ok(health);
     }
@@ -31,10 +32,10 @@ public class GatewayController {
         Map<String, String> info = new HashMap<>();
         info.put("name", "API Gateway");
         info.put("version", "1.0.0");
-        info.put("description", "Central API Gateway routing to GraphQL Service");
+        info.put("description", "Central API Gateway routing to GraphQL Service and Spring Boot API");
         info.put("port", "9091");
         info.put("graphql_service", "https://graphql-service-qzpq.onrender.com");
-        info.put("architecture", "Gateway → GraphQL → (Spring Boot API + Django API + Chatbot API)");
+        info.put("architecture", "Gateway → GraphQL → (Spring Boot API + Django API + Chatbot API); Gateway → Spring Boot API for direct REST routes");
         return ResponseEntity.ok(info);
     }
 }
\ No newline at end of file
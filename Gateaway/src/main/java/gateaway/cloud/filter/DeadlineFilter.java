@@ -0,0 +1,170 @@
+package gateaway.cloud.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gateaway.cloud.route.Deadline;
+import gateaway.cloud.route.DeadlineProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gives every request a deadline: its route's budget (gateway.deadline.*),
+ * or less if the client sent a smaller X-Request-Timeout-Ms. Upstream the
+ * header carries the time left whenever it is read, so each hop is told how
+ * long its caller will still wait. A client whose budget is already spent
+ * gets a 504 straight away.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    @Autowired
+    private DeadlineProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<RouteBudget> routes = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        properties.getRoutes().forEach((id, route) -> route.getPaths().forEach(path ->
+                routes.add(new RouteBudget(id, PathPatternParser.defaultInstance.parse(path), route.getBudget().toMillis()))));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || request.getMethod().equals("OPTIONS");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String route = DEFAULT_ROUTE;
+        long budget = properties.getDefaultBudget().toMillis();
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (RouteBudget candidate : routes) {
+            if (candidate.pattern.matches(path)) {
+                route = candidate.id;
+                budget = candidate.budgetMillis;
+                break;
+            }
+        }
+        Long requested = parse(request.getHeader(Deadline.HEADER));
+        if (requested != null && requested < budget) {
+            budget = requested;
+        }
+
+        if (budget <= 0) {
+            exceeded(route, "rejected");
+            response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of("error", "Deadline exceeded", "route", route));
+            return;
+        }
+
+        Deadline deadline = new Deadline(route, budget);
+        deadline.attachTo(request);
+        try {
+            chain.doFilter(new DeadlineRequest(request, deadline), response);
+        } finally {
+            if (deadline.isExpired()) {
+                exceeded(route, "timed_out");
+            }
+        }
+    }
+
+    // rejected: no budget left on arrival, timed_out: the deadline passed while proxying
+    private void exceeded(String route, String outcome) {
+        Counter.builder("gateway.deadline.exceeded")
+                .description("Requests whose deadline passed at the gateway")
+                .tag("route", route)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Long parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class RouteBudget {
+        private final String id;
+        private final PathPattern pattern;
+        private final long budgetMillis;
+
+        RouteBudget(String id, PathPattern pattern, long budgetMillis) {
+            this.id = id;
+            this.pattern = pattern;
+            this.budgetMillis = budgetMillis;
+        }
+    }
+
+    // Replaces the incoming header with the time left when the proxy copies it
+    private static class DeadlineRequest extends HttpServletRequestWrapper {
+        private final Deadline deadline;
+
+        DeadlineRequest(HttpServletRequest request, Deadline deadline) {
+            super(request);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return Deadline.HEADER.equalsIgnoreCase(name)
+                    ? String.valueOf(Math.max(0, deadline.remainingMillis()))
+                    : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return Deadline.HEADER.equalsIgnoreCase(name)
+                    ? Collections.enumeration(Set.of(getHeader(name)))
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            Set<String> names = new LinkedHashSet<>(Collections.list(super.getHeaderNames()));
+            names.removeIf(Deadline.HEADER::equalsIgnoreCase);
+            names.add(Deadline.HEADER);
+            return Collections.enumeration(names);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package gateaway.cloud.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gateaway.cloud.graphql.GraphQLAnalysisProperties;
+import gateaway.cloud.graphql.GraphQLCostThrottle;
+import gateaway.cloud.graphql.GraphQLQueryAnalyzer;
+import gateaway.cloud.graphql.QueryAnalysis;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks GraphQL operations against the depth / alias / cost limits
+ * before they are proxied, and throttles clients over their cost budget.
+ * A persisted-query hash sent without its query is charged the analysis
+ * made when the query was registered; hashes not registered through this
+ * gateway are rejected, so the client sends the query again.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+public class GraphQLAnalysisFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQLAnalysisFilter.class);
+
+    @Autowired
+    private GraphQLAnalysisProperties properties;
+
+    @Autowired
+    private GraphQLQueryAnalyzer analyzer;
+
+    @Autowired
+    private GraphQLCostThrottle throttle;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !properties.isEnabled()
+                || !(path.equals("/graphql") || path.startsWith("/graphql/"))
+                || !(request.getMethod().equals("POST") || request.getMethod().equals("GET"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        HttpServletRequest forwarded = request;
+        List<QueryAnalysis> analyses = new ArrayList<>();
+
+        if (request.getMethod().equals("GET")) {
+            // GET without a query (or persisted-query hash) is the GraphQL landing page
+            String query = request.getParameter("query");
+            String extensions = request.getParameter("extensions");
+            if (query != null || extensions != null) {
+                JsonNode extensionsNode = null;
+                if (extensions != null) {
+                    try {
+                        extensionsNode = objectMapper.readTree(extensions);
+                    } catch (IOException e) {
+                        reject(response, HttpStatus.BAD_REQUEST, "BAD_REQUEST", "extensions is not valid JSON", null);
+                        return;
+                    }
+                }
+                analyses.add(analyze(query, request.getParameter("operationName"), extensionsNode));
+            }
+        } else {
+            byte[] body = CachedBodyRequest.read(request, properties.getMaxBodySize().toBytes());
+            if (body == null) {
+                reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "PAYLOAD_TOO_LARGE",
+                        "Request body is larger than " + properties.getMaxBodySize(), null);
+                return;
+            }
+            forwarded = new CachedBodyRequest(request, body);
+
+            JsonNode payload;
+            try {
+                payload = objectMapper.readTree(body);
+            } catch (IOException e) {
+                reject(response, HttpStatus.BAD_REQUEST, "BAD_REQUEST", "Request body is not valid JSON", null);
+                return;
+            }
+            if (payload == null || !(payload.isObject() || payload.isArray())) {
+                reject(response, HttpStatus.BAD_REQUEST, "BAD_REQUEST", "Request body must be a GraphQL request", null);
+                return;
+            }
+            for (JsonNode operation : payload.isArray() ? payload : List.of(payload)) {
+                analyses.add(analyze(operation));
+            }
+        }
+
+        long totalCost = 0;
+        for (QueryAnalysis analysis : analyses) {
+            if (analysis == null) {
+                // The message Apollo clients look for before sending the query with its hash
+                reject(response, HttpStatus.BAD_REQUEST, "PERSISTED_QUERY_NOT_FOUND", "PersistedQueryNotFound", null);
+                return;
+            }
+            if (analysis.isRejected()) {
+                logger.warn("Rejected GraphQL operation from {}: {}", clientOf(request), analysis.getError());
+                reject(response, HttpStatus.BAD_REQUEST, "GRAPHQL_VALIDATION_FAILED", analysis.getError(), analysis);
+                return;
+            }
+            totalCost += analysis.getCost();
+        }
+
+        if (totalCost > 0) {
+            long waitMillis = throttle.tryAcquire(clientOf(request), totalCost);
+            if (waitMillis != 0) {
+                if (waitMillis > 0) {
+                    response.setHeader("Retry-After", String.valueOf((waitMillis + 999) / 1000));
+                }
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED",
+                        "Query cost budget exceeded, retry later", null);
+                return;
+            }
+            response.setHeader("X-GraphQL-Cost", String.valueOf(totalCost));
+        }
+
+        chain.doFilter(forwarded, response);
+    }
+
+    private QueryAnalysis analyze(JsonNode operation) {
+        JsonNode query = operation.get("query");
+        JsonNode operationName = operation.get("operationName");
+        return analyze(query != null && query.isTextual() ? query.asText() : null,
+                operationName != null && operationName.isTextual() ? operationName.asText() : null,
+                operation.get("extensions"));
+    }
+
+    // Null for a persisted-query hash without a query that was never registered here
+    private QueryAnalysis analyze(String query, String operationName, JsonNode extensions) {
+        JsonNode hash = extensions != null ? extensions.path("persistedQuery").get("sha256Hash") : null;
+        if (hash == null || !hash.isTextual()) {
+            return analyzer.analyze(query, operationName);
+        }
+        if (query == null) {
+            return analyzer.analyzePersisted(hash.asText(), operationName);
+        }
+        return analyzer.register(hash.asText(), query, operationName);
+    }
+
+    // Already resolved through the trusted proxies (server.tomcat.remoteip), never
+    // taken from X-Forwarded-For directly: any client can send one
+    private String clientOf(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    // Errors use the GraphQL response shape so clients surface them normally
+    private void reject(HttpServletResponse response, HttpStatus status, String code, String message,
+                        QueryAnalysis analysis) throws IOException {
+        Map<String, Object> extensions = new LinkedHashMap<>();
+        extensions.put("code", code);
+        if (analysis != null) {
+            extensions.put("depth", analysis.getDepth());
+            extensions.put("aliases", analysis.getAliases());
+            extensions.put("cost", analysis.getCost());
+        }
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("extensions", extensions);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("errors", List.of(error)));
+    }
+}
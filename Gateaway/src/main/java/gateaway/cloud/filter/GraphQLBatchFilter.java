@@ -0,0 +1,113 @@
+package gateaway.cloud.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import gateaway.cloud.graphql.GraphQLBatchExecutor;
+import gateaway.cloud.graphql.GraphQLBatchProperties;
+import gateaway.cloud.route.Deadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers array-batched GraphQL requests at the gateway: the operations
+ * are fanned out concurrently and their results returned as one array.
+ * Single operations continue to the proxy route unchanged.
+ * Runs after GraphQLAnalysisFilter, so every operation has been checked.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+public class GraphQLBatchFilter extends OncePerRequestFilter {
+
+    // Request headers passed on to each operation
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            "Authorization", "Cookie", "Accept-Language", "X-Request-Id",
+            JwtVerificationFilter.CLAIMS_HEADER, JwtVerificationFilter.CLAIMS_SIGNATURE_HEADER);
+
+    @Autowired
+    private GraphQLBatchProperties properties;
+
+    @Autowired
+    private GraphQLBatchExecutor batchExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !properties.isEnabled()
+                || !request.getMethod().equals("POST")
+                || !(path.equals("/graphql") || path.startsWith("/graphql/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        byte[] body = request instanceof CachedBodyRequest cached
+                ? cached.getBody()
+                : CachedBodyRequest.read(request, properties.getMaxBodySize().toBytes());
+        if (body == null) {
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "PAYLOAD_TOO_LARGE",
+                    "Request body is larger than " + properties.getMaxBodySize());
+            return;
+        }
+
+        JsonNode payload;
+        try {
+            payload = objectMapper.readTree(body);
+        } catch (IOException e) {
+            payload = null;
+        }
+        if (payload == null || !payload.isArray()) {
+            chain.doFilter(request instanceof CachedBodyRequest ? request : new CachedBodyRequest(request, body), response);
+            return;
+        }
+
+        ArrayNode operations = (ArrayNode) payload;
+        if (operations.isEmpty() || operations.size() > properties.getMaxSize()) {
+            writeError(response, HttpStatus.BAD_REQUEST, "BAD_REQUEST",
+                    "Batch must contain between 1 and " + properties.getMaxSize() + " operations");
+            return;
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : FORWARDED_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+
+        ArrayNode results = batchExecutor.execute(operations, headers, Deadline.of(request));
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), results);
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String code, String message)
+            throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("extensions", Map.of("code", code));
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("errors", List.of(error)));
+    }
+}
@@ -0,0 +1,270 @@
+package gateaway.cloud.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gateaway.cloud.auth.JwksCache;
+import gateaway.cloud.auth.JwtAuthProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifies RS256 / EdDSA access tokens against the backend's JWK Set before
+ * anything is proxied, so bad or expired tokens are answered with a 401 here
+ * instead of costing a GraphQL and a backend hop.
+ *
+ * A verified token's claims are forwarded as X-Auth-Claims with an HMAC in
+ * X-Auth-Claims-Signature (when gateway.auth.claims-secret is set), letting
+ * the backend skip its own signature check. Those headers are always
+ * stripped from the incoming request.
+ *
+ * Tokens without a kid (HS256, issued before the switch) and any token while
+ * the JWK Set cannot be fetched are passed on unverified: the backend still
+ * checks them.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class JwtVerificationFilter extends OncePerRequestFilter {
+
+    public static final String CLAIMS_HEADER = "X-Auth-Claims";
+    public static final String CLAIMS_SIGNATURE_HEADER = "X-Auth-Claims-Signature";
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtVerificationFilter.class);
+
+    private static final String HMAC = "HmacSHA256";
+
+    @Autowired
+    private JwtAuthProperties properties;
+
+    @Autowired
+    private JwksCache jwksCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JwtParser parser;
+
+    private SecretKeySpec claimsKey;
+
+    private List<PathPattern> requiredPaths;
+
+    private List<PathPattern> skipPaths;
+
+    @PostConstruct
+    public void init() {
+        // Only asymmetric algorithms: the key located for a kid is always a public key
+        parser = Jwts.parser()
+                .keyLocator(header -> header instanceof ProtectedHeader protectedHeader
+                        ? jwksCache.get(protectedHeader.getKeyId()) : null)
+                .clockSkewSeconds(properties.getAllowedClockSkew().toSeconds())
+                .build();
+        if (!properties.getClaimsSecret().isEmpty()) {
+            claimsKey = new SecretKeySpec(properties.getClaimsSecret().getBytes(StandardCharsets.UTF_8), HMAC);
+        }
+        requiredPaths = properties.getRequiredPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+        skipPaths = properties.getSkipPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String authorization = request.getHeader("Authorization");
+
+        // Even with verification off, client-supplied claims headers never reach the backend
+        if (!properties.isEnabled() || properties.getJwksUri() == null
+                || request.getMethod().equals("OPTIONS") || matches(skipPaths, path)) {
+            chain.doFilter(new AuthClaimsRequest(request, null, null), response);
+            return;
+        }
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            if (matches(requiredPaths, path)) {
+                reject(request, response, "Full authentication is required to access this resource");
+                return;
+            }
+            chain.doFilter(new AuthClaimsRequest(request, null, null), response);
+            return;
+        }
+
+        String token = authorization.substring(7);
+        JsonNode header = header(token);
+        if (header == null) {
+            reject(request, response, "Invalid token");
+            return;
+        }
+        String kid = header.path("kid").isTextual() ? header.get("kid").asText() : null;
+        if (kid == null || (!jwksCache.isLoaded() && jwksCache.get(kid) == null)) {
+            // HS256 token or no JWK Set yet: left to the backend
+            chain.doFilter(new AuthClaimsRequest(request, null, null), response);
+            return;
+        }
+
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            reject(request, response, "Token expired");
+            return;
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Rejected token: {}", e.getMessage());
+            reject(request, response, "Invalid token");
+            return;
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            reject(request, response, "Invalid token");
+            return;
+        }
+
+        if (claimsKey == null) {
+            chain.doFilter(new AuthClaimsRequest(request, null, null), response);
+            return;
+        }
+        String encoded = encodeClaims(claims, kid);
+        chain.doFilter(new AuthClaimsRequest(request, encoded, sign(encoded)), response);
+    }
+
+    // Decoded token header, null if the token is not a JWT
+    private JsonNode header(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(0, dot)));
+            return header != null && header.isObject() ? header : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String encodeClaims(Claims claims, String kid) throws IOException {
+        Map<String, Object> forwarded = new LinkedHashMap<>();
+        forwarded.put("sub", claims.getSubject());
+        forwarded.put("exp", claims.getExpiration().getTime() / 1000);
+        if (claims.getIssuedAt() != null) {
+            forwarded.put("iat", claims.getIssuedAt().getTime() / 1000);
+        }
+        forwarded.put("kid", kid);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(forwarded));
+    }
+
+    private String sign(String value) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(claimsKey);
+            byte[] signature = mac.doFinal(value.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matches(List<PathPattern> patterns, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same body as the backend's 401, or the GraphQL error shape on /graphql
+    private void reject(HttpServletRequest request, HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader("WWW-Authenticate", "Bearer");
+        Object body;
+        if (request.getRequestURI().startsWith("/graphql")) {
+            body = Map.of("errors", List.of(Map.of("message", message,
+                    "extensions", Map.of("code", "UNAUTHENTICATED"))));
+        } else {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("status", HttpStatus.UNAUTHORIZED.value());
+            error.put("error", "Unauthorized");
+            error.put("message", message);
+            body = error;
+        }
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    // Drops client-supplied claims headers and adds the ones we signed, if any
+    private static class AuthClaimsRequest extends HttpServletRequestWrapper {
+        private final String claims;
+        private final String signature;
+
+        AuthClaimsRequest(HttpServletRequest request, String claims, String signature) {
+            super(request);
+            this.claims = claims;
+            this.signature = signature;
+        }
+
+        private String value(String name) {
+            return CLAIMS_HEADER.equalsIgnoreCase(name) ? claims : signature;
+        }
+
+        private static boolean isClaimsHeader(String name) {
+            return CLAIMS_HEADER.equalsIgnoreCase(name) || CLAIMS_SIGNATURE_HEADER.equalsIgnoreCase(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isClaimsHeader(name) ? value(name) : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!isClaimsHeader(name)) {
+                return super.getHeaders(name);
+            }
+            String value = value(name);
+            return value != null ? Collections.enumeration(Set.of(value)) : Collections.emptyEnumeration();
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            Set<String> names = new LinkedHashSet<>(Collections.list(super.getHeaderNames()));
+            names.removeIf(AuthClaimsRequest::isClaimsHeader);
+            if (claims != null) {
+                names.add(CLAIMS_HEADER);
+                names.add(CLAIMS_SIGNATURE_HEADER);
+            }
+            return Collections.enumeration(names);
+        }
+    }
+}
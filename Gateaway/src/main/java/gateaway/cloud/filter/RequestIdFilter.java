@@ -0,0 +1,79 @@
+package gateaway.cloud.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Gives every request an X-Request-Id (kept if the client sent a sane one).
+ * The id is forwarded upstream, echoed on the response and logged, so a
+ * request can be followed gateway → GraphQL → Spring Boot.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Request-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || requestId.isEmpty() || requestId.length() > 64
+                || !requestId.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.')) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        MDC.put("traceId", requestId);
+        response.setHeader(HEADER, requestId);
+        try {
+            chain.doFilter(new RequestIdRequest(request, requestId), response);
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+
+    // Replaces the incoming header so the proxy forwards the id we settled on
+    private static class RequestIdRequest extends HttpServletRequestWrapper {
+        private final String requestId;
+
+        RequestIdRequest(HttpServletRequest request, String requestId) {
+            super(request);
+            this.requestId = requestId;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HEADER.equalsIgnoreCase(name) ? requestId : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HEADER.equalsIgnoreCase(name)
+                    ? Collections.enumeration(Set.of(requestId))
+                    : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            Set<String> names = new LinkedHashSet<>(Collections.list(super.getHeaderNames()));
+            names.removeIf(HEADER::equalsIgnoreCase);
+            names.add(HEADER);
+            return Collections.enumeration(names);
+        }
+    }
+}
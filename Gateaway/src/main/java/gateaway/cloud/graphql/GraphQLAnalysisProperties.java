@@ -0,0 +1,83 @@
+package gateaway.cloud.graphql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits applied to GraphQL operations before they are forwarded.
+ *
+ * Cost of a field = its weight + its list size × cost of its sub-selection,
+ * so nested lists multiply the same way the upstream fan-out does.
+ */
+@ConfigurationProperties(prefix = "graphql.analysis")
+public class GraphQLAnalysisProperties {
+
+    private boolean enabled = true;
+
+    // Hard limits, exceeding any of them rejects the operation
+    private int maxDepth = 5;
+    private int maxAliases = 15;
+    private long maxCost = 5000;
+    private int maxQueryLength = 20000;
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    // Cost model, keyed by field name
+    private int defaultFieldWeight = 1;
+    private Map<String, Integer> fieldWeights = new HashMap<>();
+    private Map<String, Integer> listSizes = new HashMap<>();
+
+    private boolean introspectionEnabled = true;
+
+    // Analyses kept by query hash, and registered persisted queries kept by their sha256Hash
+    private int cacheSize = 1000;
+
+    // Per-client cost budget (token bucket): sustained rate and burst
+    private long costPerSecond = 5000;
+    private long costBurst = 50000;
+    private int maxTrackedClients = 10000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    public int getMaxAliases() { return maxAliases; }
+    public void setMaxAliases(int maxAliases) { this.maxAliases = maxAliases; }
+
+    public long getMaxCost() { return maxCost; }
+    public void setMaxCost(long maxCost) { this.maxCost = maxCost; }
+
+    public int getMaxQueryLength() { return maxQueryLength; }
+    public void setMaxQueryLength(int maxQueryLength) { this.maxQueryLength = maxQueryLength; }
+
+    public DataSize getMaxBodySize() { return maxBodySize; }
+    public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+
+    public int getDefaultFieldWeight() { return defaultFieldWeight; }
+    public void setDefaultFieldWeight(int defaultFieldWeight) { this.defaultFieldWeight = defaultFieldWeight; }
+
+    public Map<String, Integer> getFieldWeights() { return fieldWeights; }
+    public void setFieldWeights(Map<String, Integer> fieldWeights) { this.fieldWeights = fieldWeights; }
+
+    public Map<String, Integer> getListSizes() { return listSizes; }
+    public void setListSizes(Map<String, Integer> listSizes) { this.listSizes = listSizes; }
+
+    public boolean isIntrospectionEnabled() { return introspectionEnabled; }
+    public void setIntrospectionEnabled(boolean introspectionEnabled) { this.introspectionEnabled = introspectionEnabled; }
+
+    public int getCacheSize() { return cacheSize; }
+    public void setCacheSize(int cacheSize) { this.cacheSize = cacheSize; }
+
+    public long getCostPerSecond() { return costPerSecond; }
+    public void setCostPerSecond(long costPerSecond) { this.costPerSecond = costPerSecond; }
+
+    public long getCostBurst() { return costBurst; }
+    public void setCostBurst(long costBurst) { this.costBurst = costBurst; }
+
+    public int getMaxTrackedClients() { return maxTrackedClients; }
+    public void setMaxTrackedClients(int maxTrackedClients) { this.maxTrackedClients = maxTrackedClients; }
+}
@@ -0,0 +1,119 @@
+package gateaway.cloud.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gateaway.cloud.route.Deadline;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Executes the operations of a batched GraphQL request concurrently,
+ * one virtual thread per operation, over a shared HTTP/2 client so the
+ * upstream connections are reused across batches.
+ */
+@Component
+public class GraphQLBatchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphQLBatchExecutor.class);
+
+    private final GraphQLBatchProperties properties;
+    private final ObjectMapper objectMapper;
+    private final URI upstream;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+
+    @Autowired
+    public GraphQLBatchExecutor(GraphQLBatchProperties properties, ObjectMapper objectMapper,
+                                @Value("${graphql.gateway.url}") String upstreamUrl) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.upstream = URI.create(upstreamUrl);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Run every operation and return the results in request order.
+     * A failed operation yields an error result instead of failing the batch.
+     */
+    public ArrayNode execute(ArrayNode operations, Map<String, String> headers, Deadline deadline) {
+        List<Future<JsonNode>> futures = new ArrayList<>();
+        for (JsonNode operation : operations) {
+            futures.add(executor.submit(() -> send(operation, headers, deadline)));
+        }
+
+        ArrayNode results = objectMapper.createArrayNode();
+        for (Future<JsonNode> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                logger.warn("Batched GraphQL operation failed: {}", e.getCause().toString());
+                results.add(error("Upstream request failed: " + e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(error("Request interrupted"));
+            }
+        }
+        return results;
+    }
+
+    // Each operation waits at most until the request's deadline and passes on the time left
+    private JsonNode send(JsonNode operation, Map<String, String> headers, Deadline deadline) throws Exception {
+        if (deadline != null && deadline.isExpired()) {
+            return error("Deadline exceeded");
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(upstream)
+                .timeout(deadline != null ? deadline.cap(properties.getRequestTimeout()) : properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(operation)));
+        headers.forEach(request::header);
+        if (deadline != null) {
+            request.header(Deadline.HEADER, String.valueOf(Math.max(1, deadline.remainingMillis())));
+        }
+
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (Exception e) {
+            // GraphQL errors come back as JSON, anything else is an upstream failure
+            return error("Upstream responded with HTTP " + response.statusCode());
+        }
+    }
+
+    private ObjectNode error(String message) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.put("message", message);
+        error.putObject("extensions").put("code", "UPSTREAM_ERROR");
+
+        ObjectNode result = objectMapper.createObjectNode();
+        result.putArray("errors").add(error);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,42 @@
+package gateaway.cloud.graphql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Array-batched GraphQL requests, split at the gateway and executed
+ * concurrently against the GraphQL service.
+ */
+@ConfigurationProperties(prefix = "graphql.batch")
+public class GraphQLBatchProperties {
+
+    private boolean enabled = true;
+
+    // Operations allowed in one batch
+    private int maxSize = 10;
+
+    // Request bodies are buffered to be split, up to this size
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    // Per operation; a timed out operation fails alone
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxSize() { return maxSize; }
+    public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+    public DataSize getMaxBodySize() { return maxBodySize; }
+    public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+}
@@ -0,0 +1,73 @@
+package gateaway.cloud.graphql;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-client token bucket over query cost. Cheap operations pass freely,
+ * a client sending expensive operations back to back gets throttled.
+ */
+@Component
+public class GraphQLCostThrottle {
+
+    private final GraphQLAnalysisProperties properties;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GraphQLCostThrottle(GraphQLAnalysisProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Take `cost` tokens from the client's bucket.
+     * Returns 0 if allowed, otherwise the milliseconds until it would be.
+     */
+    public long tryAcquire(String client, long cost) {
+        if (buckets.size() >= properties.getMaxTrackedClients() && !buckets.containsKey(client)) {
+            evictIdle();
+        }
+        Bucket bucket = buckets.computeIfAbsent(client, key -> new Bucket(properties.getCostBurst()));
+        return bucket.tryAcquire(cost, properties.getCostPerSecond(), properties.getCostBurst());
+    }
+
+    // Buckets that have refilled completely carry no state worth keeping
+    private void evictIdle() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now,
+                properties.getCostPerSecond(), properties.getCostBurst()));
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        Bucket(long burst) {
+            this.tokens = burst;
+        }
+
+        synchronized long tryAcquire(long cost, long ratePerSecond, long burst) {
+            refill(System.nanoTime(), ratePerSecond, burst);
+            if (tokens >= cost) {
+                tokens -= cost;
+                return 0;
+            }
+            // An operation costlier than the whole burst could never pass
+            if (cost > burst) {
+                return -1;
+            }
+            return (long) Math.ceil((cost - tokens) * 1000.0 / ratePerSecond);
+        }
+
+        synchronized boolean isFull(long now, long ratePerSecond, long burst) {
+            refill(now, ratePerSecond, burst);
+            return tokens >= burst;
+        }
+
+        private void refill(long now, long ratePerSecond, long burst) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerSecond / 1_000_000_000.0);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package gateaway.cloud.graphql;
+
+import gateaway.cloud.graphql.GraphQLQueryParser.Document;
+import gateaway.cloud.graphql.GraphQLQueryParser.GraphQLSyntaxException;
+import gateaway.cloud.graphql.GraphQLQueryParser.Operation;
+import gateaway.cloud.graphql.GraphQLQueryParser.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes depth, alias count and estimated cost of GraphQL operations
+ * and checks them against the configured limits. Results are cached by
+ * query hash, so repeated operations are not parsed again.
+ * Persisted queries are analyzed when a client registers them (query and
+ * sha256Hash together); later hash-only requests are charged that analysis.
+ */
+@Component
+public class GraphQLQueryAnalyzer {
+
+    // Nesting allowed beyond max-depth while parsing and expanding fragments
+    private static final int NESTING_MARGIN = 10;
+
+    private final GraphQLAnalysisProperties properties;
+
+    // Access-ordered so the least recently used analysis is evicted first
+    private final LinkedHashMap<String, QueryAnalysis> cache;
+
+    // Analyses of registered persisted queries, by sha256Hash and operation name
+    private final LinkedHashMap<String, QueryAnalysis> persisted;
+
+    @Autowired
+    public GraphQLQueryAnalyzer(GraphQLAnalysisProperties properties) {
+        this.properties = properties;
+        this.cache = lruMap(properties);
+        this.persisted = lruMap(properties);
+    }
+
+    /**
+     * Analyze the operation to be executed (operationName may be null)
+     */
+    public QueryAnalysis analyze(String query, String operationName) {
+        if (query == null || query.isBlank()) {
+            return QueryAnalysis.invalid("Missing query");
+        }
+        if (query.length() > properties.getMaxQueryLength()) {
+            return QueryAnalysis.invalid("Query is longer than " + properties.getMaxQueryLength() + " characters");
+        }
+
+        String key = hash(query, operationName);
+        synchronized (cache) {
+            QueryAnalysis cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        QueryAnalysis analysis = check(compute(query, operationName));
+        synchronized (cache) {
+            cache.put(key, analysis);
+        }
+        return analysis;
+    }
+
+    /**
+     * Analyze a query sent with its persisted-query hash and keep the
+     * analysis for later requests that only send the hash
+     */
+    public QueryAnalysis register(String sha256Hash, String query, String operationName) {
+        QueryAnalysis analysis = analyze(query, operationName);
+        if (analysis.isRejected()) {
+            return analysis;
+        }
+        // Otherwise a cheap query could be registered under an expensive one's hash
+        if (!digest(query.getBytes(StandardCharsets.UTF_8)).equalsIgnoreCase(sha256Hash)) {
+            return QueryAnalysis.invalid("provided sha does not match query");
+        }
+        synchronized (persisted) {
+            persisted.put(persistedKey(sha256Hash, operationName), analysis);
+        }
+        return analysis;
+    }
+
+    /**
+     * Analysis of a persisted query registered here, null if its hash is unknown
+     */
+    public QueryAnalysis analyzePersisted(String sha256Hash, String operationName) {
+        synchronized (persisted) {
+            return persisted.get(persistedKey(sha256Hash, operationName));
+        }
+    }
+
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        synchronized (persisted) {
+            persisted.clear();
+        }
+    }
+
+    private QueryAnalysis compute(String query, String operationName) {
+        Document document;
+        try {
+            // Inline fragments, list values and the like nest without adding
+            // depth, hence the margin; anything beyond is rejected unparsed
+            document = GraphQLQueryParser.parse(query, properties.getMaxDepth() + NESTING_MARGIN);
+        } catch (GraphQLSyntaxException e) {
+            return QueryAnalysis.invalid("Syntax error: " + e.getMessage());
+        }
+
+        Operation operation = selectOperation(document, operationName);
+        if (operation == null) {
+            return QueryAnalysis.invalid(operationName == null
+                    ? "Operation name is required when the document has several operations"
+                    : "Unknown operation '" + operationName + "'");
+        }
+
+        try {
+            Totals totals = new Walker(document.getFragments()).selectionSet(operation.getSelections());
+            return new QueryAnalysis(totals.depth, totals.aliases, totals.fields, totals.cost, null);
+        } catch (GraphQLSyntaxException e) {
+            return QueryAnalysis.invalid(e.getMessage());
+        }
+    }
+
+    private Operation selectOperation(Document document, String operationName) {
+        List<Operation> operations = document.getOperations();
+        if (operationName == null || operationName.isEmpty()) {
+            return operations.size() == 1 ? operations.get(0) : null;
+        }
+        for (Operation operation : operations) {
+            if (operationName.equals(operation.getName())) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    private QueryAnalysis check(QueryAnalysis analysis) {
+        if (analysis.isRejected()) {
+            return analysis;
+        }
+        if (analysis.getDepth() > properties.getMaxDepth()) {
+            return analysis.withError("Query depth " + analysis.getDepth()
+                    + " exceeds the maximum of " + properties.getMaxDepth());
+        }
+        if (analysis.getAliases() > properties.getMaxAliases()) {
+            return analysis.withError("Query uses " + analysis.getAliases()
+                    + " aliases, the maximum is " + properties.getMaxAliases());
+        }
+        if (analysis.getCost() > properties.getMaxCost()) {
+            return analysis.withError("Query cost " + analysis.getCost()
+                    + " exceeds the maximum of " + properties.getMaxCost());
+        }
+        return analysis;
+    }
+
+    private static String hash(String query, String operationName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (operationName != null) {
+                digest.update(operationName.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            digest.update(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String persistedKey(String sha256Hash, String operationName) {
+        return sha256Hash.toLowerCase() + (operationName != null && !operationName.isEmpty() ? "/" + operationName : "");
+    }
+
+    private static LinkedHashMap<String, QueryAnalysis> lruMap(GraphQLAnalysisProperties properties) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryAnalysis> eldest) {
+                return size() > properties.getCacheSize();
+            }
+        };
+    }
+
+    /**
+     * Walks a selection tree. Fragment totals are memoized, so a document
+     * that reuses fragments many times is still analyzed in linear time.
+     */
+    private class Walker {
+        private final Map<String, List<Selection>> fragments;
+        private final Map<String, Totals> fragmentTotals = new HashMap<>();
+        private final Set<String> visiting = new HashSet<>();
+
+        Walker(Map<String, List<Selection>> fragments) {
+            this.fragments = fragments;
+        }
+
+        Totals selectionSet(List<Selection> selections) {
+            Totals totals = new Totals();
+            for (Selection selection : selections) {
+                switch (selection.getKind()) {
+                    case FIELD -> totals.add(field(selection));
+                    case INLINE_FRAGMENT -> totals.add(selectionSet(selection.getChildren()));
+                    case FRAGMENT_SPREAD -> totals.add(fragment(selection.getName()));
+                }
+            }
+            return totals;
+        }
+
+        private Totals field(Selection field) {
+            Totals totals = new Totals();
+            String name = field.getName();
+
+            // Introspection is answered by the GraphQL service itself
+            if (name.startsWith("__")) {
+                if (!properties.isIntrospectionEnabled() && !name.equals("__typename")) {
+                    throw new GraphQLSyntaxException("Introspection is disabled");
+                }
+                return totals;
+            }
+
+            Totals children = selectionSet(field.getChildren());
+            int weight = properties.getFieldWeights().getOrDefault(name, properties.getDefaultFieldWeight());
+            int listSize = properties.getListSizes().getOrDefault(name, 1);
+
+            totals.cost = saturatedAdd(weight, saturatedMultiply(listSize, children.cost));
+            totals.depth = children.depth + 1;
+            totals.aliases = children.aliases + (field.getAlias() != null ? 1 : 0);
+            totals.fields = children.fields + 1;
+            return totals;
+        }
+
+        private Totals fragment(String name) {
+            Totals memo = fragmentTotals.get(name);
+            if (memo != null) {
+                return memo;
+            }
+            List<Selection> selections = fragments.get(name);
+            if (selections == null) {
+                throw new GraphQLSyntaxException("Unknown fragment '" + name + "'");
+            }
+            if (!visiting.add(name)) {
+                throw new GraphQLSyntaxException("Fragment '" + name + "' spreads itself");
+            }
+            if (visiting.size() > properties.getMaxDepth() + NESTING_MARGIN) {
+                throw new GraphQLSyntaxException("Fragments nested deeper than "
+                        + (properties.getMaxDepth() + NESTING_MARGIN) + " levels");
+            }
+            Totals totals = selectionSet(selections);
+            visiting.remove(name);
+            fragmentTotals.put(name, totals);
+            return totals;
+        }
+    }
+
+    private static class Totals {
+        private long cost;
+        private int depth;
+        private int aliases;
+        private int fields;
+
+        void add(Totals other) {
+            cost = saturatedAdd(cost, other.cost);
+            depth = Math.max(depth, other.depth);
+            aliases = (int) Math.min(Integer.MAX_VALUE, (long) aliases + other.aliases);
+            fields = (int) Math.min(Integer.MAX_VALUE, (long) fields + other.fields);
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+}
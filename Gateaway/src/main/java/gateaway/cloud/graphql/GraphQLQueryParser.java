@@ -0,0 +1,414 @@
+package gateaway.cloud.graphql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal GraphQL document parser.
+ * Keeps only what the analyzer needs: operations, fragments and the
+ * field / fragment-spread / inline-fragment tree. Arguments, variables
+ * and directives are syntax-checked and skipped.
+ *
+ * Selection sets, list / object values and list types count as one level of
+ * nesting each; a document nested deeper than maxNesting is rejected before
+ * the recursion can run out of stack.
+ */
+public class GraphQLQueryParser {
+
+    public static final int DEFAULT_MAX_NESTING = 64;
+
+    private final String source;
+    private final int maxNesting;
+    private int pos;
+    private int nesting;
+
+    private GraphQLQueryParser(String source, int maxNesting) {
+        this.source = source;
+        this.maxNesting = maxNesting;
+    }
+
+    public static Document parse(String query) {
+        return parse(query, DEFAULT_MAX_NESTING);
+    }
+
+    public static Document parse(String query, int maxNesting) {
+        GraphQLQueryParser parser = new GraphQLQueryParser(query, maxNesting);
+        return parser.document();
+    }
+
+    // ===================================================================
+    // DOCUMENT
+    // ===================================================================
+
+    private Document document() {
+        Document document = new Document();
+        skipIgnored();
+        if (atEnd()) {
+            throw error("Empty document");
+        }
+        while (!atEnd()) {
+            if (peek() == '{') {
+                document.operations.add(new Operation("query", null, selectionSet()));
+            } else {
+                String keyword = name();
+                switch (keyword) {
+                    case "query", "mutation", "subscription" -> document.operations.add(operation(keyword));
+                    case "fragment" -> {
+                        String fragmentName = name();
+                        expectName("on");
+                        name();
+                        directives();
+                        document.fragments.put(fragmentName, selectionSet());
+                    }
+                    default -> throw error("Unexpected definition '" + keyword + "'");
+                }
+            }
+            skipIgnored();
+        }
+        return document;
+    }
+
+    private Operation operation(String type) {
+        String operationName = null;
+        if (isNameStart(peek())) {
+            operationName = name();
+        }
+        if (peek() == '(') {
+            variableDefinitions();
+        }
+        directives();
+        return new Operation(type, operationName, selectionSet());
+    }
+
+    private void variableDefinitions() {
+        expect('(');
+        while (peek() != ')') {
+            expect('$');
+            name();
+            expect(':');
+            type();
+            if (peek() == '=') {
+                expect('=');
+                value();
+            }
+            directives();
+        }
+        expect(')');
+    }
+
+    private void type() {
+        if (peek() == '[') {
+            expect('[');
+            enter();
+            type();
+            nesting--;
+            expect(']');
+        } else {
+            name();
+        }
+        if (peek() == '!') {
+            expect('!');
+        }
+    }
+
+    // ===================================================================
+    // SELECTIONS
+    // ===================================================================
+
+    private List<Selection> selectionSet() {
+        expect('{');
+        enter();
+        List<Selection> selections = new ArrayList<>();
+        while (peek() != '}') {
+            selections.add(selection());
+        }
+        nesting--;
+        expect('}');
+        if (selections.isEmpty()) {
+            throw error("Empty selection set");
+        }
+        return selections;
+    }
+
+    private Selection selection() {
+        if (peek() == '.') {
+            expectSpread();
+            if (isNameStart(peek())) {
+                String name = name();
+                if (!name.equals("on")) {
+                    directives();
+                    return Selection.spread(name);
+                }
+                // Inline fragment type condition
+                name();
+            }
+            directives();
+            return Selection.inline(selectionSet());
+        }
+
+        String alias = null;
+        String name = name();
+        if (peek() == ':') {
+            expect(':');
+            alias = name;
+            name = name();
+        }
+        if (peek() == '(') {
+            arguments();
+        }
+        directives();
+        List<Selection> children = peek() == '{' ? selectionSet() : List.of();
+        return Selection.field(alias, name, children);
+    }
+
+    private void arguments() {
+        expect('(');
+        while (peek() != ')') {
+            name();
+            expect(':');
+            value();
+        }
+        expect(')');
+    }
+
+    private void directives() {
+        while (peek() == '@') {
+            expect('@');
+            name();
+            if (peek() == '(') {
+                arguments();
+            }
+        }
+    }
+
+    private void value() {
+        char c = peek();
+        switch (c) {
+            case '$' -> {
+                expect('$');
+                name();
+            }
+            case '[' -> {
+                expect('[');
+                enter();
+                while (peek() != ']') {
+                    value();
+                }
+                nesting--;
+                expect(']');
+            }
+            case '{' -> {
+                expect('{');
+                enter();
+                while (peek() != '}') {
+                    name();
+                    expect(':');
+                    value();
+                }
+                nesting--;
+                expect('}');
+            }
+            case '"' -> string();
+            default -> {
+                if (c == '-' || Character.isDigit(c)) {
+                    number();
+                } else {
+                    name();
+                }
+            }
+        }
+    }
+
+    private void enter() {
+        if (++nesting > maxNesting) {
+            throw error("Document nested deeper than " + maxNesting + " levels");
+        }
+    }
+
+    // ===================================================================
+    // LEXER
+    // ===================================================================
+
+    private void string() {
+        if (source.startsWith("\"\"\"", pos)) {
+            int end = source.indexOf("\"\"\"", pos + 3);
+            if (end < 0) {
+                throw error("Unterminated block string");
+            }
+            pos = end + 3;
+        } else {
+            pos++;
+            while (true) {
+                if (atEnd() || source.charAt(pos) == '\n') {
+                    throw error("Unterminated string");
+                }
+                char c = source.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '"') {
+                    break;
+                }
+            }
+        }
+        skipIgnored();
+    }
+
+    private void number() {
+        int start = pos;
+        while (pos < source.length() && isNumberPart(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start) {
+            throw error("Expected number");
+        }
+        skipIgnored();
+    }
+
+    private String name() {
+        if (atEnd() || !isNameStart(source.charAt(pos))) {
+            throw error("Expected name");
+        }
+        int start = pos;
+        while (pos < source.length() && isNamePart(source.charAt(pos))) {
+            pos++;
+        }
+        String name = source.substring(start, pos);
+        skipIgnored();
+        return name;
+    }
+
+    private void expectName(String expected) {
+        String actual = name();
+        if (!actual.equals(expected)) {
+            throw error("Expected '" + expected + "' but found '" + actual + "'");
+        }
+    }
+
+    private void expectSpread() {
+        if (!source.startsWith("...", pos)) {
+            throw error("Expected '...'");
+        }
+        pos += 3;
+        skipIgnored();
+    }
+
+    private void expect(char c) {
+        if (atEnd() || source.charAt(pos) != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+        skipIgnored();
+    }
+
+    private char peek() {
+        if (atEnd()) {
+            throw error("Unexpected end of document");
+        }
+        return source.charAt(pos);
+    }
+
+    private boolean atEnd() {
+        return pos >= source.length();
+    }
+
+    // Whitespace, commas, BOM and comments are insignificant
+    private void skipIgnored() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '#') {
+                while (pos < source.length() && source.charAt(pos) != '\n' && source.charAt(pos) != '\r') {
+                    pos++;
+                }
+            } else if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == ',' || c == '\uFEFF') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isNameStart(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isNumberPart(char c) {
+        return Character.isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private GraphQLSyntaxException error(String message) {
+        return new GraphQLSyntaxException(message + " at position " + pos);
+    }
+
+    // ===================================================================
+    // AST
+    // ===================================================================
+
+    public static class Document {
+        private final List<Operation> operations = new ArrayList<>();
+        private final Map<String, List<Selection>> fragments = new HashMap<>();
+
+        public List<Operation> getOperations() { return operations; }
+        public Map<String, List<Selection>> getFragments() { return fragments; }
+    }
+
+    public static class Operation {
+        private final String type;
+        private final String name;
+        private final List<Selection> selections;
+
+        Operation(String type, String name, List<Selection> selections) {
+            this.type = type;
+            this.name = name;
+            this.selections = selections;
+        }
+
+        public String getType() { return type; }
+        public String getName() { return name; }
+        public List<Selection> getSelections() { return selections; }
+    }
+
+    public static class Selection {
+        public enum Kind { FIELD, FRAGMENT_SPREAD, INLINE_FRAGMENT }
+
+        private final Kind kind;
+        private final String alias;
+        private final String name;
+        private final List<Selection> children;
+
+        private Selection(Kind kind, String alias, String name, List<Selection> children) {
+            this.kind = kind;
+            this.alias = alias;
+            this.name = name;
+            this.children = children;
+        }
+
+        static Selection field(String alias, String name, List<Selection> children) {
+            return new Selection(Kind.FIELD, alias, name, children);
+        }
+
+        static Selection spread(String fragmentName) {
+            return new Selection(Kind.FRAGMENT_SPREAD, null, fragmentName, List.of());
+        }
+
+        static Selection inline(List<Selection> children) {
+            return new Selection(Kind.INLINE_FRAGMENT, null, null, children);
+        }
+
+        public Kind getKind() { return kind; }
+        public String getAlias() { return alias; }
+        public String getName() { return name; }
+        public List<Selection> getChildren() { return children; }
+    }
+
+    public static class GraphQLSyntaxException extends RuntimeException {
+        public GraphQLSyntaxException(String message) {
+            super(message);
+        }
+    }
+}
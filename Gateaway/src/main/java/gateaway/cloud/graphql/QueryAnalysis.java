@@ -0,0 +1,39 @@
+package gateaway.cloud.graphql;
+
+/**
+ * Result of analyzing one GraphQL operation
+ */
+public class QueryAnalysis {
+
+    private final int depth;
+    private final int aliases;
+    private final int fields;
+    private final long cost;
+    private final String error;
+
+    QueryAnalysis(int depth, int aliases, int fields, long cost, String error) {
+        this.depth = depth;
+        this.aliases = aliases;
+        this.fields = fields;
+        this.cost = cost;
+        this.error = error;
+    }
+
+    static QueryAnalysis invalid(String error) {
+        return new QueryAnalysis(0, 0, 0, 0, error);
+    }
+
+    QueryAnalysis withError(String error) {
+        return new QueryAnalysis(depth, aliases, fields, cost, error);
+    }
+
+    public int getDepth() { return depth; }
+    public int getAliases() { return aliases; }
+    public int getFields() { return fields; }
+    public long getCost() { return cost; }
+
+    // Null when the operation is within all limits
+    public String getError() { return error; }
+
+    public boolean isRejected() { return error != null; }
+}
@@ -0,0 +1,59 @@
+package gateaway.cloud.route;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time (System.nanoTime()) after which nobody waits for a request's
+ * answer any more. Set by DeadlineFilter as a request attribute.
+ */
+public class Deadline {
+
+    // Milliseconds the sender will still wait, relative so clocks need not agree
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final String ATTRIBUTE = Deadline.class.getName();
+
+    private final String route;
+    private final long nanos;
+
+    public Deadline(String route, long budgetMillis) {
+        this.route = route;
+        this.nanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Deadline of a request, null if DeadlineFilter is off
+     */
+    public static Deadline of(HttpServletRequest request) {
+        return (Deadline) request.getAttribute(ATTRIBUTE);
+    }
+
+    public void attachTo(HttpServletRequest request) {
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    /**
+     * Milliseconds left, 0 or less once passed
+     */
+    public long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return nanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The shorter of a configured timeout and the time left, at least 1 ms
+     */
+    public Duration cap(Duration timeout) {
+        return Duration.ofMillis(Math.max(1, Math.min(timeout.toMillis(), remainingMillis())));
+    }
+}
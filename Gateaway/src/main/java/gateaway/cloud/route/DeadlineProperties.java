@@ -0,0 +1,49 @@
+package gateaway.cloud.route;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time budget per route. The gateway stops waiting once a request's budget
+ * is spent and forwards what is left upstream (X-Request-Timeout-Ms), so the
+ * GraphQL service and the backend give up at the same moment.
+ */
+@ConfigurationProperties(prefix = "gateway.deadline")
+public class DeadlineProperties {
+
+    private boolean enabled = true;
+
+    // For paths no route matches
+    private Duration defaultBudget = Duration.ofSeconds(30);
+
+    // Keyed by route id, first matching route wins
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getDefaultBudget() { return defaultBudget; }
+    public void setDefaultBudget(Duration defaultBudget) { this.defaultBudget = defaultBudget; }
+
+    public Map<String, Route> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Route> routes) { this.routes = routes; }
+
+    public static class Route {
+
+        private List<String> paths = new ArrayList<>();
+
+        // Whole request including retries; a client may ask for less with its own header
+        private Duration budget = Duration.ofSeconds(10);
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public Duration getBudget() { return budget; }
+        public void setBudget(Duration budget) { this.budget = budget; }
+    }
+}
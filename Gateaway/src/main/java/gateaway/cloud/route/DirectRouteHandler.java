@@ -0,0 +1,207 @@
+package gateaway.cloud.route;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.function.HandlerFunction;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Proxies one direct route to its backend instances with a per-route
+ * timeout and retry policy. Request bodies are buffered so a retry can
+ * resend them, up to the route's max-body-size (413 above it); response
+ * bodies are streamed through.
+ * Attempts and backoffs stay within the request's Deadline; the time
+ * left is sent to the backend with every attempt.
+ */
+public class DirectRouteHandler implements HandlerFunction<ServerResponse> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectRouteHandler.class);
+
+    // Hop-by-hop headers plus the ones HttpClient sets itself
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "keep-alive", "proxy-connection",
+            "te", "trailer", "transfer-encoding", "upgrade", "origin", Deadline.HEADER.toLowerCase(Locale.ROOT));
+
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade");
+
+    private final String id;
+    private final DirectRouteProperties.Route route;
+    private final HttpClient httpClient;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public DirectRouteHandler(String id, DirectRouteProperties.Route route) {
+        if (route.getUris().isEmpty()) {
+            throw new IllegalArgumentException("Direct route '" + id + "' has no uris");
+        }
+        this.id = id;
+        this.route = route;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(route.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public ServerResponse handle(ServerRequest request) throws Exception {
+        HttpServletRequest servletRequest = request.servletRequest();
+        String method = servletRequest.getMethod();
+        byte[] body = body(servletRequest);
+        if (body == null) {
+            return error(HttpStatus.PAYLOAD_TOO_LARGE, "Request body exceeds " + route.getMaxBodySize().toBytes() + " bytes");
+        }
+        // The backend deduplicates requests carrying an Idempotency-Key, so those are safe to retry too
+        boolean idempotent = route.getRetryMethods().contains(method)
+                || servletRequest.getHeader("Idempotency-Key") != null;
+
+        Deadline deadline = Deadline.of(servletRequest);
+
+        List<URI> uris = route.getUris();
+        int first = Math.floorMod(next.getAndIncrement(), uris.size());
+        for (int attempt = 0; ; attempt++) {
+            URI target = target(uris.get((first + attempt) % uris.size()), servletRequest);
+            boolean last = attempt >= route.getRetries();
+            if (deadline != null && deadline.isExpired()) {
+                logger.debug("Route {}: {} {} deadline passed before attempt {}", id, method, target, attempt + 1);
+                return error(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded");
+            }
+            try {
+                HttpResponse<InputStream> response = httpClient.send(
+                        upstreamRequest(target, method, body, servletRequest, deadline),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                if (!last && idempotent && route.getRetryStatuses().contains(response.statusCode())) {
+                    logger.debug("Route {}: {} {} answered {}, retrying", id, method, target, response.statusCode());
+                    response.body().close();
+                    backoff(attempt, deadline);
+                    continue;
+                }
+                return toServerResponse(response);
+            } catch (IOException e) {
+                // A connect failure never reached the backend, so any method is safe to retry
+                boolean notSent = e instanceof ConnectException || e instanceof HttpConnectTimeoutException;
+                if (last || !(idempotent || notSent)) {
+                    logger.warn("Route {}: {} {} failed: {}", id, method, target, e.toString());
+                    return error(e instanceof HttpTimeoutException ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.BAD_GATEWAY,
+                            e instanceof HttpTimeoutException ? "Upstream timed out" : "Upstream unavailable");
+                }
+                logger.debug("Route {}: {} {} failed ({}), retrying", id, method, target, e.toString());
+                backoff(attempt, deadline);
+            }
+        }
+    }
+
+    // The request body, or null if it is larger than the route allows
+    private byte[] body(HttpServletRequest request) throws IOException {
+        long limit = route.getMaxBodySize().toBytes();
+        if (request.getContentLengthLong() > limit) {
+            return null;
+        }
+        // Chunked bodies have no length up front: read one byte past the limit to detect them
+        byte[] body = request.getInputStream().readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+        return body.length > limit ? null : body;
+    }
+
+    // Backend base URI + the incoming path and raw query string
+    private URI target(URI base, HttpServletRequest request) {
+        String prefix = base.toString();
+        if (prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        String query = request.getQueryString();
+        return URI.create(prefix + request.getRequestURI() + (query != null ? "?" + query : ""));
+    }
+
+    private HttpRequest upstreamRequest(URI target, String method, byte[] body, HttpServletRequest request,
+                                        Deadline deadline) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+                .timeout(deadline != null ? deadline.cap(route.getTimeout()) : route.getTimeout())
+                .method(method, body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if ("http".equals(target.getScheme())) {
+            // No h2c upgrade attempt against plain HTTP backends
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (SKIPPED_REQUEST_HEADERS.contains(lower) || lower.startsWith("x-forwarded-")) {
+                continue;
+            }
+            Enumeration<String> values = request.getHeaders(name);
+            while (values.hasMoreElements()) {
+                builder.header(name, values.nextElement());
+            }
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        builder.header("X-Forwarded-For", forwardedFor != null
+                ? forwardedFor + ", " + request.getRemoteAddr()
+                : request.getRemoteAddr());
+        builder.header("X-Forwarded-Proto", request.getScheme());
+        if (deadline != null) {
+            builder.header(Deadline.HEADER, String.valueOf(Math.max(1, deadline.remainingMillis())));
+        }
+        if (request.getHeader("Host") != null) {
+            builder.header("X-Forwarded-Host", request.getHeader("Host"));
+        }
+        return builder.build();
+    }
+
+    private ServerResponse toServerResponse(HttpResponse<InputStream> response) {
+        return ServerResponse.status(response.statusCode())
+                .headers(headers -> response.headers().map().forEach((name, values) -> {
+                    String lower = name.toLowerCase(Locale.ROOT);
+                    // CORS is answered by the gateway's own CorsFilter
+                    if (!lower.startsWith(":") && !lower.startsWith("access-control-")
+                            && !SKIPPED_RESPONSE_HEADERS.contains(lower)) {
+                        headers.addAll(name, values);
+                    }
+                }))
+                .build((servletRequest, servletResponse) -> {
+                    try (InputStream in = response.body()) {
+                        OutputStream out = servletResponse.getOutputStream();
+                        in.transferTo(out);
+                        out.flush();
+                    }
+                    return null;
+                });
+    }
+
+    private ServerResponse error(HttpStatus status, String message) {
+        return ServerResponse.status(status).body(Map.of("error", message, "route", id));
+    }
+
+    // Never sleeps past the deadline, the next attempt then answers 504
+    private void backoff(int attempt, Deadline deadline) throws InterruptedException {
+        long millis = route.getRetryBackoff().toMillis() << Math.min(attempt, 10);
+        if (deadline != null) {
+            millis = Math.min(millis, Math.max(0, deadline.remainingMillis()));
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package gateaway.cloud.route;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST routes forwarded straight to backend instances, skipping the
+ * GraphQL service hop. Keyed by route id.
+ */
+@ConfigurationProperties(prefix = "gateway.direct")
+public class DirectRouteProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Map<String, Route> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Route> routes) { this.routes = routes; }
+
+    public static class Route {
+
+        // Path patterns, e.g. /api/students/** (also matches /api/students)
+        private List<String> paths = new ArrayList<>();
+
+        // Backend instances, used round robin; a retry goes to the next one
+        private List<URI> uris = new ArrayList<>();
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        // Until the response headers arrive, per attempt
+        private Duration timeout = Duration.ofSeconds(10);
+
+        // Extra attempts after the first one
+        private int retries = 2;
+
+        // Doubled on every retry
+        private Duration retryBackoff = Duration.ofMillis(50);
+
+        // Only idempotent methods are retried after the request reached a backend
+        private List<String> retryMethods = new ArrayList<>(List.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE"));
+
+        private List<Integer> retryStatuses = new ArrayList<>(List.of(502, 503, 504));
+
+        // Request bodies are buffered to be resent on retry, larger ones get a 413
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public List<URI> getUris() { return uris; }
+        public void setUris(List<URI> uris) { this.uris = uris; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public int getRetries() { return retries; }
+        public void setRetries(int retries) { this.retries = retries; }
+
+        public Duration getRetryBackoff() { return retryBackoff; }
+        public void setRetryBackoff(Duration retryBackoff) { this.retryBackoff = retryBackoff; }
+
+        public List<String> getRetryMethods() { return retryMethods; }
+        public void setRetryMethods(List<String> retryMethods) { this.retryMethods = retryMethods; }
+
+        public List<Integer> getRetryStatuses() { return retryStatuses; }
+        public void setRetryStatuses(List<Integer> retryStatuses) { this.retryStatuses = retryStatuses; }
+
+        public DataSize getMaxBodySize() { return maxBodySize; }
+        public void setMaxBodySize(DataSize maxBodySize) { this.maxBodySize = maxBodySize; }
+    }
+}
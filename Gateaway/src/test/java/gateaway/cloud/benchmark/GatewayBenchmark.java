@@ -0,0 +1,205 @@
+package gateaway.cloud.benchmark;
+
+import gateaway.cloud.CloudApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Offline benchmark of the gateway's proxy paths against a local stub upstream.
+ *
+ * Starts StubUpstream, boots the gateway in-process with graphql.gateway.url and
+ * backend.spring.urls pointed at it, then drives open-model load (LoadGenerator)
+ * at each rate through every scenario:
+ *
+ *   direct         POST /graphql on the stub itself, the baseline without gateway
+ *   graphql        POST /graphql through the gateway route (GatewayConfig)
+ *   graphql-batch  POST /graphql with a JSON array, split by GraphQLBatchFilter
+ *   rest           GET /api/students through the direct route (DirectRouteHandler)
+ *
+ * "overhead" is the client latency minus the stub's own time for the same request,
+ * i.e. what the gateway (and loopback networking) adds. Last, a fixed number of
+ * requests is held open in the stub to measure heap and threads per in-flight
+ * request, via the gateway minus directly.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=gateaway.cloud.benchmark.GatewayBenchmark \
+ *       -Drates=100,500,1000 -Dlatency=lognormal:20:0.5 -DerrorRate=0.01
+ *
+ * Settings (system properties): rates, duration (s, per rate), warmup (s),
+ * scenarios, latency (see StubUpstream.LatencyDistribution), errorRate, dropRate,
+ * stallRate, stall (ms), payloadBytes, batchSize, maxInFlight, holdRequests.
+ */
+public class GatewayBenchmark {
+
+    private static final String QUERY = "{\"query\":\"query { allStudents { id firstName lastName email } }\"}";
+
+    public static void main(String[] args) throws Exception {
+        double[] rates = doubles(System.getProperty("rates", "100,500,1000"));
+        Duration duration = Duration.ofSeconds(Long.getLong("duration", 20));
+        Duration warmup = Duration.ofSeconds(Long.getLong("warmup", 10));
+        List<String> scenarioNames = List.of(System.getProperty("scenarios", "direct,graphql,graphql-batch,rest").split(","));
+        int batchSize = Integer.getInteger("batchSize", 3);
+        int maxInFlight = Integer.getInteger("maxInFlight", 2000);
+        int holdRequests = Integer.getInteger("holdRequests", 100);
+
+        StubUpstream.Settings settings = new StubUpstream.Settings(
+                StubUpstream.LatencyDistribution.parse(System.getProperty("latency", "lognormal:20:0.5")),
+                Double.parseDouble(System.getProperty("errorRate", "0")),
+                Double.parseDouble(System.getProperty("dropRate", "0")),
+                Double.parseDouble(System.getProperty("stallRate", "0")),
+                Duration.ofMillis(Long.getLong("stall", 5000)),
+                Integer.getInteger("payloadBytes", 4096));
+
+        try (StubUpstream stub = new StubUpstream(settings);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String stubUrl = "http://127.0.0.1:" + stub.getPort();
+            ConfigurableApplicationContext gateway = startGateway(stubUrl);
+            String gatewayUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) gateway).getWebServer().getPort();
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            Map<String, Supplier<HttpRequest>> scenarios = scenarios(stubUrl, gatewayUrl, batchSize);
+            LoadGenerator load = new LoadGenerator(client, maxInFlight);
+
+            List<String> rows = new ArrayList<>();
+            rows.add(String.format("%-14s %6s %8s %8s %8s %8s %8s %8s %9s %9s %9s %9s %7s %7s",
+                    "scenario", "rate", "req/s", "p50", "p90", "p99", "p99.9", "max",
+                    "up p50", "up p99", "ovh p50", "ovh p99", "errors", "dropped"));
+            for (String name : scenarioNames) {
+                Supplier<HttpRequest> scenario = scenarios.get(name.trim());
+                if (scenario == null) {
+                    throw new IllegalArgumentException("Unknown scenario: " + name);
+                }
+                System.out.printf("%s: warming up for %ds%n", name, warmup.toSeconds());
+                load.run(scenario, rates[0], warmup);
+
+                for (double rate : rates) {
+                    LoadGenerator.Result result = load.run(scenario, rate, duration);
+                    String row = String.format("%-14s %6.0f %8.0f %8.2f %8.2f %8.2f %8.2f %8.2f %9.2f %9.2f %9.2f %9.2f %7d %7d",
+                            name, rate, result.throughput(), result.latency(0.5), result.latency(0.9),
+                            result.latency(0.99), result.latency(0.999), result.latency(1.0),
+                            result.upstream(0.5), result.upstream(0.99), result.overhead(0.5), result.overhead(0.99),
+                            result.getErrors(), result.getDropped());
+                    System.out.println(row);
+                    rows.add(row);
+                }
+            }
+
+            System.out.printf("%nStub %s, %d byte payloads, errors %s, drops %s, stalls %s; latencies in ms%n",
+                    System.getProperty("latency", "lognormal:20:0.5"), Integer.getInteger("payloadBytes", 4096),
+                    System.getProperty("errorRate", "0"), System.getProperty("dropRate", "0"),
+                    System.getProperty("stallRate", "0"));
+            rows.forEach(System.out::println);
+
+            memoryPerInFlight(stub, client, scenarios, holdRequests);
+            gateway.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startGateway(String stubUrl) {
+        // Command line arguments take precedence over application.properties
+        return new SpringApplicationBuilder(CloudApplication.class).run(
+                "--server.port=0",
+                "--graphql.gateway.url=" + stubUrl + "/graphql",
+                "--backend.spring.urls=" + stubUrl,
+                // Measure the proxy path, not the per-client cost budget
+                "--graphql.analysis.cost-per-second=1000000000",
+                "--graphql.analysis.cost-burst=1000000000",
+                "--graphql.batch.max-size=100",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.cloud.gateway=WARN",
+                "--logging.level.org.springframework.web=WARN");
+    }
+
+    private static Map<String, Supplier<HttpRequest>> scenarios(String stubUrl, String gatewayUrl, int batchSize) {
+        String batch = "[" + String.join(",", java.util.Collections.nCopies(batchSize, QUERY)) + "]";
+        Function<String, Supplier<HttpRequest>> graphql = body -> () -> HttpRequest.newBuilder(URI.create(gatewayUrl + "/graphql"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        Map<String, Supplier<HttpRequest>> scenarios = new LinkedHashMap<>();
+        scenarios.put("direct", () -> HttpRequest.newBuilder(URI.create(stubUrl + "/graphql"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(QUERY))
+                .build());
+        scenarios.put("graphql", graphql.apply(QUERY));
+        scenarios.put("graphql-batch", graphql.apply(batch));
+        scenarios.put("rest", () -> HttpRequest.newBuilder(URI.create(gatewayUrl + "/api/students")).GET().build());
+        return scenarios;
+    }
+
+    // Heap and threads held per request while the stub keeps `count` requests open
+    private static void memoryPerInFlight(StubUpstream stub, HttpClient client,
+                                          Map<String, Supplier<HttpRequest>> scenarios, int count) throws Exception {
+        Duration hold = Duration.ofSeconds(5);
+        stub.setSettings(new StubUpstream.Settings(StubUpstream.LatencyDistribution.parse("fixed:" + hold.toMillis()),
+                0, 0, 0, Duration.ZERO, Integer.getInteger("payloadBytes", 4096)));
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        System.out.printf("%nPer in-flight request (%d held open in the stub)%n", count);
+        System.out.printf("%-14s %12s %9s %16s%n", "scenario", "heap bytes", "threads", "vs direct bytes");
+        double directBytes = Double.NaN;
+        for (String name : List.of("direct", "graphql", "rest")) {
+            long heapBefore = usedHeap(memory);
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            List<CompletableFuture<HttpResponse<Void>>> pending = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                pending.add(client.sendAsync(scenarios.get(name).get(), HttpResponse.BodyHandlers.discarding()));
+            }
+            long deadline = System.nanoTime() + hold.toNanos();
+            while (stub.getInFlight() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            int held = stub.getInFlight();
+            double bytes = (double) (usedHeap(memory) - heapBefore) / Math.max(1, held);
+            double threads = (double) (ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore) / Math.max(1, held);
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+
+            if (name.equals("direct")) {
+                directBytes = bytes;
+            }
+            System.out.printf("%-14s %12.0f %9.2f %16.0f%s%n", name, bytes, threads, bytes - directBytes,
+                    held < count ? "  (only " + held + " reached the stub)" : "");
+        }
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double[] doubles(String values) {
+        String[] parts = values.split(",");
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Double.parseDouble(parts[i].trim());
+        }
+        return result;
+    }
+}
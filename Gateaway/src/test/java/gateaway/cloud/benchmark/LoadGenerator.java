@@ -0,0 +1,173 @@
+package gateaway.cloud.benchmark;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load: requests arrive at a fixed mean rate (Poisson arrivals)
+ * whether or not earlier ones have completed, like independent users do.
+ * Latency is measured from the scheduled arrival time, so a stalled server
+ * shows up in the percentiles instead of silently lowering the request rate
+ * (no coordinated omission). Arrivals beyond `maxInFlight` are counted as
+ * dropped rather than queued in the client.
+ */
+public class LoadGenerator {
+
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    public LoadGenerator(HttpClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Result run(Supplier<HttpRequest> requests, double ratePerSecond, Duration duration) {
+        Samples samples = new Samples((int) (ratePerSecond * duration.toSeconds() * 1.2) + 16);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong dropped = new AtomicLong();
+        double meanGapNanos = 1e9 / ratePerSecond;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long scheduled = next;
+            next += (long) (-meanGapNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                dropped.incrementAndGet();
+                continue;
+            }
+            client.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - scheduled;
+                inFlight.decrementAndGet();
+                if (error != null || response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                    return;
+                }
+                long upstream = response.headers().firstValueAsLong(StubUpstream.TIME_HEADER).orElse(-1) * 1000;
+                samples.add(latency, upstream);
+            });
+        }
+
+        // Let the last arrivals finish, they belong to this run
+        long drainDeadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        long elapsed = System.nanoTime() - start;
+        return samples.result(elapsed, errors.get(), dropped.get() + inFlight.get());
+    }
+
+    // Successful requests: latency and the stub's own time (-1 if not reported), in nanoseconds
+    private static final class Samples {
+        private long[] latencies;
+        private long[] upstream;
+        private int count;
+
+        Samples(int capacity) {
+            this.latencies = new long[capacity];
+            this.upstream = new long[capacity];
+        }
+
+        synchronized void add(long latency, long upstreamTime) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                upstream = Arrays.copyOf(upstream, count * 2);
+            }
+            latencies[count] = latency;
+            upstream[count] = upstreamTime;
+            count++;
+        }
+
+        synchronized Result result(long elapsedNanos, long errors, long dropped) {
+            long[] latency = Arrays.copyOf(latencies, count);
+            long[] overhead = new long[count];
+            long[] upstreamTimes = new long[count];
+            int reported = 0;
+            for (int i = 0; i < count; i++) {
+                if (upstream[i] >= 0) {
+                    upstreamTimes[reported] = upstream[i];
+                    overhead[reported] = latencies[i] - upstream[i];
+                    reported++;
+                }
+            }
+            return new Result(count, errors, dropped, elapsedNanos, latency,
+                    Arrays.copyOf(upstreamTimes, reported), Arrays.copyOf(overhead, reported));
+        }
+    }
+
+    /**
+     * Outcome of one run; percentiles in milliseconds, NaN when there is no sample
+     */
+    public static class Result {
+        private final long completed;
+        private final long errors;
+        private final long dropped;
+        private final long elapsedNanos;
+        private final long[] latency;
+        private final long[] upstream;
+        private final long[] overhead;
+
+        Result(long completed, long errors, long dropped, long elapsedNanos,
+               long[] latency, long[] upstream, long[] overhead) {
+            this.completed = completed;
+            this.errors = errors;
+            this.dropped = dropped;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.upstream = upstream;
+            this.overhead = overhead;
+            Arrays.sort(latency);
+            Arrays.sort(upstream);
+            Arrays.sort(overhead);
+        }
+
+        public double throughput() {
+            return completed / (elapsedNanos / 1e9);
+        }
+
+        public double latency(double quantile) {
+            return percentile(latency, quantile);
+        }
+
+        public double upstream(double quantile) {
+            return percentile(upstream, quantile);
+        }
+
+        // Latency minus the stub's own time, per request
+        public double overhead(double quantile) {
+            return percentile(overhead, quantile);
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gateaway.cloud.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the GraphQL service (and the Backend_spring REST routes).
+ *
+ * Every request waits for a delay drawn from a latency distribution, then
+ * answers with a JSON payload of the configured size: a GraphQL result for
+ * /graphql, a JSON array for anything else. A share of the requests can be
+ * failed with a 503, dropped (connection closed without a response) or
+ * stalled. The time spent in the stub is returned in X-Stub-Time-Micros so
+ * the caller can subtract it from the latency it observed.
+ */
+public class StubUpstream implements AutoCloseable {
+
+    public static final String TIME_HEADER = "X-Stub-Time-Micros";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile Settings settings;
+
+    public StubUpstream(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Requests currently inside the stub (waiting or writing)
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Change latency / faults / payload between runs
+     */
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Settings current = settings;
+        inFlight.incrementAndGet();
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+
+            double fault = ThreadLocalRandom.current().nextDouble();
+            if (fault < current.dropRate) {
+                // No status line: the caller sees the connection close mid-request
+                exchange.close();
+                return;
+            }
+            sleep(fault < current.dropRate + current.stallRate ? current.stall : current.latency.sample());
+
+            boolean error = fault >= current.dropRate + current.stallRate
+                    && fault < current.dropRate + current.stallRate + current.errorRate;
+            byte[] payload = error ? Settings.ERROR
+                    : exchange.getRequestURI().getPath().startsWith("/graphql") ? current.graphqlPayload : current.restPayload;
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set(TIME_HEADER, Long.toString((System.nanoTime() - start) / 1000));
+            exchange.sendResponseHeaders(error ? 503 : 200, payload.length);
+            exchange.getResponseBody().write(payload);
+            exchange.close();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * What the stub does with each request
+     */
+    public static class Settings {
+
+        private static final byte[] ERROR =
+                "{\"errors\":[{\"message\":\"Injected upstream failure\"}]}".getBytes(StandardCharsets.UTF_8);
+
+        private final LatencyDistribution latency;
+        private final double errorRate;
+        private final double dropRate;
+        private final double stallRate;
+        private final Duration stall;
+        private final byte[] graphqlPayload;
+        private final byte[] restPayload;
+
+        public Settings(LatencyDistribution latency, double errorRate, double dropRate,
+                        double stallRate, Duration stall, int payloadBytes) {
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.dropRate = dropRate;
+            this.stallRate = stallRate;
+            this.stall = stall;
+            this.graphqlPayload = payload("{\"data\":{\"allStudents\":[", "]}}", payloadBytes);
+            this.restPayload = payload("[", "]", payloadBytes);
+        }
+
+        public LatencyDistribution getLatency() {
+            return latency;
+        }
+
+        // Student-shaped rows until the payload reaches the requested size
+        private static byte[] payload(String prefix, String suffix, int size) {
+            StringBuilder json = new StringBuilder(prefix);
+            for (int id = 1; json.length() + suffix.length() < size; id++) {
+                if (id > 1) {
+                    json.append(',');
+                }
+                json.append("{\"id\":\"").append(id).append("\",\"firstName\":\"First").append(id)
+                        .append("\",\"lastName\":\"Last").append(id).append("\",\"email\":\"student").append(id)
+                        .append("@example.com\"}");
+            }
+            return json.append(suffix).toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Upstream service time. Parsed from "fixed:10", "uniform:5:50", "exponential:20",
+     * "lognormal:20:0.5" (median ms, sigma) or "bimodal:10:200:0.05" (fast ms, slow ms, slow share).
+     */
+    public interface LatencyDistribution {
+
+        Duration sample();
+
+        static LatencyDistribution parse(String spec) {
+            String[] parts = spec.split(":");
+            double[] p = new double[parts.length - 1];
+            for (int i = 1; i < parts.length; i++) {
+                p[i - 1] = Double.parseDouble(parts[i]);
+            }
+            return switch (parts[0]) {
+                case "fixed" -> () -> millis(p[0]);
+                case "uniform" -> () -> millis(p[0] + ThreadLocalRandom.current().nextDouble() * (p[1] - p[0]));
+                case "exponential" -> () -> millis(-p[0] * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+                case "lognormal" -> () -> millis(p[0] * Math.exp(p[1] * ThreadLocalRandom.current().nextGaussian()));
+                case "bimodal" -> () -> millis(ThreadLocalRandom.current().nextDouble() < p[2] ? p[1] : p[0]);
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            };
+        }
+
+        private static Duration millis(double millis) {
+            return Duration.ofNanos((long) (millis * 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package gateaway.cloud.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gateaway.cloud.graphql.GraphQLAnalysisProperties;
+import gateaway.cloud.graphql.GraphQLCostThrottle;
+import gateaway.cloud.graphql.GraphQLQueryAnalyzer;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLAnalysisFilterTests {
+
+    private static final String QUERY = "{ students { id } }";
+
+    private final GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+
+    private final GraphQLAnalysisFilter filter = new GraphQLAnalysisFilter();
+
+    @BeforeEach
+    void setUp() {
+        properties.setListSizes(Map.of("students", 100));
+        properties.setMaxBodySize(DataSize.ofBytes(256));
+        ReflectionTestUtils.setField(filter, "properties", properties);
+        ReflectionTestUtils.setField(filter, "analyzer", new GraphQLQueryAnalyzer(properties));
+        ReflectionTestUtils.setField(filter, "throttle", new GraphQLCostThrottle(properties));
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void aHashOnlyRequestIsChargedTheRegisteredCost() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = post("""
+                {"query": "%s", "extensions": %s}""".formatted(QUERY, extensions(sha256(QUERY))), chain);
+        assertEquals("101", response.getHeader("X-GraphQL-Cost"));
+
+        chain = new MockFilterChain();
+        response = post("""
+                {"extensions": %s}""".formatted(extensions(sha256(QUERY))), chain);
+        assertEquals(200, response.getStatus());
+        assertEquals("101", response.getHeader("X-GraphQL-Cost"));
+        assertTrue(chain.getRequest() instanceof CachedBodyRequest);
+    }
+
+    @Test
+    void anUnknownHashIsRejected() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = post("""
+                {"extensions": %s}""".formatted(extensions(sha256(QUERY))), chain);
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("PersistedQueryNotFound"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void aHashThatDoesNotMatchItsQueryIsRejected() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = post("""
+                {"query": "{ id }", "extensions": %s}""".formatted(extensions(sha256(QUERY))), chain);
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().contains("provided sha does not match query"));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void getRequestsWithOnlyExtensionsAreCheckedToo() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = get(null, extensions(sha256(QUERY)), chain);
+        assertEquals(400, response.getStatus());
+        assertNull(chain.getRequest());
+
+        get(QUERY, extensions(sha256(QUERY)), new MockFilterChain());
+        chain = new MockFilterChain();
+        response = get(null, extensions(sha256(QUERY)), chain);
+        assertEquals("101", response.getHeader("X-GraphQL-Cost"));
+        assertEquals(200, response.getStatus());
+
+        // Without query or extensions: the landing page
+        chain = new MockFilterChain();
+        response = get(null, null, chain);
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("X-GraphQL-Cost"));
+    }
+
+    @Test
+    void bodiesOverTheLimitAreRejected() throws Exception {
+        String body = "{\"query\": \"{ id }\", \"variables\": {\"padding\": \"" + "x".repeat(300) + "\"}}";
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = post(body, chain);
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+
+        // Chunked: no length up front
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/graphql") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContent(body.getBytes(StandardCharsets.UTF_8));
+        response = new MockHttpServletResponse();
+        filter.doFilter(chunked, response, new MockFilterChain());
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    void theBufferedBodyCanBeReadAsynchronously() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        String body = "{\"query\": \"{ id }\"}";
+        post(body, chain);
+
+        ServletInputStream input = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        boolean[] done = {false};
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (input.isReady() && !input.isFinished()) {
+                    read.write(input.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                done[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertTrue(done[0]);
+        assertEquals(body, read.toString(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse post(String body, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse get(String query, String extensions, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/graphql");
+        if (query != null) {
+            request.setParameter("query", query);
+        }
+        if (extensions != null) {
+            request.setParameter("extensions", extensions);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static String extensions(String hash) {
+        return "{\"persistedQuery\": {\"version\": 1, \"sha256Hash\": \"" + hash + "\"}}";
+    }
+
+    private static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package gateaway.cloud.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ManagementPortFilterTests {
+
+    @Test
+    void onlyHealthIsServedOnThePublicPort() throws Exception {
+        ManagementPortFilter filter = filter(9091, 9091);
+
+        assertEquals(404, request(filter, "/actuator/metrics", 9091).getStatus());
+        assertEquals(404, request(filter, "/actuator/metrics/gateway.deadline.exceeded", 9091).getStatus());
+        assertEquals(404, request(filter, "/actuator", 9091).getStatus());
+        assertEquals(200, request(filter, "/actuator/health", 9091).getStatus());
+        assertEquals(200, request(filter, "/actuator/health/liveness", 9091).getStatus());
+        assertEquals(200, request(filter, "/api/students", 9091).getStatus());
+    }
+
+    @Test
+    void metricsAreServedOnTheManagementPort() throws Exception {
+        ManagementPortFilter filter = filter(9091, 9092);
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/metrics");
+        request.setLocalPort(9092);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+
+        chain = new MockFilterChain();
+        request = new MockHttpServletRequest("GET", "/actuator/metrics");
+        request.setLocalPort(9091);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNull(chain.getRequest());
+    }
+
+    private static ManagementPortFilter filter(int serverPort, int managementPort) {
+        ManagementPortFilter filter = new ManagementPortFilter();
+        ReflectionTestUtils.setField(filter, "serverPort", serverPort);
+        ReflectionTestUtils.setField(filter, "managementPort", managementPort);
+        return filter;
+    }
+
+    private static MockHttpServletResponse request(ManagementPortFilter filter, String path, int port) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setLocalPort(port);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,240 @@
+package gateaway.cloud.graphql;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static gateaway.cloud.graphql.GraphQLQueryParserTests.nestedFields;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLQueryAnalyzerTests {
+
+    @Test
+    void measuresDepthAliasesFieldsAndCost() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setListSizes(Map.of("universities", 10, "students", 100));
+        properties.setFieldWeights(Map.of("email", 3));
+
+        QueryAnalysis analysis = new GraphQLQueryAnalyzer(properties).analyze("""
+                { all: universities { name students { id email } } }
+                """, null);
+
+        assertFalse(analysis.isRejected());
+        assertEquals(3, analysis.getDepth());
+        assertEquals(1, analysis.getAliases());
+        assertEquals(5, analysis.getFields());
+        // students = 1 + 100 × (id 1 + email 3), universities = 1 + 10 × (name 1 + students 401)
+        assertEquals(4021, analysis.getCost());
+    }
+
+    @Test
+    void rejectsQueriesDeeperThanTheLimit() {
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+
+        assertFalse(analyzer.analyze(nestedFields(5), null).isRejected());
+        QueryAnalysis analysis = analyzer.analyze(nestedFields(6), null);
+        assertEquals("Query depth 6 exceeds the maximum of 5", analysis.getError());
+        assertEquals(6, analysis.getDepth());
+    }
+
+    @Test
+    void depthCountsThroughFragments() {
+        QueryAnalysis analysis = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties()).analyze("""
+                { a { ...B } }
+                fragment B on T { b { ... on T { c { d { e { id } } } } } }
+                """, null);
+        assertEquals("Query depth 6 exceeds the maximum of 5", analysis.getError());
+    }
+
+    @Test
+    void rejectsTooManyAliases() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setMaxAliases(2);
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+
+        assertFalse(analyzer.analyze("{ a: id b: id }", null).isRejected());
+        assertEquals("Query uses 3 aliases, the maximum is 2",
+                analyzer.analyze("{ a: id b: id c: id }", null).getError());
+    }
+
+    @Test
+    void rejectsQueriesOverTheCostLimit() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setListSizes(Map.of("students", 100));
+        properties.setMaxCost(1000);
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+
+        assertEquals(1001, analyzer.analyze("{ students { a b c d e f g h i j } }", null).getCost());
+        assertEquals("Query cost 1001 exceeds the maximum of 1000",
+                analyzer.analyze("{ students { a b c d e f g h i j } }", null).getError());
+    }
+
+    @Test
+    void costSaturatesInsteadOfOverflowing() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setListSizes(Map.of("a", Integer.MAX_VALUE));
+        properties.setMaxDepth(10);
+        QueryAnalysis analysis = new GraphQLQueryAnalyzer(properties).analyze("{ a { a { a { a { a { id } } } } } }", null);
+
+        assertEquals(Long.MAX_VALUE, analysis.getCost());
+        assertTrue(analysis.isRejected());
+    }
+
+    @Test
+    void rejectsFragmentCycles() {
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+
+        assertEquals("Fragment 'A' spreads itself",
+                analyzer.analyze("{ ...A } fragment A on T { id ...A }", null).getError());
+        assertEquals("Fragment 'A' spreads itself",
+                analyzer.analyze("{ ...A } fragment A on T { ...B } fragment B on T { x { ...A } }", null).getError());
+    }
+
+    @Test
+    void rejectsUnknownFragments() {
+        QueryAnalysis analysis = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties())
+                .analyze("{ student { ...Missing } }", null);
+        assertEquals("Unknown fragment 'Missing'", analysis.getError());
+    }
+
+    @Test
+    void boundsChainsOfFragmentSpreads() {
+        // Spreads add no depth, so a long chain stays within max-depth
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+
+        assertFalse(analyzer.analyze(fragmentChain(15), null).isRejected());
+        assertEquals("Fragments nested deeper than 15 levels", analyzer.analyze(fragmentChain(16), null).getError());
+    }
+
+    @Test
+    void reusedFragmentsAreAnalyzedOnce() {
+        // Each level spreads the next one twice: 4096 leaves if expanded naively
+        StringBuilder query = new StringBuilder("{ ...F0 }");
+        for (int i = 0; i < 12; i++) {
+            query.append(" fragment F").append(i).append(" on T { ...F").append(i + 1).append(" ...F").append(i + 1).append(" }");
+        }
+        query.append(" fragment F12 on T { id }");
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setMaxCost(Long.MAX_VALUE);
+
+        QueryAnalysis analysis = new GraphQLQueryAnalyzer(properties).analyze(query.toString(), null);
+
+        assertNull(analysis.getError());
+        assertEquals(4096, analysis.getCost());
+    }
+
+    @Test
+    void nestingPastTheMarginIsASyntaxError() {
+        // max-depth 5 plus a margin of 10
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+        String query = "{ a(v: " + "[".repeat(15) + "1" + "]".repeat(15) + ") }";
+
+        QueryAnalysis analysis = analyzer.analyze(query, null);
+        assertTrue(analysis.getError().startsWith("Syntax error: Document nested deeper than 15 levels"), analysis.getError());
+    }
+
+    @Test
+    void introspectionCanBeDisabled() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setIntrospectionEnabled(false);
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+
+        assertEquals("Introspection is disabled", analyzer.analyze("{ __schema { types { name } } }", null).getError());
+        assertFalse(analyzer.analyze("{ students { __typename id } }", null).isRejected());
+    }
+
+    @Test
+    void selectsTheNamedOperation() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setListSizes(Map.of("students", 100));
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+        String document = "query Cheap { id } query Expensive { students { id } }";
+
+        assertEquals(1, analyzer.analyze(document, "Cheap").getCost());
+        assertEquals(101, analyzer.analyze(document, "Expensive").getCost());
+        assertEquals("Operation name is required when the document has several operations",
+                analyzer.analyze(document, null).getError());
+        assertEquals("Unknown operation 'Other'", analyzer.analyze(document, "Other").getError());
+    }
+
+    @Test
+    void rejectsMissingAndOverlongQueries() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setMaxQueryLength(20);
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+
+        assertEquals("Missing query", analyzer.analyze(" ", null).getError());
+        assertEquals("Query is longer than 20 characters", analyzer.analyze("{ " + "a ".repeat(20) + "}", null).getError());
+        assertTrue(analyzer.analyze("{ a(", null).getError().startsWith("Syntax error: "));
+    }
+
+    @Test
+    void analysesAreCachedPerQueryAndOperation() {
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+        QueryAnalysis first = analyzer.analyze("{ id }", null);
+
+        assertSame(first, analyzer.analyze("{ id }", null));
+        analyzer.clearCache();
+        assertNotSame(first, analyzer.analyze("{ id }", null));
+    }
+
+    @Test
+    void persistedQueriesAreKnownOnceRegistered() {
+        GraphQLAnalysisProperties properties = new GraphQLAnalysisProperties();
+        properties.setListSizes(Map.of("students", 100));
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(properties);
+        String query = "{ students { id } }";
+        String hash = sha256(query);
+
+        assertNull(analyzer.analyzePersisted(hash, null));
+        QueryAnalysis registered = analyzer.register(hash, query, null);
+        assertEquals(101, registered.getCost());
+        assertSame(registered, analyzer.analyzePersisted(hash.toUpperCase(), null));
+        // Registered for one operation name only
+        assertNull(analyzer.analyzePersisted(hash, "Other"));
+
+        analyzer.clearCache();
+        assertNull(analyzer.analyzePersisted(hash, null));
+    }
+
+    @Test
+    void aPersistedQueryMustMatchItsHash() {
+        GraphQLQueryAnalyzer analyzer = new GraphQLQueryAnalyzer(new GraphQLAnalysisProperties());
+        String expensive = sha256("{ students { id } }");
+
+        assertEquals("provided sha does not match query", analyzer.register(expensive, "{ id }", null).getError());
+        assertNull(analyzer.analyzePersisted(expensive, null));
+        // Rejected queries are not registered either
+        String invalid = "{ a(";
+        assertTrue(analyzer.register(sha256(invalid), invalid, null).isRejected());
+        assertNull(analyzer.analyzePersisted(sha256(invalid), null));
+    }
+
+    static String sha256(String query) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // { ...F1 } with F1 spreading F2 ... down to F<length>, which selects a single field
+    private static String fragmentChain(int length) {
+        StringBuilder query = new StringBuilder("{ ...F1 }");
+        for (int i = 1; i < length; i++) {
+            query.append(" fragment F").append(i).append(" on T { ...F").append(i + 1).append(" }");
+        }
+        query.append(" fragment F").append(length).append(" on T { id }");
+        return query.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package gateaway.cloud.graphql;
+
+import gateaway.cloud.graphql.GraphQLQueryParser.Document;
+import gateaway.cloud.graphql.GraphQLQueryParser.GraphQLSyntaxException;
+import gateaway.cloud.graphql.GraphQLQueryParser.Operation;
+import gateaway.cloud.graphql.GraphQLQueryParser.Selection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphQLQueryParserTests {
+
+    @Test
+    void parsesOperationsFragmentsAndTheSelectionTree() {
+        Document document = GraphQLQueryParser.parse("""
+                query Students($id: ID!, $tags: [[String!]] = [["a"]]) @cached(ttl: 5) {
+                  first: student(id: $id, filter: {name: "Zoë", ages: [18, -1.5e3]}) {
+                    ...Names
+                    ... on Student @include(if: true) { email }
+                  }
+                }
+                # a comment
+                fragment Names on Student { firstName, lastName }
+                mutation { deleteStudent(id: 1) }
+                """);
+
+        assertEquals(2, document.getOperations().size());
+        Operation query = document.getOperations().get(0);
+        assertEquals("query", query.getType());
+        assertEquals("Students", query.getName());
+        assertEquals("mutation", document.getOperations().get(1).getType());
+        assertNull(document.getOperations().get(1).getName());
+
+        Selection student = query.getSelections().get(0);
+        assertEquals(Selection.Kind.FIELD, student.getKind());
+        assertEquals("first", student.getAlias());
+        assertEquals("student", student.getName());
+        List<Selection> children = student.getChildren();
+        assertEquals(Selection.Kind.FRAGMENT_SPREAD, children.get(0).getKind());
+        assertEquals("Names", children.get(0).getName());
+        assertEquals(Selection.Kind.INLINE_FRAGMENT, children.get(1).getKind());
+        assertEquals("email", children.get(1).getChildren().get(0).getName());
+
+        assertEquals(List.of("firstName", "lastName"),
+                document.getFragments().get("Names").stream().map(Selection::getName).toList());
+    }
+
+    @Test
+    void anonymousShorthandIsAQuery() {
+        Operation operation = GraphQLQueryParser.parse("{ universities { id } }").getOperations().get(0);
+        assertEquals("query", operation.getType());
+        assertNull(operation.getName());
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        assertSyntaxError("   ", "Empty document");
+        assertSyntaxError("{ }", "Empty selection set");
+        assertSyntaxError("{ student(name: \"Zoë) { id } }", "Unterminated string");
+        assertSyntaxError("{ student { id }", "Unexpected end of document");
+        assertSyntaxError("schema { query: Query }", "Unexpected definition 'schema'");
+    }
+
+    @Test
+    void selectionSetsDeeperThanTheLimitAreRejected() {
+        assertDoesNotThrow(() -> GraphQLQueryParser.parse(nestedFields(5), 5));
+        assertSyntaxError(() -> GraphQLQueryParser.parse(nestedFields(6), 5), "Document nested deeper than 5 levels");
+    }
+
+    @Test
+    void listAndObjectValuesCountAsNesting() {
+        // One level for the operation's selection set, the rest for the value
+        String lists = "{ a(v: " + "[".repeat(4) + "1" + "]".repeat(4) + ") }";
+        assertDoesNotThrow(() -> GraphQLQueryParser.parse(lists, 5));
+        String deeperLists = "{ a(v: " + "[".repeat(5) + "1" + "]".repeat(5) + ") }";
+        assertSyntaxError(() -> GraphQLQueryParser.parse(deeperLists, 5), "Document nested deeper than 5 levels");
+
+        String objects = "{ a(v: " + "{x: ".repeat(5) + "1" + "}".repeat(5) + ") }";
+        assertSyntaxError(() -> GraphQLQueryParser.parse(objects, 5), "Document nested deeper than 5 levels");
+    }
+
+    @Test
+    void listTypesCountAsNesting() {
+        String type = "[".repeat(6) + "Int" + "]".repeat(6);
+        assertSyntaxError(() -> GraphQLQueryParser.parse("query ($v: " + type + ") { a }", 5),
+                "Document nested deeper than 5 levels");
+    }
+
+    @Test
+    void hostileNestingFailsWithASyntaxErrorNotAStackOverflow() {
+        String values = "{ a(v: " + "[".repeat(100_000) + ") }";
+        assertSyntaxError(() -> GraphQLQueryParser.parse(values), "Document nested deeper than "
+                + GraphQLQueryParser.DEFAULT_MAX_NESTING + " levels");
+        String inline = "{ " + "... { ".repeat(100_000);
+        assertSyntaxError(() -> GraphQLQueryParser.parse(inline), "Document nested deeper than");
+    }
+
+    // { f1 { f2 { ... { id } } } } with the given number of selection sets
+    static String nestedFields(int levels) {
+        StringBuilder query = new StringBuilder();
+        for (int level = 1; level < levels; level++) {
+            query.append("{ f").append(level).append(' ');
+        }
+        query.append("{ id }");
+        query.append(" }".repeat(levels - 1));
+        return query.toString();
+    }
+
+    private static void assertSyntaxError(String query, String message) {
+        assertSyntaxError(() -> GraphQLQueryParser.parse(query), message);
+    }
+
+    private static void assertSyntaxError(Runnable parse, String message) {
+        GraphQLSyntaxException error = assertThrows(GraphQLSyntaxException.class, parse::run);
+        assertTrue(error.getMessage().contains(message), error.getMessage());
+    }
+}
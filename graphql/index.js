@@ -1,5 +1,10 @@
 require("dotenv").config();
-const { ApolloServer, gql } = require("apollo-server");
+const { ApolloServer, ApolloError, gql } = require("apollo-server");
+const { AsyncLocalStorage } = require("async_hooks");
+
+// Per-request state visible to callApi (X-Request-Id, token, verified
+// claims and deadline from the gateway)
+const requestContext = new AsyncLocalStorage();
 
 // Base URLs from environment variables
 const STUDENT_BASE = process.env.STUDENT_BASE;
@@ -7,15 +12,56 @@ const COURSE_BASE = process.env.COURSE_BASE;
 const AI_BASE = process.env.AI_BASE;
 const PORT = process.env.PORT || 9000;
 
-// Helper function for fetch with JSON
-async function callApi(method, url, body = undefined) {
+// Calls skipped (rejected) or aborted because the gateway's deadline passed
+const deadlineStats = { rejected: 0, aborted: 0 };
+
+function deadlineExceeded(outcome, method, url) {
+  deadlineStats[outcome]++;
+  const store = requestContext.getStore();
+  console.warn(
+    `⏱️ Deadline exceeded (${outcome}) ${method} ${url} [${store?.requestId || "-"}]`,
+    deadlineStats
+  );
+  return new ApolloError("Request deadline exceeded", "DEADLINE_EXCEEDED");
+}
+
+// Helper function for fetch with JSON. With a deadline (X-Request-Timeout-Ms
+// from the gateway) a call gets only the time left, which is passed on to
+// the backend, and none is started once it is spent.
+async function callApi(method, url, body = undefined, idempotencyKey = undefined) {
   const opts = { method, headers: {} };
+  const store = requestContext.getStore();
+  if (store?.deadline !== undefined) {
+    const remaining = store.deadline - Date.now();
+    if (remaining <= 0) {
+      throw deadlineExceeded("rejected", method, url);
+    }
+    opts.headers["X-Request-Timeout-Ms"] = String(remaining);
+    opts.signal = AbortSignal.timeout(remaining);
+  }
+  const requestId = store?.requestId;
+  if (requestId) opts.headers["X-Request-Id"] = requestId;
+  if (store?.authorization) opts.headers["Authorization"] = store.authorization;
+  // Claims the gateway verified and signed, only Spring Boot checks them
+  if (store?.authClaims && STUDENT_BASE && url.startsWith(STUDENT_BASE)) {
+    opts.headers["X-Auth-Claims"] = store.authClaims;
+    opts.headers["X-Auth-Claims-Signature"] = store.authClaimsSignature;
+  }
+  if (idempotencyKey) opts.headers["Idempotency-Key"] = idempotencyKey;
   if (body !== undefined) {
     opts.headers["Content-Type"] = "application/json";
     opts.body = JSON.stringify(body);
   }
-  const res = await fetch(url, opts);
-  const text = await res.text();
+  let text;
+  try {
+    const res = await fetch(url, opts);
+    text = await res.text();
+  } catch (error) {
+    if (error.name === "TimeoutError") {
+      throw deadlineExceeded("aborted", method, url);
+    }
+    throw error;
+  }
   try {
     return JSON.parse(text);
   } catch {
@@ -23,6 +69,33 @@ async function callApi(method, url, body = undefined) {
   }
 }
 
+// Per-field key derived from the client's Idempotency-Key, so a retried
+// operation repeats the same backend write while two mutations in one
+// operation (distinct aliases) do not collide
+function idempotencyKeyFor(info) {
+  const key = requestContext.getStore()?.idempotencyKey;
+  return key ? `${key}:${info.path.key}` : undefined;
+}
+
+// A university's students are paged through /universities/{id}/students
+// until the cursor runs out, only when a query selects them (University.students)
+const STUDENT_PAGE = 1000;
+
+async function allStudentsOf(university) {
+  // A response with ?include=students already carries the first page
+  let students = university.students ?? [];
+  let cursor = university.students ? university.studentsCursor : 0;
+  while (cursor != null) {
+    const page = await callApi(
+      "GET",
+      `${STUDENT_BASE}/universities/${university.id}/students?after=${cursor}&limit=${STUDENT_PAGE}`
+    );
+    students = students.concat(page?.students ?? []);
+    cursor = page?.cursor;
+  }
+  return students;
+}
+
 // GraphQL Schema
 const typeDefs = gql`
   # ===================================================================
@@ -276,9 +349,10 @@ const resolvers = {
     },
     universityByName: async (_, { name }) => {
       const universities = await callApi("GET", `${STUDENT_BASE}/universities`);
-      return universities.find((u) =>
+      const university = universities.find((u) =>
         u.name.toLowerCase().includes(name.toLowerCase())
       );
+      return university && resolvers.Query.university(null, { id: university.id });
     },
 
     // ===================================================================
@@ -330,18 +404,22 @@ const resolvers = {
     },
   },
 
+  University: {
+    students: (university) => allStudentsOf(university),
+  },
+
   Mutation: {
     // ===================================================================
     // STUDENTS (Spring Boot)
     // ===================================================================
-    createStudent: async (_, { firstName, lastName, email, universityId }) => {
+    createStudent: async (_, { firstName, lastName, email, universityId }, __, info) => {
       const body = {
         firstName,
         lastName,
         email,
         university: universityId ? { id: Number(universityId) } : null,
       };
-      return callApi("POST", `${STUDENT_BASE}/students`, body);
+      return callApi("POST", `${STUDENT_BASE}/students`, body, idempotencyKeyFor(info));
     },
     updateStudent: async (
       _,
@@ -367,11 +445,13 @@ const resolvers = {
     // ===================================================================
     // UNIVERSITIES (Spring Boot)
     // ===================================================================
-    createUniversity: async (_, { name, location }) => {
-      return callApi("POST", `${STUDENT_BASE}/universities`, {
-        name,
-        location,
-      });
+    createUniversity: async (_, { name, location }, __, info) => {
+      return callApi(
+        "POST",
+        `${STUDENT_BASE}/universities`,
+        { name, location },
+        idempotencyKeyFor(info)
+      );
     },
     updateUniversity: async (_, { id, name, location }) => {
       const body = {};
@@ -540,6 +620,24 @@ const server = new ApolloServer({
   resolvers,
   csrfPrevention: true,
   cache: "bounded",
+  context: ({ req }) => {
+    const requestId = req.headers["x-request-id"];
+    const idempotencyKey = req.headers["idempotency-key"];
+    const authorization = req.headers["authorization"];
+    const authClaims = req.headers["x-auth-claims"];
+    const authClaimsSignature = req.headers["x-auth-claims-signature"];
+    const budget = Number.parseInt(req.headers["x-request-timeout-ms"], 10);
+    const deadline = Number.isFinite(budget) ? Date.now() + budget : undefined;
+    requestContext.enterWith({
+      requestId,
+      idempotencyKey,
+      authorization,
+      authClaims,
+      authClaimsSignature,
+      deadline,
+    });
+    return { requestId };
+  },
   cors: {
     origin: [
       "https://front-end-service-aov6.onrender.com",